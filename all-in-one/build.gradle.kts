@@ -0,0 +1,17 @@
+dependencies {
+    implementation(project(":common"))
+    implementation(project(":order-service"))
+    implementation(project(":inventory-service"))
+    implementation(project(":notification-service"))
+    implementation("org.springframework.boot:spring-boot-starter-aop")
+}
+
+// כל שירות טוען את ה-application.yaml שלו מ-services/<service>.yaml - בשלושת ה-jars הקובץ נקרא application.yaml
+tasks.named<ProcessResources>("processResources") {
+    listOf("order-service", "inventory-service", "notification-service").forEach { service ->
+        from(project(":$service").file("src/main/resources/application.yaml")) {
+            rename { "$service.yaml" }
+            into("services")
+        }
+    }
+}
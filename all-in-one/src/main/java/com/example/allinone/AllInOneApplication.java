@@ -0,0 +1,82 @@
+package com.example.allinone;
+
+import com.example.common.transport.EventBus;
+import com.example.common.transport.InMemoryEventBus;
+import com.example.inventoryservice.InventoryServiceApplication;
+import com.example.notificationservice.NotificationServiceApplication;
+import com.example.orderservice.OrderServiceApplication;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Map;
+
+/**
+ * הרצת שלושת השירותים ב-JVM אחד (all-in-one)
+ * ה-context האב מחזיק {@link InMemoryEventBus} יחיד; כל שירות רץ כ-context בן עם מחלקת ה-Application,
+ * ההגדרות והפורט שלו, ומקבל את ה-EventBus מהאב במקום ליצור משלו.
+ * order-created, inventory-check-result ו-order-status-changed עוברים כאובייקטים דרך ring buffer בזיכרון,
+ * ללא סריאליזציה וללא Kafka. מחלקות השירות אינן משתנות: order-status-changed, שנשלח ב-KafkaTemplate,
+ * מועבר ל-EventBus על ידי {@link KafkaToEventBusBridge}. Redis עדיין נדרש לאחסון ההזמנות
+ */
+@Configuration
+@Slf4j
+public class AllInOneApplication {
+
+    private static final String CONFIG_LOCATION = "classpath:/all-in-one.yaml";
+
+    @Value("${events.concurrency:8}")
+    private int concurrency;
+
+    @Value("${events.max-attempts:3}")
+    private int maxAttempts;
+
+    /**
+     * ה-EventBus המשותף לכל השירותים
+     */
+    @Bean
+    public EventBus eventBus(@Value("${events.memory.capacity:65536}") int capacity) {
+        log.info("All-in-one event bus - Capacity: {}, Concurrency: {}, Max attempts: {}", capacity, concurrency, maxAttempts);
+        return new InMemoryEventBus(capacity, concurrency, maxAttempts);
+    }
+
+    /**
+     * נקודת הכניסה למצב all-in-one
+     * השירותים עולים לפי סדר הזרימה; ארגומנטים משורת הפקודה מועברים לכל השירותים
+     * @param args ארגומנטים מהשורת פקודה
+     */
+    public static void main(String[] args) {
+        ConfigurableApplicationContext parent = new SpringApplicationBuilder(AllInOneApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(Map.of("spring.config.location", CONFIG_LOCATION))
+                .run(args);
+
+        startService(parent, "order-service", args, OrderServiceApplication.class, KafkaToEventBusBridge.class,
+                DecisionLatencyProbe.class);
+        startService(parent, "inventory-service", args, InventoryServiceApplication.class, KafkaToEventBusBridge.class,
+                OrderStatusChangedRelay.class);
+        startService(parent, "notification-service", args, NotificationServiceApplication.class, KafkaToEventBusBridge.class);
+        log.info("=== ALL-IN-ONE STARTED === order-service, inventory-service and notification-service share an in-memory event bus");
+    }
+
+    /**
+     * הפעלת שירות כ-context בן
+     * ההגדרות של השירות נטענות מ-services/{name}.yaml (העתק של ה-application.yaml שלו),
+     * ו-all-in-one.yaml גובר עליהן (transport בזיכרון, כיבוי רכיבי Kafka)
+     */
+    private static ConfigurableApplicationContext startService(ConfigurableApplicationContext parent, String name,
+                                                               String[] args, Class<?>... sources) {
+        return new SpringApplicationBuilder(sources)
+                .parent(parent)
+                .bannerMode(Banner.Mode.OFF)
+                .properties(Map.of(
+                        "spring.config.location", "classpath:/services/" + name + ".yaml",
+                        "spring.config.additional-location", CONFIG_LOCATION))
+                .run(args);
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.allinone;
+
+import com.example.common.events.InventoryCheckResultEvent;
+import com.example.common.events.OrderCreatedEvent;
+import com.example.common.transport.EventBus;
+import com.example.common.transport.EventHandler;
+import com.example.common.transport.EventSubscription;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * מדידת latency של החלטת המלאי מקצה לקצה במצב all-in-one
+ * נרשם ל-EventBus כ-group נפרד על order-created ועל inventory-check-result, ומודד לכל הזמנה את הזמן
+ * מקבלת אירוע היצירה ועד קבלת תוצאת בדיקת המלאי (בדיקה, שמירת מלאי ופרסום התוצאה).
+ * זהו קו הבסיס ללא רשת וללא סריאליזציה, להשוואה מול אותה מדידה בפריסה המבוזרת.
+ * מיוצא כ-Timer all-in-one.decision.latency ב-actuator של order-service ומסוכם בלוג בכל log-interval-ms
+ */
+@Slf4j
+public class DecisionLatencyProbe implements SmartLifecycle {
+
+    private static final String GROUP = "all-in-one-latency-probe";
+    private static final long PENDING_TTL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final EventBus eventBus;
+    private final Timer decisionLatency;
+    private final Map<String, Long> pending = new ConcurrentHashMap<>();
+    private final List<EventSubscription> subscriptions = new ArrayList<>();
+
+    @Value("${all-in-one.latency.log-interval-ms:60000}")
+    private long logIntervalMs;
+
+    private ScheduledExecutorService scheduler;
+    private long lastCount;
+    private volatile boolean running;
+
+    public DecisionLatencyProbe(EventBus eventBus, MeterRegistry meterRegistry) {
+        this.eventBus = eventBus;
+        this.decisionLatency = Timer.builder("all-in-one.decision.latency")
+                .description("Time from order-created to inventory-check-result within one JVM")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void start() {
+        subscriptions.add(eventBus.subscribe(GROUP, new EventHandler<OrderCreatedEvent>() {
+
+            @Override
+            public String topic() {
+                return "order-created";
+            }
+
+            @Override
+            public Class<OrderCreatedEvent> type() {
+                return OrderCreatedEvent.class;
+            }
+
+            @Override
+            public void handle(String key, OrderCreatedEvent event) {
+                pending.put(event.getOrderId(), System.nanoTime());
+            }
+        }));
+        subscriptions.add(eventBus.subscribe(GROUP, new EventHandler<InventoryCheckResultEvent>() {
+
+            @Override
+            public String topic() {
+                return "inventory-check-result";
+            }
+
+            @Override
+            public Class<InventoryCheckResultEvent> type() {
+                return InventoryCheckResultEvent.class;
+            }
+
+            @Override
+            public void handle(String key, InventoryCheckResultEvent event) {
+                Long createdNanos = pending.remove(event.getOrderId());
+                if (createdNanos != null) {
+                    decisionLatency.record(System.nanoTime() - createdNanos, TimeUnit.NANOSECONDS);
+                }
+            }
+        }));
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "all-in-one-latency-probe");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::report, logIntervalMs, logIntervalMs, TimeUnit.MILLISECONDS);
+        running = true;
+        log.info("Decision latency probe started - Transport: {}, Log interval: {} ms", eventBus.transport(), logIntervalMs);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        subscriptions.forEach(EventSubscription::close);
+        subscriptions.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void report() {
+        // הזמנות שלא קיבלו תוצאה (כשל בבדיקה) אינן נשארות במפה
+        long expired = System.nanoTime() - PENDING_TTL_NANOS;
+        pending.values().removeIf(createdNanos -> createdNanos < expired);
+
+        HistogramSnapshot snapshot = decisionLatency.takeSnapshot();
+        if (snapshot.count() == lastCount) {
+            return;
+        }
+        lastCount = snapshot.count();
+        double p50 = 0;
+        double p99 = 0;
+        for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+            if (percentile.percentile() == 0.5) {
+                p50 = percentile.value(TimeUnit.MICROSECONDS);
+            } else if (percentile.percentile() == 0.99) {
+                p99 = percentile.value(TimeUnit.MICROSECONDS);
+            }
+        }
+        log.info("Decision latency - Orders: {}, Mean: {} us, p50: {} us, p99: {} us, Max: {} us, Pending: {}",
+                snapshot.count(), String.format("%.1f", snapshot.mean(TimeUnit.MICROSECONDS)), String.format("%.1f", p50),
+                String.format("%.1f", p99), String.format("%.1f", snapshot.max(TimeUnit.MICROSECONDS)), pending.size());
+    }
+}
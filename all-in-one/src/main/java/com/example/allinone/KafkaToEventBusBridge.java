@@ -0,0 +1,64 @@
+package com.example.allinone;
+
+import com.example.common.transport.EventBus;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.kafka.config.AbstractKafkaListenerContainerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * התאמת ה-wiring של שירות להרצה ב-all-in-one, ללא Kafka וללא שינוי במחלקות השירות
+ * ה-KafkaTemplate של השירות מוחלף בתת-מחלקה ששולחת את ה-topics שב-{@link #BRIDGED_TOPICS} דרך ה-EventBus,
+ * ו-listener containers של Kafka אינם עולים (אין broker). הצד הצורך של topics אלו הוא {@link OrderStatusChangedRelay}
+ */
+public class KafkaToEventBusBridge implements BeanPostProcessor {
+
+    /**
+     * topics שהשירותים שולחים ב-KafkaTemplate ולא דרך ה-EventBus
+     */
+    static final Set<String> BRIDGED_TOPICS = Set.of("order-status-changed");
+
+    private final ObjectProvider<EventBus> eventBus;
+
+    public KafkaToEventBusBridge(ObjectProvider<EventBus> eventBus) {
+        this.eventBus = eventBus;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof AbstractKafkaListenerContainerFactory<?, ?, ?> factory) {
+            factory.setAutoStartup(false);
+        } else if (bean instanceof KafkaTemplate<?, ?> template) {
+            return new EventBusKafkaTemplate<>(template, eventBus);
+        }
+        return bean;
+    }
+
+    /**
+     * KafkaTemplate ששולח את ה-topics המגושרים ל-EventBus; שאר השליחות עוברות ל-Kafka כרגיל
+     */
+    private static final class EventBusKafkaTemplate<K, V> extends KafkaTemplate<K, V> {
+
+        private final ObjectProvider<EventBus> eventBus;
+
+        private EventBusKafkaTemplate(KafkaTemplate<K, V> template, ObjectProvider<EventBus> eventBus) {
+            super(template.getProducerFactory());
+            this.eventBus = eventBus;
+            setDefaultTopic(template.getDefaultTopic());
+        }
+
+        @Override
+        public CompletableFuture<SendResult<K, V>> send(String topic, K key, V data) {
+            if (!BRIDGED_TOPICS.contains(topic)) {
+                return super.send(topic, key, data);
+            }
+            return eventBus.getObject().publish(topic, String.valueOf(key), data)
+                    .thenApply(ignored -> new SendResult<>(new ProducerRecord<>(topic, key, data), null));
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.allinone;
+
+import com.example.common.events.OrderStatusChangedEvent;
+import com.example.common.transport.EventHandler;
+import com.example.inventoryservice.listener.OrderStatusListener;
+
+/**
+ * מסירת אירועי order-status-changed מה-EventBus ל-{@link OrderStatusListener} של שירות המלאי
+ * ב-all-in-one ה-listener אינו מחובר ל-Kafka; האירועים מגיעים דרך {@link KafkaToEventBusBridge}
+ * ונרשמים ל-EventBus על ידי EventHandlerRegistrar כמו שאר ה-handlers של השירות
+ */
+public class OrderStatusChangedRelay implements EventHandler<OrderStatusChangedEvent> {
+
+    private final OrderStatusListener orderStatusListener;
+
+    public OrderStatusChangedRelay(OrderStatusListener orderStatusListener) {
+        this.orderStatusListener = orderStatusListener;
+    }
+
+    @Override
+    public String topic() {
+        return "order-status-changed";
+    }
+
+    @Override
+    public Class<OrderStatusChangedEvent> type() {
+        return OrderStatusChangedEvent.class;
+    }
+
+    @Override
+    public void handle(String key, OrderStatusChangedEvent event) {
+        orderStatusListener.handleOrderStatusChanged(event);
+    }
+}
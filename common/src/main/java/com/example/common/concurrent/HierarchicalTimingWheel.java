@@ -0,0 +1,228 @@
+package com.example.common.concurrent;
+
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * גלגל זמן היררכי לתזמון מיליוני פקיעות בעלות O(1) לפעולה
+ * כל רמה היא מערך של דליים (רשימות מקושרות דו-כיווניות), והטווח של כל רמה
+ * גדול פי גודל הגלגל מהרמה שמתחתיה. רשומה נכנסת לרמה הנמוכה ביותר שמכילה את
+ * מועד הפקיעה שלה, ועוברת (cascade) לרמה נמוכה יותר כשהגלגל מתקרב אליה.
+ * המבנה אינו thread-safe - הוא שייך לתהליכון יחיד שמבצע schedule, cancel ו-advance
+ *
+ * @param <T> סוג המטען שמוחזר בעת פקיעה
+ */
+public final class HierarchicalTimingWheel<T> {
+
+    private final long tickMs;
+    private final long startMs;
+    private final int wheelBits;
+    private final int wheelMask;
+    private final Bucket<T>[][] levels;
+    private long currentTick;
+    private int size;
+
+    /**
+     * יצירת גלגל זמן
+     *
+     * @param tickMs    משך tick במילישניות - הרזולוציה של הפקיעה
+     * @param wheelSize מספר הדליים בכל רמה (יעוגל לחזקה של 2)
+     * @param levelCount מספר הרמות
+     * @param startMs   זמן ההתחלה במילישניות
+     */
+    @SuppressWarnings("unchecked")
+    public HierarchicalTimingWheel(long tickMs, int wheelSize, int levelCount, long startMs) {
+        if (tickMs <= 0 || wheelSize < 2 || levelCount <= 0) {
+            throw new IllegalArgumentException("Timing wheel requires a positive tick, wheel size >= 2 and at least one level");
+        }
+        int roundedSize = Integer.highestOneBit(wheelSize - 1) << 1;
+        this.wheelBits = Integer.numberOfTrailingZeros(roundedSize);
+        if ((long) wheelBits * levelCount >= Long.SIZE - 1) {
+            throw new IllegalArgumentException("Timing wheel span exceeds the tick range");
+        }
+        this.tickMs = tickMs;
+        this.startMs = startMs;
+        this.wheelMask = roundedSize - 1;
+        this.levels = new Bucket[levelCount][roundedSize];
+        for (Bucket<T>[] level : levels) {
+            for (int i = 0; i < roundedSize; i++) {
+                level[i] = new Bucket<>();
+            }
+        }
+    }
+
+    /**
+     * תזמון פקיעה
+     * מועד שכבר עבר יפקע ב-tick הבא
+     *
+     * @param payload    המטען שיוחזר בפקיעה
+     * @param deadlineMs מועד הפקיעה במילישניות
+     * @return ידית לביטול
+     */
+    public Timeout<T> schedule(T payload, long deadlineMs) {
+        Objects.requireNonNull(payload, "Timing wheel payload cannot be null");
+        long deadlineTick = Math.max(ceilTick(deadlineMs), currentTick + 1);
+        Timeout<T> timeout = new Timeout<>(payload, deadlineTick);
+        place(timeout);
+        size++;
+        return timeout;
+    }
+
+    /**
+     * ביטול פקיעה מתוזמנת
+     *
+     * @param timeout הידית שהוחזרה מ-schedule
+     * @return true אם בוטלה, false אם כבר פקעה או בוטלה
+     */
+    public boolean cancel(Timeout<T> timeout) {
+        if (timeout == null || timeout.bucket == null) {
+            return false;
+        }
+        timeout.bucket.remove(timeout);
+        size--;
+        return true;
+    }
+
+    /**
+     * קידום הגלגל עד הזמן הנתון ופקיעת כל הרשומות שמועדן הגיע
+     *
+     * @param nowMs   הזמן הנוכחי במילישניות
+     * @param expired פעולה שמופעלת על כל מטען שפקע
+     * @return מספר הרשומות שפקעו
+     */
+    public int advance(long nowMs, Consumer<T> expired) {
+        long targetTick = Math.floorDiv(nowMs - startMs, tickMs);
+        if (size == 0) {
+            currentTick = Math.max(currentTick, targetTick);
+            return 0;
+        }
+
+        int expiredCount = 0;
+        while (currentTick < targetTick && size > 0) {
+            currentTick++;
+            for (int level = levels.length - 1; level > 0; level--) {
+                int shift = wheelBits * level;
+                if ((currentTick & ((1L << shift) - 1)) == 0) {
+                    cascade(levels[level][(int) ((currentTick >>> shift) & wheelMask)]);
+                }
+            }
+
+            Bucket<T> bucket = levels[0][(int) (currentTick & wheelMask)];
+            Timeout<T> timeout;
+            while ((timeout = bucket.poll()) != null) {
+                size--;
+                expiredCount++;
+                expired.accept(timeout.payload);
+            }
+        }
+        currentTick = Math.max(currentTick, targetTick);
+        return expiredCount;
+    }
+
+    /**
+     * @return מספר הפקיעות הממתינות
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return משך tick במילישניות
+     */
+    public long getTickMs() {
+        return tickMs;
+    }
+
+    private void cascade(Bucket<T> bucket) {
+        Timeout<T> timeout;
+        while ((timeout = bucket.poll()) != null) {
+            place(timeout);
+        }
+    }
+
+    /**
+     * הכנסת רשומה לרמה הנמוכה ביותר שמכסה את מועד הפקיעה שלה
+     * מועד שחורג מטווח הרמה העליונה נשמר בדלי האחרון שלה ומשובץ מחדש בהגעה אליו
+     */
+    private void place(Timeout<T> timeout) {
+        long deadlineTick = Math.max(timeout.deadlineTick, currentTick);
+        long delta = deadlineTick - currentTick;
+        int level = 0;
+        while (level < levels.length - 1 && delta >= (1L << (wheelBits * (level + 1)))) {
+            level++;
+        }
+        long maxDelta = (1L << (wheelBits * (level + 1))) - 1;
+        long slotTick = delta > maxDelta ? currentTick + maxDelta : deadlineTick;
+        levels[level][(int) ((slotTick >>> (wheelBits * level)) & wheelMask)].add(timeout);
+    }
+
+    private long ceilTick(long deadlineMs) {
+        return Math.floorDiv(deadlineMs - startMs + tickMs - 1, tickMs);
+    }
+
+    /**
+     * ידית לפקיעה מתוזמנת - צומת ברשימה המקושרת של הדלי
+     *
+     * @param <T> סוג המטען
+     */
+    public static final class Timeout<T> {
+
+        private final T payload;
+        private final long deadlineTick;
+        private Bucket<T> bucket;
+        private Timeout<T> previous;
+        private Timeout<T> next;
+
+        private Timeout(T payload, long deadlineTick) {
+            this.payload = payload;
+            this.deadlineTick = deadlineTick;
+        }
+
+        /**
+         * @return המטען של הפקיעה
+         */
+        public T getPayload() {
+            return payload;
+        }
+    }
+
+    /**
+     * דלי - רשימה מקושרת דו-כיוונית עם הוספה והסרה ב-O(1)
+     */
+    private static final class Bucket<T> {
+
+        private Timeout<T> head;
+
+        private void add(Timeout<T> timeout) {
+            timeout.bucket = this;
+            timeout.previous = null;
+            timeout.next = head;
+            if (head != null) {
+                head.previous = timeout;
+            }
+            head = timeout;
+        }
+
+        private void remove(Timeout<T> timeout) {
+            if (timeout.previous != null) {
+                timeout.previous.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.previous = timeout.previous;
+            }
+            timeout.bucket = null;
+            timeout.previous = null;
+            timeout.next = null;
+        }
+
+        private Timeout<T> poll() {
+            Timeout<T> timeout = head;
+            if (timeout != null) {
+                remove(timeout);
+            }
+            return timeout;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.common.concurrent;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Executor ששומר על סדר לפי מפתח
+ * משימות ממופות לפי hash של המפתח לאחד מ-lanes סדרתיים; כל lane רץ על מאגר
+ * התהליכונים המשותף לכל היותר בתהליכון אחד בכל רגע, כך שמשימות עם אותו מפתח
+ * רצות בסדר הגשתן ומפתחות שונים רצים במקביל.
+ * גודל המאגר ניתן לשינוי בזמן ריצה ללא פגיעה בסדר, כי המיפוי ל-lanes קבוע
+ */
+@Slf4j
+public final class KeyOrderedExecutor {
+
+    private static final int LANE_BATCH = 64;
+
+    private final String name;
+    private final ThreadPoolExecutor pool;
+    private final Lane[] lanes;
+    private final AtomicInteger queuedTasks = new AtomicInteger();
+    private final AtomicLong completedTasks = new AtomicLong();
+
+    /**
+     * יצירת executor
+     *
+     * @param name        שם לתהליכונים ולוגים
+     * @param concurrency מספר התהליכונים
+     * @param laneCount   מספר ה-lanes הסדרתיים (יעוגל לחזקה של 2)
+     */
+    public KeyOrderedExecutor(String name, int concurrency, int laneCount) {
+        if (concurrency <= 0 || laneCount <= 0) {
+            throw new IllegalArgumentException("Key ordered executor requires positive concurrency and lane count");
+        }
+        this.name = name;
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(concurrency, concurrency, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, name + "-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        int roundedLanes = laneCount == 1 ? 1 : Integer.highestOneBit(laneCount - 1) << 1;
+        this.lanes = new Lane[roundedLanes];
+        for (int i = 0; i < roundedLanes; i++) {
+            lanes[i] = new Lane();
+        }
+    }
+
+    /**
+     * הגשת משימה לפי מפתח
+     *
+     * @param key  המפתח שקובע את הסדר
+     * @param task המשימה
+     */
+    public void execute(Object key, Runnable task) {
+        int hash = key == null ? 0 : key.hashCode();
+        hash ^= hash >>> 16;
+        queuedTasks.incrementAndGet();
+        lanes[hash & (lanes.length - 1)].add(task);
+    }
+
+    /**
+     * שינוי מספר התהליכונים
+     *
+     * @param concurrency מספר התהליכונים החדש
+     */
+    public synchronized void setConcurrency(int concurrency) {
+        if (concurrency <= 0 || concurrency == pool.getMaximumPoolSize()) {
+            return;
+        }
+        if (concurrency > pool.getMaximumPoolSize()) {
+            pool.setMaximumPoolSize(concurrency);
+            pool.setCorePoolSize(concurrency);
+        } else {
+            pool.setCorePoolSize(concurrency);
+            pool.setMaximumPoolSize(concurrency);
+        }
+        log.info("Key ordered executor {} resized - Concurrency: {}", name, concurrency);
+    }
+
+    /**
+     * @return מספר התהליכונים המוגדר
+     */
+    public int getConcurrency() {
+        return pool.getMaximumPoolSize();
+    }
+
+    /**
+     * @return מספר התהליכונים שמעבדים כרגע
+     */
+    public int getActiveCount() {
+        return pool.getActiveCount();
+    }
+
+    /**
+     * @return מספר המשימות שהוגשו וטרם הסתיימו
+     */
+    public int getQueuedTaskCount() {
+        return queuedTasks.get();
+    }
+
+    /**
+     * @return מספר המשימות שהסתיימו מאז היצירה
+     */
+    public long getCompletedTaskCount() {
+        return completedTasks.get();
+    }
+
+    /**
+     * @return שם ה-executor
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * עצירה לאחר סיום המשימות הממתינות
+     *
+     * @param timeoutMs זמן המתנה מקסימלי
+     */
+    public void shutdown(long timeoutMs) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (queuedTasks.get() > 0 && System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        pool.shutdown();
+        if (queuedTasks.get() > 0) {
+            log.warn("Key ordered executor {} stopped with {} pending tasks", name, queuedTasks.get());
+        }
+    }
+
+    /**
+     * lane סדרתי - מתוזמן על המאגר רק כשאינו רץ כבר
+     */
+    private final class Lane implements Runnable {
+
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private void add(Runnable task) {
+            tasks.add(task);
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                pool.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                Runnable task;
+                int executed = 0;
+                while (executed < LANE_BATCH && (task = tasks.poll()) != null) {
+                    executed++;
+                    try {
+                        task.run();
+                    } catch (Throwable t) {
+                        log.error("Task failed in key ordered executor {}: {}", name, t.getMessage(), t);
+                    } finally {
+                        queuedTasks.decrementAndGet();
+                        completedTasks.incrementAndGet();
+                    }
+                }
+            } finally {
+                scheduled.set(false);
+                // מפנה את התהליכון ל-lanes אחרים אחרי LANE_BATCH משימות, וממשיך אם נשארו משימות
+                if (!tasks.isEmpty()) {
+                    schedule();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.common.concurrent;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * תור טבעתי חסום עבור כותבים מרובים וקורא יחיד (MPSC)
+ * כל תא מחזיק מספר רצף שמסמן אם הוא פנוי לכתיבה או מוכן לקריאה,
+ * כך שכותבים מתחרים רק על CAS אחד על הזנב והקורא אינו נועל כלל.
+ * הקיבולת מעוגלת לחזקה של 2
+ *
+ * @param <E> סוג האיברים בתור
+ */
+public final class MpscRingBuffer<E> {
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<E> buffer;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * ראש התור - נכתב רק על ידי הקורא היחיד
+     */
+    private volatile long head;
+
+    /**
+     * יצירת תור טבעתי
+     *
+     * @param requestedCapacity הקיבולת המבוקשת (תעוגל לחזקה של 2)
+     */
+    public MpscRingBuffer(int requestedCapacity) {
+        if (requestedCapacity <= 0) {
+            throw new IllegalArgumentException("Ring buffer capacity must be positive");
+        }
+        this.capacity = requestedCapacity == 1 ? 1 : Integer.highestOneBit(requestedCapacity - 1) << 1;
+        this.mask = capacity - 1;
+        this.buffer = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * הכנסת איבר לתור ללא חסימה
+     *
+     * @param element האיבר להכנסה
+     * @return true אם הוכנס, false אם התור מלא
+     */
+    public boolean offer(E element) {
+        Objects.requireNonNull(element, "Ring buffer element cannot be null");
+        while (true) {
+            long position = tail.get();
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    buffer.lazySet(index, element);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+            } else if (difference < 0) {
+                return false;
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    /**
+     * הוצאת האיבר הבא מהתור - לשימוש הקורא היחיד בלבד
+     *
+     * @return האיבר הבא או null אם התור ריק
+     */
+    public E poll() {
+        long position = head;
+        int index = (int) (position & mask);
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+        E element = buffer.get(index);
+        buffer.lazySet(index, null);
+        sequences.set(index, position + capacity);
+        head = position + 1;
+        return element;
+    }
+
+    /**
+     * ריקון עד limit איברים לצרכן - לשימוש הקורא היחיד בלבד
+     *
+     * @param consumer הצרכן שיקבל את האיברים
+     * @param limit    מספר מקסימלי של איברים
+     * @return מספר האיברים שרוקנו
+     */
+    public int drain(Consumer<E> consumer, int limit) {
+        int drained = 0;
+        E element;
+        while (drained < limit && (element = poll()) != null) {
+            consumer.accept(element);
+            drained++;
+        }
+        return drained;
+    }
+
+    /**
+     * מספר משוער של איברים בתור
+     *
+     * @return גודל התור
+     */
+    public int size() {
+        long size = tail.get() - head;
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+    /**
+     * האם התור ריק (משוער)
+     *
+     * @return true אם ריק
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * קיבולת התור בפועל
+     *
+     * @return הקיבולת
+     */
+    public int capacity() {
+        return capacity;
+    }
+}
@@ -25,7 +25,17 @@ public enum OrderStatus {
     /**
      * ההזמנה נדחתה - חסרים פריטים או שגיאה
      */
-    REJECTED;
+    REJECTED,
+
+    /**
+     * ההזמנה אושרה סופית - המלאי השמור נצרך
+     */
+    CONFIRMED,
+
+    /**
+     * ההזמנה בוטלה - המלאי השמור משתחרר
+     */
+    CANCELLED;
     
     /**
      * מחזיר את הערך כפי שהוא צריך להופיע ב-JSON
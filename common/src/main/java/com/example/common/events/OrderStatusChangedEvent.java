@@ -0,0 +1,38 @@
+package com.example.common.events;
+
+import com.example.common.enums.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * אירוע המתפרסם כאשר סטטוס הזמנה משתנה בשירות ההזמנות
+ * משמש את שירות המלאי לאישור או שחרור של מלאי שמור
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatusChangedEvent {
+
+    /**
+     * מזהה ייחודי של ההזמנה
+     */
+    private String orderId;
+
+    /**
+     * הסטטוס הקודם
+     */
+    private OrderStatus previousStatus;
+
+    /**
+     * הסטטוס החדש
+     */
+    private OrderStatus status;
+
+    /**
+     * תאריך ושעה יצירת האירוע
+     */
+    private LocalDateTime eventDateTime;
+}
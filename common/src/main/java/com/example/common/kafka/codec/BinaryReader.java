@@ -0,0 +1,162 @@
+package com.example.common.kafka.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * קריאת שדות מהקידוד הבינארי של האירועים
+ * הקורא עובד ישירות על מערך הבתים ללא העתקה; הודעה מקוננת נקראת באמצעות
+ * קורא על אותו מערך בגבולות ההודעה
+ */
+public final class BinaryReader {
+
+    private final byte[] buffer;
+    private final int limit;
+    private int position;
+
+    public BinaryReader(byte[] buffer) {
+        this(buffer, 0, buffer.length);
+    }
+
+    public BinaryReader(byte[] buffer, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > buffer.length) {
+            throw new EventCodecException("Invalid buffer range: offset=" + offset + ", length=" + length);
+        }
+        this.buffer = buffer;
+        this.position = offset;
+        this.limit = offset + length;
+    }
+
+    /**
+     * @return המיקום הנוכחי במערך
+     */
+    public int position() {
+        return position;
+    }
+
+    /**
+     * @return האם נשארו שדות לקריאה
+     */
+    public boolean hasRemaining() {
+        return position < limit;
+    }
+
+    /**
+     * קריאת ה-tag של השדה הבא
+     *
+     * @return ה-tag (מספר שדה וסוג)
+     */
+    public int readTag() {
+        int tag = (int) readRawVarint();
+        if (WireType.fieldNumber(tag) == 0) {
+            throw new EventCodecException("Invalid field tag at position " + position);
+        }
+        return tag;
+    }
+
+    public int fieldNumber(int tag) {
+        return WireType.fieldNumber(tag);
+    }
+
+    public String readString() {
+        int length = readLength();
+        String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    public boolean readBoolean() {
+        return readRawVarint() != 0;
+    }
+
+    public long readLong() {
+        long raw = readRawVarint();
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    public int readInt() {
+        return (int) readLong();
+    }
+
+    public <E extends Enum<E>> E readEnum(Class<E> type) {
+        String name = readString();
+        try {
+            return Enum.valueOf(type, name);
+        } catch (IllegalArgumentException e) {
+            throw new EventCodecException("Unknown " + type.getSimpleName() + " value: " + name);
+        }
+    }
+
+    public LocalDateTime readDateTime() {
+        BinaryReader nested = readMessage();
+        long seconds = 0;
+        int nanos = 0;
+        while (nested.hasRemaining()) {
+            int tag = nested.readTag();
+            switch (WireType.fieldNumber(tag)) {
+                case 1 -> seconds = nested.readLong();
+                case 2 -> nanos = nested.readInt();
+                default -> nested.skipField(tag);
+            }
+        }
+        return LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+    }
+
+    /**
+     * @return קורא על ההודעה המקוננת; הקורא הנוכחי מתקדם אל מעבר לה
+     */
+    public BinaryReader readMessage() {
+        int length = readLength();
+        BinaryReader nested = new BinaryReader(buffer, position, length);
+        position += length;
+        return nested;
+    }
+
+    /**
+     * דילוג על ערך השדה בלי לפענח אותו
+     *
+     * @param tag ה-tag שנקרא
+     */
+    public void skipField(int tag) {
+        switch (WireType.wireType(tag)) {
+            case WireType.VARINT -> readRawVarint();
+            case WireType.LENGTH_DELIMITED -> {
+                int length = readLength();
+                position += length;
+            }
+            default -> throw new EventCodecException("Unsupported wire type " + WireType.wireType(tag)
+                    + " for field " + WireType.fieldNumber(tag));
+        }
+    }
+
+    public long readRawVarint() {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (position >= limit) {
+                throw new EventCodecException("Truncated varint at position " + position);
+            }
+            byte b = buffer[position++];
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new EventCodecException("Malformed varint at position " + position);
+    }
+
+    public int readRawByte() {
+        if (position >= limit) {
+            throw new EventCodecException("Unexpected end of buffer");
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+    private int readLength() {
+        long length = readRawVarint();
+        if (length < 0 || length > limit - position) {
+            throw new EventCodecException("Invalid length " + length + " at position " + position);
+        }
+        return (int) length;
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.common.kafka.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * כתיבת שדות בקידוד הבינארי של האירועים
+ * שדות null / false / 0 לא נכתבים כלל - הקורא מחזיר עבורם את ערך ברירת המחדל
+ */
+public final class BinaryWriter {
+
+    private byte[] buffer;
+    private int position;
+
+    public BinaryWriter() {
+        this(128);
+    }
+
+    public BinaryWriter(int initialCapacity) {
+        this.buffer = new byte[Math.max(16, initialCapacity)];
+    }
+
+    public void writeString(int fieldNumber, String value) {
+        if (value == null) {
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeRawVarint(WireType.tag(fieldNumber, WireType.LENGTH_DELIMITED));
+        writeRawVarint(bytes.length);
+        writeRawBytes(bytes, bytes.length);
+    }
+
+    public void writeBoolean(int fieldNumber, boolean value) {
+        if (value) {
+            writeRawVarint(WireType.tag(fieldNumber, WireType.VARINT));
+            writeRawVarint(1);
+        }
+    }
+
+    public void writeInt(int fieldNumber, long value) {
+        if (value != 0) {
+            writeRawVarint(WireType.tag(fieldNumber, WireType.VARINT));
+            writeRawVarint(zigZag(value));
+        }
+    }
+
+    public void writeEnum(int fieldNumber, Enum<?> value) {
+        if (value != null) {
+            writeString(fieldNumber, value.name());
+        }
+    }
+
+    /**
+     * זמן כהודעה מקוננת: 1 = שניות מאז epoch (UTC), 2 = ננו-שניות
+     */
+    public void writeDateTime(int fieldNumber, LocalDateTime value) {
+        if (value == null) {
+            return;
+        }
+        writeMessage(fieldNumber, nested -> {
+            nested.writeInt(1, value.toEpochSecond(ZoneOffset.UTC));
+            nested.writeInt(2, value.getNano());
+        });
+    }
+
+    /**
+     * כתיבת הודעה מקוננת עם קידומת אורך
+     * גם הודעה ריקה נכתבת, כדי שרשימות ישמרו על מספר הפריטים
+     */
+    public void writeMessage(int fieldNumber, Consumer<BinaryWriter> body) {
+        BinaryWriter nested = new BinaryWriter(64);
+        body.accept(nested);
+        writeRawVarint(WireType.tag(fieldNumber, WireType.LENGTH_DELIMITED));
+        writeRawVarint(nested.position);
+        writeRawBytes(nested.buffer, nested.position);
+    }
+
+    public void writeRawVarint(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    public void writeRawByte(int value) {
+        ensureCapacity(1);
+        buffer[position++] = (byte) value;
+    }
+
+    /**
+     * @return הבתים שנכתבו
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, position);
+    }
+
+    private void writeRawBytes(byte[] bytes, int length) {
+        ensureCapacity(length);
+        System.arraycopy(bytes, 0, buffer, position, length);
+        position += length;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (position + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+        }
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.common.kafka.codec;
+
+/**
+ * קידוד ופענוח של סוג אירוע אחד בפורמט הבינארי
+ * שדות לא מוכרים מדולגים בפענוח ושדות חסרים מקבלים ערך ברירת מחדל,
+ * כך ש-producers ו-consumers בגרסאות שונות של הסכמה יכולים לעבוד יחד
+ *
+ * @param <T> סוג האירוע
+ */
+public interface EventCodec<T> {
+
+    /**
+     * @return הסכמה שהקודק כותב
+     */
+    EventSchema schema();
+
+    /**
+     * @return סוג האירוע
+     */
+    Class<T> type();
+
+    /**
+     * כתיבת שדות האירוע
+     *
+     * @param event  האירוע
+     * @param writer היעד
+     */
+    void encode(T event, BinaryWriter writer);
+
+    /**
+     * קריאת שדות האירוע
+     *
+     * @param reader המקור, ממוקם על השדה הראשון
+     * @return האירוע
+     */
+    T decode(BinaryReader reader);
+}
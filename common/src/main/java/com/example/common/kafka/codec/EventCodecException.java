@@ -0,0 +1,16 @@
+package com.example.common.kafka.codec;
+
+/**
+ * כשל בקידוד או בפענוח של אירוע בינארי
+ * כשל מבני - ניסיון חוזר לא יתקן אותו
+ */
+public class EventCodecException extends IllegalArgumentException {
+
+    public EventCodecException(String message) {
+        super(message);
+    }
+
+    public EventCodecException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.common.kafka.codec;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * רישום הקודקים הבינאריים ומבנה המעטפת של רשומה בינארית:
+ * בית magic (0x00 - לעולם לא תו ראשון של JSON), מזהה הסכמה (varint) ואחריהם שדות האירוע
+ */
+public final class EventCodecs {
+
+    public static final byte MAGIC = 0x00;
+
+    public static final String CONTENT_TYPE_HEADER = "content-type";
+    public static final String SCHEMA_ID_HEADER = "event-schema-id";
+    public static final String CONTENT_TYPE_BINARY = "application/x-event-binary";
+    public static final String CONTENT_TYPE_JSON = "application/json";
+
+    private static final List<EventCodec<?>> CODECS = List.of(
+            new OrderCreatedEventCodec(),
+            new InventoryCheckResultEventCodec(),
+            new OrderStatusChangedEventCodec()
+    );
+
+    private static final Map<Class<?>, EventCodec<?>> BY_TYPE = CODECS.stream()
+            .collect(Collectors.toUnmodifiableMap(EventCodec::type, Function.identity()));
+
+    private static final Map<Integer, EventCodec<?>> BY_SCHEMA_ID = CODECS.stream()
+            .collect(Collectors.toUnmodifiableMap(codec -> codec.schema().id(), Function.identity()));
+
+    private EventCodecs() {
+    }
+
+    /**
+     * @param type סוג האירוע
+     * @return הקודק, או null אם הסוג אינו נתמך בפורמט הבינארי
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> EventCodec<T> forType(Class<T> type) {
+        return (EventCodec<T>) BY_TYPE.get(type);
+    }
+
+    /**
+     * @param schemaId מזהה הסכמה
+     * @return הקודק, או null אם המזהה אינו מוכר
+     */
+    public static EventCodec<?> forSchemaId(int schemaId) {
+        return BY_SCHEMA_ID.get(schemaId);
+    }
+
+    /**
+     * @return הסכמות של כל הקודקים
+     */
+    public static Collection<EventSchema> schemas() {
+        return CODECS.stream().map(EventCodec::schema).toList();
+    }
+
+    /**
+     * @param data הבתים של הרשומה
+     * @return האם הרשומה בפורמט הבינארי
+     */
+    public static boolean isBinary(byte[] data) {
+        return data != null && data.length > 0 && data[0] == MAGIC;
+    }
+
+    /**
+     * קידוד אירוע כולל המעטפת
+     *
+     * @param codec הקודק
+     * @param event האירוע
+     * @return הבתים
+     */
+    public static <T> byte[] encode(EventCodec<T> codec, T event) {
+        BinaryWriter writer = new BinaryWriter();
+        writer.writeRawByte(MAGIC);
+        writer.writeRawVarint(codec.schema().id());
+        codec.encode(event, writer);
+        return writer.toByteArray();
+    }
+
+    /**
+     * פענוח רשומה בינארית
+     *
+     * @param data     הבתים
+     * @param registry registry לאבחון מזהים לא מוכרים (יכול להיות null)
+     * @return האירוע
+     */
+    public static Object decode(byte[] data, LocalSchemaRegistry registry) {
+        BinaryReader reader = open(data);
+        int schemaId = (int) reader.readRawVarint();
+        EventCodec<?> codec = forSchemaId(schemaId);
+        if (codec == null) {
+            throw new EventCodecException(unknownSchema(schemaId, registry));
+        }
+        return codec.decode(reader);
+    }
+
+    /**
+     * @param data הבתים של רשומה בינארית
+     * @return מזהה הסכמה שבמעטפת
+     */
+    public static int schemaId(byte[] data) {
+        return (int) open(data).readRawVarint();
+    }
+
+    /**
+     * פתיחת קורא אחרי בית ה-magic
+     */
+    static BinaryReader open(byte[] data) {
+        if (!isBinary(data)) {
+            throw new EventCodecException("Not a binary event record");
+        }
+        return new BinaryReader(data, 1, data.length - 1);
+    }
+
+    private static String unknownSchema(int schemaId, LocalSchemaRegistry registry) {
+        EventSchema registered = registry != null ? registry.lookup(schemaId) : null;
+        if (registered != null) {
+            return "Schema " + schemaId + " (" + registered.subject() + " v" + registered.version()
+                    + ") is registered but not supported by this consumer";
+        }
+        return "Unknown event schema id: " + schemaId;
+    }
+}
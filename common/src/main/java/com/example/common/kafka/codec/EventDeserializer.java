@@ -0,0 +1,60 @@
+package com.example.common.kafka.codec;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.util.Map;
+
+/**
+ * Deserializer שקורא גם את הפורמט הבינארי וגם JSON
+ * הפורמט מזוהה לפי בית ה-magic בתחילת הרשומה, כך שגם רשומות ללא header
+ * (למשל מכלים חיצוניים) מפוענחות נכון. רשומות JSON מועברות ל-deserializer הקיים
+ * עם אותן הגדרות (trusted packages, default type)
+ *
+ * @param <T> סוג הערך
+ */
+public class EventDeserializer<T> implements Deserializer<T> {
+
+    private final Deserializer<T> jsonDeserializer;
+    private LocalSchemaRegistry registry;
+
+    @SuppressWarnings("unchecked")
+    public EventDeserializer() {
+        this((Deserializer<T>) (Deserializer<?>) new JsonDeserializer<>());
+    }
+
+    public EventDeserializer(Deserializer<T> jsonDeserializer) {
+        this.jsonDeserializer = jsonDeserializer;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        jsonDeserializer.configure(configs, isKey);
+        Object registryPath = configs.get(EventSerializer.REGISTRY_PATH_CONFIG);
+        if (registryPath != null && !registryPath.toString().isBlank()) {
+            registry = LocalSchemaRegistry.at(registryPath.toString());
+            registry.registerAll(EventCodecs.schemas());
+        }
+    }
+
+    @Override
+    public T deserialize(String topic, byte[] data) {
+        return EventCodecs.isBinary(data) ? decode(data) : jsonDeserializer.deserialize(topic, data);
+    }
+
+    @Override
+    public T deserialize(String topic, Headers headers, byte[] data) {
+        return EventCodecs.isBinary(data) ? decode(data) : jsonDeserializer.deserialize(topic, headers, data);
+    }
+
+    @Override
+    public void close() {
+        jsonDeserializer.close();
+    }
+
+    @SuppressWarnings("unchecked")
+    private T decode(byte[] data) {
+        return (T) EventCodecs.decode(data, registry);
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.common.kafka.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+/**
+ * תיאור גרסה של סכמת אירוע
+ * מזהה הסכמה נכתב בתחילת כל רשומה בינארית; שינוי במבנה השדות מחייב גרסה ומזהה חדשים
+ *
+ * @param id      מזהה הסכמה ברשומה
+ * @param subject שם האירוע (שם המחלקה המלא)
+ * @param version גרסת הסכמה
+ * @param fields  השדות לפי מספר
+ */
+public record EventSchema(int id, String subject, int version, List<SchemaField> fields) {
+
+    /**
+     * @return טביעת אצבע של מבנה השדות - לזיהוי שינוי לא תואם תחת אותו מזהה
+     */
+    public String fingerprint() {
+        String canonical = subject + ":" + version + ":" + fields.stream()
+                .map(field -> field.number() + "=" + field.name() + "/" + field.type())
+                .collect(Collectors.joining(","));
+        CRC32 crc = new CRC32();
+        crc.update(canonical.getBytes(StandardCharsets.UTF_8));
+        return Long.toHexString(crc.getValue());
+    }
+
+    /**
+     * שדה בסכמה
+     *
+     * @param number מספר השדה בקידוד
+     * @param name   שם השדה
+     * @param type   סוג השדה (string, bool, int, enum, datetime, message, repeated ...)
+     */
+    public record SchemaField(int number, String name, String type) {
+    }
+}
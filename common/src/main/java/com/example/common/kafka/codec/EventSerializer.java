@@ -0,0 +1,98 @@
+package com.example.common.kafka.codec;
+
+import com.example.common.kafka.view.EventView;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.kafka.support.mapping.AbstractJavaTypeMapper;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Serializer לאירועים עם מעבר הדרגתי לפורמט הבינארי
+ * ב-format=binary אירועים שיש להם קודק נכתבים בפורמט הבינארי, וכל השאר ב-JSON.
+ * ה-header content-type מציין את הפורמט של כל רשומה, כך שאפשר לעדכן קודם את ה-consumers
+ * (שקוראים את שני הפורמטים) ורק אחר כך להעביר את ה-producers ל-binary
+ */
+public class EventSerializer implements Serializer<Object> {
+
+    /**
+     * json (ברירת מחדל) או binary
+     */
+    public static final String FORMAT_CONFIG = "event.codec.format";
+
+    /**
+     * נתיב קובץ ה-registry המקומי (אופציונלי)
+     */
+    public static final String REGISTRY_PATH_CONFIG = "event.codec.registry-path";
+
+    private static final byte[] BINARY = EventCodecs.CONTENT_TYPE_BINARY.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] JSON = EventCodecs.CONTENT_TYPE_JSON.getBytes(StandardCharsets.UTF_8);
+
+    private final JsonSerializer<Object> jsonSerializer;
+    private boolean binary;
+
+    public EventSerializer() {
+        this(new JsonSerializer<>());
+    }
+
+    public EventSerializer(JsonSerializer<Object> jsonSerializer) {
+        this.jsonSerializer = jsonSerializer;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        jsonSerializer.configure(configs, isKey);
+        binary = "binary".equalsIgnoreCase(String.valueOf(configs.get(FORMAT_CONFIG)));
+        Object registryPath = configs.get(REGISTRY_PATH_CONFIG);
+        if (registryPath != null && !registryPath.toString().isBlank()) {
+            LocalSchemaRegistry.at(registryPath.toString()).registerAll(EventCodecs.schemas());
+        }
+    }
+
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        return serialize(topic, null, data);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, Object data) {
+        if (data == null) {
+            return null;
+        }
+        if (data instanceof EventView view) {
+            // view שמפורסם מחדש (retry, DLQ) נשלח בבתים המקוריים, באותו פורמט ועם אותם headers
+            return view.bytes();
+        }
+        EventCodec<Object> codec = binary ? codecFor(data) : null;
+        if (headers != null) {
+            // רשומה שמפורסמת מחדש (DLQ, retry) נושאת את ה-headers של הרשומה המקורית
+            headers.remove(EventCodecs.CONTENT_TYPE_HEADER);
+            headers.remove(EventCodecs.SCHEMA_ID_HEADER);
+        }
+        if (codec == null) {
+            if (headers != null) {
+                headers.add(EventCodecs.CONTENT_TYPE_HEADER, JSON);
+            }
+            return jsonSerializer.serialize(topic, headers, data);
+        }
+        if (headers != null) {
+            headers.remove(AbstractJavaTypeMapper.DEFAULT_CLASSID_FIELD_NAME);
+            headers.add(EventCodecs.CONTENT_TYPE_HEADER, BINARY);
+            headers.add(EventCodecs.SCHEMA_ID_HEADER,
+                    String.valueOf(codec.schema().id()).getBytes(StandardCharsets.UTF_8));
+        }
+        return EventCodecs.encode(codec, data);
+    }
+
+    @Override
+    public void close() {
+        jsonSerializer.close();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static EventCodec<Object> codecFor(Object data) {
+        return (EventCodec<Object>) EventCodecs.forType(data.getClass());
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.common.kafka.codec;
+
+import com.example.common.events.InventoryCheckResultEvent;
+import com.example.common.kafka.codec.EventSchema.SchemaField;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * קודק בינארי עבור {@link InventoryCheckResultEvent}
+ */
+public final class InventoryCheckResultEventCodec implements EventCodec<InventoryCheckResultEvent> {
+
+    public static final int SCHEMA_ID = 2;
+
+    public static final int ORDER_ID = 1;
+    public static final int APPROVED = 2;
+    public static final int UNAVAILABLE_ITEMS = 3;
+    public static final int ERROR_MESSAGE = 4;
+    public static final int EVENT_DATE_TIME = 5;
+    public static final int CUSTOMER_NAME = 6;
+
+    private static final EventSchema SCHEMA = new EventSchema(SCHEMA_ID, InventoryCheckResultEvent.class.getName(), 1, List.of(
+            new SchemaField(ORDER_ID, "orderId", "string"),
+            new SchemaField(APPROVED, "approved", "bool"),
+            new SchemaField(UNAVAILABLE_ITEMS, "unavailableItems", "repeated string"),
+            new SchemaField(ERROR_MESSAGE, "errorMessage", "string"),
+            new SchemaField(EVENT_DATE_TIME, "eventDateTime", "datetime"),
+            new SchemaField(CUSTOMER_NAME, "customerName", "string")
+    ));
+
+    @Override
+    public EventSchema schema() {
+        return SCHEMA;
+    }
+
+    @Override
+    public Class<InventoryCheckResultEvent> type() {
+        return InventoryCheckResultEvent.class;
+    }
+
+    @Override
+    public void encode(InventoryCheckResultEvent event, BinaryWriter writer) {
+        writer.writeString(ORDER_ID, event.getOrderId());
+        writer.writeBoolean(APPROVED, event.isApproved());
+        if (event.getUnavailableItems() != null) {
+            for (String item : event.getUnavailableItems()) {
+                writer.writeString(UNAVAILABLE_ITEMS, item);
+            }
+        }
+        writer.writeString(ERROR_MESSAGE, event.getErrorMessage());
+        writer.writeDateTime(EVENT_DATE_TIME, event.getEventDateTime());
+        writer.writeString(CUSTOMER_NAME, event.getCustomerName());
+    }
+
+    @Override
+    public InventoryCheckResultEvent decode(BinaryReader reader) {
+        InventoryCheckResultEvent event = new InventoryCheckResultEvent();
+        List<String> unavailableItems = new ArrayList<>();
+        while (reader.hasRemaining()) {
+            int tag = reader.readTag();
+            switch (reader.fieldNumber(tag)) {
+                case ORDER_ID -> event.setOrderId(reader.readString());
+                case APPROVED -> event.setApproved(reader.readBoolean());
+                case UNAVAILABLE_ITEMS -> unavailableItems.add(reader.readString());
+                case ERROR_MESSAGE -> event.setErrorMessage(reader.readString());
+                case EVENT_DATE_TIME -> event.setEventDateTime(reader.readDateTime());
+                case CUSTOMER_NAME -> event.setCustomerName(reader.readString());
+                default -> reader.skipField(tag);
+            }
+        }
+        event.setUnavailableItems(unavailableItems);
+        return event;
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.common.kafka.codec;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * registry מקומי לסכמות, נשמר בקובץ JSON
+ * תחליף מקומי ל-schema registry: כל שירות רושם בעלייה את הסכמות שהוא מכיר,
+ * רישום של מזהה קיים עם מבנה שונה נכשל (שינוי לא תואם חייב מזהה חדש),
+ * ו-consumer שמקבל מזהה שאינו מכיר יכול לדווח לאיזו סכמה הוא שייך
+ */
+@Slf4j
+public final class LocalSchemaRegistry {
+
+    private static final Map<Path, LocalSchemaRegistry> INSTANCES = new ConcurrentHashMap<>();
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final Path file;
+    private final Map<Integer, EventSchema> schemas = new TreeMap<>();
+
+    private LocalSchemaRegistry(Path file) {
+        this.file = file;
+        load();
+    }
+
+    /**
+     * ה-registry של קובץ - מופע אחד לכל קובץ בתהליך
+     *
+     * @param path נתיב הקובץ
+     * @return ה-registry
+     */
+    public static LocalSchemaRegistry at(String path) {
+        Path file = Path.of(path).toAbsolutePath().normalize();
+        return INSTANCES.computeIfAbsent(file, LocalSchemaRegistry::new);
+    }
+
+    /**
+     * רישום סכמות
+     *
+     * @param toRegister הסכמות
+     * @throws EventCodecException אם מזהה קיים רשום עם מבנה שונה
+     */
+    public synchronized void registerAll(Collection<EventSchema> toRegister) {
+        boolean changed = false;
+        for (EventSchema schema : toRegister) {
+            EventSchema existing = schemas.get(schema.id());
+            if (existing == null) {
+                schemas.put(schema.id(), schema);
+                changed = true;
+                log.info("Schema registered - ID: {}, Subject: {}, Version: {}", schema.id(), schema.subject(), schema.version());
+            } else if (!existing.fingerprint().equals(schema.fingerprint())) {
+                throw new EventCodecException("Schema " + schema.id() + " (" + schema.subject() + " v" + schema.version()
+                        + ") conflicts with registered " + existing.subject() + " v" + existing.version()
+                        + " - incompatible changes require a new schema id");
+            }
+        }
+        if (changed) {
+            persist();
+        }
+    }
+
+    /**
+     * @param schemaId מזהה הסכמה
+     * @return הסכמה הרשומה, או null
+     */
+    public synchronized EventSchema lookup(int schemaId) {
+        return schemas.get(schemaId);
+    }
+
+    /**
+     * @return כל הסכמות הרשומות לפי מזהה
+     */
+    public synchronized List<EventSchema> all() {
+        return new ArrayList<>(schemas.values());
+    }
+
+    private void load() {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try {
+            List<EventSchema> stored = MAPPER.readValue(file.toFile(), new TypeReference<List<EventSchema>>() { });
+            stored.forEach(schema -> schemas.put(schema.id(), schema));
+            log.info("Schema registry loaded - File: {}, Schemas: {}", file, schemas.size());
+        } catch (IOException e) {
+            throw new EventCodecException("Failed to read schema registry " + file, e);
+        }
+    }
+
+    private void persist() {
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            MAPPER.writeValue(temp.toFile(), new ArrayList<>(schemas.values()));
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // ה-registry הוא כלי אבחון - כשל בשמירה לא עוצר את השליחה
+            log.warn("Failed to persist schema registry {}: {}", file, e.getMessage());
+        }
+    }
+}
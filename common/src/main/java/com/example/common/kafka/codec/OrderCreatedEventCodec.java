@@ -0,0 +1,117 @@
+package com.example.common.kafka.codec;
+
+import com.example.common.enums.Category;
+import com.example.common.events.OrderCreatedEvent;
+import com.example.common.kafka.codec.EventSchema.SchemaField;
+import com.example.common.models.OrderItem;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * קודק בינארי עבור {@link OrderCreatedEvent}
+ */
+public final class OrderCreatedEventCodec implements EventCodec<OrderCreatedEvent> {
+
+    public static final int SCHEMA_ID = 1;
+
+    public static final int ORDER_ID = 1;
+    public static final int CUSTOMER_NAME = 2;
+    public static final int ITEMS = 3;
+    public static final int REQUEST_ID = 4;
+    public static final int REQUEST_DATE_TIME = 5;
+    public static final int EVENT_DATE_TIME = 6;
+
+    public static final int ITEM_PRODUCT_ID = 1;
+    public static final int ITEM_QUANTITY = 2;
+    public static final int ITEM_CATEGORY = 3;
+    public static final int ITEM_ABSENT = 4;
+
+    private static final EventSchema SCHEMA = new EventSchema(SCHEMA_ID, OrderCreatedEvent.class.getName(), 1, List.of(
+            new SchemaField(ORDER_ID, "orderId", "string"),
+            new SchemaField(CUSTOMER_NAME, "customerName", "string"),
+            new SchemaField(ITEMS, "items", "repeated message{1=productId/string,2=quantity/int,3=category/enum,4=absent/bool}"),
+            new SchemaField(REQUEST_ID, "requestId", "string"),
+            new SchemaField(REQUEST_DATE_TIME, "requestDateTime", "datetime"),
+            new SchemaField(EVENT_DATE_TIME, "eventDateTime", "datetime")
+    ));
+
+    @Override
+    public EventSchema schema() {
+        return SCHEMA;
+    }
+
+    @Override
+    public Class<OrderCreatedEvent> type() {
+        return OrderCreatedEvent.class;
+    }
+
+    @Override
+    public void encode(OrderCreatedEvent event, BinaryWriter writer) {
+        writer.writeString(ORDER_ID, event.getOrderId());
+        writer.writeString(CUSTOMER_NAME, event.getCustomerName());
+        if (event.getItems() != null) {
+            for (OrderItem item : event.getItems()) {
+                writer.writeMessage(ITEMS, nested -> encodeItem(item, nested));
+            }
+        }
+        writer.writeString(REQUEST_ID, event.getRequestId());
+        writer.writeDateTime(REQUEST_DATE_TIME, event.getRequestDateTime());
+        writer.writeDateTime(EVENT_DATE_TIME, event.getEventDateTime());
+    }
+
+    @Override
+    public OrderCreatedEvent decode(BinaryReader reader) {
+        OrderCreatedEvent event = new OrderCreatedEvent();
+        List<OrderItem> items = new ArrayList<>();
+        while (reader.hasRemaining()) {
+            int tag = reader.readTag();
+            switch (reader.fieldNumber(tag)) {
+                case ORDER_ID -> event.setOrderId(reader.readString());
+                case CUSTOMER_NAME -> event.setCustomerName(reader.readString());
+                case ITEMS -> items.add(decodeItem(reader.readMessage()));
+                case REQUEST_ID -> event.setRequestId(reader.readString());
+                case REQUEST_DATE_TIME -> event.setRequestDateTime(reader.readDateTime());
+                case EVENT_DATE_TIME -> event.setEventDateTime(reader.readDateTime());
+                default -> reader.skipField(tag);
+            }
+        }
+        event.setItems(items);
+        return event;
+    }
+
+    /**
+     * כתיבת פריט בהזמנה - null נכתב כהודעה עם דגל absent בלבד, כדי לשמור על מקומו ולהבדיל אותו מפריט ריק.
+     * הדגל נכתב רק עבור null, כך שפריט ללא הדגל - גם מ-producer שאינו מכיר אותו - קיים
+     */
+    public static void encodeItem(OrderItem item, BinaryWriter writer) {
+        if (item == null) {
+            writer.writeBoolean(ITEM_ABSENT, true);
+            return;
+        }
+        writer.writeString(ITEM_PRODUCT_ID, item.getProductId());
+        writer.writeInt(ITEM_QUANTITY, item.getQuantity());
+        writer.writeEnum(ITEM_CATEGORY, item.getCategory());
+    }
+
+    /**
+     * קריאת פריט בהזמנה
+     *
+     * @return הפריט, או null אם נכתב עם דגל absent
+     */
+    public static OrderItem decodeItem(BinaryReader reader) {
+        OrderItem item = new OrderItem();
+        boolean absent = false;
+        while (reader.hasRemaining()) {
+            int tag = reader.readTag();
+            switch (reader.fieldNumber(tag)) {
+                case ITEM_PRODUCT_ID -> item.setProductId(reader.readString());
+                case ITEM_QUANTITY -> item.setQuantity(reader.readInt());
+                case ITEM_CATEGORY -> item.setCategory(reader.readEnum(Category.class));
+                case ITEM_ABSENT -> absent = reader.readBoolean();
+                default -> reader.skipField(tag);
+            }
+        }
+        return absent ? null : item;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.common.kafka.codec;
+
+import com.example.common.enums.OrderStatus;
+import com.example.common.events.OrderStatusChangedEvent;
+import com.example.common.kafka.codec.EventSchema.SchemaField;
+
+import java.util.List;
+
+/**
+ * קודק בינארי עבור {@link OrderStatusChangedEvent}
+ */
+public final class OrderStatusChangedEventCodec implements EventCodec<OrderStatusChangedEvent> {
+
+    public static final int SCHEMA_ID = 3;
+
+    public static final int ORDER_ID = 1;
+    public static final int PREVIOUS_STATUS = 2;
+    public static final int STATUS = 3;
+    public static final int EVENT_DATE_TIME = 4;
+
+    private static final EventSchema SCHEMA = new EventSchema(SCHEMA_ID, OrderStatusChangedEvent.class.getName(), 1, List.of(
+            new SchemaField(ORDER_ID, "orderId", "string"),
+            new SchemaField(PREVIOUS_STATUS, "previousStatus", "enum"),
+            new SchemaField(STATUS, "status", "enum"),
+            new SchemaField(EVENT_DATE_TIME, "eventDateTime", "datetime")
+    ));
+
+    @Override
+    public EventSchema schema() {
+        return SCHEMA;
+    }
+
+    @Override
+    public Class<OrderStatusChangedEvent> type() {
+        return OrderStatusChangedEvent.class;
+    }
+
+    @Override
+    public void encode(OrderStatusChangedEvent event, BinaryWriter writer) {
+        writer.writeString(ORDER_ID, event.getOrderId());
+        writer.writeEnum(PREVIOUS_STATUS, event.getPreviousStatus());
+        writer.writeEnum(STATUS, event.getStatus());
+        writer.writeDateTime(EVENT_DATE_TIME, event.getEventDateTime());
+    }
+
+    @Override
+    public OrderStatusChangedEvent decode(BinaryReader reader) {
+        OrderStatusChangedEvent event = new OrderStatusChangedEvent();
+        while (reader.hasRemaining()) {
+            int tag = reader.readTag();
+            switch (reader.fieldNumber(tag)) {
+                case ORDER_ID -> event.setOrderId(reader.readString());
+                case PREVIOUS_STATUS -> event.setPreviousStatus(reader.readEnum(OrderStatus.class));
+                case STATUS -> event.setStatus(reader.readEnum(OrderStatus.class));
+                case EVENT_DATE_TIME -> event.setEventDateTime(reader.readDateTime());
+                default -> reader.skipField(tag);
+            }
+        }
+        return event;
+    }
+}
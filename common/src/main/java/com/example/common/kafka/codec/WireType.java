@@ -0,0 +1,33 @@
+package com.example.common.kafka.codec;
+
+/**
+ * סוגי השדות בקידוד הבינארי
+ * כל שדה מתחיל ב-tag = (מספר השדה << 3) | סוג, כך שקורא יכול לדלג על שדה שאינו מכיר
+ */
+public final class WireType {
+
+    /**
+     * מספר שלם באורך משתנה (varint)
+     */
+    public static final int VARINT = 0;
+
+    /**
+     * אורך (varint) ואחריו בתים - מחרוזות והודעות מקוננות
+     */
+    public static final int LENGTH_DELIMITED = 2;
+
+    private WireType() {
+    }
+
+    static int tag(int fieldNumber, int wireType) {
+        return (fieldNumber << 3) | wireType;
+    }
+
+    static int fieldNumber(int tag) {
+        return tag >>> 3;
+    }
+
+    static int wireType(int tag) {
+        return tag & 0x7;
+    }
+}
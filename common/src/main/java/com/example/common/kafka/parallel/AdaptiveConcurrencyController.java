@@ -0,0 +1,280 @@
+package com.example.common.kafka.parallel;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * בקר מקביליות אדפטיבי עבור listeners מקביליים
+ * בכל דגימה נמדדים ה-lag של ה-consumer group (log-end מול ה-offset השמור), קצב ההגעה,
+ * התפוקה וזמן העיבוד הממוצע. מספר התהליכונים הנדרש מחושב כך שה-lag הקיים יתרוקן
+ * בתוך target-drain-seconds בנוסף לקצב ההגעה השוטף:
+ * workers = (arrivalRate + lag / targetDrainSeconds) * avgLatencySeconds.
+ * הגדלה מיידית (עד פי 2 בכל דגימה), הקטנה רק אחרי מספר דגימות רצופות ובחצאים,
+ * ותמיד בתוך [min-concurrency, max-concurrency].
+ * פועל רק כש-kafka.parallel.enabled מופעל, ולקוח ה-Admin נוצר רק כשנרשם listener מקבילי ראשון
+ */
+@Component
+@Slf4j
+public class AdaptiveConcurrencyController {
+
+    private static final long ADMIN_TIMEOUT_MS = 5000;
+
+    private final ParallelConsumerConfigurer parallelConsumerConfigurer;
+    private final MeterRegistry meterRegistry;
+    private final Map<ParallelRecordListener<?, ?>, ListenerState> states = new ConcurrentHashMap<>();
+
+    @Value("${spring.kafka.bootstrap-servers:localhost:9092}")
+    private String bootstrapServers;
+
+    @Value("${kafka.parallel.enabled:false}")
+    private boolean parallelEnabled;
+
+    @Value("${kafka.parallel.adaptive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${kafka.parallel.adaptive.interval-ms:10000}")
+    private long intervalMs;
+
+    @Value("${kafka.parallel.adaptive.min-concurrency:2}")
+    private int minConcurrency;
+
+    @Value("${kafka.parallel.adaptive.max-concurrency:64}")
+    private int maxConcurrency;
+
+    @Value("${kafka.parallel.adaptive.target-drain-seconds:60}")
+    private double targetDrainSeconds;
+
+    @Value("${kafka.parallel.adaptive.scale-down-samples:3}")
+    private int scaleDownSamples;
+
+    private volatile Admin admin;
+    private ScheduledExecutorService scheduler;
+
+    public AdaptiveConcurrencyController(ParallelConsumerConfigurer parallelConsumerConfigurer, MeterRegistry meterRegistry) {
+        this.parallelConsumerConfigurer = parallelConsumerConfigurer;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * הפעלת תהליכון הדגימה
+     */
+    @PostConstruct
+    public void start() {
+        if (!parallelEnabled || !enabled) {
+            log.info("Adaptive listener concurrency disabled - parallel listeners keep their configured concurrency");
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "kafka-concurrency-controller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::sampleAll, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        log.info("Adaptive listener concurrency started - Interval: {} ms, Bounds: [{}, {}], Target drain: {} s",
+                intervalMs, minConcurrency, maxConcurrency, targetDrainSeconds);
+    }
+
+    /**
+     * עצירת הדגימה
+     */
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        if (admin != null) {
+            admin.close(Duration.ofMillis(ADMIN_TIMEOUT_MS));
+        }
+    }
+
+    private void sampleAll() {
+        if (parallelConsumerConfigurer.getListeners().isEmpty()) {
+            return;
+        }
+        if (admin == null) {
+            try {
+                admin = Admin.create(Map.of(
+                        AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers,
+                        AdminClientConfig.REQUEST_TIMEOUT_MS_CONFIG, (int) ADMIN_TIMEOUT_MS,
+                        AdminClientConfig.DEFAULT_API_TIMEOUT_MS_CONFIG, (int) ADMIN_TIMEOUT_MS
+                ));
+            } catch (Exception e) {
+                log.warn("Failed to create admin client for consumer lag sampling: {}", e.getMessage());
+                return;
+            }
+        }
+        for (ParallelRecordListener<?, ?> listener : parallelConsumerConfigurer.getListeners()) {
+            try {
+                sample(listener, states.computeIfAbsent(listener, this::register));
+            } catch (Exception e) {
+                log.warn("Consumer lag sampling failed - Group: {}, Topics: {}, Error: {}",
+                        listener.getGroupId(), listener.getTopics(), e.getMessage());
+            }
+        }
+    }
+
+    private void sample(ParallelRecordListener<?, ?> listener, ListenerState state) throws Exception {
+        Map<TopicPartition, OffsetAndMetadata> committed = admin.listConsumerGroupOffsets(listener.getGroupId())
+                .partitionsToOffsetAndMetadata()
+                .get(ADMIN_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+
+        Map<TopicPartition, OffsetSpec> request = new HashMap<>();
+        committed.forEach((partition, offset) -> {
+            if (offset != null && listener.getTopics().contains(partition.topic())) {
+                request.put(partition, OffsetSpec.latest());
+            }
+        });
+        if (request.isEmpty()) {
+            return;
+        }
+        Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> endOffsets = admin.listOffsets(request)
+                .all()
+                .get(ADMIN_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+
+        long lag = 0;
+        long endOffsetSum = 0;
+        for (Map.Entry<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> entry : endOffsets.entrySet()) {
+            long endOffset = entry.getValue().offset();
+            endOffsetSum += endOffset;
+            lag += Math.max(0, endOffset - committed.get(entry.getKey()).offset());
+        }
+
+        long nowNanos = System.nanoTime();
+        long processed = listener.getProcessedCount() + listener.getRecoveredCount();
+        long processingNanos = listener.getProcessingNanos();
+        if (state.sampleNanos > 0) {
+            double seconds = (nowNanos - state.sampleNanos) / 1_000_000_000.0;
+            long processedDelta = processed - state.processed;
+            state.arrivalRate = Math.max(0, endOffsetSum - state.endOffsetSum) / seconds;
+            state.throughput = processedDelta / seconds;
+            if (processedDelta > 0) {
+                state.latencySeconds = (processingNanos - state.processingNanos) / 1_000_000_000.0 / processedDelta;
+            }
+        }
+        state.lag = lag;
+        state.endOffsetSum = endOffsetSum;
+        state.processed = processed;
+        state.processingNanos = processingNanos;
+        state.sampleNanos = nowNanos;
+
+        adjust(listener, state);
+    }
+
+    private void adjust(ParallelRecordListener<?, ?> listener, ListenerState state) {
+        int current = listener.getExecutor().getConcurrency();
+        int required;
+        if (state.lag == 0 && state.arrivalRate == 0) {
+            required = minConcurrency;
+        } else if (state.latencySeconds > 0) {
+            double demand = state.arrivalRate + state.lag / targetDrainSeconds;
+            required = (int) Math.ceil(demand * state.latencySeconds);
+        } else {
+            // עדיין אין מדידת זמן עיבוד - יש lag ולכן מגדילים בצעד אחד
+            required = current + 1;
+        }
+        required = Math.max(minConcurrency, Math.min(maxConcurrency, required));
+
+        int target = current;
+        if (required > current) {
+            state.lowSamples = 0;
+            target = Math.min(required, current * 2);
+        } else if (required < current) {
+            state.lowSamples++;
+            if (state.lowSamples >= scaleDownSamples) {
+                state.lowSamples = 0;
+                target = Math.max(required, current / 2);
+            }
+        } else {
+            state.lowSamples = 0;
+        }
+        target = Math.max(minConcurrency, Math.min(maxConcurrency, target));
+
+        if (target != current) {
+            listener.getExecutor().setConcurrency(target);
+            log.info("Listener concurrency adjusted - Group: {}, Topics: {}, Lag: {}, Arrival: {}/s, Throughput: {}/s, "
+                            + "Latency: {} ms, Concurrency: {} -> {}",
+                    listener.getGroupId(), listener.getTopics(), state.lag,
+                    String.format("%.1f", state.arrivalRate), String.format("%.1f", state.throughput),
+                    String.format("%.2f", state.latencySeconds * 1000), current, target);
+        }
+    }
+
+    private ListenerState register(ParallelRecordListener<?, ?> listener) {
+        ListenerState state = new ListenerState();
+        Tags tags = Tags.of("group", String.valueOf(listener.getGroupId()), "topic", String.join(",", listener.getTopics()));
+        Gauge.builder("kafka.consumer.lag", state, s -> s.lag)
+                .description("Records behind the log end for the consumer group")
+                .tags(tags)
+                .register(meterRegistry);
+        Gauge.builder("kafka.consumer.throughput", state, s -> s.throughput)
+                .description("Records completed per second")
+                .tags(tags)
+                .register(meterRegistry);
+        Gauge.builder("kafka.consumer.arrival.rate", state, s -> s.arrivalRate)
+                .description("Records appended to the topic per second")
+                .tags(tags)
+                .register(meterRegistry);
+        Gauge.builder("kafka.consumer.processing.latency", state, s -> s.latencySeconds * 1000)
+                .description("Average record processing time in milliseconds")
+                .tags(tags)
+                .register(meterRegistry);
+        Gauge.builder("kafka.consumer.drain.time", state, ListenerState::drainSeconds)
+                .description("Estimated seconds to drain the current lag at the current throughput")
+                .tags(tags)
+                .register(meterRegistry);
+        Gauge.builder("kafka.consumer.concurrency", listener, l -> l.getExecutor().getConcurrency())
+                .description("Worker threads of the parallel listener")
+                .tags(tags)
+                .register(meterRegistry);
+        Gauge.builder("kafka.consumer.in.flight", listener, ParallelRecordListener::getInFlightCount)
+                .description("Records dispatched to workers and not yet completed")
+                .tags(tags)
+                .register(meterRegistry);
+        return state;
+    }
+
+    /**
+     * מצב הדגימה האחרונה של listener
+     * נכתב רק מתהליכון הבקר ונקרא מה-gauges
+     */
+    private static final class ListenerState {
+
+        private volatile long lag;
+        private volatile double arrivalRate;
+        private volatile double throughput;
+        private volatile double latencySeconds;
+        private int lowSamples;
+        private long endOffsetSum;
+        private long processed;
+        private long processingNanos;
+        private long sampleNanos;
+
+        private double drainSeconds() {
+            double netRate = throughput - arrivalRate;
+            if (lag == 0) {
+                return 0;
+            }
+            return netRate > 0 ? lag / netRate : Double.POSITIVE_INFINITY;
+        }
+    }
+}
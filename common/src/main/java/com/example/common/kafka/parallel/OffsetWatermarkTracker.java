@@ -0,0 +1,78 @@
+package com.example.common.kafka.parallel;
+
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.util.ArrayDeque;
+
+/**
+ * מעקב אחר רשומות בעיבוד עבור partition אחד
+ * הרשומות נרשמות לפי סדר ה-offset ומסתיימות בכל סדר; כאשר רצף רשומות מתחילת
+ * התור הסתיים, ה-acknowledgment של האחרונה ברצף נשלח - כך שה-offset שנשמר
+ * לעולם אינו עוקף רשומה שטרם הסתיימה
+ */
+final class OffsetWatermarkTracker {
+
+    private final ArrayDeque<Entry> pending = new ArrayDeque<>();
+    private long committedOffset = -1L;
+
+    /**
+     * רישום רשומה חדשה - נקרא מתהליכון ה-consumer לפי סדר ה-offsets
+     *
+     * @param offset         ה-offset של הרשומה
+     * @param acknowledgment ה-acknowledgment של הרשומה
+     * @return רשומת מעקב לסימון סיום
+     */
+    synchronized Entry track(long offset, Acknowledgment acknowledgment) {
+        Entry entry = new Entry(offset, acknowledgment);
+        pending.addLast(entry);
+        return entry;
+    }
+
+    /**
+     * סימון סיום עיבוד וקידום סימן המים
+     *
+     * @param entry רשומת המעקב
+     */
+    synchronized void complete(Entry entry) {
+        entry.done = true;
+        Entry watermark = null;
+        while (!pending.isEmpty() && pending.peekFirst().done) {
+            watermark = pending.pollFirst();
+        }
+        if (watermark != null) {
+            committedOffset = watermark.offset;
+            if (watermark.acknowledgment != null) {
+                watermark.acknowledgment.acknowledge();
+            }
+        }
+    }
+
+    /**
+     * @return מספר הרשומות שטרם הוכרו
+     */
+    synchronized int pendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * @return ה-offset האחרון שהוכר, או -1
+     */
+    synchronized long getCommittedOffset() {
+        return committedOffset;
+    }
+
+    /**
+     * רשומה במעקב
+     */
+    static final class Entry {
+
+        private final long offset;
+        private final Acknowledgment acknowledgment;
+        private boolean done;
+
+        private Entry(long offset, Acknowledgment acknowledgment) {
+            this.offset = offset;
+            this.acknowledgment = acknowledgment;
+        }
+    }
+}
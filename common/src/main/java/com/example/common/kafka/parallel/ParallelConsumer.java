@@ -0,0 +1,30 @@
+package com.example.common.kafka.parallel;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * סימון מתודת {@code @KafkaListener} לעיבוד מקבילי לפי מפתח
+ * רשומות מאותו partition מעובדות במקביל על מאגר תהליכונים, כאשר רשומות עם אותו מפתח
+ * (מזהה ההזמנה) נשמרות בסדר הגעתן. ה-offset שנשמר הוא תמיד סימן המים הרציף -
+ * ה-offset הגבוה ביותר שכל הרשומות שלפניו הושלמו.
+ * חתימת המתודה אינה משתנה; ה-container של ה-topics שלה נעטף אוטומטית
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ParallelConsumer {
+
+    /**
+     * מספר התהליכונים המעבדים; ערך שלילי משתמש ב-kafka.parallel.concurrency
+     */
+    int concurrency() default -1;
+
+    /**
+     * מספר רשומות מקסימלי בעיבוד בו-זמנית; ערך שלילי משתמש ב-kafka.parallel.max-in-flight
+     */
+    int maxInFlight() default -1;
+}
@@ -0,0 +1,215 @@
+package com.example.common.kafka.parallel;
+
+import com.example.common.concurrent.KeyOrderedExecutor;
+import com.example.common.kafka.quarantine.QuarantineService;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.RetryableTopic;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.KafkaOperations;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.kafka.listener.ConsumerRecordRecoverer;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * חיבור שכבת העיבוד המקבילי ל-container factories של השירותים
+ * ה-factory מקבל ContainerCustomizer; עבור containers שה-topics שלהם סומנו ב-{@link ParallelConsumer}
+ * ה-listener נעטף ב-{@link ParallelRecordListener}, ה-ack עובר למצב MANUAL (auto commit מבוטל)
+ * וה-rebalance listener ממתין לסיום הרשומות בעיבוד לפני שמירת ה-offsets.
+ * שאר ה-containers של ה-factory אינם משתנים.
+ * השכבה כבויה כברירת מחדל: רשומה שנכשלה מנוסה שוב בתוך ה-worker לפי ה-{@code @RetryableTopic}
+ * של המתודה ואינה עוברת ב-topics של ה-retry
+ */
+@Component
+@Slf4j
+public class ParallelConsumerConfigurer implements DisposableBean {
+
+    private static final String DLQ_SUFFIX = "-dlq";
+    private static final int LANES_PER_THREAD = 16;
+
+    private final ParallelConsumerRegistry registry;
+    private final ObjectProvider<KafkaOperations<?, ?>> kafkaOperations;
+    private final QuarantineService quarantineService;
+    private final List<ParallelRecordListener<?, ?>> listeners = new CopyOnWriteArrayList<>();
+
+    @Value("${kafka.parallel.enabled:false}")
+    private boolean enabled;
+
+    @Value("${kafka.parallel.concurrency:16}")
+    private int defaultConcurrency;
+
+    @Value("${kafka.parallel.max-in-flight:1000}")
+    private int defaultMaxInFlight;
+
+    @Value("${kafka.parallel.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${kafka.parallel.backoff-ms:1000}")
+    private long backoffMs;
+
+    @Value("${kafka.parallel.drain-timeout-ms:10000}")
+    private long drainTimeoutMs;
+
+    public ParallelConsumerConfigurer(ParallelConsumerRegistry registry, ObjectProvider<KafkaOperations<?, ?>> kafkaOperations,
+                                      QuarantineService quarantineService) {
+        this.registry = registry;
+        this.kafkaOperations = kafkaOperations;
+        this.quarantineService = quarantineService;
+    }
+
+    /**
+     * הוספת העיבוד המקבילי ל-factory
+     *
+     * @param factory ה-factory של ה-containers
+     */
+    public <K, V> void configure(ConcurrentKafkaListenerContainerFactory<K, V> factory) {
+        if (!enabled) {
+            log.info("Parallel consumer layer disabled - containers keep serial per-partition processing");
+            return;
+        }
+        factory.setContainerCustomizer(this::customize);
+    }
+
+    /**
+     * @return ה-listeners המקביליים שנוצרו
+     */
+    public List<ParallelRecordListener<?, ?>> getListeners() {
+        return listeners;
+    }
+
+    @Override
+    public void destroy() {
+        listeners.forEach(listener -> listener.getExecutor().shutdown(drainTimeoutMs));
+    }
+
+    private <K, V> void customize(ConcurrentMessageListenerContainer<K, V> container) {
+        ContainerProperties properties = container.getContainerProperties();
+        String[] topics = properties.getTopics();
+        if (topics == null) {
+            return;
+        }
+        ParallelConsumer parallelConsumer = registry.find(Arrays.asList(topics));
+        if (parallelConsumer == null) {
+            return;
+        }
+
+        int concurrency = parallelConsumer.concurrency() > 0 ? parallelConsumer.concurrency() : defaultConcurrency;
+        int maxInFlight = parallelConsumer.maxInFlight() > 0 ? parallelConsumer.maxInFlight() : defaultMaxInFlight;
+        String name = "parallel-" + String.join("-", topics);
+
+        ParallelRetryPolicy retryPolicy = retryPolicy(registry.findRetryableTopic(Arrays.asList(topics)));
+
+        ParallelRecordListener<K, V> listener = new ParallelRecordListener<>(container.getGroupId(), Arrays.asList(topics),
+                properties.getMessageListener(),
+                new KeyOrderedExecutor(name, concurrency, concurrency * LANES_PER_THREAD),
+                maxInFlight, retryPolicy, createRecoverer(retryPolicy.dlqSuffix()), createQuarantine());
+        container.setupMessageListener(listener);
+        properties.setAckMode(ContainerProperties.AckMode.MANUAL);
+        properties.getKafkaConsumerProperties().setProperty(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        properties.setConsumerRebalanceListener(new DrainingRebalanceListener(listener, properties.getConsumerRebalanceListener()));
+        listeners.add(listener);
+
+        log.info("Parallel consumer enabled - Topics: {}, Concurrency: {}, Max in flight: {}, Attempts: {}",
+                Arrays.toString(topics), concurrency, maxInFlight, retryPolicy.maxAttempts());
+    }
+
+    /**
+     * גזירת מדיניות הניסיונות מה-{@code @RetryableTopic} של המתודה, או מ-kafka.parallel.* אם אין
+     */
+    private ParallelRetryPolicy retryPolicy(RetryableTopic retryableTopic) {
+        if (retryableTopic == null) {
+            return new ParallelRetryPolicy(maxAttempts, backoffMs, 2.0, 0L, List.of(), true, DLQ_SUFFIX);
+        }
+        return new ParallelRetryPolicy(
+                Integer.parseInt(registry.resolve(retryableTopic.attempts())),
+                retryableTopic.backoff().delay(),
+                retryableTopic.backoff().multiplier() > 0 ? retryableTopic.backoff().multiplier() : 1.0,
+                retryableTopic.backoff().maxDelay(),
+                Arrays.asList(retryableTopic.exclude()),
+                Boolean.parseBoolean(registry.resolve(retryableTopic.traversingCauses())),
+                registry.resolve(retryableTopic.dltTopicSuffix()));
+    }
+
+    private ConsumerRecordRecoverer createRecoverer(String dlqSuffix) {
+        KafkaOperations<?, ?> operations = kafkaOperations.getIfAvailable();
+        if (operations == null) {
+            log.warn("No KafkaOperations available - failed parallel records will be logged and skipped");
+            return null;
+        }
+        return new DeadLetterPublishingRecoverer(operations,
+                (record, error) -> new TopicPartition(record.topic() + dlqSuffix, -1));
+    }
+
+    private ConsumerRecordRecoverer createQuarantine() {
+        if (!quarantineService.isEnabled()) {
+            return null;
+        }
+        return (record, error) -> quarantineService.quarantine(record, error, QuarantineService.STAGE_PROCESSING);
+    }
+
+    /**
+     * Rebalance listener שממתין לסיום העיבוד של partitions שנלקחים
+     * ומעביר את הקריאות ל-listener שהוגדר קודם (אם קיים)
+     */
+    private final class DrainingRebalanceListener implements ConsumerAwareRebalanceListener {
+
+        private final ParallelRecordListener<?, ?> listener;
+        private final ConsumerRebalanceListener delegate;
+
+        private DrainingRebalanceListener(ParallelRecordListener<?, ?> listener, ConsumerRebalanceListener delegate) {
+            this.listener = listener;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+            listener.awaitDrain(partitions, drainTimeoutMs);
+            if (delegate instanceof ConsumerAwareRebalanceListener consumerAware) {
+                consumerAware.onPartitionsRevokedBeforeCommit(consumer, partitions);
+            } else if (delegate != null) {
+                delegate.onPartitionsRevoked(partitions);
+            }
+        }
+
+        @Override
+        public void onPartitionsRevokedAfterCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+            listener.forget(partitions);
+            if (delegate instanceof ConsumerAwareRebalanceListener consumerAware) {
+                consumerAware.onPartitionsRevokedAfterCommit(consumer, partitions);
+            }
+        }
+
+        @Override
+        public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+            listener.forget(partitions);
+            if (delegate instanceof ConsumerAwareRebalanceListener consumerAware) {
+                consumerAware.onPartitionsLost(consumer, partitions);
+            } else if (delegate != null) {
+                delegate.onPartitionsLost(partitions);
+            }
+        }
+
+        @Override
+        public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+            if (delegate instanceof ConsumerAwareRebalanceListener consumerAware) {
+                consumerAware.onPartitionsAssigned(consumer, partitions);
+            } else if (delegate != null) {
+                delegate.onPartitionsAssigned(partitions);
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.common.kafka.parallel;
+
+import com.example.common.kafka.quarantine.PoisonMessageClassifier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.env.Environment;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.RetryableTopic;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * איסוף מתודות {@code @KafkaListener} שסומנו ב-{@link ParallelConsumer}
+ * נרשם לפי שם ה-topic (לאחר פתרון placeholders) כך שה-container שנוצר עבור
+ * ה-topic מזוהה בזמן יצירתו. ה-topics של retry ו-DLQ אינם נרשמים ונשארים סדרתיים.
+ * נשמר גם ה-{@code @RetryableTopic} של המתודה, שממנו נגזרת מדיניות הניסיונות של העיבוד המקבילי.
+ * ה-exclude שלו חייב לכלול את כל סוגי הכשלים של {@link PoisonMessageClassifier}, אחרת אותו כשל
+ * היה עובר להסגר בנתיב אחד ול-topics של retry בנתיב השני - העלייה נכשלת במקרה כזה
+ */
+@Component
+@Slf4j
+public class ParallelConsumerRegistry implements BeanPostProcessor, EnvironmentAware {
+
+    private final Map<String, ParallelConsumer> topics = new ConcurrentHashMap<>();
+    private final Map<String, RetryableTopic> retryableTopics = new ConcurrentHashMap<>();
+    private Environment environment;
+
+    @Override
+    public void setEnvironment(Environment environment) {
+        this.environment = environment;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        Class<?> targetClass = AopUtils.getTargetClass(bean);
+        if (!targetClass.getName().startsWith("com.example")) {
+            return bean;
+        }
+        for (Method method : ReflectionUtils.getUniqueDeclaredMethods(targetClass)) {
+            ParallelConsumer parallelConsumer = AnnotatedElementUtils.findMergedAnnotation(method, ParallelConsumer.class);
+            KafkaListener kafkaListener = AnnotatedElementUtils.findMergedAnnotation(method, KafkaListener.class);
+            if (parallelConsumer == null || kafkaListener == null) {
+                continue;
+            }
+            RetryableTopic retryableTopic = AnnotatedElementUtils.findMergedAnnotation(method, RetryableTopic.class);
+            if (retryableTopic != null) {
+                checkExcludes(retryableTopic, targetClass, method);
+            }
+            for (String topic : kafkaListener.topics()) {
+                String resolvedTopic = resolve(topic);
+                topics.put(resolvedTopic, parallelConsumer);
+                if (retryableTopic != null) {
+                    retryableTopics.put(resolvedTopic, retryableTopic);
+                }
+                log.info("Parallel consumer registered - Topic: {}, Listener: {}.{}",
+                        resolvedTopic, targetClass.getSimpleName(), method.getName());
+            }
+        }
+        return bean;
+    }
+
+    /**
+     * וידוא שה-exclude של {@code @RetryableTopic} מכסה את כל הכשלים המבניים
+     */
+    private static void checkExcludes(RetryableTopic retryableTopic, Class<?> targetClass, Method method) {
+        List<Class<? extends Throwable>> excluded = Arrays.asList(retryableTopic.exclude());
+        List<Class<? extends Throwable>> missing = PoisonMessageClassifier.poisonTypes().stream()
+                .filter(type -> !excluded.contains(type))
+                .toList();
+        if (!missing.isEmpty()) {
+            throw new IllegalStateException("@RetryableTopic on " + targetClass.getSimpleName() + "." + method.getName()
+                    + " must exclude the poison types of PoisonMessageClassifier, missing: "
+                    + missing.stream().map(Class::getSimpleName).toList());
+        }
+    }
+
+    /**
+     * שליפת הגדרות העיבוד המקבילי עבור topics של container
+     *
+     * @param containerTopics ה-topics של ה-container
+     * @return ההגדרות, או null אם אף topic לא סומן
+     */
+    public ParallelConsumer find(Collection<String> containerTopics) {
+        for (String topic : containerTopics) {
+            ParallelConsumer parallelConsumer = topics.get(topic);
+            if (parallelConsumer != null) {
+                return parallelConsumer;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * שליפת ה-{@code @RetryableTopic} של המתודה שסומנה עבור topics של container
+     *
+     * @param containerTopics ה-topics של ה-container
+     * @return ה-annotation, או null אם למתודה אין topics של retry
+     */
+    public RetryableTopic findRetryableTopic(Collection<String> containerTopics) {
+        for (String topic : containerTopics) {
+            RetryableTopic retryableTopic = retryableTopics.get(topic);
+            if (retryableTopic != null) {
+                return retryableTopic;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * פתרון placeholders בערך של annotation
+     *
+     * @param value הערך
+     * @return הערך לאחר פתרון
+     */
+    public String resolve(String value) {
+        return environment != null ? environment.resolvePlaceholders(value) : value;
+    }
+}
@@ -0,0 +1,267 @@
+package com.example.common.kafka.parallel;
+
+import com.example.common.concurrent.KeyOrderedExecutor;
+import com.example.common.kafka.quarantine.PoisonMessageClassifier;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.listener.AcknowledgingConsumerAwareMessageListener;
+import org.springframework.kafka.listener.ConsumerRecordRecoverer;
+import org.springframework.kafka.listener.DelegatingMessageListener;
+import org.springframework.kafka.listener.MessageListener;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Listener עוטף שמעביר רשומות לעיבוד מקבילי לפי מפתח
+ * תהליכון ה-consumer רק רושם את הרשומה במעקב ה-offsets של ה-partition שלה ומגיש
+ * אותה ל-{@link KeyOrderedExecutor}; ה-listener המקורי רץ על תהליכוני ה-executor.
+ * ה-acknowledgment נשלח רק עבור סימן המים הרציף של כל partition, כך שאחרי קריסה
+ * נקראות מחדש רק רשומות שלא הסתיימו. ה-listener המקורי חייב לסיים את העבודה לפני שהוא חוזר
+ * (מאזין ריאקטיבי ממתין ל-Mono), אחרת הרשומה נחשבת שהסתיימה לפני שהעבודה הושלמה.
+ * כשלים מנוסים שוב מקומית לפי {@link ParallelRetryPolicy} ואז מועברים ל-recoverer
+ */
+@Slf4j
+public class ParallelRecordListener<K, V> implements AcknowledgingConsumerAwareMessageListener<K, V>,
+        DelegatingMessageListener<Object> {
+
+    private final String groupId;
+    private final List<String> topics;
+    private final Object delegate;
+    private final KeyOrderedExecutor executor;
+    private final Semaphore inFlight;
+    private final int maxInFlight;
+    private final ParallelRetryPolicy retryPolicy;
+    private final ConsumerRecordRecoverer recoverer;
+    private final ConsumerRecordRecoverer quarantine;
+    private final Map<TopicPartition, OffsetWatermarkTracker> trackers = new ConcurrentHashMap<>();
+    private final AtomicLong processedRecords = new AtomicLong();
+    private final AtomicLong recoveredRecords = new AtomicLong();
+    private final LongAdder processingNanos = new LongAdder();
+
+    /**
+     * יצירת listener מקבילי
+     *
+     * @param groupId     ה-consumer group של ה-container
+     * @param topics      ה-topics של ה-container
+     * @param delegate    ה-listener המקורי של ה-container
+     * @param executor    ה-executor לעיבוד לפי מפתח
+     * @param maxInFlight מספר רשומות מקסימלי בעיבוד
+     * @param retryPolicy מדיניות הניסיונות לפני העברה ל-recoverer
+     * @param recoverer   טיפול ברשומות שנכשלו בכל הניסיונות (יכול להיות null)
+     * @param quarantine  טיפול בכשלים מבניים ללא ניסיונות חוזרים (יכול להיות null)
+     */
+    public ParallelRecordListener(String groupId, List<String> topics, Object delegate, KeyOrderedExecutor executor, int maxInFlight,
+                                  ParallelRetryPolicy retryPolicy, ConsumerRecordRecoverer recoverer,
+                                  ConsumerRecordRecoverer quarantine) {
+        if (!(delegate instanceof AcknowledgingConsumerAwareMessageListener) && !(delegate instanceof MessageListener)) {
+            throw new IllegalArgumentException("Parallel consumer supports record listeners only, got: "
+                    + delegate.getClass().getName());
+        }
+        this.groupId = groupId;
+        this.topics = List.copyOf(topics);
+        this.delegate = delegate;
+        this.executor = executor;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.retryPolicy = retryPolicy;
+        this.recoverer = recoverer;
+        this.quarantine = quarantine;
+    }
+
+    @Override
+    public void onMessage(ConsumerRecord<K, V> record, Acknowledgment acknowledgment, Consumer<?, ?> consumer) {
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for parallel consumer capacity", e);
+        }
+
+        TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+        OffsetWatermarkTracker tracker = trackers.computeIfAbsent(partition, ignored -> new OffsetWatermarkTracker());
+        OffsetWatermarkTracker.Entry entry = tracker.track(record.offset(), acknowledgment);
+        // רשומות ללא מפתח נשמרות בסדר ה-partition
+        Object orderingKey = record.key() != null ? record.key() : partition;
+
+        executor.execute(orderingKey, () -> {
+            try {
+                process(record);
+            } finally {
+                tracker.complete(entry);
+                inFlight.release();
+            }
+        });
+    }
+
+    /**
+     * המתנה לסיום כל הרשומות בעיבוד עבור partitions שנלקחים מה-consumer
+     * נקרא לפני שמירת ה-offsets ב-rebalance, כך שה-watermark הסופי נשמר לפני מסירת ה-partition
+     *
+     * @param partitions ה-partitions שנלקחים
+     * @param timeoutMs  זמן המתנה מקסימלי
+     * @return true אם כל הרשומות הסתיימו
+     */
+    public boolean awaitDrain(Collection<TopicPartition> partitions, long timeoutMs) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        boolean drained = false;
+        while (!drained) {
+            drained = partitions.stream()
+                    .map(trackers::get)
+                    .allMatch(tracker -> tracker == null || tracker.pendingCount() == 0);
+            if (drained || System.nanoTime() >= deadline) {
+                break;
+            }
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (!drained) {
+            log.warn("Parallel consumer drain timed out after {} ms for partitions: {}", timeoutMs, partitions);
+        }
+        return drained;
+    }
+
+    /**
+     * הסרת מעקב ה-offsets עבור partitions שאינם משויכים יותר
+     *
+     * @param partitions ה-partitions שהוסרו
+     */
+    public void forget(Collection<TopicPartition> partitions) {
+        partitions.forEach(trackers::remove);
+    }
+
+    /**
+     * @return ה-consumer group של ה-container
+     */
+    public String getGroupId() {
+        return groupId;
+    }
+
+    /**
+     * @return ה-topics של ה-container
+     */
+    public List<String> getTopics() {
+        return topics;
+    }
+
+    /**
+     * @return ה-executor של ה-listener
+     */
+    public KeyOrderedExecutor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * @return מספר הרשומות בעיבוד כרגע
+     */
+    public int getInFlightCount() {
+        return maxInFlight - inFlight.availablePermits();
+    }
+
+    /**
+     * @return מספר הרשומות שעובדו מאז ההפעלה
+     */
+    public long getProcessedCount() {
+        return processedRecords.get();
+    }
+
+    /**
+     * @return מספר הרשומות שהועברו ל-recoverer
+     */
+    public long getRecoveredCount() {
+        return recoveredRecords.get();
+    }
+
+    /**
+     * @return זמן העיבוד המצטבר בננו-שניות של כל הניסיונות, ללא המתנות ה-backoff ביניהם
+     */
+    public long getProcessingNanos() {
+        return processingNanos.sum();
+    }
+
+    @Override
+    public Object getDelegate() {
+        return delegate;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void process(ConsumerRecord<K, V> record) {
+        for (int attempt = 1; ; attempt++) {
+            long startNanos = System.nanoTime();
+            try {
+                if (delegate instanceof AcknowledgingConsumerAwareMessageListener) {
+                    // ה-consumer אינו thread-safe ולכן אינו מועבר לתהליכוני העיבוד
+                    ((AcknowledgingConsumerAwareMessageListener<K, V>) delegate).onMessage(record, null, null);
+                } else {
+                    ((MessageListener<K, V>) delegate).onMessage(record);
+                }
+                processingNanos.add(System.nanoTime() - startNanos);
+                processedRecords.incrementAndGet();
+                return;
+            } catch (Exception e) {
+                processingNanos.add(System.nanoTime() - startNanos);
+                if (quarantine != null && PoisonMessageClassifier.isPoison(e)) {
+                    // כשל מבני יחזור בכל ניסיון - ישר להסגר
+                    try {
+                        quarantine.accept(record, e);
+                        recoveredRecords.incrementAndGet();
+                    } catch (Exception quarantineError) {
+                        // ההסגר לא נשמר - הרשומה עוברת ל-recoverer במקום להיעלם
+                        recover(record, e, attempt);
+                    }
+                    return;
+                }
+                if (attempt >= retryPolicy.maxAttempts() || !retryPolicy.isRetryable(e)) {
+                    recover(record, e, attempt);
+                    return;
+                }
+                log.warn("Parallel consumer attempt {}/{} failed - Topic: {}, Partition: {}, Offset: {}, Error: {}",
+                        attempt, retryPolicy.maxAttempts(), record.topic(), record.partition(), record.offset(), e.getMessage());
+                if (!sleep(retryPolicy.backoffFor(attempt))) {
+                    recover(record, e, attempt);
+                    return;
+                }
+            }
+        }
+    }
+
+    private void recover(ConsumerRecord<K, V> record, Exception error, int attempts) {
+        recoveredRecords.incrementAndGet();
+        if (recoverer == null) {
+            log.error("Parallel consumer dropped record after {} attempts - Topic: {}, Partition: {}, Offset: {}, Error: {}",
+                    attempts, record.topic(), record.partition(), record.offset(), error.getMessage());
+            return;
+        }
+        try {
+            recoverer.accept(record, error);
+            log.warn("Parallel consumer recovered record - Topic: {}, Partition: {}, Offset: {}",
+                    record.topic(), record.partition(), record.offset());
+        } catch (Exception recoveryError) {
+            log.error("Parallel consumer failed to recover record - Topic: {}, Partition: {}, Offset: {}, Error: {}",
+                    record.topic(), record.partition(), record.offset(), recoveryError.getMessage());
+        }
+    }
+
+    private boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
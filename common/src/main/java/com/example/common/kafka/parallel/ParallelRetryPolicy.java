@@ -0,0 +1,62 @@
+package com.example.common.kafka.parallel;
+
+import org.springframework.kafka.listener.ListenerExecutionFailedException;
+
+import java.util.List;
+
+/**
+ * מדיניות הניסיונות החוזרים של listener מקבילי
+ * כשלמתודה יש {@code @RetryableTopic} המדיניות נגזרת ממנו - מספר ניסיונות, backoff, חריגות שאינן
+ * מנוסות שוב וסיומת ה-DLQ - כך שהעיבוד המקבילי, שאינו עובר ב-topics של retry, שומר על אותם תנאים
+ *
+ * @param maxAttempts      מספר ניסיונות כולל לפני העברה ל-DLQ
+ * @param backoffMs        המתנה לפני הניסיון השני
+ * @param multiplier       מכפיל ההמתנה בין ניסיון לניסיון
+ * @param maxBackoffMs     המתנה מקסימלית; 0 - ללא הגבלה
+ * @param notRetryable     חריגות שעוברות ישר ל-DLQ
+ * @param traversingCauses האם לבדוק גם את ה-causes של החריגה
+ * @param dlqSuffix        סיומת ה-topic של ה-DLQ
+ */
+public record ParallelRetryPolicy(int maxAttempts,
+                                  long backoffMs,
+                                  double multiplier,
+                                  long maxBackoffMs,
+                                  List<Class<? extends Throwable>> notRetryable,
+                                  boolean traversingCauses,
+                                  String dlqSuffix) {
+
+    public ParallelRetryPolicy {
+        maxAttempts = Math.max(1, maxAttempts);
+        notRetryable = List.copyOf(notRetryable);
+    }
+
+    /**
+     * @param attempt מספר הניסיון שנכשל (מ-1)
+     * @return ההמתנה לפני הניסיון הבא
+     */
+    public long backoffFor(int attempt) {
+        double delay = backoffMs * Math.pow(multiplier, attempt - 1);
+        return maxBackoffMs > 0 ? (long) Math.min(delay, maxBackoffMs) : (long) delay;
+    }
+
+    /**
+     * @param error החריגה
+     * @return false אם החריגה (או cause שלה, לפי traversingCauses) סומנה כלא מנוסה שוב
+     */
+    public boolean isRetryable(Throwable error) {
+        // ה-adapter של ה-listener עוטף את החריגה של המתודה
+        Throwable unwrapped = error instanceof ListenerExecutionFailedException && error.getCause() != null
+                ? error.getCause() : error;
+        for (Throwable current = unwrapped; current != null; current = traversingCauses ? current.getCause() : null) {
+            for (Class<? extends Throwable> type : notRetryable) {
+                if (type.isInstance(current)) {
+                    return false;
+                }
+            }
+            if (current.getCause() == current) {
+                break;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,264 @@
+package com.example.common.kafka.producer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.ProducerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ProducerFactory שהגדרות ה-batching שלו (linger.ms, batch.size) ניתנות לשינוי בזמן ריצה
+ * ב-KafkaProducer ההגדרות קבועות ליצירה, ולכן כל שינוי יוצר "דור" חדש של factories לשליחות
+ * שאינן טרנזקציוניות: שליחות חדשות עוברות מיד לדור החדש, והדור הקודם נסגר אחרי grace period.
+ * בתוך דור יש factory לכל סוג דחיסה, ושליחה מנותבת לפי ה-topic ל-producer עם הדחיסה שנבחרה עבורו.
+ * producers טרנזקציוניים אינם מכוונים מחדש: הם נוצרים מ-factory יחיד עם ה-transactional.id של השירות,
+ * ההגדרות ההתחלתיות ודחיסת ברירת המחדל, ואף טרנזקציה פתוחה אינה נסגרת בכוח בהחלפת דור.
+ * כשה-prefix של ה-transactional.id קבוע למופע, ה-producer שנוצר אחרי קריסה עם אותו מזהה
+ * גודר (fence) את הטרנזקציות הפתוחות של המופע הקודם
+ *
+ * @param <K> סוג המפתח
+ * @param <V> סוג הערך
+ */
+@Slf4j
+public class AdaptiveProducerFactory<K, V> implements ProducerFactory<K, V>, DisposableBean {
+
+    private final String name;
+    private final DefaultKafkaProducerFactory<K, V> base;
+    private final CompressionPolicy compressionPolicy;
+    private final int initialLingerMs;
+    private final int initialBatchSize;
+    private final Map<String, Producer<K, V>> transactionalProducers = new ConcurrentHashMap<>();
+    private volatile Generation<K, V> current;
+    private volatile DefaultKafkaProducerFactory<K, V> transactional;
+
+    AdaptiveProducerFactory(String name, DefaultKafkaProducerFactory<K, V> base, CompressionPolicy compressionPolicy,
+                            int lingerMs, int batchSize) {
+        this.name = name;
+        this.base = base;
+        this.compressionPolicy = compressionPolicy;
+        this.initialLingerMs = lingerMs;
+        this.initialBatchSize = batchSize;
+        this.current = new Generation<>(this, 0, lingerMs, batchSize);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLingerMs() {
+        return current.lingerMs;
+    }
+
+    public int getBatchSize() {
+        return current.batchSize;
+    }
+
+    public int getGeneration() {
+        return current.number;
+    }
+
+    CompressionPolicy getCompressionPolicy() {
+        return compressionPolicy;
+    }
+
+    /**
+     * @return ה-producers הפעילים של הדור הנוכחי וה-producers הטרנזקציוניים (לקריאת metrics)
+     */
+    Collection<Producer<K, V>> activeProducers() {
+        if (transactionalProducers.isEmpty()) {
+            return current.producers.values();
+        }
+        List<Producer<K, V>> producers = new ArrayList<>(current.producers.values());
+        producers.addAll(transactionalProducers.values());
+        return producers;
+    }
+
+    /**
+     * מעבר לדור חדש עם הגדרות batching חדשות - לשליחות שאינן טרנזקציוניות בלבד
+     *
+     * @return הדור הקודם - יש לסגור אותו ב-{@link Generation#close()} אחרי ה-grace period
+     */
+    synchronized Generation<K, V> retune(int lingerMs, int batchSize) {
+        Generation<K, V> previous = current;
+        current = new Generation<>(this, previous.number + 1, lingerMs, batchSize);
+        return previous;
+    }
+
+    @Override
+    public Producer<K, V> createProducer() {
+        return transactionCapable() ? transactionalFactory().createProducer() : current.router;
+    }
+
+    @Override
+    public Producer<K, V> createProducer(String txIdPrefix) {
+        return txIdPrefix == null ? createProducer() : transactionalFactory().createProducer(txIdPrefix);
+    }
+
+    @Override
+    public Producer<K, V> createNonTransactionalProducer() {
+        return current.router;
+    }
+
+    @Override
+    public boolean transactionCapable() {
+        return base.transactionCapable();
+    }
+
+    @Override
+    public String getTransactionIdPrefix() {
+        return base.getTransactionIdPrefix();
+    }
+
+    @Override
+    public Map<String, Object> getConfigurationProperties() {
+        return transactionCapable() ? transactionalFactory().getConfigurationProperties()
+                : current.factory(compressionPolicy.defaultCompression()).getConfigurationProperties();
+    }
+
+    @Override
+    public Duration getPhysicalCloseTimeout() {
+        return base.getPhysicalCloseTimeout();
+    }
+
+    @Override
+    public void closeThreadBoundProducer() {
+        current.factories.values().forEach(DefaultKafkaProducerFactory::closeThreadBoundProducer);
+        if (transactional != null) {
+            transactional.closeThreadBoundProducer();
+        }
+    }
+
+    @Override
+    public void reset() {
+        current.factories.values().forEach(DefaultKafkaProducerFactory::reset);
+        if (transactional != null) {
+            transactional.reset();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        current.close();
+        if (transactional != null) {
+            transactional.destroy();
+        }
+    }
+
+    /**
+     * ה-factory של ה-producers הטרנזקציוניים - נוצר פעם אחת ואינו מוחלף בכיוון מחדש.
+     * ה-transactional.id נשאר הקידומת של השירות, כך שהוא יציב בין הפעלות של אותו מופע
+     */
+    private DefaultKafkaProducerFactory<K, V> transactionalFactory() {
+        DefaultKafkaProducerFactory<K, V> factory = transactional;
+        if (factory == null) {
+            synchronized (this) {
+                factory = transactional;
+                if (factory == null) {
+                    Map<String, Object> overrides = new HashMap<>();
+                    overrides.put(ProducerConfig.LINGER_MS_CONFIG, initialLingerMs);
+                    overrides.put(ProducerConfig.BATCH_SIZE_CONFIG, initialBatchSize);
+                    overrides.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionPolicy.defaultCompression());
+                    overrides.put(ProducerConfig.CLIENT_ID_CONFIG, name + "-tx");
+                    factory = (DefaultKafkaProducerFactory<K, V>) base.copyWithConfigurationOverride(overrides);
+                    factory.addListener(new ProducerFactory.Listener<K, V>() {
+
+                        @Override
+                        public void producerAdded(String id, Producer<K, V> producer) {
+                            transactionalProducers.put(id, producer);
+                        }
+
+                        @Override
+                        public void producerRemoved(String id, Producer<K, V> producer) {
+                            transactionalProducers.remove(id);
+                        }
+                    });
+                    transactional = factory;
+                    log.info("Kafka transactional producer factory created - Producer: {}, Transaction id prefix: {}, "
+                                    + "Linger: {} ms, Batch size: {}", name, base.getTransactionIdPrefix(),
+                            initialLingerMs, initialBatchSize);
+                }
+            }
+        }
+        return factory;
+    }
+
+    /**
+     * דור של factories עם אותן הגדרות batching - factory לכל סוג דחיסה, נוצר בשימוש הראשון.
+     * ה-factories של הדור משמשים רק ל-producers שאינם טרנזקציוניים
+     */
+    static final class Generation<K, V> {
+
+        private final AdaptiveProducerFactory<K, V> owner;
+        private final int number;
+        private final int lingerMs;
+        private final int batchSize;
+        private final Map<String, DefaultKafkaProducerFactory<K, V>> factories = new ConcurrentHashMap<>();
+        private final Map<String, Producer<K, V>> producers = new ConcurrentHashMap<>();
+        private final TopicRoutingProducer<K, V> router;
+
+        private Generation(AdaptiveProducerFactory<K, V> owner, int number, int lingerMs, int batchSize) {
+            this.owner = owner;
+            this.number = number;
+            this.lingerMs = lingerMs;
+            this.batchSize = batchSize;
+            this.router = new TopicRoutingProducer<>(this::producerFor, this::openProducers);
+        }
+
+        int getNumber() {
+            return number;
+        }
+
+        DefaultKafkaProducerFactory<K, V> factory(String compression) {
+            return factories.computeIfAbsent(compression, this::create);
+        }
+
+        /**
+         * סגירת כל ה-producers של הדור
+         */
+        void close() {
+            factories.values().forEach(DefaultKafkaProducerFactory::destroy);
+        }
+
+        private Producer<K, V> producerFor(String topic) {
+            return factory(owner.compressionPolicy.compressionFor(topic)).createNonTransactionalProducer();
+        }
+
+        private List<Producer<K, V>> openProducers() {
+            return factories.values().stream().map(DefaultKafkaProducerFactory::createNonTransactionalProducer).toList();
+        }
+
+        private DefaultKafkaProducerFactory<K, V> create(String compression) {
+            Map<String, Object> overrides = new HashMap<>();
+            overrides.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+            overrides.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+            overrides.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compression);
+            overrides.put(ProducerConfig.CLIENT_ID_CONFIG, owner.name + "-g" + number + "-" + compression);
+            DefaultKafkaProducerFactory<K, V> factory =
+                    (DefaultKafkaProducerFactory<K, V>) owner.base.copyWithConfigurationOverride(overrides);
+            factory.addListener(new ProducerFactory.Listener<K, V>() {
+
+                @Override
+                public void producerAdded(String id, Producer<K, V> producer) {
+                    producers.put(id, producer);
+                }
+
+                @Override
+                public void producerRemoved(String id, Producer<K, V> producer) {
+                    producers.remove(id);
+                }
+            });
+            log.info("Kafka producer generation created - Producer: {}, Generation: {}, Compression: {}, "
+                    + "Linger: {} ms, Batch size: {}", owner.name, number, compression, lingerMs, batchSize);
+            return factory;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.common.kafka.producer;
+
+/**
+ * בחירת סוג הדחיסה (compression.type של Kafka) לכל topic
+ * שירות יכול לרשום bean משלו; אחרת נבנית מדיניות מ-kafka.producer.tuning.compression.*
+ */
+public interface CompressionPolicy {
+
+    /**
+     * @return דחיסת ברירת המחדל (none, gzip, snappy, lz4, zstd)
+     */
+    String defaultCompression();
+
+    /**
+     * @param topic שם ה-topic
+     * @return סוג הדחיסה עבור ה-topic
+     */
+    default String compressionFor(String topic) {
+        return defaultCompression();
+    }
+}
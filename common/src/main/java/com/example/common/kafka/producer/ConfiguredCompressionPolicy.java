@@ -0,0 +1,62 @@
+package com.example.common.kafka.producer;
+
+import org.apache.kafka.common.record.CompressionType;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * מדיניות דחיסה מתוך הקונפיגורציה
+ * topics בפורמט "order-created=zstd,inventory-check-result=lz4"; topic שלא מופיע מקבל את ברירת המחדל
+ */
+public class ConfiguredCompressionPolicy implements CompressionPolicy {
+
+    private final String defaultCompression;
+    private final Map<String, String> topicCompression;
+
+    public ConfiguredCompressionPolicy(String defaultCompression, String topics) {
+        this.defaultCompression = validate(defaultCompression);
+        this.topicCompression = parse(topics);
+    }
+
+    @Override
+    public String defaultCompression() {
+        return defaultCompression;
+    }
+
+    @Override
+    public String compressionFor(String topic) {
+        return topicCompression.getOrDefault(topic, defaultCompression);
+    }
+
+    @Override
+    public String toString() {
+        return "default=" + defaultCompression + (topicCompression.isEmpty() ? "" : ", topics=" + topicCompression);
+    }
+
+    private static Map<String, String> parse(String topics) {
+        Map<String, String> result = new HashMap<>();
+        if (topics == null || topics.isBlank()) {
+            return result;
+        }
+        for (String entry : topics.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int separator = entry.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Invalid topic compression entry: " + entry.trim()
+                        + " (expected topic=codec)");
+            }
+            result.put(entry.substring(0, separator).trim(), validate(entry.substring(separator + 1)));
+        }
+        return Map.copyOf(result);
+    }
+
+    private static String validate(String compression) {
+        String name = compression == null || compression.isBlank() ? "none" : compression.trim().toLowerCase(Locale.ROOT);
+        // זורק IllegalArgumentException עבור codec לא מוכר
+        return CompressionType.forName(name).name;
+    }
+}
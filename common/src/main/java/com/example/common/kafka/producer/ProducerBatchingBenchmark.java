@@ -0,0 +1,171 @@
+package com.example.common.kafka.producer;
+
+import com.example.common.enums.Category;
+import com.example.common.events.OrderCreatedEvent;
+import com.example.common.models.OrderItem;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * השוואת batching אדפטיבי מול הגדרות ברירת המחדל של Kafka
+ * לכל קצב ב-rates נשלחים אירועי order-created בקצב קבוע ל-topic ייעודי, פעם דרך producer עם הגדרות
+ * ברירת המחדל (linger 0, batch 16KB, ללא דחיסה) ופעם דרך ה-factory האדפטיבי של השירות.
+ * לכל שלב נרשמים תפוקה, latency של אישור השליחה (p50 / p99 / max), גודל batch ממוצע ויחס דחיסה.
+ * מיועד ל-broker מקומי (docker-compose) - השלב האדפטיבי צריך כמה דגימות של הבקר כדי להתכנס,
+ * ולכן phase-seconds צריך להיות גדול מ-reconfigure-interval-ms
+ */
+@Component
+@ConditionalOnProperty(name = "kafka.producer.benchmark.enabled", havingValue = "true")
+@Slf4j
+public class ProducerBatchingBenchmark implements ApplicationRunner {
+
+    private static final int MAX_LATENCY_SAMPLES = 5_000_000;
+
+    private final ProducerFactory<String, Object> producerFactory;
+
+    @Value("${kafka.producer.benchmark.topic:producer-benchmark}")
+    private String topic;
+
+    @Value("${kafka.producer.benchmark.rates:500,5000,50000}")
+    private int[] rates;
+
+    @Value("${kafka.producer.benchmark.phase-seconds:90}")
+    private int phaseSeconds;
+
+    @Value("${kafka.producer.benchmark.items-per-order:3}")
+    private int itemsPerOrder;
+
+    public ProducerBatchingBenchmark(ProducerFactory<String, Object> producerFactory) {
+        this.producerFactory = producerFactory;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!(producerFactory instanceof AdaptiveProducerFactory<String, Object> adaptive)) {
+            log.warn("Producer batching benchmark skipped - adaptive producer batching is disabled");
+            return;
+        }
+        log.info("=== PRODUCER BATCHING BENCHMARK STARTED === Topic: {}, Rates: {}, Phase: {} s",
+                topic, Arrays.toString(rates), phaseSeconds);
+
+        DefaultKafkaProducerFactory<String, Object> baseline = new DefaultKafkaProducerFactory<>(baselineConfigs());
+        try {
+            for (int rate : rates) {
+                runPhase("baseline", rate, baseline::createNonTransactionalProducer, null);
+                runPhase("adaptive", rate, adaptive::createNonTransactionalProducer, adaptive);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Producer batching benchmark interrupted");
+        } catch (Exception e) {
+            log.error("Producer batching benchmark failed: {}", e.getMessage(), e);
+        } finally {
+            baseline.destroy();
+        }
+        log.info("=== PRODUCER BATCHING BENCHMARK COMPLETED ===");
+    }
+
+    private void runPhase(String mode, int rate, Supplier<Producer<String, Object>> producers,
+                          AdaptiveProducerFactory<String, Object> adaptive) throws InterruptedException {
+        int count = (int) Math.min(MAX_LATENCY_SAMPLES, (long) rate * phaseSeconds);
+        long[] latencies = new long[count];
+        AtomicInteger failures = new AtomicInteger();
+        CountDownLatch acknowledged = new CountDownLatch(count);
+        String runId = "bench-" + UUID.randomUUID().toString().substring(0, 8) + "-";
+        double intervalNanos = 1_000_000_000.0 / rate;
+
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            long scheduledNanos = startNanos + (long) (i * intervalNanos);
+            long waitNanos = scheduledNanos - System.nanoTime();
+            if (waitNanos > 0) {
+                LockSupport.parkNanos(waitNanos);
+            }
+            int index = i;
+            String orderId = runId + i;
+            long sendNanos = System.nanoTime();
+            // נלקח מחדש בכל שליחה כדי לעבור לדור החדש אחרי שהבקר משנה הגדרות
+            producers.get().send(new ProducerRecord<>(topic, orderId, event(orderId)), (metadata, exception) -> {
+                latencies[index] = System.nanoTime() - sendNanos;
+                if (exception != null) {
+                    failures.incrementAndGet();
+                }
+                acknowledged.countDown();
+            });
+        }
+        producers.get().flush();
+        if (!acknowledged.await(60, TimeUnit.SECONDS)) {
+            log.warn("Benchmark phase timed out waiting for acknowledgements - Mode: {}, Rate: {}/s", mode, rate);
+        }
+        double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+
+        Map<MetricName, ? extends Metric> metrics = producers.get().metrics();
+        double batchSize = metric(metrics, "batch-size-avg");
+        double recordsPerRequest = metric(metrics, "records-per-request-avg");
+        double compression = metric(metrics, "compression-rate-avg");
+        Arrays.sort(latencies);
+        log.info("Benchmark phase - Mode: {}, Target rate: {}/s, Sent: {}, Failed: {}, Throughput: {}/s, "
+                        + "Ack latency p50/p99/max: {}/{}/{} ms, Avg batch: {} B, Records/request: {}, Compression ratio: {}{}",
+                mode, rate, count, failures.get(), String.format("%.1f", count / seconds),
+                millis(percentile(latencies, 0.50)), millis(percentile(latencies, 0.99)), millis(latencies[count - 1]),
+                String.format("%.0f", batchSize), String.format("%.1f", recordsPerRequest),
+                String.format("%.3f", compression > 0 ? compression : 1.0),
+                adaptive != null ? ", Linger: " + adaptive.getLingerMs() + " ms, Batch size: " + adaptive.getBatchSize()
+                        + ", Generation: " + adaptive.getGeneration() : "");
+    }
+
+    private Map<String, Object> baselineConfigs() {
+        Map<String, Object> configs = new HashMap<>(producerFactory.getConfigurationProperties());
+        configs.remove(ProducerConfig.LINGER_MS_CONFIG);
+        configs.remove(ProducerConfig.BATCH_SIZE_CONFIG);
+        configs.remove(ProducerConfig.COMPRESSION_TYPE_CONFIG);
+        configs.remove(ProducerConfig.TRANSACTIONAL_ID_CONFIG);
+        configs.put(ProducerConfig.CLIENT_ID_CONFIG, "producer-benchmark-baseline");
+        return configs;
+    }
+
+    private OrderCreatedEvent event(String orderId) {
+        List<OrderItem> items = new ArrayList<>(itemsPerOrder);
+        for (int i = 0; i < itemsPerOrder; i++) {
+            items.add(new OrderItem("P" + (1000 + i), 1 + i, Category.values()[i % Category.values().length]));
+        }
+        LocalDateTime now = LocalDateTime.now();
+        return new OrderCreatedEvent(orderId, "benchmark-customer", items, orderId, now, now);
+    }
+
+    private static double metric(Map<MetricName, ? extends Metric> metrics, String name) {
+        return ProducerBatchingController.value(metrics, ProducerBatchingController.PRODUCER_METRICS, name, null);
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1)];
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.2f", nanos / 1_000_000.0);
+    }
+}
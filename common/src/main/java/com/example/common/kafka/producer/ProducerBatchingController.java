@@ -0,0 +1,389 @@
+package com.example.common.kafka.producer;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * בקר batching אדפטיבי עבור Kafka producers
+ * בכל דגימה נקראים ה-metrics של ה-producers (קצב שליחה, גודל batch, זמן המתנה ב-accumulator,
+ * יחס דחיסה) ונקבעים linger.ms ו-batch.size:
+ * linger = targetBatchRecords / sendRate, בתוך [min-linger-ms, latency-budget-ms].
+ * כשבתוך תקציב ה-latency לא מצטברות לפחות 2 רשומות, batching רק מוסיף latency ו-linger יורד למינימום.
+ * batch.size מכסה את הבתים (אחרי דחיסה) שמצטברים בחלון ה-linger, ומוכפל כש-batches מתמלאים לפני שה-linger נגמר.
+ * הקטנת linger (הגנה על latency) מיושמת מיד; הגדלה רק אחרי reconfigure-interval-ms מהשינוי הקודם
+ */
+@Component
+@Slf4j
+public class ProducerBatchingController {
+
+    static final String PRODUCER_METRICS = "producer-metrics";
+    private static final String TOPIC_METRICS = "producer-topic-metrics";
+
+    private final MeterRegistry meterRegistry;
+    private final ObjectProvider<CompressionPolicy> compressionPolicyProvider;
+    private final Map<AdaptiveProducerFactory<?, ?>, ProducerState> states = new ConcurrentHashMap<>();
+    private final Set<AdaptiveProducerFactory.Generation<?, ?>> retiring = ConcurrentHashMap.newKeySet();
+
+    @Value("${kafka.producer.tuning.enabled:true}")
+    private boolean enabled;
+
+    @Value("${kafka.producer.tuning.interval-ms:5000}")
+    private long intervalMs;
+
+    @Value("${kafka.producer.tuning.latency-budget-ms:20}")
+    private int latencyBudgetMs;
+
+    @Value("${kafka.producer.tuning.min-linger-ms:0}")
+    private int minLingerMs;
+
+    @Value("${kafka.producer.tuning.initial-linger-ms:5}")
+    private int initialLingerMs;
+
+    @Value("${kafka.producer.tuning.target-batch-records:50}")
+    private int targetBatchRecords;
+
+    @Value("${kafka.producer.tuning.min-batch-size:16384}")
+    private int minBatchSize;
+
+    @Value("${kafka.producer.tuning.max-batch-size:1048576}")
+    private int maxBatchSize;
+
+    @Value("${kafka.producer.tuning.reconfigure-interval-ms:60000}")
+    private long reconfigureIntervalMs;
+
+    @Value("${kafka.producer.tuning.retire-grace-ms:30000}")
+    private long retireGraceMs;
+
+    @Value("${kafka.producer.tuning.compression.default:lz4}")
+    private String defaultCompression;
+
+    @Value("${kafka.producer.tuning.compression.topics:}")
+    private String topicCompression;
+
+    private ScheduledExecutorService scheduler;
+
+    public ProducerBatchingController(MeterRegistry meterRegistry, ObjectProvider<CompressionPolicy> compressionPolicyProvider) {
+        this.meterRegistry = meterRegistry;
+        this.compressionPolicyProvider = compressionPolicyProvider;
+    }
+
+    /**
+     * הפעלת תהליכון הדגימה
+     */
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            log.info("Adaptive producer batching disabled - producers keep their configured batching");
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "kafka-batching-controller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::sampleAll, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        log.info("Adaptive producer batching started - Interval: {} ms, Latency budget: {} ms, Batch size: [{}, {}]",
+                intervalMs, latencyBudgetMs, minBatchSize, maxBatchSize);
+    }
+
+    /**
+     * עצירת הדגימה וסגירת דורות שממתינים לסגירה
+     */
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        retiring.forEach(AdaptiveProducerFactory.Generation::close);
+        retiring.clear();
+    }
+
+    /**
+     * עטיפת producer factory של שירות בבקר
+     * ההגדרות הקיימות של ה-factory (acks, serializers, טרנזקציות) נשמרות; linger.ms, batch.size
+     * ו-compression.type נקבעים על ידי הבקר. producers טרנזקציוניים נשארים עם ההגדרות ההתחלתיות
+     *
+     * @param name    שם ה-producer (ל-metrics ול-client.id)
+     * @param factory ה-factory של השירות
+     * @return ה-factory לשימוש ב-KafkaTemplate, או ה-factory המקורי כשהבקר כבוי
+     */
+    public <K, V> ProducerFactory<K, V> configure(String name, DefaultKafkaProducerFactory<K, V> factory) {
+        if (!enabled) {
+            return factory;
+        }
+        CompressionPolicy compressionPolicy = compressionPolicyProvider.getIfAvailable(
+                () -> new ConfiguredCompressionPolicy(defaultCompression, topicCompression));
+        int lingerMs = Math.max(minLingerMs, Math.min(latencyBudgetMs, initialLingerMs));
+        AdaptiveProducerFactory<K, V> adaptive = new AdaptiveProducerFactory<>(name, factory, compressionPolicy,
+                lingerMs, minBatchSize);
+        states.put(adaptive, register(adaptive));
+        log.info("Adaptive producer batching configured - Producer: {}, Compression: {}, Linger: {} ms, Batch size: {}",
+                name, compressionPolicy, lingerMs, minBatchSize);
+        return adaptive;
+    }
+
+    private void sampleAll() {
+        states.forEach((factory, state) -> {
+            try {
+                sample(factory, state);
+                adjust(factory, state);
+            } catch (Exception e) {
+                log.warn("Producer metrics sampling failed - Producer: {}, Error: {}", factory.getName(), e.getMessage());
+            }
+        });
+    }
+
+    private void sample(AdaptiveProducerFactory<?, ?> factory, ProducerState state) {
+        WeightedAverage batchSize = new WeightedAverage();
+        WeightedAverage recordsPerRequest = new WeightedAverage();
+        WeightedAverage queueTime = new WeightedAverage();
+        WeightedAverage requestLatency = new WeightedAverage();
+        WeightedAverage recordSize = new WeightedAverage();
+        WeightedAverage compression = new WeightedAverage();
+        Map<String, TopicState> topics = new HashMap<>();
+        double sendRate = 0;
+
+        for (Producer<?, ?> producer : factory.activeProducers()) {
+            Map<MetricName, ? extends Metric> metrics = producer.metrics();
+            double producerRate = value(metrics, PRODUCER_METRICS, "record-send-rate", null);
+            sendRate += producerRate;
+            batchSize.add(value(metrics, PRODUCER_METRICS, "batch-size-avg", null), producerRate);
+            recordsPerRequest.add(value(metrics, PRODUCER_METRICS, "records-per-request-avg", null), producerRate);
+            queueTime.add(value(metrics, PRODUCER_METRICS, "record-queue-time-avg", null), producerRate);
+            requestLatency.add(value(metrics, PRODUCER_METRICS, "request-latency-avg", null), producerRate);
+            recordSize.add(value(metrics, PRODUCER_METRICS, "record-size-avg", null), producerRate);
+            compression.add(value(metrics, PRODUCER_METRICS, "compression-rate-avg", null), producerRate);
+
+            metrics.keySet().stream()
+                    .filter(name -> TOPIC_METRICS.equals(name.group()) && "record-send-rate".equals(name.name()))
+                    .map(name -> name.tags().get("topic"))
+                    .distinct()
+                    .forEach(topic -> {
+                        TopicState topicState = topics.computeIfAbsent(topic, t -> new TopicState());
+                        double topicRate = value(metrics, TOPIC_METRICS, "record-send-rate", topic);
+                        topicState.sendRate += topicRate;
+                        topicState.compression.add(value(metrics, TOPIC_METRICS, "compression-rate", topic), topicRate);
+                    });
+        }
+
+        state.sendRate = sendRate;
+        state.batchSizeAvg = batchSize.get();
+        state.recordsPerRequest = recordsPerRequest.get();
+        state.queueTimeMs = queueTime.get();
+        state.requestLatencyMs = requestLatency.get();
+        state.recordSizeAvg = recordSize.get();
+        state.compressionRatio = compression.get();
+        topics.forEach((topic, sampled) -> {
+            TopicGauges gauges = state.topics.computeIfAbsent(topic, t -> registerTopic(factory, t));
+            gauges.sendRate = sampled.sendRate;
+            gauges.compressionRatio = sampled.compression.get();
+        });
+    }
+
+    private void adjust(AdaptiveProducerFactory<?, ?> factory, ProducerState state) {
+        if (state.sendRate <= 0) {
+            // אין תעבורה - אין על מה להתאים
+            return;
+        }
+        int linger = factory.getLingerMs();
+        int batch = factory.getBatchSize();
+
+        int targetLinger;
+        if (state.sendRate * latencyBudgetMs / 1000.0 < 2) {
+            targetLinger = minLingerMs;
+        } else {
+            targetLinger = (int) Math.ceil(targetBatchRecords * 1000.0 / state.sendRate);
+        }
+        if (state.queueTimeMs > latencyBudgetMs) {
+            // רשומות ממתינות ב-accumulator מעבר לתקציב - batching כבר מוסיף יותר latency מהמותר
+            targetLinger = Math.min(targetLinger, linger / 2);
+        }
+        targetLinger = Math.max(minLingerMs, Math.min(latencyBudgetMs, targetLinger));
+
+        double compressionRatio = state.compressionRatio > 0 && state.compressionRatio <= 1 ? state.compressionRatio : 1;
+        double windowBytes = state.sendRate * Math.max(targetLinger, 1) / 1000.0 * state.recordSizeAvg * compressionRatio;
+        int targetBatch = nextPowerOfTwo((long) Math.ceil(windowBytes * 2));
+        if (state.batchSizeAvg >= batch * 0.9) {
+            // batches מתמלאים לפני שה-linger נגמר
+            targetBatch = Math.max(targetBatch, batch * 2);
+        }
+        targetBatch = Math.max(minBatchSize, Math.min(maxBatchSize, targetBatch));
+
+        boolean lingerChanged = Math.abs(targetLinger - linger) >= Math.max(2, linger / 4);
+        if (!lingerChanged && targetBatch == batch) {
+            return;
+        }
+        boolean protectLatency = lingerChanged && targetLinger < linger;
+        long now = System.nanoTime();
+        if (!protectLatency && now - state.lastRetuneNanos < TimeUnit.MILLISECONDS.toNanos(reconfigureIntervalMs)) {
+            return;
+        }
+        int newLinger = lingerChanged ? targetLinger : linger;
+        state.lastRetuneNanos = now;
+        retire(factory.retune(newLinger, targetBatch));
+        log.info("Producer batching adjusted - Producer: {}, Send rate: {}/s, Avg batch: {} B, Queue time: {} ms, "
+                        + "Compression ratio: {}, Linger: {} -> {} ms, Batch size: {} -> {}",
+                factory.getName(), String.format("%.1f", state.sendRate), String.format("%.0f", state.batchSizeAvg),
+                String.format("%.2f", state.queueTimeMs), String.format("%.3f", state.compressionRatio),
+                linger, newLinger, batch, targetBatch);
+    }
+
+    private void retire(AdaptiveProducerFactory.Generation<?, ?> generation) {
+        retiring.add(generation);
+        scheduler.schedule(() -> {
+            if (retiring.remove(generation)) {
+                generation.close();
+            }
+        }, retireGraceMs, TimeUnit.MILLISECONDS);
+    }
+
+    private ProducerState register(AdaptiveProducerFactory<?, ?> factory) {
+        ProducerState state = new ProducerState();
+        Tags tags = Tags.of("producer", factory.getName());
+        Gauge.builder("kafka.producer.send.rate", state, s -> s.sendRate)
+                .description("Records sent per second")
+                .tags(tags)
+                .register(meterRegistry);
+        Gauge.builder("kafka.producer.batch.size", state, s -> s.batchSizeAvg)
+                .description("Average bytes per batch sent to the broker")
+                .tags(tags)
+                .register(meterRegistry);
+        Gauge.builder("kafka.producer.records.per.request", state, s -> s.recordsPerRequest)
+                .description("Average records per produce request")
+                .tags(tags)
+                .register(meterRegistry);
+        Gauge.builder("kafka.producer.compression.ratio", state, s -> s.compressionRatio)
+                .description("Compressed size / uncompressed size of sent batches")
+                .tags(tags)
+                .register(meterRegistry);
+        Gauge.builder("kafka.producer.queue.time", state, s -> s.queueTimeMs)
+                .description("Average time records wait in the accumulator in milliseconds")
+                .tags(tags)
+                .register(meterRegistry);
+        Gauge.builder("kafka.producer.request.latency", state, s -> s.requestLatencyMs)
+                .description("Average produce request latency in milliseconds")
+                .tags(tags)
+                .register(meterRegistry);
+        Gauge.builder("kafka.producer.linger", factory, AdaptiveProducerFactory::getLingerMs)
+                .description("Current linger.ms")
+                .tags(tags)
+                .register(meterRegistry);
+        Gauge.builder("kafka.producer.batch.size.limit", factory, AdaptiveProducerFactory::getBatchSize)
+                .description("Current batch.size")
+                .tags(tags)
+                .register(meterRegistry);
+        return state;
+    }
+
+    private TopicGauges registerTopic(AdaptiveProducerFactory<?, ?> factory, String topic) {
+        TopicGauges gauges = new TopicGauges();
+        Tags tags = Tags.of("producer", factory.getName(), "topic", topic,
+                "compression", factory.getCompressionPolicy().compressionFor(topic));
+        Gauge.builder("kafka.producer.topic.send.rate", gauges, g -> g.sendRate)
+                .description("Records sent per second to the topic")
+                .tags(tags)
+                .register(meterRegistry);
+        Gauge.builder("kafka.producer.topic.compression.ratio", gauges, g -> g.compressionRatio)
+                .description("Compressed size / uncompressed size of batches sent to the topic")
+                .tags(tags)
+                .register(meterRegistry);
+        return gauges;
+    }
+
+    /**
+     * ערך של metric של producer לפי group, שם ו-topic (null עבור metric ברמת ה-producer)
+     *
+     * @return הערך, או 0 אם ה-metric חסר או עדיין ללא דגימות
+     */
+    static double value(Map<MetricName, ? extends Metric> metrics, String group, String name, String topic) {
+        for (Map.Entry<MetricName, ? extends Metric> entry : metrics.entrySet()) {
+            MetricName metricName = entry.getKey();
+            if (group.equals(metricName.group()) && name.equals(metricName.name())
+                    && (topic == null || topic.equals(metricName.tags().get("topic")))) {
+                Object value = entry.getValue().metricValue();
+                if (value instanceof Number number && Double.isFinite(number.doubleValue())) {
+                    return number.doubleValue();
+                }
+                return 0;
+            }
+        }
+        return 0;
+    }
+
+    private static int nextPowerOfTwo(long value) {
+        if (value <= 1) {
+            return 1;
+        }
+        long power = Long.highestOneBit(value - 1) << 1;
+        return (int) Math.min(power, Integer.MAX_VALUE);
+    }
+
+    /**
+     * ממוצע משוקלל לפי קצב השליחה של כל producer
+     */
+    private static final class WeightedAverage {
+
+        private double sum;
+        private double weight;
+
+        private void add(double value, double valueWeight) {
+            if (value > 0 && valueWeight > 0) {
+                sum += value * valueWeight;
+                weight += valueWeight;
+            }
+        }
+
+        private double get() {
+            return weight > 0 ? sum / weight : 0;
+        }
+    }
+
+    /**
+     * מצב הדגימה האחרונה של producer
+     * נכתב רק מתהליכון הבקר ונקרא מה-gauges
+     */
+    private static final class ProducerState {
+
+        private final Map<String, TopicGauges> topics = new ConcurrentHashMap<>();
+        private volatile double sendRate;
+        private volatile double batchSizeAvg;
+        private volatile double recordsPerRequest;
+        private volatile double queueTimeMs;
+        private volatile double requestLatencyMs;
+        private volatile double recordSizeAvg;
+        private volatile double compressionRatio;
+        private long lastRetuneNanos;
+    }
+
+    private static final class TopicState {
+
+        private final WeightedAverage compression = new WeightedAverage();
+        private double sendRate;
+    }
+
+    private static final class TopicGauges {
+
+        private volatile double sendRate;
+        private volatile double compressionRatio;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.common.kafka.producer;
+
+import org.apache.kafka.clients.consumer.ConsumerGroupMetadata;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Producer לא טרנזקציוני שמנתב כל שליחה ל-producer המשותף של סוג הדחיסה של ה-topic
+ * ה-producers עצמם שייכים ל-factories של הדור, ולכן close כאן אינו סוגר אותם
+ * (כמו ה-producer המשותף של DefaultKafkaProducerFactory)
+ */
+class TopicRoutingProducer<K, V> implements Producer<K, V> {
+
+    private final Function<String, Producer<K, V>> producerForTopic;
+    private final Supplier<List<Producer<K, V>>> openProducers;
+
+    TopicRoutingProducer(Function<String, Producer<K, V>> producerForTopic, Supplier<List<Producer<K, V>>> openProducers) {
+        this.producerForTopic = producerForTopic;
+        this.openProducers = openProducers;
+    }
+
+    @Override
+    public Future<RecordMetadata> send(ProducerRecord<K, V> record) {
+        return producerForTopic.apply(record.topic()).send(record);
+    }
+
+    @Override
+    public Future<RecordMetadata> send(ProducerRecord<K, V> record, Callback callback) {
+        return producerForTopic.apply(record.topic()).send(record, callback);
+    }
+
+    @Override
+    public void flush() {
+        openProducers.get().forEach(Producer::flush);
+    }
+
+    @Override
+    public List<PartitionInfo> partitionsFor(String topic) {
+        return producerForTopic.apply(topic).partitionsFor(topic);
+    }
+
+    @Override
+    public Map<MetricName, ? extends Metric> metrics() {
+        Map<MetricName, Metric> metrics = new HashMap<>();
+        openProducers.get().forEach(producer -> metrics.putAll(producer.metrics()));
+        return metrics;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public void close(Duration timeout) {
+    }
+
+    @Override
+    public void initTransactions() {
+        throw nonTransactional();
+    }
+
+    @Override
+    public void beginTransaction() {
+        throw nonTransactional();
+    }
+
+    @Override
+    @Deprecated
+    public void sendOffsetsToTransaction(Map<TopicPartition, OffsetAndMetadata> offsets, String consumerGroupId) {
+        throw nonTransactional();
+    }
+
+    @Override
+    public void sendOffsetsToTransaction(Map<TopicPartition, OffsetAndMetadata> offsets, ConsumerGroupMetadata groupMetadata) {
+        throw nonTransactional();
+    }
+
+    @Override
+    public void commitTransaction() {
+        throw nonTransactional();
+    }
+
+    @Override
+    public void abortTransaction() {
+        throw nonTransactional();
+    }
+
+    private static UnsupportedOperationException nonTransactional() {
+        return new UnsupportedOperationException("Topic routing producer is not transactional");
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.common.kafka.quarantine;
+
+import com.example.common.events.InventoryCheckResultEvent;
+import com.example.common.events.OrderCreatedEvent;
+import com.example.common.events.OrderStatusChangedEvent;
+import com.example.common.kafka.view.InventoryCheckResultView;
+import com.example.common.kafka.view.OrderCreatedView;
+import com.example.common.utils.ValidationUtils;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * בדיקות מבנה לאירועים המשותפים
+ * רק שדות הזיהוי שבלעדיהם אי אפשר לפרסם תוצאה; אירוע תקין מבנית שאינו תקין עסקית
+ * (ללא פריטים, פריט ללא קטגוריה) ממשיך ל-listener ונדחה שם בתוצאה REJECTED
+ */
+@Configuration
+public class EventValidators {
+
+    @Bean
+    public RecordValidator orderCreatedEventValidator() {
+        return new TypedValidator<>(OrderCreatedEvent.class) {
+            @Override
+            protected String check(OrderCreatedEvent event) {
+                if (ValidationUtils.isEmpty(event.getOrderId())) {
+                    return "Order ID cannot be empty";
+                }
+                return ValidationUtils.isEmpty(event.getCustomerName()) ? "Customer name cannot be empty" : null;
+            }
+        };
+    }
+
+    @Bean
+    public RecordValidator inventoryCheckResultEventValidator() {
+        return new TypedValidator<>(InventoryCheckResultEvent.class) {
+            @Override
+            protected String check(InventoryCheckResultEvent event) {
+                return ValidationUtils.isEmpty(event.getOrderId()) ? "Order ID cannot be empty" : null;
+            }
+        };
+    }
+
+    @Bean
+    public RecordValidator inventoryCheckResultViewValidator() {
+        return new TypedValidator<>(InventoryCheckResultView.class) {
+            @Override
+            protected String check(InventoryCheckResultView view) {
+                return ValidationUtils.isEmpty(view.getOrderId()) ? "Order ID cannot be empty" : null;
+            }
+        };
+    }
+
+    @Bean
+    public RecordValidator orderCreatedViewValidator() {
+        return new TypedValidator<>(OrderCreatedView.class) {
+            @Override
+            protected String check(OrderCreatedView view) {
+                if (ValidationUtils.isEmpty(view.getOrderId())) {
+                    return "Order ID cannot be empty";
+                }
+                return ValidationUtils.isEmpty(view.getCustomerName()) ? "Customer name cannot be empty" : null;
+            }
+        };
+    }
+
+    @Bean
+    public RecordValidator orderStatusChangedEventValidator() {
+        return new TypedValidator<>(OrderStatusChangedEvent.class) {
+            @Override
+            protected String check(OrderStatusChangedEvent event) {
+                if (ValidationUtils.isEmpty(event.getOrderId())) {
+                    return "Order ID cannot be empty";
+                }
+                return ValidationUtils.isNull(event.getStatus()) ? "Order status cannot be null" : null;
+            }
+        };
+    }
+
+    /**
+     * בסיס ל-validator של סוג אירוע אחד
+     */
+    private abstract static class TypedValidator<T> implements RecordValidator {
+
+        private final Class<T> type;
+
+        private TypedValidator(Class<T> type) {
+            this.type = type;
+        }
+
+        @Override
+        public boolean supports(Object value) {
+            return type.isInstance(value);
+        }
+
+        @Override
+        public String validate(Object value) {
+            return check(type.cast(value));
+        }
+
+        protected abstract String check(T value);
+    }
+}
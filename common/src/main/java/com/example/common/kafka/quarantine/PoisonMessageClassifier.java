@@ -0,0 +1,58 @@
+package com.example.common.kafka.quarantine;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.springframework.core.convert.ConversionException;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.messaging.converter.MessageConversionException;
+import org.springframework.messaging.handler.invocation.MethodArgumentResolutionException;
+
+import java.util.List;
+
+/**
+ * סיווג כשלים למבניים (poison) מול זמניים
+ * כשל מבני חוזר בכל ניסיון ולכן אין טעם לנסות שוב - הרשומה עוברת להסגר.
+ * כל שאר הכשלים (Redis, Kafka, timeouts) נחשבים זמניים ועוברים ל-retry
+ */
+public final class PoisonMessageClassifier {
+
+    private static final int MAX_CAUSE_DEPTH = 8;
+
+    private static final List<Class<? extends Throwable>> POISON_TYPES = List.of(
+            DeserializationException.class,
+            MessageConversionException.class,
+            ConversionException.class,
+            MethodArgumentResolutionException.class,
+            JsonProcessingException.class,
+            ClassCastException.class,
+            IllegalArgumentException.class
+    );
+
+    private PoisonMessageClassifier() {
+    }
+
+    /**
+     * האם הכשל מבני
+     *
+     * @param error הכשל (נבדקת גם שרשרת ה-causes)
+     * @return true אם ניסיון חוזר לא יצליח
+     */
+    public static boolean isPoison(Throwable error) {
+        Throwable current = error;
+        for (int depth = 0; current != null && depth < MAX_CAUSE_DEPTH; depth++) {
+            for (Class<? extends Throwable> type : POISON_TYPES) {
+                if (type.isInstance(current)) {
+                    return true;
+                }
+            }
+            current = current.getCause() == current ? null : current.getCause();
+        }
+        return false;
+    }
+
+    /**
+     * @return סוגי הכשלים המבניים - ה-exclude של כל @RetryableTopic חייב לכלול את כולם (נבדק ב-ParallelConsumerRegistry)
+     */
+    public static List<Class<? extends Throwable>> poisonTypes() {
+        return POISON_TYPES;
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.common.kafka.quarantine;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Actuator endpoint לבדיקת רשומות בהסגר
+ * GET /actuator/quarantine?topic=&limit= - הרשומות האחרונות והמונים
+ * DELETE /actuator/quarantine - ריקון האינדקס המקומי
+ */
+@Component
+@Endpoint(id = "quarantine")
+@RequiredArgsConstructor
+public class QuarantineEndpoint {
+
+    private static final int DEFAULT_LIMIT = 50;
+
+    private final QuarantineStore quarantineStore;
+
+    @ReadOperation
+    public Map<String, Object> quarantine(@Nullable String topic, @Nullable Integer limit) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("total", quarantineStore.total());
+        response.put("indexed", quarantineStore.size());
+        response.put("counts", quarantineStore.counts());
+        response.put("records", quarantineStore.recent(topic, limit != null && limit > 0 ? limit : DEFAULT_LIMIT));
+        response.put("timestamp", LocalDateTime.now());
+        return response;
+    }
+
+    @DeleteOperation
+    public Map<String, Object> clear() {
+        return Map.of("removed", quarantineStore.clear(), "timestamp", LocalDateTime.now());
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.common.kafka.quarantine;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * רשומה שהועברה להסגר
+ * נשמרת באינדקס המקומי לצורך בדיקה; התוכן המלא נמצא ב-topic ההסגר
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuarantineEntry {
+
+    /**
+     * ה-topic המקורי
+     */
+    private String topic;
+
+    /**
+     * ה-partition המקורי
+     */
+    private int partition;
+
+    /**
+     * ה-offset המקורי
+     */
+    private long offset;
+
+    /**
+     * מפתח הרשומה (מזהה ההזמנה)
+     */
+    private String key;
+
+    /**
+     * השלב שבו נכשלה הרשומה: deserialization / validation / processing
+     */
+    private String stage;
+
+    /**
+     * סוג הכשל
+     */
+    private String errorType;
+
+    /**
+     * תיאור הכשל
+     */
+    private String errorMessage;
+
+    /**
+     * גודל התוכן המקורי בבתים
+     */
+    private int payloadSize;
+
+    /**
+     * תחילת התוכן המקורי לצורך אבחון
+     */
+    private String payloadPreview;
+
+    /**
+     * מועד ההעברה להסגר
+     */
+    private LocalDateTime quarantinedAt;
+}
@@ -0,0 +1,12 @@
+package com.example.common.kafka.quarantine;
+
+/**
+ * כשל בפרסום רשומה ל-topic ההסגר
+ * הרשומה לא נשמרה בשום מקום, ולכן אסור לדלג עליה - ה-container מנסה אותה שוב ואינו מאשר את ה-offset שלה
+ */
+public class QuarantineException extends RuntimeException {
+
+    public QuarantineException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.common.kafka.quarantine;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.listener.RecordInterceptor;
+
+/**
+ * Interceptor שמדלג על רשומות פגומות לפני ה-listener
+ * רץ על תהליכון ה-consumer לפני בדיקת ה-deserialization של ה-container,
+ * כך שרשומה פגומה לא מגיעה ל-error handler ולא ל-topics של retry.
+ * כשהפרסום להסגר נכשל ה-{@link QuarantineException} עובר ל-error handler, שמנסה את הרשומה שוב
+ */
+class QuarantineRecordInterceptor<K, V> implements RecordInterceptor<K, V> {
+
+    private final QuarantineService quarantineService;
+
+    QuarantineRecordInterceptor(QuarantineService quarantineService) {
+        this.quarantineService = quarantineService;
+    }
+
+    @Override
+    public ConsumerRecord<K, V> intercept(ConsumerRecord<K, V> record, Consumer<K, V> consumer) {
+        return quarantineService.quarantineIfMalformed(record) ? null : record;
+    }
+}
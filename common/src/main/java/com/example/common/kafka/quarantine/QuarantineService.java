@@ -0,0 +1,318 @@
+package com.example.common.kafka.quarantine;
+
+import com.example.common.kafka.view.EventView;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.log.LogAccessor;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.kafka.support.serializer.SerializationUtils;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * העברת רשומות פגומות להסגר
+ * הרשומה נשלחת כמו שהיא (הבתים המקוריים כשה-deserialization נכשל) ל-{@code <topic>-quarantine}
+ * יחד עם headers של אבחון, ונרשמת באינדקס המקומי {@link QuarantineStore}.
+ * השליחה ממתינה לאישור ה-broker עד send-timeout-ms; כשהיא נכשלת נזרק {@link QuarantineException}
+ * והרשומה אינה מדולגת, כך שה-offset שלה לא נשמר לפני שהיא נשמרה בהסגר.
+ * רשומות בהסגר אינן עוברות ב-topics של retry ואינן מגיעות ל-DLQ.
+ * ה-consumers עוטפים את ה-deserializer ב-ErrorHandlingDeserializer, כך שכשל deserialization מגיע
+ * כרשומה עם ערך null ו-header של הכשל במקום לעצור את ה-consumer; ה-@RetryableTopic של ה-listeners
+ * מחריג את סוגי הכשלים של {@link PoisonMessageClassifier}, כי ניסיון חוזר לא יתקן אותם
+ */
+@Component
+@Slf4j
+public class QuarantineService {
+
+    public static final String STAGE_DESERIALIZATION = "deserialization";
+    public static final String STAGE_VALIDATION = "validation";
+    public static final String STAGE_PROCESSING = "processing";
+
+    public static final String HEADER_STAGE = "quarantine-stage";
+    public static final String HEADER_ERROR_TYPE = "quarantine-error-type";
+    public static final String HEADER_ERROR_MESSAGE = "quarantine-error-message";
+    public static final String HEADER_ORIGINAL_TOPIC = "quarantine-original-topic";
+    public static final String HEADER_ORIGINAL_PARTITION = "quarantine-original-partition";
+    public static final String HEADER_ORIGINAL_OFFSET = "quarantine-original-offset";
+    public static final String HEADER_QUARANTINED_AT = "quarantine-timestamp";
+
+    private static final int PREVIEW_BYTES = 256;
+    private static final LogAccessor HEADER_LOGGER = new LogAccessor(QuarantineService.class);
+
+    private final QuarantineStore quarantineStore;
+    private final List<RecordValidator> validators;
+    private final MeterRegistry meterRegistry;
+    private final JsonSerializer<Object> valueSerializer = new JsonSerializer<>();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    @Value("${spring.kafka.bootstrap-servers:localhost:9092}")
+    private String bootstrapServers;
+
+    @Value("${kafka.quarantine.enabled:true}")
+    private boolean enabled;
+
+    @Value("${kafka.quarantine.topic-suffix:-quarantine}")
+    private String topicSuffix;
+
+    @Value("${kafka.quarantine.send-timeout-ms:15000}")
+    private long sendTimeoutMs;
+
+    private volatile KafkaTemplate<byte[], byte[]> quarantineTemplate;
+
+    public QuarantineService(QuarantineStore quarantineStore, List<RecordValidator> validators, MeterRegistry meterRegistry) {
+        this.quarantineStore = quarantineStore;
+        this.validators = validators;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * הוספת בדיקת ההסגר ל-factory
+     * רשומות שה-deserialization שלהן נכשל או שאינן תקינות מבנית מועברות להסגר
+     * ומדולגות לפני ה-listener, כולל ב-containers של retry
+     *
+     * @param factory ה-factory של ה-containers
+     */
+    public <K, V> void configure(ConcurrentKafkaListenerContainerFactory<K, V> factory) {
+        if (!enabled) {
+            log.info("Kafka quarantine disabled - malformed records follow the regular error handling");
+            return;
+        }
+        factory.setRecordInterceptor(new QuarantineRecordInterceptor<>(this));
+    }
+
+    /**
+     * @return האם ההסגר פעיל
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * בדיקת רשומה שנקראה: כשל deserialization או הפרה מבנית
+     *
+     * @param record הרשומה
+     * @return true אם הרשומה הועברה להסגר ויש לדלג עליה
+     */
+    public boolean quarantineIfMalformed(ConsumerRecord<?, ?> record) {
+        if (!enabled) {
+            return false;
+        }
+        if (record.value() == null) {
+            DeserializationException deserializationError = deserializationFailure(record);
+            if (deserializationError != null) {
+                quarantine(record, deserializationError, STAGE_DESERIALIZATION);
+                return true;
+            }
+            return false;
+        }
+        String violation;
+        try {
+            violation = validate(record.value());
+        } catch (IllegalArgumentException e) {
+            // views מפענחים שדות בגישה הראשונה - ערך פגום מתגלה כאן
+            violation = e.getMessage();
+        }
+        if (violation != null) {
+            quarantine(record, new IllegalArgumentException(violation), STAGE_VALIDATION);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * הרצת בדיקות המבנה על ערך
+     *
+     * @param value הערך
+     * @return תיאור ההפרה הראשונה, או null אם תקין
+     */
+    public String validate(Object value) {
+        for (RecordValidator validator : validators) {
+            if (validator.supports(value)) {
+                String violation = validator.validate(value);
+                if (violation != null) {
+                    return violation;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * שליפת כשל ה-deserialization שה-ErrorHandlingDeserializer שמר ב-headers
+     *
+     * @param record הרשומה
+     * @return הכשל, או null אם אין
+     */
+    public DeserializationException deserializationFailure(ConsumerRecord<?, ?> record) {
+        return SerializationUtils.getExceptionFromHeader(record, SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER, HEADER_LOGGER);
+    }
+
+    /**
+     * העברת רשומה להסגר - חוזר רק אחרי שה-broker אישר את הרשומה ב-topic ההסגר
+     *
+     * @param record הרשומה
+     * @param error  הכשל
+     * @param stage  השלב שבו נכשלה
+     * @throws QuarantineException אם הפרסום נכשל או לא אושר בתוך send-timeout-ms
+     */
+    public void quarantine(ConsumerRecord<?, ?> record, Throwable error, String stage) {
+        byte[] payload = payload(record, error);
+        Throwable rootCause = rootCause(error);
+        QuarantineEntry entry = QuarantineEntry.builder()
+                .topic(record.topic())
+                .partition(record.partition())
+                .offset(record.offset())
+                .key(record.key() != null ? String.valueOf(record.key()) : null)
+                .stage(stage)
+                .errorType(rootCause.getClass().getName())
+                .errorMessage(rootCause.getMessage())
+                .payloadSize(payload != null ? payload.length : 0)
+                .payloadPreview(preview(payload))
+                .quarantinedAt(LocalDateTime.now())
+                .build();
+        publish(record, quarantineRecord(record, entry, payload));
+        quarantineStore.add(entry);
+        counter(record.topic(), stage).increment();
+
+        log.warn("Record quarantined - Topic: {}, Partition: {}, Offset: {}, Key: {}, Stage: {}, Error: {}",
+                record.topic(), record.partition(), record.offset(), entry.getKey(), stage, entry.getErrorMessage());
+    }
+
+    private void publish(ConsumerRecord<?, ?> record, ProducerRecord<byte[], byte[]> quarantineRecord) {
+        try {
+            template().send(quarantineRecord).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw quarantineFailed(record, quarantineRecord, e);
+        } catch (ExecutionException e) {
+            throw quarantineFailed(record, quarantineRecord, e.getCause() != null ? e.getCause() : e);
+        } catch (TimeoutException | RuntimeException e) {
+            throw quarantineFailed(record, quarantineRecord, e);
+        }
+    }
+
+    private QuarantineException quarantineFailed(ConsumerRecord<?, ?> record, ProducerRecord<byte[], byte[]> quarantineRecord,
+                                                 Throwable error) {
+        log.error("Failed to publish quarantined record to {} - Topic: {}, Partition: {}, Offset: {}, Error: {}",
+                quarantineRecord.topic(), record.topic(), record.partition(), record.offset(), error.getMessage());
+        return new QuarantineException("Failed to publish record " + record.topic() + "-" + record.partition() + "@"
+                + record.offset() + " to " + quarantineRecord.topic(), error);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (quarantineTemplate != null) {
+            quarantineTemplate.getProducerFactory().reset();
+        }
+    }
+
+    private ProducerRecord<byte[], byte[]> quarantineRecord(ConsumerRecord<?, ?> record, QuarantineEntry entry, byte[] payload) {
+        RecordHeaders headers = new RecordHeaders();
+        for (Header header : record.headers()) {
+            // ה-header של כשל ה-deserialization מכיל exception מסודר - התיאור נשמר ב-headers של ההסגר
+            if (!header.key().startsWith(SerializationUtils.DESERIALIZER_EXCEPTION_HEADER_PREFIX)) {
+                headers.add(header);
+            }
+        }
+        headers.add(HEADER_STAGE, bytes(entry.getStage()));
+        headers.add(HEADER_ERROR_TYPE, bytes(entry.getErrorType()));
+        headers.add(HEADER_ERROR_MESSAGE, bytes(entry.getErrorMessage()));
+        headers.add(HEADER_ORIGINAL_TOPIC, bytes(record.topic()));
+        headers.add(HEADER_ORIGINAL_PARTITION, bytes(String.valueOf(record.partition())));
+        headers.add(HEADER_ORIGINAL_OFFSET, bytes(String.valueOf(record.offset())));
+        headers.add(HEADER_QUARANTINED_AT, bytes(entry.getQuarantinedAt().toString()));
+        byte[] key = entry.getKey() != null ? bytes(entry.getKey()) : null;
+        return new ProducerRecord<>(record.topic() + topicSuffix, null, key, payload, headers);
+    }
+
+    private byte[] payload(ConsumerRecord<?, ?> record, Throwable error) {
+        Throwable current = error;
+        while (current != null) {
+            if (current instanceof DeserializationException deserializationError) {
+                return deserializationError.getData();
+            }
+            current = current.getCause() == current ? null : current.getCause();
+        }
+        Object value = record.value();
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof byte[] raw) {
+            return raw;
+        }
+        if (value instanceof EventView view) {
+            return view.bytes();
+        }
+        try {
+            return valueSerializer.serialize(record.topic(), value);
+        } catch (Exception e) {
+            return bytes(String.valueOf(value));
+        }
+    }
+
+    private KafkaTemplate<byte[], byte[]> template() {
+        KafkaTemplate<byte[], byte[]> template = quarantineTemplate;
+        if (template == null) {
+            synchronized (this) {
+                if (quarantineTemplate == null) {
+                    quarantineTemplate = new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(Map.of(
+                            ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers,
+                            ProducerConfig.ACKS_CONFIG, "all",
+                            ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG, 10000,
+                            ProducerConfig.REQUEST_TIMEOUT_MS_CONFIG, 5000
+                    ), new ByteArraySerializer(), new ByteArraySerializer()));
+                }
+                template = quarantineTemplate;
+            }
+        }
+        return template;
+    }
+
+    private Counter counter(String topic, String stage) {
+        return counters.computeIfAbsent(topic + "/" + stage, ignored -> Counter.builder("kafka.quarantine.records")
+                .description("Records moved to quarantine")
+                .tag("topic", topic)
+                .tag("stage", stage)
+                .register(meterRegistry));
+    }
+
+    private static Throwable rootCause(Throwable error) {
+        Throwable current = error;
+        while (current.getCause() != null && current.getCause() != current) {
+            current = current.getCause();
+        }
+        return current;
+    }
+
+    private static String preview(byte[] payload) {
+        if (payload == null) {
+            return null;
+        }
+        return new String(payload, 0, Math.min(payload.length, PREVIEW_BYTES), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] bytes(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.common.kafka.quarantine;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * אינדקס מקומי חסום של רשומות בהסגר
+ * שומר את N הרשומות האחרונות בלבד (הישנות נדחקות החוצה) ומונה כולל לפי topic ושלב,
+ * כך שגם גל של הודעות פגומות לא מגדיל את הזיכרון
+ */
+@Component
+public class QuarantineStore {
+
+    private final ArrayDeque<QuarantineEntry> entries = new ArrayDeque<>();
+    private final Map<String, Long> counts = new TreeMap<>();
+    private long total;
+
+    @Value("${kafka.quarantine.index-size:1000}")
+    private int indexSize;
+
+    /**
+     * הוספת רשומה לאינדקס
+     *
+     * @param entry הרשומה
+     */
+    public synchronized void add(QuarantineEntry entry) {
+        if (entries.size() >= indexSize) {
+            entries.pollFirst();
+        }
+        entries.addLast(entry);
+        counts.merge(entry.getTopic() + "/" + entry.getStage(), 1L, Long::sum);
+        total++;
+    }
+
+    /**
+     * שליפת הרשומות האחרונות, מהחדשה לישנה
+     *
+     * @param topic סינון לפי topic (null לכל ה-topics)
+     * @param limit מספר רשומות מקסימלי
+     * @return הרשומות
+     */
+    public synchronized List<QuarantineEntry> recent(String topic, int limit) {
+        List<QuarantineEntry> result = new ArrayList<>(Math.min(limit, entries.size()));
+        Iterator<QuarantineEntry> iterator = entries.descendingIterator();
+        while (iterator.hasNext() && result.size() < limit) {
+            QuarantineEntry entry = iterator.next();
+            if (topic == null || topic.equals(entry.getTopic())) {
+                result.add(entry);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return מונה לפי topic/stage מאז ההפעלה
+     */
+    public synchronized Map<String, Long> counts() {
+        return new TreeMap<>(counts);
+    }
+
+    /**
+     * @return מספר הרשומות שהועברו להסגר מאז ההפעלה
+     */
+    public synchronized long total() {
+        return total;
+    }
+
+    /**
+     * @return מספר הרשומות באינדקס
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * ריקון האינדקס - המונים נשמרים
+     *
+     * @return מספר הרשומות שהוסרו
+     */
+    public synchronized int clear() {
+        int removed = entries.size();
+        entries.clear();
+        return removed;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.common.kafka.quarantine;
+
+/**
+ * בדיקת מבנה של ערך שנקרא מ-Kafka לפני שהוא מגיע ל-listener
+ * הפרה מבנית היא דטרמיניסטית - ניסיון חוזר לא יתקן אותה - ולכן הרשומה
+ * מועברת ישירות להסגר במקום לעבור בין topics של retry
+ */
+public interface RecordValidator {
+
+    /**
+     * האם ה-validator מטפל בסוג הערך
+     *
+     * @param value הערך שנקרא
+     * @return true אם ה-validator רלוונטי
+     */
+    boolean supports(Object value);
+
+    /**
+     * בדיקת הערך
+     *
+     * @param value הערך שנקרא
+     * @return תיאור ההפרה, או null אם הערך תקין
+     */
+    String validate(Object value);
+}
@@ -0,0 +1,532 @@
+package com.example.common.kafka.reprocess;
+
+import com.example.common.concurrent.KeyOrderedExecutor;
+import com.example.common.kafka.codec.EventCodecs;
+import com.example.common.kafka.quarantine.QuarantineService;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * עיבוד חוזר של רשומות מ-DLQ ומ-topics של retry
+ * כל עבודה קוראת את ה-topic עם consumer ייעודי ללא consumer group (assign ידני),
+ * כך שאינה משפיעה על ה-offsets של ה-consumers הרגילים. טווח העבודה נקבע בתחילתה
+ * (end offsets באותו רגע), ולכן רשומות שנכשלות שוב ומגיעות ל-DLQ לא נקראות בלולאה.
+ * הקצב מוגבל ב-rate limiter, והעיבוד רץ על {@link KeyOrderedExecutor} עם מספר חסום
+ * של רשומות בטיפול - סדר הרשומות של אותו מפתח נשמר
+ */
+@Component
+@Slf4j
+public class DlqReprocessor {
+
+    public static final String HEADER_REPROCESSED_FROM = "reprocessed-from";
+
+    private static final Pattern SOURCE_SUFFIX = Pattern.compile("(-dlq|-retry(-\\d+)?)$");
+    private static final String DLT_HEADER_PREFIX = "kafka_dlt-";
+    private static final String RETRY_HEADER_PREFIX = "retry_topic-";
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(500);
+    private static final long SEND_TIMEOUT_MS = 10000;
+    private static final int LANES_PER_THREAD = 4;
+    private static final int IN_FLIGHT_PER_THREAD = 4;
+
+    private final Map<String, ReprocessHandler<?>> handlers = new HashMap<>();
+    private final QuarantineService quarantineService;
+    private final Map<String, ReprocessJob> jobs = new LinkedHashMap<>();
+    private final ExecutorService runner = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "dlq-reprocessor");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    @Value("${spring.kafka.bootstrap-servers:localhost:9092}")
+    private String bootstrapServers;
+
+    @Value("${kafka.reprocess.default-rate-per-second:200}")
+    private int defaultRatePerSecond;
+
+    @Value("${kafka.reprocess.max-rate-per-second:5000}")
+    private int maxRatePerSecond;
+
+    @Value("${kafka.reprocess.default-concurrency:4}")
+    private int defaultConcurrency;
+
+    @Value("${kafka.reprocess.max-concurrency:32}")
+    private int maxConcurrency;
+
+    @Value("${kafka.reprocess.max-active-jobs:2}")
+    private int maxActiveJobs;
+
+    @Value("${kafka.reprocess.history-size:20}")
+    private int historySize;
+
+    @Value("${kafka.reprocess.drain-timeout-ms:30000}")
+    private long drainTimeoutMs;
+
+    private volatile KafkaTemplate<String, byte[]> replayTemplate;
+
+    public DlqReprocessor(ObjectProvider<ReprocessHandler<?>> handlerProvider, QuarantineService quarantineService) {
+        this.quarantineService = quarantineService;
+        handlerProvider.orderedStream().forEach(handler -> handlers.put(handler.topic(), handler));
+    }
+
+    /**
+     * התחלת עבודת עיבוד חוזר
+     *
+     * @param request הבקשה
+     * @return מצב העבודה שנוצרה
+     */
+    public ReprocessProgress start(ReprocessRequest request) {
+        if (request.getSourceTopic() == null || request.getSourceTopic().isBlank()) {
+            throw new IllegalArgumentException("Source topic is required");
+        }
+        String targetTopic = resolveTargetTopic(request);
+        if (request.getMode() == null) {
+            request.setMode(ReprocessMode.TOPIC);
+        }
+        if (request.getMode() == ReprocessMode.HANDLER && !handlers.containsKey(targetTopic)) {
+            throw new IllegalArgumentException("No reprocess handler registered for topic " + targetTopic
+                    + " - available: " + handlers.keySet());
+        }
+        if (request.getFrom() != null && request.getTo() != null && request.getFrom().isAfter(request.getTo())) {
+            throw new IllegalArgumentException("Time range start must not be after its end");
+        }
+        int rate = clamp(request.getRatePerSecond(), defaultRatePerSecond, maxRatePerSecond);
+        int concurrency = clamp(request.getConcurrency(), defaultConcurrency, maxConcurrency);
+
+        ReprocessJob job;
+        synchronized (jobs) {
+            long active = jobs.values().stream().filter(existing -> !existing.getStatus().isFinished()).count();
+            if (active >= maxActiveJobs) {
+                throw new IllegalStateException("Maximum active reprocess jobs reached: " + maxActiveJobs);
+            }
+            job = new ReprocessJob(UUID.randomUUID().toString(), request, targetTopic, rate, concurrency);
+            jobs.put(job.getId(), job);
+            trimHistory();
+        }
+
+        log.info("Reprocess job {} started - Source: {}, Target: {}, Mode: {}, Rate: {}/s, Concurrency: {}",
+                job.getId(), request.getSourceTopic(), targetTopic, request.getMode(), rate, concurrency);
+        runner.execute(() -> run(job));
+        return job.toProgress();
+    }
+
+    /**
+     * @return כל העבודות (פעילות והאחרונות שהסתיימו), מהישנה לחדשה
+     */
+    public List<ReprocessProgress> jobs() {
+        synchronized (jobs) {
+            return jobs.values().stream().map(ReprocessJob::toProgress).toList();
+        }
+    }
+
+    /**
+     * @param jobId מזהה העבודה
+     * @return מצב העבודה, או null אם לא קיימת
+     */
+    public ReprocessProgress job(String jobId) {
+        ReprocessJob job = find(jobId);
+        return job != null ? job.toProgress() : null;
+    }
+
+    /**
+     * השהיית עבודה - רשומות שכבר בטיפול מסתיימות
+     *
+     * @param jobId מזהה העבודה
+     * @return מצב העבודה, או null אם לא קיימת
+     */
+    public ReprocessProgress pause(String jobId) {
+        ReprocessJob job = find(jobId);
+        if (job == null) {
+            return null;
+        }
+        if (job.pause()) {
+            log.info("Reprocess job {} paused", jobId);
+        }
+        return job.toProgress();
+    }
+
+    /**
+     * המשך עבודה מושהית
+     *
+     * @param jobId מזהה העבודה
+     * @return מצב העבודה, או null אם לא קיימת
+     */
+    public ReprocessProgress resume(String jobId) {
+        ReprocessJob job = find(jobId);
+        if (job == null) {
+            return null;
+        }
+        if (job.resume()) {
+            log.info("Reprocess job {} resumed", jobId);
+        }
+        return job.toProgress();
+    }
+
+    /**
+     * ביטול עבודה
+     *
+     * @param jobId מזהה העבודה
+     * @return מצב העבודה, או null אם לא קיימת
+     */
+    public ReprocessProgress cancel(String jobId) {
+        ReprocessJob job = find(jobId);
+        if (job == null) {
+            return null;
+        }
+        if (job.cancel()) {
+            log.info("Reprocess job {} cancelled", jobId);
+        }
+        return job.toProgress();
+    }
+
+    /**
+     * שינוי הקצב של עבודה פעילה
+     *
+     * @param jobId         מזהה העבודה
+     * @param ratePerSecond הקצב החדש
+     * @return מצב העבודה, או null אם לא קיימת
+     */
+    public ReprocessProgress throttle(String jobId, int ratePerSecond) {
+        ReprocessJob job = find(jobId);
+        if (job == null) {
+            return null;
+        }
+        int rate = clamp(ratePerSecond, defaultRatePerSecond, maxRatePerSecond);
+        job.setRate(rate);
+        log.info("Reprocess job {} throttled to {}/s", jobId, rate);
+        return job.toProgress();
+    }
+
+    @PreDestroy
+    public void close() {
+        synchronized (jobs) {
+            jobs.values().forEach(ReprocessJob::cancel);
+        }
+        runner.shutdownNow();
+        if (replayTemplate != null) {
+            replayTemplate.getProducerFactory().reset();
+        }
+    }
+
+    private void run(ReprocessJob job) {
+        ReprocessRequest request = job.getRequest();
+        KeyOrderedExecutor executor = new KeyOrderedExecutor("dlq-reprocess-" + job.getId().substring(0, 8),
+                job.getConcurrency(), job.getConcurrency() * LANES_PER_THREAD);
+        int maxInFlight = job.getConcurrency() * IN_FLIGHT_PER_THREAD;
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        long dispatched = 0;
+
+        try (Consumer<String, byte[]> consumer = createConsumer()) {
+            List<TopicPartition> partitions = partitions(consumer, request.getSourceTopic());
+            consumer.assign(partitions);
+            Map<TopicPartition, Long> remaining = new HashMap<>(consumer.endOffsets(partitions));
+            seekToStart(consumer, partitions, request.getFrom());
+
+            long total = 0;
+            for (TopicPartition partition : partitions) {
+                long position = consumer.position(partition);
+                total += Math.max(0, remaining.get(partition) - position);
+            }
+            job.setTotal(total);
+            remaining.keySet().removeIf(partition -> consumer.position(partition) >= remaining.get(partition));
+
+            while (!remaining.isEmpty() && !job.isCancelled()) {
+                job.awaitRunning();
+                ConsumerRecords<String, byte[]> records = consumer.poll(POLL_TIMEOUT);
+                for (ConsumerRecord<String, byte[]> record : records) {
+                    TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+                    Long endOffset = remaining.get(partition);
+                    if (endOffset == null || record.offset() >= endOffset) {
+                        continue;
+                    }
+                    job.scanned.incrementAndGet();
+                    if (!matches(request, record)) {
+                        job.skipped.incrementAndGet();
+                        continue;
+                    }
+                    if (request.getMaxRecords() != null && dispatched >= request.getMaxRecords()) {
+                        remaining.clear();
+                        break;
+                    }
+                    job.awaitRunning();
+                    if (job.isCancelled()) {
+                        break;
+                    }
+                    job.getRateLimiter().acquire();
+                    inFlight.acquire();
+                    dispatched++;
+                    executor.execute(record.key() != null ? record.key() : partition, () -> {
+                        try {
+                            process(job, record);
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+                }
+                remaining.keySet().removeIf(partition -> consumer.position(partition) >= remaining.get(partition));
+            }
+
+            // המתנה לרשומות שכבר בטיפול לפני סימון הסיום
+            if (!inFlight.tryAcquire(maxInFlight, drainTimeoutMs, TimeUnit.MILLISECONDS)) {
+                log.warn("Reprocess job {} finished with records still in flight after {}ms", job.getId(), drainTimeoutMs);
+            }
+            job.finish(ReprocessStatus.COMPLETED);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.setLastError("Interrupted");
+            job.finish(ReprocessStatus.CANCELLED);
+        } catch (Exception e) {
+            log.error("Reprocess job {} failed: {}", job.getId(), e.getMessage(), e);
+            job.setLastError(e.getMessage());
+            job.finish(ReprocessStatus.FAILED);
+        } finally {
+            executor.shutdown(drainTimeoutMs);
+        }
+
+        ReprocessProgress progress = job.toProgress();
+        log.info("Reprocess job {} {} - Scanned: {}, Replayed: {}, Failed: {}, Quarantined: {}, Skipped: {}",
+                job.getId(), progress.getStatus(), progress.getScanned(), progress.getReplayed(),
+                progress.getFailed(), progress.getQuarantined(), progress.getSkipped());
+    }
+
+    private void process(ReprocessJob job, ConsumerRecord<String, byte[]> record) {
+        try {
+            if (job.getRequest().getMode() == ReprocessMode.HANDLER) {
+                if (handle(job, record)) {
+                    job.replayed.incrementAndGet();
+                }
+            } else {
+                template().send(replayRecord(job.getTargetTopic(), record)).get(SEND_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                job.replayed.incrementAndGet();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.failed.incrementAndGet();
+        } catch (Exception e) {
+            job.failed.incrementAndGet();
+            job.setLastError(e.getMessage());
+            log.warn("Reprocess job {} failed record - Topic: {}, Partition: {}, Offset: {}, Error: {}",
+                    job.getId(), record.topic(), record.partition(), record.offset(), e.getMessage());
+        }
+    }
+
+    /**
+     * הפעלת ה-handler של ה-topic; רשומה פגומה מועברת להסגר במקום להיחשב ככשל
+     *
+     * @return true אם הרשומה עובדה
+     */
+    private <T> boolean handle(ReprocessJob job, ConsumerRecord<String, byte[]> record) throws Exception {
+        @SuppressWarnings("unchecked")
+        ReprocessHandler<T> handler = (ReprocessHandler<T>) handlers.get(job.getTargetTopic());
+        T event;
+        try {
+            event = EventCodecs.isBinary(record.value())
+                    ? handler.type().cast(EventCodecs.decode(record.value(), null))
+                    : objectMapper.readValue(record.value(), handler.type());
+        } catch (Exception e) {
+            if (!quarantineService.isEnabled()) {
+                throw e;
+            }
+            quarantineService.quarantine(record, e, QuarantineService.STAGE_DESERIALIZATION);
+            job.quarantined.incrementAndGet();
+            return false;
+        }
+        String violation = quarantineService.validate(event);
+        if (violation != null) {
+            if (!quarantineService.isEnabled()) {
+                throw new IllegalArgumentException(violation);
+            }
+            quarantineService.quarantine(record, new IllegalArgumentException(violation), QuarantineService.STAGE_VALIDATION);
+            job.quarantined.incrementAndGet();
+            return false;
+        }
+        handler.handle(record.key(), event);
+        return true;
+    }
+
+    private ProducerRecord<String, byte[]> replayRecord(String targetTopic, ConsumerRecord<String, byte[]> record) {
+        RecordHeaders headers = new RecordHeaders();
+        for (Header header : record.headers()) {
+            // headers של DLQ ושל retry מתארים את הכשל הקודם - הרשומה חוזרת כרשומה רגילה
+            if (!header.key().startsWith(DLT_HEADER_PREFIX) && !header.key().startsWith(RETRY_HEADER_PREFIX)) {
+                headers.add(header);
+            }
+        }
+        String origin = record.topic() + "/" + record.partition() + "/" + record.offset();
+        headers.add(HEADER_REPROCESSED_FROM, origin.getBytes(StandardCharsets.UTF_8));
+        return new ProducerRecord<>(targetTopic, null, record.key(), record.value(), headers);
+    }
+
+    private boolean matches(ReprocessRequest request, ConsumerRecord<String, byte[]> record) {
+        if (record.value() == null) {
+            return false;
+        }
+        if (request.getFrom() != null && record.timestamp() < epochMillis(request.getFrom())) {
+            return false;
+        }
+        if (request.getTo() != null && record.timestamp() > epochMillis(request.getTo())) {
+            return false;
+        }
+        if (request.getErrorTypes() == null || request.getErrorTypes().isEmpty()) {
+            return true;
+        }
+        String exceptionType = headerValue(record, KafkaHeaders.DLT_EXCEPTION_FQCN);
+        String causeType = headerValue(record, KafkaHeaders.DLT_EXCEPTION_CAUSE_FQCN);
+        for (String errorType : request.getErrorTypes()) {
+            if (matchesType(exceptionType, errorType) || matchesType(causeType, errorType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean matchesType(String actual, String expected) {
+        return actual != null && (actual.equals(expected) || actual.endsWith("." + expected));
+    }
+
+    private static String headerValue(ConsumerRecord<?, ?> record, String key) {
+        Header header = record.headers().lastHeader(key);
+        return header != null && header.value() != null ? new String(header.value(), StandardCharsets.UTF_8) : null;
+    }
+
+    private void seekToStart(Consumer<String, byte[]> consumer, Collection<TopicPartition> partitions, LocalDateTime from) {
+        if (from == null) {
+            consumer.seekToBeginning(partitions);
+            return;
+        }
+        long timestamp = epochMillis(from);
+        Map<TopicPartition, Long> query = new HashMap<>();
+        partitions.forEach(partition -> query.put(partition, timestamp));
+        Map<TopicPartition, OffsetAndTimestamp> offsets = consumer.offsetsForTimes(query);
+        List<TopicPartition> afterRange = new ArrayList<>();
+        for (TopicPartition partition : partitions) {
+            OffsetAndTimestamp offset = offsets.get(partition);
+            if (offset != null) {
+                consumer.seek(partition, offset.offset());
+            } else {
+                afterRange.add(partition);
+            }
+        }
+        // אין רשומות מאז זמן ההתחלה ב-partition - אין מה לקרוא
+        consumer.seekToEnd(afterRange);
+    }
+
+    private static List<TopicPartition> partitions(Consumer<String, byte[]> consumer, String topic) {
+        List<PartitionInfo> infos = consumer.partitionsFor(topic);
+        if (infos == null || infos.isEmpty()) {
+            throw new IllegalArgumentException("Topic not found: " + topic);
+        }
+        return infos.stream().map(info -> new TopicPartition(info.topic(), info.partition())).toList();
+    }
+
+    private Consumer<String, byte[]> createConsumer() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        props.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 500);
+        return new KafkaConsumer<>(props, new StringDeserializer(), new ByteArrayDeserializer());
+    }
+
+    private KafkaTemplate<String, byte[]> template() {
+        KafkaTemplate<String, byte[]> template = replayTemplate;
+        if (template == null) {
+            synchronized (this) {
+                if (replayTemplate == null) {
+                    replayTemplate = new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(Map.of(
+                            ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers,
+                            ProducerConfig.ACKS_CONFIG, "all",
+                            ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true,
+                            ProducerConfig.LINGER_MS_CONFIG, 20,
+                            ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG, 30000
+                    ), new StringSerializer(), new ByteArraySerializer()));
+                }
+                template = replayTemplate;
+            }
+        }
+        return template;
+    }
+
+    private String resolveTargetTopic(ReprocessRequest request) {
+        if (request.getTargetTopic() != null && !request.getTargetTopic().isBlank()) {
+            return request.getTargetTopic();
+        }
+        String target = SOURCE_SUFFIX.matcher(request.getSourceTopic()).replaceFirst("");
+        if (target.equals(request.getSourceTopic())) {
+            throw new IllegalArgumentException("Cannot derive target topic from " + request.getSourceTopic()
+                    + " - expected a -dlq or -retry topic, or an explicit target topic");
+        }
+        return target;
+    }
+
+    private void trimHistory() {
+        Iterator<ReprocessJob> iterator = jobs.values().iterator();
+        int excess = jobs.size() - historySize;
+        while (excess > 0 && iterator.hasNext()) {
+            if (iterator.next().getStatus().isFinished()) {
+                iterator.remove();
+                excess--;
+            }
+        }
+    }
+
+    private ReprocessJob find(String jobId) {
+        synchronized (jobs) {
+            return jobs.get(jobId);
+        }
+    }
+
+    private static int clamp(Integer requested, int defaultValue, int max) {
+        int value = requested != null && requested > 0 ? requested : defaultValue;
+        return Math.min(value, max);
+    }
+
+    private static long epochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.common.kafka.reprocess;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * מגביל קצב פשוט - מרווח קבוע בין הרשאות, ללא צבירת burst
+ * הקצב ניתן לשינוי בזמן ריצה
+ */
+final class RateLimiter {
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private long intervalNanos;
+    private long nextFreeNanos = System.nanoTime();
+
+    RateLimiter(int permitsPerSecond) {
+        setRate(permitsPerSecond);
+    }
+
+    /**
+     * שינוי הקצב
+     *
+     * @param permitsPerSecond הרשאות לשנייה
+     */
+    synchronized void setRate(int permitsPerSecond) {
+        intervalNanos = NANOS_PER_SECOND / Math.max(1, permitsPerSecond);
+    }
+
+    /**
+     * המתנה להרשאה הבאה
+     *
+     * @throws InterruptedException אם התהליכון נקטע
+     */
+    void acquire() throws InterruptedException {
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            waitNanos = Math.max(0, nextFreeNanos - now);
+            nextFreeNanos = Math.max(nextFreeNanos, now) + intervalNanos;
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.common.kafka.reprocess;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Actuator endpoint לעיבוד חוזר של DLQ
+ * GET /actuator/reprocess - כל העבודות
+ * GET /actuator/reprocess/{jobId} - מצב עבודה
+ * POST /actuator/reprocess - התחלת עבודה (sourceTopic, targetTopic, mode, from, to, errorTypes, ratePerSecond, concurrency, maxRecords)
+ * POST /actuator/reprocess/{jobId}/{action} - pause / resume / throttle (ratePerSecond)
+ * DELETE /actuator/reprocess/{jobId} - ביטול עבודה
+ */
+@Component
+@Endpoint(id = "reprocess")
+@RequiredArgsConstructor
+public class ReprocessEndpoint {
+
+    private final DlqReprocessor dlqReprocessor;
+
+    @ReadOperation
+    public Map<String, Object> jobs() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("jobs", dlqReprocessor.jobs());
+        response.put("timestamp", LocalDateTime.now());
+        return response;
+    }
+
+    @ReadOperation
+    public ReprocessProgress job(@Selector String jobId) {
+        return dlqReprocessor.job(jobId);
+    }
+
+    @WriteOperation
+    public ReprocessProgress start(String sourceTopic, @Nullable String targetTopic, @Nullable String mode,
+                                   @Nullable String from, @Nullable String to, @Nullable String errorTypes,
+                                   @Nullable Integer ratePerSecond, @Nullable Integer concurrency, @Nullable Long maxRecords) {
+        ReprocessRequest request = ReprocessRequest.builder()
+                .sourceTopic(sourceTopic)
+                .targetTopic(targetTopic)
+                .mode(mode != null ? parseMode(mode) : null)
+                .from(parseTime(from))
+                .to(parseTime(to))
+                .errorTypes(parseList(errorTypes))
+                .ratePerSecond(ratePerSecond)
+                .concurrency(concurrency)
+                .maxRecords(maxRecords)
+                .build();
+        try {
+            return dlqReprocessor.start(request);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            throw new InvalidEndpointRequestException(e.getMessage(), e.getMessage());
+        }
+    }
+
+    @WriteOperation
+    public ReprocessProgress control(@Selector String jobId, @Selector String action, @Nullable Integer ratePerSecond) {
+        return switch (action.toLowerCase(Locale.ROOT)) {
+            case "pause" -> dlqReprocessor.pause(jobId);
+            case "resume" -> dlqReprocessor.resume(jobId);
+            case "throttle" -> {
+                if (ratePerSecond == null || ratePerSecond <= 0) {
+                    throw new InvalidEndpointRequestException("ratePerSecond is required", "Missing ratePerSecond");
+                }
+                yield dlqReprocessor.throttle(jobId, ratePerSecond);
+            }
+            default -> throw new InvalidEndpointRequestException("Unknown action: " + action,
+                    "Supported actions: pause, resume, throttle");
+        };
+    }
+
+    @DeleteOperation
+    public ReprocessProgress cancel(@Selector String jobId) {
+        return dlqReprocessor.cancel(jobId);
+    }
+
+    private static ReprocessMode parseMode(String mode) {
+        try {
+            return ReprocessMode.valueOf(mode.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidEndpointRequestException("Unknown mode: " + mode, "Supported modes: topic, handler");
+        }
+    }
+
+    private static LocalDateTime parseTime(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new InvalidEndpointRequestException("Invalid time: " + value, "Expected ISO local date-time");
+        }
+    }
+
+    private static List<String> parseList(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return Arrays.stream(value.split(",")).map(String::trim).filter(item -> !item.isEmpty()).toList();
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.common.kafka.reprocess;
+
+import com.example.common.transport.EventHandler;
+
+/**
+ * טיפול ישיר ברשומה מ-DLQ במצב {@link ReprocessMode#HANDLER}
+ * כל שירות רושם handler עבור ה-topic שהוא צורך; ה-handler מפעיל את אותה לוגיקה
+ * שה-listener מפעיל, כך שאפשר לעבד מחדש בלי להעמיס על ה-topic המקורי.
+ * אותו handler משמש גם לצריכת ה-topic כשה-transport אינו Kafka
+ *
+ * @param <T> סוג האירוע
+ */
+public interface ReprocessHandler<T> extends EventHandler<T> {
+
+    /**
+     * @return ה-topic המקורי שה-handler מטפל באירועים שלו (ללא סיומת -dlq)
+     */
+    @Override
+    String topic();
+
+    /**
+     * עיבוד האירוע
+     * חריגה נספרת ככשל והרשומה נשארת ב-DLQ
+     *
+     * @param key   מפתח הרשומה
+     * @param event האירוע
+     * @throws Exception כשל בעיבוד
+     */
+    @Override
+    void handle(String key, T event) throws Exception;
+}
@@ -0,0 +1,159 @@
+package com.example.common.kafka.reprocess;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * עבודת עיבוד חוזר אחת - מצב, מונים ושליטה (השהיה / המשך / ביטול)
+ */
+final class ReprocessJob {
+
+    private final String id;
+    private final ReprocessRequest request;
+    private final String targetTopic;
+    private final RateLimiter rateLimiter;
+    private final int concurrency;
+    private final LocalDateTime startedAt = LocalDateTime.now();
+    private final long startedNanos = System.nanoTime();
+
+    final AtomicLong scanned = new AtomicLong();
+    final AtomicLong skipped = new AtomicLong();
+    final AtomicLong replayed = new AtomicLong();
+    final AtomicLong failed = new AtomicLong();
+    final AtomicLong quarantined = new AtomicLong();
+
+    private ReprocessStatus status = ReprocessStatus.RUNNING;
+    private volatile int ratePerSecond;
+    private volatile long total;
+    private volatile String lastError;
+    private volatile LocalDateTime finishedAt;
+    private volatile long finishedNanos;
+
+    ReprocessJob(String id, ReprocessRequest request, String targetTopic, int ratePerSecond, int concurrency) {
+        this.id = id;
+        this.request = request;
+        this.targetTopic = targetTopic;
+        this.ratePerSecond = ratePerSecond;
+        this.concurrency = concurrency;
+        this.rateLimiter = new RateLimiter(ratePerSecond);
+    }
+
+    String getId() {
+        return id;
+    }
+
+    ReprocessRequest getRequest() {
+        return request;
+    }
+
+    String getTargetTopic() {
+        return targetTopic;
+    }
+
+    int getConcurrency() {
+        return concurrency;
+    }
+
+    RateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    void setTotal(long total) {
+        this.total = total;
+    }
+
+    void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    void setRate(int ratePerSecond) {
+        this.ratePerSecond = ratePerSecond;
+        rateLimiter.setRate(ratePerSecond);
+    }
+
+    synchronized ReprocessStatus getStatus() {
+        return status;
+    }
+
+    synchronized boolean isCancelled() {
+        return status == ReprocessStatus.CANCELLED;
+    }
+
+    /**
+     * המתנה כל עוד העבודה מושהית
+     *
+     * @throws InterruptedException אם התהליכון נקטע
+     */
+    synchronized void awaitRunning() throws InterruptedException {
+        while (status == ReprocessStatus.PAUSED) {
+            wait();
+        }
+    }
+
+    synchronized boolean pause() {
+        if (status != ReprocessStatus.RUNNING) {
+            return false;
+        }
+        status = ReprocessStatus.PAUSED;
+        return true;
+    }
+
+    synchronized boolean resume() {
+        if (status != ReprocessStatus.PAUSED) {
+            return false;
+        }
+        status = ReprocessStatus.RUNNING;
+        notifyAll();
+        return true;
+    }
+
+    synchronized boolean cancel() {
+        if (status.isFinished()) {
+            return false;
+        }
+        status = ReprocessStatus.CANCELLED;
+        notifyAll();
+        return true;
+    }
+
+    /**
+     * סימון סיום העבודה - ביטול שכבר נרשם נשמר
+     *
+     * @param finalStatus המצב הסופי
+     */
+    synchronized void finish(ReprocessStatus finalStatus) {
+        if (!status.isFinished()) {
+            status = finalStatus;
+        }
+        finishedAt = LocalDateTime.now();
+        finishedNanos = System.nanoTime();
+        notifyAll();
+    }
+
+    ReprocessProgress toProgress() {
+        long scannedCount = scanned.get();
+        long processed = replayed.get() + failed.get() + quarantined.get();
+        long endNanos = finishedAt != null ? finishedNanos : System.nanoTime();
+        double elapsedSeconds = Math.max(1, Duration.ofNanos(endNanos - startedNanos).toMillis()) / 1000.0;
+        return ReprocessProgress.builder()
+                .jobId(id)
+                .status(getStatus())
+                .request(request)
+                .targetTopic(targetTopic)
+                .total(total)
+                .scanned(scannedCount)
+                .skipped(skipped.get())
+                .replayed(replayed.get())
+                .failed(failed.get())
+                .quarantined(quarantined.get())
+                .ratePerSecond(ratePerSecond)
+                .concurrency(concurrency)
+                .percentComplete(total > 0 ? Math.min(100.0, scannedCount * 100.0 / total) : 100.0)
+                .throughput(processed / elapsedSeconds)
+                .lastError(lastError)
+                .startedAt(startedAt)
+                .finishedAt(finishedAt)
+                .build();
+    }
+}
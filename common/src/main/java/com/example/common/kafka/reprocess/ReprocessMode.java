@@ -0,0 +1,17 @@
+package com.example.common.kafka.reprocess;
+
+/**
+ * אופן העיבוד החוזר של רשומות מ-DLQ
+ */
+public enum ReprocessMode {
+
+    /**
+     * פרסום הרשומה מחדש ל-topic המקורי - ה-consumers הרגילים מעבדים אותה
+     */
+    TOPIC,
+
+    /**
+     * הפעלת ה-{@link ReprocessHandler} של ה-topic ישירות בשירות הנוכחי, ללא מעבר ב-Kafka
+     */
+    HANDLER
+}
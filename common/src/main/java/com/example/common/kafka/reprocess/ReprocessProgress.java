@@ -0,0 +1,74 @@
+package com.example.common.kafka.reprocess;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * תמונת מצב של עבודת עיבוד חוזר
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReprocessProgress {
+
+    private String jobId;
+    private ReprocessStatus status;
+    private ReprocessRequest request;
+
+    /**
+     * ה-topic שאליו מפורסמות הרשומות בפועל
+     */
+    private String targetTopic;
+
+    /**
+     * מספר הרשומות בטווח שנקבע בתחילת העבודה
+     */
+    private long total;
+
+    /**
+     * רשומות שנקראו
+     */
+    private long scanned;
+
+    /**
+     * רשומות שלא עברו את הסינון
+     */
+    private long skipped;
+
+    /**
+     * רשומות שעובדו בהצלחה
+     */
+    private long replayed;
+
+    /**
+     * רשומות שנכשלו ונשארו ב-DLQ
+     */
+    private long failed;
+
+    /**
+     * רשומות פגומות שהועברו להסגר
+     */
+    private long quarantined;
+
+    private int ratePerSecond;
+    private int concurrency;
+
+    /**
+     * אחוז הרשומות שנקראו מתוך הטווח
+     */
+    private double percentComplete;
+
+    /**
+     * קצב עיבוד בפועל (רשומות לשנייה)
+     */
+    private double throughput;
+
+    private String lastError;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
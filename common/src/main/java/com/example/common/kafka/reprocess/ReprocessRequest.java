@@ -0,0 +1,64 @@
+package com.example.common.kafka.reprocess;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * בקשה לעיבוד חוזר של רשומות מ-DLQ או מ-topic של retry
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReprocessRequest {
+
+    /**
+     * ה-topic שממנו נקראות הרשומות (למשל order-created-dlq)
+     */
+    private String sourceTopic;
+
+    /**
+     * ה-topic שאליו מפורסמות הרשומות - ברירת מחדל: sourceTopic ללא סיומת -dlq / -retry-N
+     */
+    private String targetTopic;
+
+    /**
+     * אופן העיבוד - ברירת מחדל TOPIC
+     */
+    private ReprocessMode mode;
+
+    /**
+     * עיבוד רשומות שנכתבו מזמן זה (כולל) בלבד
+     */
+    private LocalDateTime from;
+
+    /**
+     * עיבוד רשומות שנכתבו עד זמן זה (כולל) בלבד
+     */
+    private LocalDateTime to;
+
+    /**
+     * סינון לפי סוג הכשל (שם מלא או שם קצר של ה-exception) - ריק לכל הסוגים
+     */
+    private List<String> errorTypes;
+
+    /**
+     * מספר רשומות מקסימלי לשנייה
+     */
+    private Integer ratePerSecond;
+
+    /**
+     * מספר התהליכונים שמעבדים במקביל
+     */
+    private Integer concurrency;
+
+    /**
+     * מספר רשומות מקסימלי לעבודה - ריק ללא הגבלה
+     */
+    private Long maxRecords;
+}
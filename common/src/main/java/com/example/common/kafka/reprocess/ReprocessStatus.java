@@ -0,0 +1,19 @@
+package com.example.common.kafka.reprocess;
+
+/**
+ * מצב של עבודת עיבוד חוזר
+ */
+public enum ReprocessStatus {
+    RUNNING,
+    PAUSED,
+    COMPLETED,
+    CANCELLED,
+    FAILED;
+
+    /**
+     * @return האם העבודה הסתיימה
+     */
+    public boolean isFinished() {
+        return this == COMPLETED || this == CANCELLED || this == FAILED;
+    }
+}
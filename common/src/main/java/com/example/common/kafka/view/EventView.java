@@ -0,0 +1,218 @@
+package com.example.common.kafka.view;
+
+import com.example.common.kafka.codec.BinaryReader;
+import com.example.common.kafka.codec.EventCodecException;
+import com.example.common.kafka.codec.EventCodecs;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * גישה עצלה לשדות של אירוע ישירות מהבתים של הרשומה
+ * ביצירה נבנה אינדקס של מיקומי השדות העליונים (מעבר אחד ללא פענוח ערכים:
+ * tags בפורמט הבינארי, Jackson streaming ב-JSON), וכל שדה מפוענח רק בגישה הראשונה אליו.
+ * שדה שה-listener לא קורא אינו מפוענח ואינו מקצה אובייקטים
+ */
+public abstract class EventView {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private static final Object UNSET = new Object();
+
+    private final byte[] data;
+    private final boolean binary;
+    private final Object[] cache;
+    private int[] binaryOffsets;
+    private Map<String, Integer> jsonOffsets;
+
+    /**
+     * @param data           הבתים של הרשומה (בינארי או JSON)
+     * @param schemaId       מזהה הסכמה הצפוי ברשומה בינארית
+     * @param maxFieldNumber מספר השדה הגבוה ביותר שה-view קורא
+     * @throws EventCodecException אם מבנה הרשומה שגוי
+     */
+    protected EventView(byte[] data, int schemaId, int maxFieldNumber) {
+        this.data = data;
+        this.binary = EventCodecs.isBinary(data);
+        this.cache = new Object[maxFieldNumber + 1];
+        Arrays.fill(cache, UNSET);
+        if (binary) {
+            indexBinary(schemaId, maxFieldNumber);
+        } else {
+            indexJson();
+        }
+    }
+
+    /**
+     * @return הבתים המקוריים של הרשומה
+     */
+    public byte[] bytes() {
+        return data;
+    }
+
+    /**
+     * @return האם הרשומה בפורמט הבינארי
+     */
+    public boolean isBinary() {
+        return binary;
+    }
+
+    protected final String stringField(int field, String name) {
+        return cached(field, () -> {
+            if (binary) {
+                BinaryReader reader = binaryValue(field);
+                return reader != null ? reader.readString() : null;
+            }
+            return readJson(name, parser -> parser.currentToken() == JsonToken.VALUE_NULL ? null : parser.getValueAsString());
+        });
+    }
+
+    protected final boolean booleanField(int field, String name) {
+        Boolean value = cached(field, () -> {
+            if (binary) {
+                BinaryReader reader = binaryValue(field);
+                return reader != null && reader.readBoolean();
+            }
+            Boolean parsed = readJson(name, parser -> parser.getValueAsBoolean());
+            return parsed != null && parsed;
+        });
+        return value;
+    }
+
+    protected final LocalDateTime dateTimeField(int field, String name) {
+        return cached(field, () -> {
+            if (binary) {
+                BinaryReader reader = binaryValue(field);
+                return reader != null ? reader.readDateTime() : null;
+            }
+            return readJson(name, parser -> MAPPER.readValue(parser, LocalDateTime.class));
+        });
+    }
+
+    protected final List<String> stringListField(int field, String name) {
+        return listField(field, name, BinaryReader::readString, new TypeReference<List<String>>() { });
+    }
+
+    /**
+     * שדה חוזר - בבינארי כל המופעים של מספר השדה, ב-JSON מערך
+     */
+    protected final <T> List<T> listField(int field, String name, Function<BinaryReader, T> binaryDecoder,
+                                          TypeReference<List<T>> jsonType) {
+        return cached(field, () -> {
+            if (binary) {
+                return binaryList(field, binaryDecoder);
+            }
+            List<T> values = readJson(name, parser -> parser.currentToken() == JsonToken.VALUE_NULL
+                    ? null : MAPPER.readValue(parser, jsonType));
+            return values != null ? values : new ArrayList<>();
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T cached(int field, Supplier<T> loader) {
+        Object value = cache[field];
+        if (value == UNSET) {
+            value = loader.get();
+            cache[field] = value;
+        }
+        return (T) value;
+    }
+
+    private void indexBinary(int schemaId, int maxFieldNumber) {
+        int actualSchemaId = EventCodecs.schemaId(data);
+        if (actualSchemaId != schemaId) {
+            throw new EventCodecException("Expected schema " + schemaId + " but record has schema " + actualSchemaId);
+        }
+        binaryOffsets = new int[maxFieldNumber + 1];
+        Arrays.fill(binaryOffsets, -1);
+        BinaryReader reader = new BinaryReader(data, 1, data.length - 1);
+        reader.readRawVarint();
+        while (reader.hasRemaining()) {
+            int tag = reader.readTag();
+            int field = reader.fieldNumber(tag);
+            if (field <= maxFieldNumber && binaryOffsets[field] < 0) {
+                binaryOffsets[field] = reader.position();
+            }
+            reader.skipField(tag);
+        }
+    }
+
+    private BinaryReader binaryValue(int field) {
+        int offset = binaryOffsets[field];
+        return offset < 0 ? null : new BinaryReader(data, offset, data.length - offset);
+    }
+
+    private <T> List<T> binaryList(int field, Function<BinaryReader, T> decoder) {
+        List<T> values = new ArrayList<>();
+        int offset = binaryOffsets[field];
+        if (offset < 0) {
+            return values;
+        }
+        // המופע הראשון כבר ידוע - ממשיכים לסרוק ממנו את שאר המופעים
+        BinaryReader reader = new BinaryReader(data, offset, data.length - offset);
+        values.add(decoder.apply(reader));
+        while (reader.hasRemaining()) {
+            int tag = reader.readTag();
+            if (reader.fieldNumber(tag) == field) {
+                values.add(decoder.apply(reader));
+            } else {
+                reader.skipField(tag);
+            }
+        }
+        return values;
+    }
+
+    private void indexJson() {
+        jsonOffsets = new HashMap<>();
+        try (JsonParser parser = JSON_FACTORY.createParser(data)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new EventCodecException("Expected a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                parser.nextToken();
+                jsonOffsets.putIfAbsent(name, (int) parser.currentTokenLocation().getByteOffset());
+                parser.skipChildren();
+            }
+            if (parser.currentToken() != JsonToken.END_OBJECT) {
+                throw new EventCodecException("Malformed JSON event");
+            }
+        } catch (IOException e) {
+            throw new EventCodecException("Malformed JSON event: " + e.getMessage(), e);
+        }
+    }
+
+    private <T> T readJson(String name, JsonValueReader<T> valueReader) {
+        Integer offset = jsonOffsets.get(name);
+        if (offset == null) {
+            return null;
+        }
+        try (JsonParser parser = JSON_FACTORY.createParser(data, offset, data.length - offset)) {
+            parser.nextToken();
+            return valueReader.read(parser);
+        } catch (IOException e) {
+            throw new EventCodecException("Failed to read field " + name + ": " + e.getMessage(), e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface JsonValueReader<T> {
+        T read(JsonParser parser) throws IOException;
+    }
+}
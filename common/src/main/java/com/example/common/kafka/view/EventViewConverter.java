@@ -0,0 +1,37 @@
+package com.example.common.kafka.view;
+
+import com.example.common.events.InventoryCheckResultEvent;
+import com.example.common.events.OrderCreatedEvent;
+import org.springframework.core.convert.TypeDescriptor;
+import org.springframework.core.convert.converter.GenericConverter;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * המרת view לאירוע המלא
+ * נרשם ב-conversion service של ה-@KafkaListener, כך ש-listener על container שמייצר views
+ * יכול להצהיר על ה-view (פענוח עצל) או על האירוע המלא (פענוח של כל השדות)
+ */
+@Component
+public class EventViewConverter implements GenericConverter {
+
+    @Override
+    public Set<ConvertiblePair> getConvertibleTypes() {
+        return Set.of(
+                new ConvertiblePair(InventoryCheckResultView.class, InventoryCheckResultEvent.class),
+                new ConvertiblePair(OrderCreatedView.class, OrderCreatedEvent.class)
+        );
+    }
+
+    @Override
+    public Object convert(Object source, TypeDescriptor sourceType, TypeDescriptor targetType) {
+        if (source instanceof InventoryCheckResultView view) {
+            return view.toEvent();
+        }
+        if (source instanceof OrderCreatedView view) {
+            return view.toEvent();
+        }
+        return source;
+    }
+}
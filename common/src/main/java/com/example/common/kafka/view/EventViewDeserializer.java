@@ -0,0 +1,58 @@
+package com.example.common.kafka.view;
+
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Deserializer שמחזיר {@link EventView} במקום אירוע מלא
+ * קורא JSON ובינארי; ביצירת ה-view נבדק רק מבנה הרשומה, והשדות מפוענחים לפי דרישה.
+ * סוג ה-view נקבע ב-{@link #VIEW_TYPE_CONFIG}
+ */
+public class EventViewDeserializer implements Deserializer<EventView> {
+
+    /**
+     * שם המחלקה המלא של ה-view
+     */
+    public static final String VIEW_TYPE_CONFIG = "event.view.type";
+
+    private static final Map<String, Function<byte[], EventView>> FACTORIES = Map.of(
+            InventoryCheckResultView.class.getName(), InventoryCheckResultView::new,
+            OrderCreatedView.class.getName(), OrderCreatedView::new
+    );
+
+    private Function<byte[], EventView> factory;
+
+    public EventViewDeserializer() {
+    }
+
+    public EventViewDeserializer(Class<? extends EventView> viewType) {
+        this.factory = factoryFor(viewType.getName());
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        Object viewType = configs.get(VIEW_TYPE_CONFIG);
+        if (factory == null && viewType != null) {
+            factory = factoryFor(viewType instanceof Class<?> type ? type.getName() : viewType.toString());
+        }
+    }
+
+    @Override
+    public EventView deserialize(String topic, byte[] data) {
+        if (factory == null) {
+            throw new IllegalStateException(VIEW_TYPE_CONFIG + " is not configured");
+        }
+        return data == null ? null : factory.apply(data);
+    }
+
+    private static Function<byte[], EventView> factoryFor(String viewType) {
+        Function<byte[], EventView> factory = FACTORIES.get(viewType);
+        if (factory == null) {
+            throw new ConfigException(VIEW_TYPE_CONFIG, viewType, "Supported views: " + FACTORIES.keySet());
+        }
+        return factory;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.common.kafka.view;
+
+import com.example.common.events.InventoryCheckResultEvent;
+import com.example.common.kafka.codec.EventCodecs;
+import com.example.common.kafka.codec.InventoryCheckResultEventCodec;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static com.example.common.kafka.codec.InventoryCheckResultEventCodec.APPROVED;
+import static com.example.common.kafka.codec.InventoryCheckResultEventCodec.CUSTOMER_NAME;
+import static com.example.common.kafka.codec.InventoryCheckResultEventCodec.ERROR_MESSAGE;
+import static com.example.common.kafka.codec.InventoryCheckResultEventCodec.EVENT_DATE_TIME;
+import static com.example.common.kafka.codec.InventoryCheckResultEventCodec.ORDER_ID;
+import static com.example.common.kafka.codec.InventoryCheckResultEventCodec.UNAVAILABLE_ITEMS;
+
+/**
+ * View עצל על {@link InventoryCheckResultEvent}
+ * רשימת הפריטים החסרים וזמן האירוע מפוענחים רק אם ניגשים אליהם
+ */
+public final class InventoryCheckResultView extends EventView {
+
+    private static final InventoryCheckResultEventCodec CODEC = new InventoryCheckResultEventCodec();
+
+    public InventoryCheckResultView(byte[] data) {
+        super(data, InventoryCheckResultEventCodec.SCHEMA_ID, CUSTOMER_NAME);
+    }
+
+    /**
+     * view על אירוע שכבר קיים בזיכרון (למשל בעיבוד חוזר מ-DLQ)
+     *
+     * @param event האירוע
+     * @return ה-view
+     */
+    public static InventoryCheckResultView of(InventoryCheckResultEvent event) {
+        return new InventoryCheckResultView(EventCodecs.encode(CODEC, event));
+    }
+
+    public String getOrderId() {
+        return stringField(ORDER_ID, "orderId");
+    }
+
+    public boolean isApproved() {
+        return booleanField(APPROVED, "approved");
+    }
+
+    public List<String> getUnavailableItems() {
+        return stringListField(UNAVAILABLE_ITEMS, "unavailableItems");
+    }
+
+    public String getErrorMessage() {
+        return stringField(ERROR_MESSAGE, "errorMessage");
+    }
+
+    public LocalDateTime getEventDateTime() {
+        return dateTimeField(EVENT_DATE_TIME, "eventDateTime");
+    }
+
+    public String getCustomerName() {
+        return stringField(CUSTOMER_NAME, "customerName");
+    }
+
+    /**
+     * @return האירוע המלא - מפענח את כל השדות
+     */
+    public InventoryCheckResultEvent toEvent() {
+        return new InventoryCheckResultEvent(getOrderId(), isApproved(), getUnavailableItems(), getErrorMessage(),
+                getEventDateTime(), getCustomerName());
+    }
+
+    @Override
+    public String toString() {
+        return "InventoryCheckResultView(orderId=" + getOrderId() + ", approved=" + isApproved() + ")";
+    }
+}
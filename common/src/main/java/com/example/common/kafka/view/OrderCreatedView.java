@@ -0,0 +1,87 @@
+package com.example.common.kafka.view;
+
+import com.example.common.events.OrderCreatedEvent;
+import com.example.common.kafka.codec.EventCodecs;
+import com.example.common.kafka.codec.OrderCreatedEventCodec;
+import com.example.common.models.OrderItem;
+import com.fasterxml.jackson.core.type.TypeReference;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static com.example.common.kafka.codec.OrderCreatedEventCodec.CUSTOMER_NAME;
+import static com.example.common.kafka.codec.OrderCreatedEventCodec.EVENT_DATE_TIME;
+import static com.example.common.kafka.codec.OrderCreatedEventCodec.ITEMS;
+import static com.example.common.kafka.codec.OrderCreatedEventCodec.ORDER_ID;
+import static com.example.common.kafka.codec.OrderCreatedEventCodec.REQUEST_DATE_TIME;
+import static com.example.common.kafka.codec.OrderCreatedEventCodec.REQUEST_ID;
+
+/**
+ * View עצל על {@link OrderCreatedEvent}
+ * הפריטים וזמני הבקשה מפוענחים רק אם ניגשים אליהם
+ */
+public final class OrderCreatedView extends EventView {
+
+    private static final OrderCreatedEventCodec CODEC = new OrderCreatedEventCodec();
+
+    public OrderCreatedView(byte[] data) {
+        super(data, OrderCreatedEventCodec.SCHEMA_ID, EVENT_DATE_TIME);
+    }
+
+    /**
+     * view על אירוע שכבר קיים בזיכרון
+     *
+     * @param event האירוע
+     * @return ה-view
+     */
+    public static OrderCreatedView of(OrderCreatedEvent event) {
+        return new OrderCreatedView(EventCodecs.encode(CODEC, event));
+    }
+
+    public String getOrderId() {
+        return stringField(ORDER_ID, "orderId");
+    }
+
+    public String getCustomerName() {
+        return stringField(CUSTOMER_NAME, "customerName");
+    }
+
+    public List<OrderItem> getItems() {
+        return listField(ITEMS, "items", reader -> OrderCreatedEventCodec.decodeItem(reader.readMessage()),
+                new TypeReference<List<OrderItem>>() { });
+    }
+
+    public String getRequestId() {
+        return stringField(REQUEST_ID, "requestId");
+    }
+
+    public LocalDateTime getRequestDateTime() {
+        return dateTimeField(REQUEST_DATE_TIME, "requestDateTime");
+    }
+
+    public LocalDateTime getEventDateTime() {
+        return dateTimeField(EVENT_DATE_TIME, "eventDateTime");
+    }
+
+    /**
+     * האירוע ללא זמן הבקשה - לצרכנים שאינם משתמשים בו
+     *
+     * @return האירוע עם כל השדות פרט ל-requestDateTime
+     */
+    public OrderCreatedEvent toEventWithoutRequestTime() {
+        return new OrderCreatedEvent(getOrderId(), getCustomerName(), getItems(), getRequestId(), null, getEventDateTime());
+    }
+
+    /**
+     * @return האירוע המלא - מפענח את כל השדות
+     */
+    public OrderCreatedEvent toEvent() {
+        return new OrderCreatedEvent(getOrderId(), getCustomerName(), getItems(), getRequestId(),
+                getRequestDateTime(), getEventDateTime());
+    }
+
+    @Override
+    public String toString() {
+        return "OrderCreatedView(orderId=" + getOrderId() + ")";
+    }
+}
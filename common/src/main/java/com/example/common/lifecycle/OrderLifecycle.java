@@ -0,0 +1,128 @@
+package com.example.common.lifecycle;
+
+import lombok.Value;
+import lombok.With;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * חותמות הזמן של הזמנה לאורך ה-pipeline בין השירותים: יצירה → פרסום → קבלה בשירות המלאי → החלטה
+ * החותמות עוברות ב-headers של Kafka (מילישניות epoch כמחרוזת עשרונית), כך שאינן משנות את ה-payload
+ * ואת ה-views העצלים. כל שירות מוסיף את החותמות שלו ומעביר הלאה את אלה שקיבל.
+ * 0 מסמן חותמת לא ידועה - ב-transport ללא headers (redis / memory) החותמות נלקחות מזמני האירוע
+ */
+@Value
+@With
+public class OrderLifecycle {
+
+    public static final String CREATED_AT_HEADER = "lifecycle-created-at";
+    public static final String PUBLISHED_AT_HEADER = "lifecycle-published-at";
+    public static final String INVENTORY_RECEIVED_AT_HEADER = "lifecycle-inventory-received-at";
+    public static final String INVENTORY_DECIDED_AT_HEADER = "lifecycle-inventory-decided-at";
+
+    public static final OrderLifecycle EMPTY = new OrderLifecycle(0, 0, 0, 0);
+
+    long createdAt;
+    long publishedAt;
+    long inventoryReceivedAt;
+    long inventoryDecidedAt;
+
+    /**
+     * קריאת החותמות מ-headers של הודעה (@Headers של listener)
+     * ערך יכול להגיע כ-byte[] (ה-header mapper של spring-kafka), כמחרוזת או כמספר
+     *
+     * @param headers ה-headers של ההודעה
+     * @return החותמות; חותמת חסרה או פגומה היא 0
+     */
+    public static OrderLifecycle fromHeaders(Map<String, ?> headers) {
+        if (headers == null) {
+            return EMPTY;
+        }
+        return new OrderLifecycle(
+                parse(headers.get(CREATED_AT_HEADER)),
+                parse(headers.get(PUBLISHED_AT_HEADER)),
+                parse(headers.get(INVENTORY_RECEIVED_AT_HEADER)),
+                parse(headers.get(INVENTORY_DECIDED_AT_HEADER)));
+    }
+
+    /**
+     * קריאת החותמות מ-headers של רשומת Kafka (מאזיני באץ' ו-reactor-kafka)
+     *
+     * @param headers ה-headers של הרשומה
+     * @return החותמות; חותמת חסרה או פגומה היא 0
+     */
+    public static OrderLifecycle fromHeaders(Headers headers) {
+        if (headers == null) {
+            return EMPTY;
+        }
+        return new OrderLifecycle(
+                parse(headers.lastHeader(CREATED_AT_HEADER)),
+                parse(headers.lastHeader(PUBLISHED_AT_HEADER)),
+                parse(headers.lastHeader(INVENTORY_RECEIVED_AT_HEADER)),
+                parse(headers.lastHeader(INVENTORY_DECIDED_AT_HEADER)));
+    }
+
+    /**
+     * @param fallback זמן היצירה מהאירוע
+     * @return החותמות, עם זמן היצירה מהאירוע אם לא הגיע ב-header
+     */
+    public OrderLifecycle orCreatedAt(LocalDateTime fallback) {
+        return createdAt > 0 || fallback == null ? this : withCreatedAt(toMillis(fallback));
+    }
+
+    /**
+     * @param fallback זמן אירוע התוצאה
+     * @return החותמות, עם זמן ההחלטה מהאירוע אם לא הגיע ב-header
+     */
+    public OrderLifecycle orInventoryDecidedAt(LocalDateTime fallback) {
+        return inventoryDecidedAt > 0 || fallback == null ? this : withInventoryDecidedAt(toMillis(fallback));
+    }
+
+    /**
+     * @return ה-headers לפרסום - רק החותמות הידועות
+     */
+    public Map<String, byte[]> toHeaders() {
+        Map<String, byte[]> headers = new LinkedHashMap<>(4);
+        put(headers, CREATED_AT_HEADER, createdAt);
+        put(headers, PUBLISHED_AT_HEADER, publishedAt);
+        put(headers, INVENTORY_RECEIVED_AT_HEADER, inventoryReceivedAt);
+        put(headers, INVENTORY_DECIDED_AT_HEADER, inventoryDecidedAt);
+        return headers;
+    }
+
+    public static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static void put(Map<String, byte[]> headers, String name, long timestamp) {
+        if (timestamp > 0) {
+            headers.put(name, Long.toString(timestamp).getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+
+    private static long parse(Header header) {
+        return header != null ? parse(header.value()) : 0;
+    }
+
+    private static long parse(Object value) {
+        if (value instanceof Number number) {
+            return number.longValue();
+        }
+        String text = value instanceof byte[] bytes ? new String(bytes, StandardCharsets.US_ASCII)
+                : value instanceof String string ? string : null;
+        if (text == null) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Long.parseLong(text.trim()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
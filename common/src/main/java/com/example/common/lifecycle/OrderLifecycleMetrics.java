@@ -0,0 +1,65 @@
+package com.example.common.lifecycle;
+
+import com.example.common.metrics.LatencyTimers;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * מדדי זמן של מחזור חיי ההזמנה בין השירותים - timer אחד לכל קטע (order.lifecycle.latency{hop})
+ * כל שירות רושם את הקטעים שמסתיימים אצלו, לפי חותמות מ-{@link OrderLifecycle}:
+ * create-to-inventory ו-inventory-processing בשירות המלאי, result-to-status-applied ו-create-to-status-applied
+ * בשירות ההזמנות, result-to-notified ו-create-to-notified בשירות ההודעות.
+ * קטע בין שירותים כולל הפרשי שעונים בין המכונות; משך שלילי אינו נרשם ונספר ב-order.lifecycle.clock-skew
+ */
+@Component
+public class OrderLifecycleMetrics {
+
+    public static final String HOP_CREATE_TO_INVENTORY = "create-to-inventory";
+    public static final String HOP_INVENTORY_PROCESSING = "inventory-processing";
+    public static final String HOP_RESULT_TO_STATUS_APPLIED = "result-to-status-applied";
+    public static final String HOP_CREATE_TO_STATUS_APPLIED = "create-to-status-applied";
+    public static final String HOP_RESULT_TO_NOTIFIED = "result-to-notified";
+    public static final String HOP_CREATE_TO_NOTIFIED = "create-to-notified";
+
+    private final MeterRegistry meterRegistry;
+    private final LatencyTimers timers;
+    private final Map<String, Counter> clockSkew = new ConcurrentHashMap<>();
+
+    public OrderLifecycleMetrics(MeterRegistry meterRegistry,
+                                 @Value("${orders.lifecycle.percentiles:0.5,0.99,0.999}") double[] percentiles,
+                                 @Value("${orders.lifecycle.histogram:true}") boolean histogram,
+                                 @Value("${orders.lifecycle.max-expected-ms:60000}") long maxExpectedMs) {
+        this.meterRegistry = meterRegistry;
+        this.timers = new LatencyTimers(meterRegistry, "order.lifecycle.latency",
+                "Latency of each order lifecycle hop across services", percentiles, histogram, Duration.ofMillis(maxExpectedMs));
+    }
+
+    /**
+     * רישום משך קטע
+     *
+     * @param hop  שם הקטע
+     * @param from תחילת הקטע במילישניות epoch; 0 (לא ידוע) - הקטע אינו נרשם
+     * @param to   סוף הקטע במילישניות epoch
+     */
+    public void record(String hop, long from, long to) {
+        if (from <= 0 || to <= 0) {
+            return;
+        }
+        long duration = to - from;
+        if (duration < 0) {
+            clockSkew.computeIfAbsent(hop, key -> Counter.builder("order.lifecycle.clock-skew")
+                    .description("Lifecycle hops skipped because the end preceded the start")
+                    .tag("hop", key)
+                    .register(meterRegistry)).increment();
+            return;
+        }
+        timers.timer(hop, "hop", hop).record(duration, TimeUnit.MILLISECONDS);
+    }
+}
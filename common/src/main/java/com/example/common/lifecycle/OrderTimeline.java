@@ -0,0 +1,84 @@
+package com.example.common.lifecycle;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * ציר הזמן של הזמנה לחקירת הזמנות איטיות - hash ב-Redis לכל הזמנה (order-timeline:<orderId>) עם TTL
+ * כל שירות כותב את נקודות הזמן שלו (מילישניות epoch) ללא המתנה; כשל בכתיבה נרשם בלוג בלבד
+ * ואינו משפיע על עיבוד ההזמנה. כתיבה חוזרת של אותה נקודה (retry) דורסת את הקודמת
+ */
+@Component
+@Slf4j
+public class OrderTimeline {
+
+    public static final String CREATED = "created";
+    public static final String PUBLISHED = "published";
+    public static final String INVENTORY_RECEIVED = "inventory-received";
+    public static final String INVENTORY_DECIDED = "inventory-decided";
+    public static final String STATUS_APPLIED = "status-applied";
+    public static final String NOTIFIED = "notified";
+
+    private static final String KEY_PREFIX = "order-timeline:";
+
+    private final ReactiveRedisTemplate<String, Object> redisTemplate;
+    private final boolean enabled;
+    private final Duration ttl;
+
+    public OrderTimeline(ReactiveRedisTemplate<String, Object> redisTemplate,
+                         @Value("${orders.lifecycle.timeline.enabled:true}") boolean enabled,
+                         @Value("${orders.lifecycle.timeline.ttl-minutes:1440}") long ttlMinutes) {
+        this.redisTemplate = redisTemplate;
+        this.enabled = enabled;
+        this.ttl = Duration.ofMinutes(ttlMinutes);
+    }
+
+    /**
+     * רישום נקודות זמן של הזמנה - ללא המתנה
+     *
+     * @param orderId מזהה ההזמנה
+     * @param marks   שם הנקודה → מילישניות epoch; נקודות עם 0 (לא ידוע) אינן נכתבות
+     */
+    public void mark(String orderId, Map<String, Long> marks) {
+        if (!enabled || orderId == null) {
+            return;
+        }
+        Map<String, Object> values = new TreeMap<>();
+        marks.forEach((name, timestamp) -> {
+            if (timestamp != null && timestamp > 0) {
+                values.put(name, timestamp);
+            }
+        });
+        if (values.isEmpty()) {
+            return;
+        }
+        String key = KEY_PREFIX + orderId;
+        redisTemplate.opsForHash().putAll(key, values)
+                .then(redisTemplate.expire(key, ttl))
+                .subscribe(
+                        null,
+                        error -> log.warn("Failed to record timeline for order {}: {}", orderId, error.getMessage()));
+    }
+
+    /**
+     * @param orderId מזהה ההזמנה
+     * @return נקודות הזמן של ההזמנה, ממוינות לפי שם; ריק אם אין ציר זמן (או שפג)
+     */
+    public Mono<Map<String, Long>> get(String orderId) {
+        return redisTemplate.<String, Object>opsForHash().entries(KEY_PREFIX + orderId)
+                .filter(entry -> entry.getValue() instanceof Number)
+                .collectMap(Map.Entry::getKey, entry -> ((Number) entry.getValue()).longValue(), TreeMap::new)
+                .filter(marks -> !marks.isEmpty());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.common.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * משפחת timers של latency בשם אחד, עם percentiles מחושבים בשירות ו-histogram buckets ל-Prometheus
+ * כך שאפשר לצבור percentiles בין instances. timer נרשם פעם אחת לכל צירוף tags ונשמר במפה -
+ * מדידה בנתיב החם היא חיפוש במפה בלבד
+ */
+public class LatencyTimers {
+
+    private final MeterRegistry meterRegistry;
+    private final String name;
+    private final String description;
+    private final double[] percentiles;
+    private final boolean histogram;
+    private final Duration maxExpected;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    /**
+     * @param meterRegistry ה-registry
+     * @param name          שם ה-timer
+     * @param description   תיאור ה-timer
+     * @param percentiles   percentiles לחישוב בשירות
+     * @param histogram     האם לפרסם histogram buckets
+     * @param maxExpected   הערך הגבוה ביותר שצפוי - גבול ה-buckets העליון
+     */
+    public LatencyTimers(MeterRegistry meterRegistry, String name, String description, double[] percentiles,
+                         boolean histogram, Duration maxExpected) {
+        this.meterRegistry = meterRegistry;
+        this.name = name;
+        this.description = description;
+        this.percentiles = percentiles;
+        this.histogram = histogram;
+        this.maxExpected = maxExpected;
+    }
+
+    /**
+     * ה-timer של צירוף tags, נרשם בשימוש הראשון
+     *
+     * @param key  מפתח ייחודי לצירוף ה-tags
+     * @param tags זוגות של שם וערך
+     * @return ה-timer
+     */
+    public Timer timer(String key, String... tags) {
+        return timers.computeIfAbsent(key, ignored -> Timer.builder(name)
+                .description(description)
+                .tags(tags)
+                .publishPercentiles(percentiles)
+                .publishPercentileHistogram(histogram)
+                .maximumExpectedValue(maxExpected)
+                .register(meterRegistry));
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.common.transport;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * העברת אירועים בין השירותים, ללא תלות ב-transport
+ * המימוש נבחר ב-events.transport: kafka (ברירת מחדל), redis (Redis Streams) או memory (ring buffer בתוך ה-JVM).
+ * אירועים עם אותו מפתח נמסרים ל-handler לפי סדר הפרסום; כל group מקבל עותק של כל אירוע
+ */
+public interface EventBus {
+
+    /**
+     * @return ה-transport של המימוש
+     */
+    EventTransport transport();
+
+    /**
+     * פרסום אירוע
+     *
+     * @param topic ה-topic
+     * @param key   מפתח האירוע (קובע סדר)
+     * @param event האירוע
+     * @return future שמושלם כשה-transport אישר את האירוע
+     */
+    CompletableFuture<Void> publish(String topic, String key, Object event);
+
+    /**
+     * פרסום אירוע עם headers (למשל חותמות מחזור החיים של ההזמנה)
+     * ברירת המחדל מתעלמת מה-headers - רק Kafka מעביר אותם, ובשאר ה-transports הצרכן נשען על זמני האירוע
+     *
+     * @param topic   ה-topic
+     * @param key     מפתח האירוע (קובע סדר)
+     * @param event   האירוע
+     * @param headers ה-headers
+     * @return future שמושלם כשה-transport אישר את האירוע
+     */
+    default CompletableFuture<Void> publish(String topic, String key, Object event, Map<String, byte[]> headers) {
+        return publish(topic, key, event);
+    }
+
+    /**
+     * רישום handler לאירועי ה-topic שלו
+     *
+     * @param group   קבוצת הצרכנים - מופעים של אותה קבוצה מתחלקים באירועים
+     * @param handler ה-handler
+     * @return הרישום, לביטול
+     */
+    <T> EventSubscription subscribe(String group, EventHandler<T> handler);
+}
@@ -0,0 +1,151 @@
+package com.example.common.transport;
+
+import com.example.common.enums.Category;
+import com.example.common.events.OrderCreatedEvent;
+import com.example.common.models.OrderItem;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * מדידת ה-transport הפעיל
+ * נרשם כ-group ייעודי ל-topic ייעודי, מפרסם N אירועי order-created בקצב קבוע ומודד את הזמן
+ * מהפרסום ועד שה-handler מקבל כל אירוע (p50 / p99 / max) ואת התפוקה.
+ * הרצה עם events.transport שונה בכל פעם (kafka / redis / memory) מאפשרת השוואה בין ה-transports על אותה סביבה
+ */
+@Component
+@ConditionalOnProperty(name = "events.benchmark.enabled", havingValue = "true")
+@Slf4j
+public class EventBusBenchmark implements ApplicationRunner {
+
+    private final EventBus eventBus;
+
+    @Value("${events.benchmark.topic:event-bus-benchmark}")
+    private String topic;
+
+    @Value("${events.benchmark.events:20000}")
+    private int eventCount;
+
+    @Value("${events.benchmark.rate:2000}")
+    private int rate;
+
+    @Value("${events.benchmark.warmup-ms:5000}")
+    private long warmupMs;
+
+    @Value("${events.benchmark.timeout-ms:120000}")
+    private long timeoutMs;
+
+    public EventBusBenchmark(EventBus eventBus) {
+        this.eventBus = eventBus;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        String runId = "bench-" + UUID.randomUUID().toString().substring(0, 8) + "-";
+        log.info("=== EVENT BUS BENCHMARK STARTED === Transport: {}, Events: {}, Rate: {}/s, Run: {}",
+                eventBus.transport(), eventCount, rate, runId);
+
+        Map<String, Long> publishedAt = new ConcurrentHashMap<>(eventCount * 2);
+        long[] latencies = new long[eventCount];
+        AtomicInteger received = new AtomicInteger();
+        AtomicLong publishFailures = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(eventCount);
+
+        EventSubscription subscription = eventBus.subscribe("event-bus-benchmark-" + runId, new EventHandler<OrderCreatedEvent>() {
+
+            @Override
+            public String topic() {
+                return topic;
+            }
+
+            @Override
+            public Class<OrderCreatedEvent> type() {
+                return OrderCreatedEvent.class;
+            }
+
+            @Override
+            public void handle(String key, OrderCreatedEvent event) {
+                Long sentNanos = publishedAt.remove(key);
+                if (sentNanos != null) {
+                    int index = received.getAndIncrement();
+                    if (index < latencies.length) {
+                        latencies[index] = System.nanoTime() - sentNanos;
+                    }
+                    done.countDown();
+                }
+            }
+        });
+        try {
+            // הצטרפות ה-group (Kafka rebalance, יצירת consumer group ב-Redis) לפני שמתחילים למדוד
+            Thread.sleep(warmupMs);
+
+            double intervalNanos = 1_000_000_000.0 / rate;
+            long startNanos = System.nanoTime();
+            for (int i = 0; i < eventCount; i++) {
+                long waitNanos = startNanos + (long) (i * intervalNanos) - System.nanoTime();
+                if (waitNanos > 0) {
+                    LockSupport.parkNanos(waitNanos);
+                }
+                String orderId = runId + i;
+                publishedAt.put(orderId, System.nanoTime());
+                eventBus.publish(topic, orderId, event(orderId)).whenComplete((result, error) -> {
+                    if (error != null) {
+                        publishFailures.incrementAndGet();
+                    }
+                });
+            }
+            long publishedNanos = System.nanoTime();
+            boolean completed = done.await(timeoutMs, TimeUnit.MILLISECONDS);
+            long elapsedNanos = System.nanoTime() - startNanos;
+
+            int count = Math.min(received.get(), eventCount);
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            log.info("=== EVENT BUS BENCHMARK COMPLETED === Transport: {}, Published: {}, Received: {}, Publish failures: {}, "
+                            + "Publish time: {} ms, Total time: {} ms, Throughput: {} events/s, Latency p50/p99/max: {}/{}/{} ms",
+                    eventBus.transport(), eventCount, count, publishFailures.get(),
+                    TimeUnit.NANOSECONDS.toMillis(publishedNanos - startNanos), TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                    String.format("%.1f", count / (elapsedNanos / 1_000_000_000.0)),
+                    millis(sorted, 0.50), millis(sorted, 0.99), millis(sorted, 1.0));
+            if (!completed) {
+                log.warn("Benchmark timed out after {} ms - {} events not received", timeoutMs, eventCount - count);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Event bus benchmark interrupted");
+        } catch (Exception e) {
+            log.error("Event bus benchmark failed: {}", e.getMessage(), e);
+        } finally {
+            subscription.close();
+        }
+    }
+
+    private static OrderCreatedEvent event(String orderId) {
+        LocalDateTime now = LocalDateTime.now();
+        return new OrderCreatedEvent(orderId, "benchmark", List.of(new OrderItem("BENCH-1", 1, Category.DIGITAL)),
+                orderId, now, now);
+    }
+
+    private static String millis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return "-";
+        }
+        int index = Math.min(sorted.length - 1, Math.max(0, (int) Math.ceil(percentile * sorted.length) - 1));
+        return String.format("%.2f", sorted[index] / 1_000_000.0);
+    }
+}
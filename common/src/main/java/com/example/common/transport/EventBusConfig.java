@@ -0,0 +1,62 @@
+package com.example.common.transport;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.time.Duration;
+
+/**
+ * בחירת מימוש ה-{@link EventBus} לפי events.transport (kafka / redis / memory)
+ * EventBus שכבר מוגדר (למשל ב-context האב של מצב all-in-one) משותף ואינו מוחלף
+ */
+@Configuration
+@Slf4j
+public class EventBusConfig {
+
+    @Value("${events.concurrency:8}")
+    private int concurrency;
+
+    @Value("${events.max-attempts:3}")
+    private int maxAttempts;
+
+    @Bean
+    @ConditionalOnMissingBean(EventBus.class)
+    @ConditionalOnProperty(name = "events.transport", havingValue = "kafka", matchIfMissing = true)
+    public EventBus kafkaEventBus(ObjectProvider<KafkaTemplate<String, Object>> kafkaTemplate,
+                                  @Value("${spring.kafka.bootstrap-servers:localhost:9092}") String bootstrapServers,
+                                  @Value("${kafka.codec.registry-path:}") String schemaRegistryPath) {
+        log.info("Event transport: Kafka - Bootstrap servers: {}", bootstrapServers);
+        return new KafkaEventBus(kafkaTemplate.getIfAvailable(), bootstrapServers, schemaRegistryPath, concurrency, maxAttempts);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(EventBus.class)
+    @ConditionalOnProperty(name = "events.transport", havingValue = "redis")
+    public EventBus redisEventBus(ReactiveRedisTemplate<String, Object> redisTemplate, ObjectMapper objectMapper,
+                                  @Value("${events.redis.stream-prefix:events:}") String streamPrefix,
+                                  @Value("${events.redis.consumer-name:${HOSTNAME:local}}") String consumerName,
+                                  @Value("${events.redis.max-length:100000}") long maxLength,
+                                  @Value("${events.redis.batch-size:100}") int batchSize,
+                                  @Value("${events.redis.poll-timeout-ms:1000}") long pollTimeoutMs,
+                                  @Value("${events.redis.claim-idle-ms:60000}") long claimIdleMs) {
+        log.info("Event transport: Redis Streams - Prefix: {}, Consumer: {}, Max length: {}", streamPrefix, consumerName, maxLength);
+        return new RedisStreamsEventBus(redisTemplate, objectMapper, streamPrefix, consumerName, maxLength, batchSize,
+                Duration.ofMillis(pollTimeoutMs), concurrency, maxAttempts, Duration.ofMillis(claimIdleMs));
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(EventBus.class)
+    @ConditionalOnProperty(name = "events.transport", havingValue = "memory")
+    public EventBus inMemoryEventBus(@Value("${events.memory.capacity:65536}") int capacity) {
+        log.info("Event transport: in-memory - Capacity: {}, Concurrency: {}", capacity, concurrency);
+        return new InMemoryEventBus(capacity, concurrency, maxAttempts);
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.common.transport;
+
+/**
+ * טיפול באירועים של topic מתוך ה-{@link EventBus}
+ * שירות רושם handler לכל topic שהוא צורך; ה-handler מפעיל את אותה לוגיקה שה-listener של Kafka מפעיל,
+ * כך שהשירות צורך את האירועים בכל transport
+ *
+ * @param <T> סוג האירוע
+ */
+public interface EventHandler<T> {
+
+    /**
+     * @return ה-topic שה-handler מטפל באירועים שלו
+     */
+    String topic();
+
+    /**
+     * @return סוג האירוע
+     */
+    Class<T> type();
+
+    /**
+     * עיבוד האירוע
+     *
+     * @param key   מפתח האירוע
+     * @param event האירוע
+     * @throws Exception כשל בעיבוד - ה-transport מנסה שוב לפי הגדרותיו
+     */
+    void handle(String key, T event) throws Exception;
+}
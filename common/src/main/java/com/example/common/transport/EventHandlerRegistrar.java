@@ -0,0 +1,55 @@
+package com.example.common.transport;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * רישום ה-{@link EventHandler}-ים של השירות ב-EventBus כשה-transport אינו Kafka
+ * במצב Kafka ה-@KafkaListener-ים של השירות הם נקודת הצריכה, ולכן רכיב זה אינו נוצר
+ */
+@Component
+@ConditionalOnExpression("'${events.transport:kafka}' != 'kafka'")
+@Slf4j
+public class EventHandlerRegistrar implements SmartLifecycle {
+
+    private final EventBus eventBus;
+    private final ObjectProvider<EventHandler<?>> handlers;
+    private final List<EventSubscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    @Value("${events.group:${spring.application.name:app}-group}")
+    private String group;
+
+    private volatile boolean running;
+
+    public EventHandlerRegistrar(EventBus eventBus, ObjectProvider<EventHandler<?>> handlers) {
+        this.eventBus = eventBus;
+        this.handlers = handlers;
+    }
+
+    @Override
+    public void start() {
+        handlers.orderedStream().forEach(handler -> subscriptions.add(eventBus.subscribe(group, handler)));
+        running = true;
+        log.info("Event handlers subscribed - Transport: {}, Group: {}, Topics: {}", eventBus.transport(), group,
+                subscriptions.stream().map(EventSubscription::topic).toList());
+    }
+
+    @Override
+    public void stop() {
+        subscriptions.forEach(EventSubscription::close);
+        subscriptions.clear();
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
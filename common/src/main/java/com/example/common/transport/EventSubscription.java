@@ -0,0 +1,17 @@
+package com.example.common.transport;
+
+/**
+ * רישום פעיל של handler ב-{@link EventBus}
+ */
+public interface EventSubscription {
+
+    String topic();
+
+    String group();
+
+    /**
+     * הפסקת הצריכה
+     * אירועים שכבר נמסרו ל-handler מסתיימים; אירועים שטרם נמסרו נשארים ב-transport (כשהוא שומר אותם)
+     */
+    void close();
+}
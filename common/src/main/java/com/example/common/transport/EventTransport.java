@@ -0,0 +1,22 @@
+package com.example.common.transport;
+
+/**
+ * סוגי ה-transport הנתמכים
+ */
+public enum EventTransport {
+
+    /**
+     * Kafka - ההתנהגות הקיימת, כולל retry topics, DLQ והסגר
+     */
+    KAFKA,
+
+    /**
+     * Redis Streams עם consumer groups - ללא Kafka, על ה-Redis הקיים
+     */
+    REDIS,
+
+    /**
+     * ring buffer בתוך ה-JVM - ללא שמירה וללא תקשורת, לשירותים שרצים באותו תהליך
+     */
+    MEMORY
+}
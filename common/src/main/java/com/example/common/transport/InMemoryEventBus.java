@@ -0,0 +1,234 @@
+package com.example.common.transport;
+
+import com.example.common.concurrent.KeyOrderedExecutor;
+import com.example.common.concurrent.MpscRingBuffer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * EventBus בתוך ה-JVM
+ * לכל group של topic יש ring buffer (MPSC) ותהליכון dispatcher יחיד שמעביר את האירועים
+ * ל-{@link KeyOrderedExecutor}, כך שאירועים עם אותו מפתח מטופלים לפי סדר הפרסום.
+ * האירוע מועבר כאובייקט, ללא סריאליזציה וללא העתקה. אין שמירה: אירוע שמתפרסם כשאין group רשום הולך לאיבוד,
+ * ואירועים שבתור בזמן כיבוי אינם נמסרים. הפרסום אינו חוסם לעולם (הוא נקרא גם מתהליכוני I/O של Reactor):
+ * מקום נשמר מראש בתור של כל group, וכשאחד מהם מלא הפרסום נכשל מיד ואף group אינו מקבל את האירוע
+ */
+@Slf4j
+public class InMemoryEventBus implements EventBus {
+
+    private static final int DRAIN_BATCH = 256;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final int capacity;
+    private final int concurrency;
+    private final int maxAttempts;
+    private final Map<String, List<GroupQueue<?>>> topics = new ConcurrentHashMap<>();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public InMemoryEventBus(int capacity, int concurrency, int maxAttempts) {
+        this.capacity = capacity;
+        this.concurrency = concurrency;
+        this.maxAttempts = maxAttempts;
+    }
+
+    @Override
+    public EventTransport transport() {
+        return EventTransport.MEMORY;
+    }
+
+    @Override
+    public CompletableFuture<Void> publish(String topic, String key, Object event) {
+        List<GroupQueue<?>> groups = List.copyOf(topics.getOrDefault(topic, List.of()));
+        if (groups.isEmpty()) {
+            dropped.incrementAndGet();
+            log.debug("No in-memory subscribers for topic {} - event {} dropped", topic, key);
+            return CompletableFuture.completedFuture(null);
+        }
+        // שמירת מקום בכל ה-groups לפני הכנסה, כך שהאירוע נמסר לכולם או לאף אחד
+        for (int i = 0; i < groups.size(); i++) {
+            GroupQueue<?> group = groups.get(i);
+            if (!group.reserve()) {
+                for (int j = 0; j < i; j++) {
+                    groups.get(j).cancelReservation();
+                }
+                return CompletableFuture.failedFuture(new IllegalStateException(
+                        "In-memory event queue full - Topic: " + topic + ", Group: " + group.group));
+            }
+        }
+        Envelope envelope = new Envelope(key, event);
+        for (GroupQueue<?> group : groups) {
+            group.offer(envelope);
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public <T> EventSubscription subscribe(String group, EventHandler<T> handler) {
+        List<GroupQueue<?>> groups = topics.computeIfAbsent(handler.topic(), topic -> new CopyOnWriteArrayList<>());
+        synchronized (groups) {
+            if (groups.stream().anyMatch(existing -> existing.group.equals(group))) {
+                throw new IllegalStateException("Group " + group + " is already subscribed to " + handler.topic());
+            }
+            GroupQueue<T> queue = new GroupQueue<>(group, handler);
+            groups.add(queue);
+            queue.start();
+            log.info("In-memory event subscription started - Topic: {}, Group: {}, Capacity: {}, Concurrency: {}",
+                    handler.topic(), group, queue.buffer.capacity(), concurrency);
+            return queue;
+        }
+    }
+
+    /**
+     * @return מספר האירועים שפורסמו ל-topic ללא group רשום
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    private record Envelope(String key, Object event) {
+    }
+
+    /**
+     * תור של group אחד: ring buffer, dispatcher והגבלת אירועים בטיפול כך שהתור נשאר חסום.
+     * free סופר את המקומות הפנויים בתור; מקום נשמר לפני הכנסה ומשתחרר כשה-dispatcher מוציא את האירוע,
+     * ולכן הכנסה אחרי שמירה מוצלחת תמיד מצליחה
+     */
+    private final class GroupQueue<T> implements EventSubscription {
+
+        private final String group;
+        private final EventHandler<T> handler;
+        private final MpscRingBuffer<Envelope> buffer;
+        private final KeyOrderedExecutor executor;
+        private final Semaphore inFlight;
+        private final AtomicInteger free;
+        private final Thread dispatcher;
+        private volatile boolean running = true;
+        private volatile boolean idle;
+
+        private GroupQueue(String group, EventHandler<T> handler) {
+            this.group = group;
+            this.handler = handler;
+            this.buffer = new MpscRingBuffer<>(capacity);
+            this.executor = new KeyOrderedExecutor("event-bus-" + handler.topic() + "-" + group, concurrency, concurrency * 16);
+            this.inFlight = new Semaphore(buffer.capacity());
+            this.free = new AtomicInteger(buffer.capacity());
+            this.dispatcher = new Thread(this::dispatch, "event-bus-dispatcher-" + handler.topic() + "-" + group);
+            this.dispatcher.setDaemon(true);
+        }
+
+        private void start() {
+            dispatcher.start();
+        }
+
+        /**
+         * @return true אם נשמר מקום לאירוע אחד בתור, false אם התור מלא או שה-group נסגר
+         */
+        private boolean reserve() {
+            while (running) {
+                int available = free.get();
+                if (available == 0) {
+                    return false;
+                }
+                if (free.compareAndSet(available, available - 1)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void cancelReservation() {
+            free.incrementAndGet();
+        }
+
+        /**
+         * הכנסת אירוע שכבר נשמר לו מקום ב-{@link #reserve()}
+         */
+        private void offer(Envelope envelope) {
+            while (!buffer.offer(envelope)) {
+                // המקום נשמר מראש, כך שהתא כבר פונה על ידי הקורא
+                Thread.onSpinWait();
+            }
+            if (idle) {
+                LockSupport.unpark(dispatcher);
+            }
+        }
+
+        private void dispatch() {
+            while (running) {
+                int drained = buffer.drain(envelope -> {
+                    free.incrementAndGet();
+                    inFlight.acquireUninterruptibly();
+                    executor.execute(envelope.key(), () -> deliver(envelope));
+                }, DRAIN_BATCH);
+                if (drained == 0) {
+                    idle = true;
+                    if (buffer.isEmpty() && running) {
+                        LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    }
+                    idle = false;
+                }
+            }
+        }
+
+        private void deliver(Envelope envelope) {
+            try {
+                T event = handler.type().cast(envelope.event());
+                for (int attempt = 1; ; attempt++) {
+                    try {
+                        handler.handle(envelope.key(), event);
+                        return;
+                    } catch (Exception e) {
+                        if (attempt >= maxAttempts) {
+                            log.error("In-memory event handling failed after {} attempts - Topic: {}, Group: {}, Key: {}, Error: {}",
+                                    attempt, handler.topic(), group, envelope.key(), e.getMessage(), e);
+                            return;
+                        }
+                        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100L * attempt));
+                    }
+                }
+            } catch (ClassCastException e) {
+                log.error("In-memory event of type {} does not match handler type {} - Topic: {}",
+                        envelope.event().getClass().getName(), handler.type().getName(), handler.topic());
+            } finally {
+                inFlight.release();
+            }
+        }
+
+        @Override
+        public String topic() {
+            return handler.topic();
+        }
+
+        @Override
+        public String group() {
+            return group;
+        }
+
+        @Override
+        public void close() {
+            topics.getOrDefault(handler.topic(), List.of()).remove(this);
+            running = false;
+            LockSupport.unpark(dispatcher);
+            try {
+                dispatcher.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            executor.shutdown(TimeUnit.SECONDS.toMillis(10));
+            if (!buffer.isEmpty()) {
+                log.warn("In-memory subscription closed with {} undelivered events - Topic: {}, Group: {}",
+                        buffer.size(), handler.topic(), group);
+            }
+        }
+    }
+}
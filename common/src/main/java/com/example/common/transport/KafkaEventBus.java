@@ -0,0 +1,123 @@
+package com.example.common.transport;
+
+import com.example.common.kafka.codec.EventDeserializer;
+import com.example.common.kafka.codec.EventSerializer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.listener.MessageListener;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.util.backoff.FixedBackOff;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * EventBus מעל Kafka
+ * פרסום דרך ה-KafkaTemplate של השירות (batching, דחיסה וקידוד כפי שהוגדרו בו).
+ * ה-listeners של השירותים (@KafkaListener עם retry topics, DLQ והסגר) נשארים נקודת הצריכה במצב זה;
+ * subscribe יוצר container נפרד לצרכנים נוספים, למשל benchmark
+ */
+@Slf4j
+public class KafkaEventBus implements EventBus {
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final String bootstrapServers;
+    private final String schemaRegistryPath;
+    private final int concurrency;
+    private final int maxAttempts;
+
+    public KafkaEventBus(KafkaTemplate<String, Object> kafkaTemplate, String bootstrapServers, String schemaRegistryPath,
+                         int concurrency, int maxAttempts) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.bootstrapServers = bootstrapServers;
+        this.schemaRegistryPath = schemaRegistryPath;
+        this.concurrency = concurrency;
+        this.maxAttempts = maxAttempts;
+    }
+
+    @Override
+    public EventTransport transport() {
+        return EventTransport.KAFKA;
+    }
+
+    @Override
+    public CompletableFuture<Void> publish(String topic, String key, Object event) {
+        if (kafkaTemplate == null) {
+            // שירות שרק צורך (notification) אינו מגדיר KafkaTemplate<String, Object>
+            return CompletableFuture.failedFuture(new IllegalStateException("No KafkaTemplate configured for publishing"));
+        }
+        return kafkaTemplate.send(topic, key, event).thenApply(result -> null);
+    }
+
+    @Override
+    public CompletableFuture<Void> publish(String topic, String key, Object event, Map<String, byte[]> headers) {
+        if (kafkaTemplate == null) {
+            return CompletableFuture.failedFuture(new IllegalStateException("No KafkaTemplate configured for publishing"));
+        }
+        ProducerRecord<String, Object> record = new ProducerRecord<>(topic, key, event);
+        headers.forEach((name, value) -> record.headers().add(name, value));
+        return kafkaTemplate.send(record).thenApply(result -> null);
+    }
+
+    @Override
+    public <T> EventSubscription subscribe(String group, EventHandler<T> handler) {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, group);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        props.put(EventSerializer.REGISTRY_PATH_CONFIG, schemaRegistryPath);
+        DefaultKafkaConsumerFactory<String, T> consumerFactory = new DefaultKafkaConsumerFactory<>(props,
+                new StringDeserializer(),
+                new ErrorHandlingDeserializer<>(new EventDeserializer<>(new JsonDeserializer<>(handler.type(), false))));
+
+        ContainerProperties containerProperties = new ContainerProperties(handler.topic());
+        containerProperties.setGroupId(group);
+        containerProperties.setMessageListener((MessageListener<String, T>) record -> {
+            if (record.value() == null) {
+                log.warn("Skipping undecodable event - Topic: {}, Offset: {}", record.topic(), record.offset());
+                return;
+            }
+            try {
+                handler.handle(record.key(), record.value());
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException("Event handler failed for topic " + handler.topic(), e);
+            }
+        });
+        ConcurrentMessageListenerContainer<String, T> container =
+                new ConcurrentMessageListenerContainer<>(consumerFactory, containerProperties);
+        container.setConcurrency(concurrency);
+        container.setCommonErrorHandler(new DefaultErrorHandler(new FixedBackOff(1000L, Math.max(0, maxAttempts - 1))));
+        container.setBeanName("event-bus-" + group + "-" + handler.topic());
+        container.start();
+        log.info("Kafka event subscription started - Topic: {}, Group: {}, Concurrency: {}", handler.topic(), group, concurrency);
+
+        return new EventSubscription() {
+
+            @Override
+            public String topic() {
+                return handler.topic();
+            }
+
+            @Override
+            public String group() {
+                return group;
+            }
+
+            @Override
+            public void close() {
+                container.stop();
+            }
+        };
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.common.transport;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveStreamOperations;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * EventBus מעל Redis Streams, על ה-ReactiveRedisTemplate הקיים של השירות
+ * כל topic הוא stream בשם {prefix}{topic}; כל group הוא consumer group של Redis, כך שמופעים של אותו שירות
+ * מתחלקים באירועים וכל שירות מקבל עותק משלו. אירוע מאושר (XACK) רק אחרי שה-handler הצליח;
+ * אחרי max-attempts הוא עובר ל-stream {prefix}{topic}-dlq ומאושר. ה-group נוצר מתחילת ה-stream,
+ * כך שאירועים שפורסמו לפני שהמנוי הראשון עלה אינם מדולגים.
+ * אירועים שנמסרו למופע ולא אושרו (קריסה) נמסרים שוב בהפעלה הבאה של אותו consumer, בדפים עד סוף הרשימה;
+ * אירועים שממתינים יותר מ-claim-idle אצל consumer אחר (מופע שלא חזר, או עלה בשם אחר) נלקחים (XCLAIM) ומטופלים כאן.
+ * ה-handler רץ במקביל לפי מפתח: האירועים מחולקים ל-concurrency נתיבים לפי hash של המפתח וכל נתיב סדרתי
+ */
+@Slf4j
+public class RedisStreamsEventBus implements EventBus {
+
+    private static final String KEY_FIELD = "key";
+    private static final String TYPE_FIELD = "type";
+    private static final String PAYLOAD_FIELD = "payload";
+    private static final String ERROR_FIELD = "error";
+    private static final String DLQ_SUFFIX = "-dlq";
+    private static final long TRIM_EVERY = 1000;
+
+    private final ReactiveRedisTemplate<String, Object> redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final String streamPrefix;
+    private final String consumerName;
+    private final long maxLength;
+    private final int batchSize;
+    private final Duration pollTimeout;
+    private final int concurrency;
+    private final int maxAttempts;
+    private final Duration claimIdle;
+    private final AtomicLong published = new AtomicLong();
+
+    public RedisStreamsEventBus(ReactiveRedisTemplate<String, Object> redisTemplate, ObjectMapper objectMapper,
+                                String streamPrefix, String consumerName, long maxLength, int batchSize,
+                                Duration pollTimeout, int concurrency, int maxAttempts, Duration claimIdle) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.streamPrefix = streamPrefix;
+        this.consumerName = consumerName;
+        this.maxLength = maxLength;
+        this.batchSize = batchSize;
+        this.pollTimeout = pollTimeout;
+        this.concurrency = concurrency;
+        this.maxAttempts = maxAttempts;
+        this.claimIdle = claimIdle;
+    }
+
+    @Override
+    public EventTransport transport() {
+        return EventTransport.REDIS;
+    }
+
+    @Override
+    public CompletableFuture<Void> publish(String topic, String key, Object event) {
+        String stream = streamPrefix + topic;
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Event is not serializable: " + e.getMessage(), e));
+        }
+        MapRecord<String, String, String> record = StreamRecords.newRecord()
+                .in(stream)
+                .ofMap(Map.of(KEY_FIELD, key, TYPE_FIELD, event.getClass().getName(), PAYLOAD_FIELD, payload));
+        return redisTemplate.opsForStream().add(record)
+                .flatMap(id -> published.incrementAndGet() % TRIM_EVERY == 0
+                        // חיתוך משוער (MAXLEN ~) - ה-stream אינו גדל ללא גבול גם כשאין צרכנים
+                        ? redisTemplate.opsForStream().trim(stream, maxLength, true).then()
+                        : Mono.<Void>empty())
+                .toFuture();
+    }
+
+    @Override
+    public <T> EventSubscription subscribe(String group, EventHandler<T> handler) {
+        String stream = streamPrefix + handler.topic();
+        ReactiveStreamOperations<String, Object, Object> streams = redisTemplate.opsForStream();
+        Consumer consumer = Consumer.from(group, group + "-" + consumerName);
+        StreamReadOptions readOptions = StreamReadOptions.empty().count(batchSize).block(pollTimeout);
+
+        Mono<Void> createGroup = streams.createGroup(stream, ReadOffset.from("0"), group)
+                .doOnNext(result -> log.info("Redis stream consumer group created - Stream: {}, Group: {}", stream, group))
+                .onErrorResume(e -> Mono.empty())
+                .then();
+        // קודם האירועים שנמסרו ל-consumer הזה ולא אושרו, אחר כך אירועים חדשים;
+        // במקביל, אירועים תקועים של consumers אחרים
+        Flux<MapRecord<String, Object, Object>> pending = readPending(streams, consumer, stream, "0");
+        Flux<MapRecord<String, Object, Object>> incoming = Flux.defer(() ->
+                streams.read(consumer, readOptions, StreamOffset.create(stream, ReadOffset.lastConsumed())))
+                .repeat();
+        Flux<MapRecord<String, Object, Object>> claimed = Flux.interval(claimIdle, claimIdle)
+                .concatMap(tick -> claimStale(streams, consumer, stream));
+
+        Disposable subscription = createGroup
+                .thenMany(pending.concatWith(incoming).mergeWith(claimed))
+                .groupBy(record -> Math.floorMod(String.valueOf(record.getValue().get(KEY_FIELD)).hashCode(), concurrency))
+                .flatMap(lane -> lane.concatMap(record -> process(stream, group, handler, record)), concurrency)
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30))
+                        .doBeforeRetry(signal -> log.warn("Redis stream subscription failed - Stream: {}, Group: {}, Error: {}",
+                                stream, group, signal.failure().getMessage())))
+                .subscribe();
+        log.info("Redis stream subscription started - Stream: {}, Group: {}, Consumer: {}, Concurrency: {}",
+                stream, group, consumer.getName(), concurrency);
+
+        return new EventSubscription() {
+
+            @Override
+            public String topic() {
+                return handler.topic();
+            }
+
+            @Override
+            public String group() {
+                return group;
+            }
+
+            @Override
+            public void close() {
+                subscription.dispose();
+            }
+        };
+    }
+
+    /**
+     * קריאת האירועים שנמסרו ל-consumer ולא אושרו, דף אחרי דף מהמזהה האחרון שנקרא ועד שהרשימה מתרוקנת
+     */
+    private Flux<MapRecord<String, Object, Object>> readPending(ReactiveStreamOperations<String, Object, Object> streams,
+                                                               Consumer consumer, String stream, String after) {
+        return streams.read(consumer, StreamReadOptions.empty().count(batchSize), StreamOffset.create(stream, ReadOffset.from(after)))
+                .collectList()
+                .flatMapMany(page -> page.isEmpty() ? Flux.empty()
+                        : Flux.fromIterable(page).concatWith(Flux.defer(() ->
+                                readPending(streams, consumer, stream, page.get(page.size() - 1).getId().getValue()))));
+    }
+
+    /**
+     * לקיחת אירועים שממתינים יותר מ-claim-idle אצל consumers אחרים של ה-group
+     * XCLAIM עם min-idle בודק שוב את זמן ההמתנה, כך ששני מופעים אינם לוקחים את אותו אירוע
+     */
+    private Flux<MapRecord<String, Object, Object>> claimStale(ReactiveStreamOperations<String, Object, Object> streams,
+                                                              Consumer consumer, String stream) {
+        return streams.pending(stream, consumer.getGroup(), Range.unbounded(), batchSize)
+                .flatMapMany(messages -> {
+                    RecordId[] ids = messages.stream()
+                            .filter(message -> !message.getConsumerName().equals(consumer.getName()))
+                            .filter(message -> message.getElapsedTimeSinceLastDelivery().compareTo(claimIdle) >= 0)
+                            .map(PendingMessage::getId)
+                            .toArray(RecordId[]::new);
+                    if (ids.length == 0) {
+                        return Flux.empty();
+                    }
+                    log.info("Claiming {} idle Redis stream events - Stream: {}, Group: {}, Consumer: {}",
+                            ids.length, stream, consumer.getGroup(), consumer.getName());
+                    return streams.claim(stream, consumer.getGroup(), consumer.getName(), claimIdle, ids);
+                })
+                .onErrorResume(e -> {
+                    log.warn("Failed to claim idle Redis stream events - Stream: {}, Group: {}: {}",
+                            stream, consumer.getGroup(), e.getMessage());
+                    return Flux.empty();
+                });
+    }
+
+    private <T> Mono<Void> process(String stream, String group, EventHandler<T> handler, MapRecord<String, Object, Object> record) {
+        Map<Object, Object> fields = record.getValue();
+        String key = String.valueOf(fields.get(KEY_FIELD));
+        return Mono.fromCallable(() -> {
+                    T event = objectMapper.readValue(String.valueOf(fields.get(PAYLOAD_FIELD)), handler.type());
+                    handler.handle(key, event);
+                    return true;
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .retryWhen(Retry.backoff(Math.max(0, maxAttempts - 1), Duration.ofMillis(100)))
+                .then(redisTemplate.opsForStream().acknowledge(stream, group, record.getId()))
+                .onErrorResume(e -> {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    log.error("Redis stream event handling failed after {} attempts - Stream: {}, Group: {}, Key: {}, Error: {}",
+                            maxAttempts, stream, group, key, cause.getMessage());
+                    MapRecord<String, Object, Object> deadLetter = StreamRecords.newRecord()
+                            .in(stream + DLQ_SUFFIX)
+                            .ofMap(Map.<Object, Object>of(KEY_FIELD, key,
+                                    TYPE_FIELD, String.valueOf(fields.get(TYPE_FIELD)),
+                                    PAYLOAD_FIELD, String.valueOf(fields.get(PAYLOAD_FIELD)),
+                                    ERROR_FIELD, cause.getClass().getName() + ": " + cause.getMessage()));
+                    return redisTemplate.opsForStream().add(deadLetter)
+                            .then(redisTemplate.opsForStream().acknowledge(stream, group, record.getId()));
+                })
+                .onErrorResume(e -> {
+                    // גם ה-DLQ נכשל - האירוע נשאר pending ויימסר שוב בהפעלה הבאה או ב-claim
+                    log.error("Failed to dead-letter Redis stream event {} - Stream: {}: {}", record.getId(), stream, e.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+}
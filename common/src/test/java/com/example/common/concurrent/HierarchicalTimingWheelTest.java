@@ -0,0 +1,103 @@
+package com.example.common.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * בדיקות גלגל הזמן: פקיעה במועד (לא לפני ולא יותר מ-tick אחרי), מעבר בין רמות וביטול
+ */
+class HierarchicalTimingWheelTest {
+
+    private static final long START = 1_000_000L;
+    private static final long TICK = 10L;
+
+    @Test
+    void expiresOnDeadlineTick() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(TICK, 8, 3, START);
+        wheel.schedule("a", START + 35);
+        List<String> expired = new ArrayList<>();
+
+        assertThat(wheel.advance(START + 39, expired::add)).isZero();
+        assertThat(wheel.advance(START + 40, expired::add)).isEqualTo(1);
+        assertThat(expired).containsExactly("a");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void pastDeadlineExpiresOnNextTick() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(TICK, 8, 3, START);
+        wheel.advance(START + 100, value -> { });
+        wheel.schedule("late", START + 50);
+        List<String> expired = new ArrayList<>();
+
+        wheel.advance(START + 109, expired::add);
+        assertThat(expired).isEmpty();
+        wheel.advance(START + 110, expired::add);
+        assertThat(expired).containsExactly("late");
+    }
+
+    @Test
+    void cascadesAcrossLevelsAndBeyondTopLevelSpan() {
+        // 8 דליים ו-2 רמות מכסים 64 ticks; מועדים רחוקים יותר משובצים מחדש בהגעה אליהם
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(TICK, 8, 2, START);
+        Random random = new Random(42);
+        Map<Long, Long> deadlines = new HashMap<>();
+        for (long id = 0; id < 2_000; id++) {
+            long deadline = START + 1 + random.nextInt(5_000);
+            deadlines.put(id, deadline);
+            wheel.schedule(id, deadline);
+        }
+
+        for (long now = START; wheel.size() > 0; now += 1 + random.nextInt(25)) {
+            long current = now;
+            wheel.advance(current, id -> {
+                long deadline = deadlines.remove(id);
+                assertThat(current).isGreaterThanOrEqualTo(deadline);
+            });
+            long nowTick = Math.floorDiv(current - START, TICK);
+            deadlines.values().forEach(deadline ->
+                    assertThat(Math.floorDiv(deadline - START + TICK - 1, TICK)).isGreaterThan(nowTick));
+        }
+        assertThat(deadlines).isEmpty();
+    }
+
+    @Test
+    void cancelledTimeoutNeverExpires() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(TICK, 8, 3, START);
+        HierarchicalTimingWheel.Timeout<String> cancelled = wheel.schedule("cancelled", START + 500);
+        wheel.schedule("kept", START + 500);
+
+        assertThat(wheel.cancel(cancelled)).isTrue();
+        assertThat(wheel.cancel(cancelled)).isFalse();
+
+        List<String> expired = new ArrayList<>();
+        wheel.advance(START + 1_000, expired::add);
+        assertThat(expired).containsExactly("kept");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void expiredTimeoutCannotBeCancelled() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(TICK, 8, 3, START);
+        HierarchicalTimingWheel.Timeout<String> timeout = wheel.schedule("a", START + 10);
+        wheel.advance(START + 10, value -> { });
+
+        assertThat(wheel.cancel(timeout)).isFalse();
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void rejectsInvalidConfiguration() {
+        assertThatThrownBy(() -> new HierarchicalTimingWheel<>(0, 8, 3, START)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new HierarchicalTimingWheel<>(TICK, 1, 3, START)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new HierarchicalTimingWheel<>(TICK, 1 << 16, 4, START)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.common.concurrent;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * בדיקות ה-executor לפי מפתח: סדר הגשה לכל מפתח, מקביליות בין מפתחות ושינוי גודל בזמן ריצה
+ */
+class KeyOrderedExecutorTest {
+
+    private KeyOrderedExecutor executor;
+
+    @AfterEach
+    void shutdown() {
+        if (executor != null) {
+            executor.shutdown(1_000);
+        }
+    }
+
+    @Test
+    void tasksWithSameKeyRunInSubmissionOrder() throws Exception {
+        executor = new KeyOrderedExecutor("test", 8, 16);
+        int keys = 32;
+        int tasksPerKey = 500;
+        Map<Integer, List<Integer>> executed = new ConcurrentHashMap<>();
+        CountDownLatch done = new CountDownLatch(keys * tasksPerKey);
+
+        for (int sequence = 0; sequence < tasksPerKey; sequence++) {
+            for (int key = 0; key < keys; key++) {
+                int currentKey = key;
+                int currentSequence = sequence;
+                executor.execute("order-" + key, () -> {
+                    executed.computeIfAbsent(currentKey, k -> new CopyOnWriteArrayList<>()).add(currentSequence);
+                    done.countDown();
+                });
+            }
+        }
+
+        assertThat(done.await(30, TimeUnit.SECONDS)).isTrue();
+        for (int key = 0; key < keys; key++) {
+            List<Integer> sequences = executed.get(key);
+            assertThat(sequences).hasSize(tasksPerKey);
+            for (int i = 0; i < tasksPerKey; i++) {
+                assertThat(sequences.get(i)).isEqualTo(i);
+            }
+        }
+        assertThat(executor.getCompletedTaskCount()).isEqualTo((long) keys * tasksPerKey);
+    }
+
+    @Test
+    void differentKeysRunInParallel() throws Exception {
+        executor = new KeyOrderedExecutor("test", 2, 4);
+        CountDownLatch bothRunning = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // המפתחות 0 ו-1 ממופים ל-lanes שונים
+        for (int key = 0; key < 2; key++) {
+            executor.execute(key, () -> {
+                bothRunning.countDown();
+                await(release);
+            });
+        }
+
+        try {
+            assertThat(bothRunning.await(5, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void failingTaskDoesNotStopItsLane() throws Exception {
+        executor = new KeyOrderedExecutor("test", 2, 4);
+        CountDownLatch next = new CountDownLatch(1);
+
+        executor.execute("key", () -> {
+            throw new IllegalStateException("boom");
+        });
+        executor.execute("key", next::countDown);
+
+        assertThat(next.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void resizeKeepsPerKeyOrder() throws Exception {
+        executor = new KeyOrderedExecutor("test", 2, 8);
+        List<Integer> executed = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(2_000);
+
+        for (int i = 0; i < 2_000; i++) {
+            int sequence = i;
+            executor.execute("key", () -> {
+                executed.add(sequence);
+                done.countDown();
+            });
+            if (i == 500) {
+                executor.setConcurrency(6);
+            } else if (i == 1_500) {
+                executor.setConcurrency(1);
+            }
+        }
+
+        assertThat(done.await(30, TimeUnit.SECONDS)).isTrue();
+        assertThat(executor.getConcurrency()).isEqualTo(1);
+        for (int i = 0; i < executed.size(); i++) {
+            assertThat(executed.get(i)).isEqualTo(i);
+        }
+    }
+
+    @Test
+    void shutdownWaitsForQueuedTasks() {
+        executor = new KeyOrderedExecutor("test", 1, 1);
+        AtomicInteger completed = new AtomicInteger();
+        for (int i = 0; i < 100; i++) {
+            executor.execute(i, completed::incrementAndGet);
+        }
+
+        executor.shutdown(5_000);
+
+        assertThat(completed.get()).isEqualTo(100);
+        assertThat(executor.getQueuedTaskCount()).isZero();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
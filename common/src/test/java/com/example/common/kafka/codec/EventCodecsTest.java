@@ -0,0 +1,213 @@
+package com.example.common.kafka.codec;
+
+import com.example.common.enums.Category;
+import com.example.common.enums.OrderStatus;
+import com.example.common.events.InventoryCheckResultEvent;
+import com.example.common.events.OrderCreatedEvent;
+import com.example.common.events.OrderStatusChangedEvent;
+import com.example.common.models.OrderItem;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * בדיקות הקידוד הבינארי: round-trip, דילוג על שדות לא מוכרים וזיהוי הפורמט
+ */
+class EventCodecsTest {
+
+    private static final LocalDateTime REQUEST_TIME = LocalDateTime.of(2024, 3, 1, 10, 15, 30, 123_456_789);
+    private static final LocalDateTime EVENT_TIME = LocalDateTime.of(2024, 3, 1, 10, 15, 31);
+
+    @Test
+    void orderCreatedEventRoundTrip() {
+        OrderCreatedEvent event = orderCreatedEvent();
+
+        Object decoded = EventCodecs.decode(encode(event), null);
+
+        assertThat(decoded).isEqualTo(event);
+    }
+
+    @Test
+    void inventoryCheckResultEventRoundTrip() {
+        InventoryCheckResultEvent event = new InventoryCheckResultEvent("ORD-1", false,
+                List.of("P1001", "P1002"), "Insufficient stock", EVENT_TIME, "ישראל ישראלי");
+
+        Object decoded = EventCodecs.decode(encode(event), null);
+
+        assertThat(decoded).isEqualTo(event);
+    }
+
+    @Test
+    void orderStatusChangedEventRoundTrip() {
+        OrderStatusChangedEvent event = new OrderStatusChangedEvent("ORD-1", OrderStatus.PENDING,
+                OrderStatus.APPROVED, EVENT_TIME);
+
+        Object decoded = EventCodecs.decode(encode(event), null);
+
+        assertThat(decoded).isEqualTo(event);
+    }
+
+    @Test
+    void missingFieldsDecodeToDefaults() {
+        OrderCreatedEvent event = new OrderCreatedEvent();
+        event.setOrderId("ORD-1");
+        event.setItems(List.of(new OrderItem("P1001", 0, null)));
+
+        OrderCreatedEvent decoded = (OrderCreatedEvent) EventCodecs.decode(encode(event), null);
+
+        assertThat(decoded.getOrderId()).isEqualTo("ORD-1");
+        assertThat(decoded.getCustomerName()).isNull();
+        assertThat(decoded.getRequestDateTime()).isNull();
+        assertThat(decoded.getItems()).containsExactly(new OrderItem("P1001", 0, null));
+    }
+
+    @Test
+    void nullItemKeepsItsPosition() {
+        OrderCreatedEvent event = orderCreatedEvent();
+        event.setItems(Arrays.asList(new OrderItem("P1001", 2, Category.STANDARD), null));
+
+        OrderCreatedEvent decoded = (OrderCreatedEvent) EventCodecs.decode(encode(event), null);
+
+        assertThat(decoded.getItems()).hasSize(2);
+        assertThat(decoded.getItems().get(1)).isNull();
+    }
+
+    @Test
+    void nullAndEmptyItemsRoundTripDistinctly() {
+        OrderCreatedEvent event = orderCreatedEvent();
+        event.setItems(Arrays.asList(null, new OrderItem(), new OrderItem("P1001", 2, Category.STANDARD), null));
+
+        OrderCreatedEvent decoded = (OrderCreatedEvent) EventCodecs.decode(encode(event), null);
+
+        assertThat(decoded.getItems()).containsExactly(null, new OrderItem(), new OrderItem("P1001", 2, Category.STANDARD), null);
+    }
+
+    @Test
+    void unknownFieldsFromNewerProducerAreSkipped() {
+        OrderCreatedEvent event = orderCreatedEvent();
+
+        // producer בגרסה חדשה יותר: שדה varint, מחרוזת והודעה מקוננת שה-consumer אינו מכיר,
+        // ופריט עם שדה נוסף
+        BinaryWriter writer = new BinaryWriter();
+        writer.writeRawByte(EventCodecs.MAGIC);
+        writer.writeRawVarint(OrderCreatedEventCodec.SCHEMA_ID);
+        writer.writeInt(90, 42);
+        writer.writeString(OrderCreatedEventCodec.ORDER_ID, event.getOrderId());
+        writer.writeString(91, "future value");
+        writer.writeString(OrderCreatedEventCodec.CUSTOMER_NAME, event.getCustomerName());
+        for (OrderItem item : event.getItems()) {
+            writer.writeMessage(OrderCreatedEventCodec.ITEMS, nested -> {
+                OrderCreatedEventCodec.encodeItem(item, nested);
+                nested.writeString(20, "warehouse-7");
+            });
+        }
+        writer.writeMessage(92, nested -> nested.writeInt(1, 7));
+        writer.writeString(OrderCreatedEventCodec.REQUEST_ID, event.getRequestId());
+        writer.writeDateTime(OrderCreatedEventCodec.REQUEST_DATE_TIME, event.getRequestDateTime());
+        writer.writeDateTime(OrderCreatedEventCodec.EVENT_DATE_TIME, event.getEventDateTime());
+        writer.writeBoolean(93, true);
+
+        Object decoded = EventCodecs.decode(writer.toByteArray(), null);
+
+        assertThat(decoded).isEqualTo(event);
+    }
+
+    @Test
+    void olderProducerWithoutNewFieldsDecodes() {
+        // producer בגרסה ישנה שלא כתב את customerName
+        BinaryWriter writer = new BinaryWriter();
+        writer.writeRawByte(EventCodecs.MAGIC);
+        writer.writeRawVarint(InventoryCheckResultEventCodec.SCHEMA_ID);
+        writer.writeString(InventoryCheckResultEventCodec.ORDER_ID, "ORD-1");
+        writer.writeBoolean(InventoryCheckResultEventCodec.APPROVED, true);
+
+        InventoryCheckResultEvent decoded = (InventoryCheckResultEvent) EventCodecs.decode(writer.toByteArray(), null);
+
+        assertThat(decoded.getOrderId()).isEqualTo("ORD-1");
+        assertThat(decoded.isApproved()).isTrue();
+        assertThat(decoded.getCustomerName()).isNull();
+        assertThat(decoded.getUnavailableItems()).isEmpty();
+    }
+
+    @Test
+    void negativeAndLargeIntegersRoundTrip() {
+        for (long value : new long[]{-1L, Integer.MIN_VALUE, Integer.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE}) {
+            BinaryWriter writer = new BinaryWriter();
+            writer.writeInt(1, value);
+
+            BinaryReader reader = new BinaryReader(writer.toByteArray());
+            reader.readTag();
+
+            assertThat(reader.readLong()).isEqualTo(value);
+            assertThat(reader.hasRemaining()).isFalse();
+        }
+    }
+
+    @Test
+    void binaryRecordsAreDetectedByMagicByte() {
+        byte[] binary = encode(orderCreatedEvent());
+        byte[] json = "{\"orderId\":\"ORD-1\"}".getBytes(StandardCharsets.UTF_8);
+
+        assertThat(EventCodecs.isBinary(binary)).isTrue();
+        assertThat(EventCodecs.isBinary(json)).isFalse();
+        assertThat(EventCodecs.isBinary(new byte[0])).isFalse();
+        assertThat(EventCodecs.isBinary(null)).isFalse();
+        assertThat(EventCodecs.schemaId(binary)).isEqualTo(OrderCreatedEventCodec.SCHEMA_ID);
+    }
+
+    @Test
+    void unknownSchemaIdIsRejected() {
+        BinaryWriter writer = new BinaryWriter();
+        writer.writeRawByte(EventCodecs.MAGIC);
+        writer.writeRawVarint(999);
+
+        assertThatThrownBy(() -> EventCodecs.decode(writer.toByteArray(), null))
+                .isInstanceOf(EventCodecException.class)
+                .hasMessageContaining("999");
+    }
+
+    @Test
+    void truncatedRecordIsRejected() {
+        byte[] encoded = encode(orderCreatedEvent());
+        byte[] truncated = Arrays.copyOf(encoded, encoded.length - 3);
+
+        assertThatThrownBy(() -> EventCodecs.decode(truncated, null))
+                .isInstanceOf(EventCodecException.class);
+    }
+
+    @Test
+    void unknownEnumValueIsRejected() {
+        BinaryWriter writer = new BinaryWriter();
+        writer.writeRawByte(EventCodecs.MAGIC);
+        writer.writeRawVarint(OrderStatusChangedEventCodec.SCHEMA_ID);
+        writer.writeString(OrderStatusChangedEventCodec.STATUS, "ARCHIVED");
+
+        assertThatThrownBy(() -> EventCodecs.decode(writer.toByteArray(), null))
+                .isInstanceOf(EventCodecException.class)
+                .hasMessageContaining("ARCHIVED");
+    }
+
+    @Test
+    void everyCodecHasDistinctSchemaId() {
+        assertThat(EventCodecs.schemas()).extracting(EventSchema::id).doesNotHaveDuplicates();
+        assertThat(EventCodecs.forType(OrderCreatedEvent.class)).isInstanceOf(OrderCreatedEventCodec.class);
+        assertThat(EventCodecs.forType(String.class)).isNull();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> byte[] encode(T event) {
+        return EventCodecs.encode((EventCodec<T>) EventCodecs.forType(event.getClass()), event);
+    }
+
+    private static OrderCreatedEvent orderCreatedEvent() {
+        return new OrderCreatedEvent("ORD-1", "ישראל ישראלי",
+                List.of(new OrderItem("P1001", 2, Category.STANDARD), new OrderItem("P2002", 1, Category.PERISHABLE)),
+                "REQ-1", REQUEST_TIME, EVENT_TIME);
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.common.kafka.codec;
+
+import com.example.common.enums.OrderStatus;
+import com.example.common.events.OrderStatusChangedEvent;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * בדיקות המעבר ההדרגתי בין JSON לפורמט הבינארי: ה-serializer מסמן כל רשומה
+ * וה-deserializer קורא את שני הפורמטים לפי בית ה-magic, גם ללא headers
+ */
+class EventSerializerTest {
+
+    private static final String TOPIC = "order-status-changed";
+
+    private final OrderStatusChangedEvent event = new OrderStatusChangedEvent("ORD-1", OrderStatus.PENDING,
+            OrderStatus.CONFIRMED, LocalDateTime.of(2024, 3, 1, 10, 15, 30));
+
+    @Test
+    void binaryFormatWritesBinaryRecordWithHeaders() {
+        Headers headers = new RecordHeaders();
+
+        byte[] data = serializer("binary").serialize(TOPIC, headers, event);
+
+        assertThat(EventCodecs.isBinary(data)).isTrue();
+        assertThat(header(headers, EventCodecs.CONTENT_TYPE_HEADER)).isEqualTo(EventCodecs.CONTENT_TYPE_BINARY);
+        assertThat(header(headers, EventCodecs.SCHEMA_ID_HEADER))
+                .isEqualTo(String.valueOf(OrderStatusChangedEventCodec.SCHEMA_ID));
+    }
+
+    @Test
+    void jsonFormatWritesJsonRecord() {
+        Headers headers = new RecordHeaders();
+
+        byte[] data = serializer("json").serialize(TOPIC, headers, event);
+
+        assertThat(EventCodecs.isBinary(data)).isFalse();
+        assertThat(data[0]).isEqualTo((byte) '{');
+        assertThat(header(headers, EventCodecs.CONTENT_TYPE_HEADER)).isEqualTo(EventCodecs.CONTENT_TYPE_JSON);
+        assertThat(headers.lastHeader(EventCodecs.SCHEMA_ID_HEADER)).isNull();
+    }
+
+    @Test
+    void republishedRecordReplacesFormatHeaders() {
+        Headers headers = new RecordHeaders();
+        serializer("binary").serialize(TOPIC, headers, event);
+
+        serializer("json").serialize(TOPIC, headers, event);
+
+        assertThat(headers.headers(EventCodecs.CONTENT_TYPE_HEADER)).hasSize(1);
+        assertThat(header(headers, EventCodecs.CONTENT_TYPE_HEADER)).isEqualTo(EventCodecs.CONTENT_TYPE_JSON);
+        assertThat(headers.lastHeader(EventCodecs.SCHEMA_ID_HEADER)).isNull();
+    }
+
+    @Test
+    void deserializerReadsBothFormats() {
+        EventDeserializer<OrderStatusChangedEvent> deserializer =
+                new EventDeserializer<>(new JsonDeserializer<>(OrderStatusChangedEvent.class, false));
+
+        byte[] binary = serializer("binary").serialize(TOPIC, new RecordHeaders(), event);
+        byte[] json = serializer("json").serialize(TOPIC, new RecordHeaders(), event);
+
+        assertThat(deserializer.deserialize(TOPIC, new RecordHeaders(), binary)).isEqualTo(event);
+        assertThat(deserializer.deserialize(TOPIC, new RecordHeaders(), json)).isEqualTo(event);
+        // רשומה ללא headers (כלי חיצוני) מזוהה לפי התוכן בלבד
+        assertThat(deserializer.deserialize(TOPIC, binary)).isEqualTo(event);
+    }
+
+    @Test
+    void typesWithoutCodecFallBackToJson() {
+        byte[] data = serializer("binary").serialize(TOPIC, new RecordHeaders(), Map.of("orderId", "ORD-1"));
+
+        assertThat(EventCodecs.isBinary(data)).isFalse();
+    }
+
+    private static EventSerializer serializer(String format) {
+        EventSerializer serializer = new EventSerializer();
+        serializer.configure(Map.of(EventSerializer.FORMAT_CONFIG, format), false);
+        return serializer;
+    }
+
+    private static String header(Headers headers, String name) {
+        return new String(headers.lastHeader(name).value(), StandardCharsets.UTF_8);
+    }
+}
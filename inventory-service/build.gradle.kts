@@ -1,4 +1,6 @@
 dependencies {
     implementation(project(":common"))
     implementation("org.springframework.boot:spring-boot-starter-aop")
+    // registry ל-/actuator/prometheus - מדדי מחזור החיים של ההזמנות עם histogram buckets
+    runtimeOnly("io.micrometer:micrometer-registry-prometheus")
 } 
\ No newline at end of file
@@ -0,0 +1,130 @@
+package com.example.inventoryservice.benchmark;
+
+import com.example.common.enums.Category;
+import com.example.common.events.OrderCreatedEvent;
+import com.example.common.models.OrderItem;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * מדידת תפוקה של מצב העיבוד הפעיל
+ * שולח N אירועי order-created ומודד את הזמן עד שכל תוצאות inventory-check-result
+ * נראות לצרכן read_committed. הרצה עם inventory.processing.mode שונה בכל פעם
+ * (single / batch / transactional) מאפשרת השוואה בין המצבים על אותה סביבה
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.benchmark.enabled", havingValue = "true")
+@Slf4j
+public class ProcessingModeBenchmark implements ApplicationRunner {
+
+    private static final String ORDER_CREATED_TOPIC = "order-created";
+    private static final String INVENTORY_CHECK_RESULT_TOPIC = "inventory-check-result";
+
+    @Value("${spring.kafka.bootstrap-servers:localhost:9092}")
+    private String bootstrapServers;
+
+    @Value("${inventory.processing.mode:single}")
+    private String processingMode;
+
+    @Value("${inventory.benchmark.events:10000}")
+    private int eventCount;
+
+    @Value("${inventory.benchmark.product-id:BENCH-1}")
+    private String productId;
+
+    @Value("${inventory.benchmark.category:DIGITAL}")
+    private Category category;
+
+    @Value("${inventory.benchmark.timeout-ms:120000}")
+    private long timeoutMs;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        String runId = "bench-" + UUID.randomUUID().toString().substring(0, 8) + "-";
+        log.info("=== PROCESSING MODE BENCHMARK STARTED === Mode: {}, Events: {}, Run: {}", processingMode, eventCount, runId);
+
+        try (KafkaConsumer<String, String> consumer = createResultConsumer();
+             KafkaProducer<String, Object> producer = createProducer()) {
+            consumer.subscribe(List.of(INVENTORY_CHECK_RESULT_TOPIC));
+            while (consumer.assignment().isEmpty()) {
+                consumer.poll(Duration.ofMillis(100));
+            }
+            consumer.seekToEnd(consumer.assignment());
+            consumer.assignment().forEach(consumer::position);
+
+            long startNanos = System.nanoTime();
+            for (int i = 0; i < eventCount; i++) {
+                String orderId = runId + i;
+                OrderCreatedEvent event = new OrderCreatedEvent(orderId, "benchmark",
+                        List.of(new OrderItem(productId, 1, category)), orderId, LocalDateTime.now(), LocalDateTime.now());
+                producer.send(new ProducerRecord<>(ORDER_CREATED_TOPIC, orderId, event));
+            }
+            producer.flush();
+            long sentNanos = System.nanoTime();
+
+            Set<String> received = new HashSet<>(eventCount * 2);
+            long deadline = startNanos + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+            while (received.size() < eventCount && System.nanoTime() < deadline) {
+                for (ConsumerRecord<String, String> record : consumer.poll(Duration.ofMillis(200))) {
+                    if (record.key() != null && record.key().startsWith(runId)) {
+                        received.add(record.key());
+                    }
+                }
+            }
+
+            long elapsedNanos = System.nanoTime() - startNanos;
+            double seconds = elapsedNanos / 1_000_000_000.0;
+            log.info("=== PROCESSING MODE BENCHMARK COMPLETED === Mode: {}, Sent: {}, Results: {}, Send time: {} ms, "
+                            + "Total time: {} ms, Throughput: {} orders/s",
+                    processingMode, eventCount, received.size(),
+                    TimeUnit.NANOSECONDS.toMillis(sentNanos - startNanos),
+                    TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                    String.format("%.1f", received.size() / seconds));
+            if (received.size() < eventCount) {
+                log.warn("Benchmark timed out after {} ms - {} results missing", timeoutMs, eventCount - received.size());
+            }
+        } catch (Exception e) {
+            log.error("Processing mode benchmark failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private KafkaProducer<String, Object> createProducer() {
+        return new KafkaProducer<>(Map.of(
+                ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers,
+                ProducerConfig.LINGER_MS_CONFIG, 5,
+                ProducerConfig.ACKS_CONFIG, "all"
+        ), new StringSerializer(), new JsonSerializer<>());
+    }
+
+    private KafkaConsumer<String, String> createResultConsumer() {
+        return new KafkaConsumer<>(Map.of(
+                ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers,
+                ConsumerConfig.GROUP_ID_CONFIG, "inventory-benchmark-" + UUID.randomUUID(),
+                ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed",
+                ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest",
+                ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false
+        ), new StringDeserializer(), new StringDeserializer());
+    }
+}
@@ -2,21 +2,34 @@ package com.example.inventoryservice.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.example.common.kafka.codec.EventDeserializer;
+import com.example.common.kafka.codec.EventSerializer;
+import com.example.common.kafka.parallel.ParallelConsumerConfigurer;
+import com.example.common.kafka.producer.ProducerBatchingController;
+import com.example.common.kafka.quarantine.QuarantineService;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.*;
 import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
-import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.kafka.transaction.KafkaTransactionManager;
 
+import org.springframework.util.backoff.FixedBackOff;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -35,6 +48,24 @@ public class KafkaConfig {
     @Value("${spring.kafka.consumer.group-id:inventory-service-group}")
     private String groupId;
 
+    @Value("${inventory.batch.max-poll-records:500}")
+    private int batchMaxPollRecords;
+
+    @Value("${inventory.processing.mode:single}")
+    private String processingMode;
+
+    @Value("${inventory.transactions.id-prefix:inventory-tx-}")
+    private String transactionIdPrefix;
+
+    @Value("${inventory.transactions.instance-id:}")
+    private String instanceId;
+
+    @Value("${kafka.codec.format:json}")
+    private String codecFormat;
+
+    @Value("${kafka.codec.registry-path:}")
+    private String schemaRegistryPath;
+
     /**
      * יצירת factory עבור Kafka consumers
      * מכיל את כל הגדרות החיבור והסדרן
@@ -43,18 +74,63 @@ public class KafkaConfig {
      */
     @Bean
     public ConsumerFactory<String, Object> consumerFactory() {
+        Map<String, Object> props = consumerProps();
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, true);
+        props.put(ConsumerConfig.AUTO_COMMIT_INTERVAL_MS_CONFIG, 1000);
+        log.info("Kafka consumer configured - Bootstrap servers: {}, Group ID: {}", bootstrapServers, groupId);
+        return new DefaultKafkaConsumerFactory<>(props);
+    }
+
+    /**
+     * יצירת factory עבור Kafka consumers במצב באץ'
+     * ללא auto commit - ה-offsets נשמרים רק לאחר שהבאץ' עובד ופורסם
+     *
+     * @return ConsumerFactory instance
+     */
+    @Bean
+    public ConsumerFactory<String, Object> batchConsumerFactory() {
+        Map<String, Object> props = consumerProps();
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, batchMaxPollRecords);
+        if (isTransactional()) {
+            props.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
+        }
+        log.info("Kafka batch consumer configured - Bootstrap servers: {}, Group ID: {}, Max poll records: {}",
+                bootstrapServers, groupId, batchMaxPollRecords);
+        return new DefaultKafkaConsumerFactory<>(props);
+    }
+
+    /**
+     * יצירת factory עבור consumers של אירועי שינוי סטטוס הזמנה
+     *
+     * @return ConsumerFactory instance
+     */
+    @Bean
+    public ConsumerFactory<String, Object> orderStatusConsumerFactory() {
+        Map<String, Object> props = consumerProps();
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, true);
+        props.put(JsonDeserializer.VALUE_DEFAULT_TYPE, "com.example.common.events.OrderStatusChangedEvent");
+        return new DefaultKafkaConsumerFactory<>(props);
+    }
+
+    /**
+     * הגדרות בסיס משותפות לכל ה-consumers
+     *
+     * @return מפת הגדרות
+     */
+    private Map<String, Object> consumerProps() {
         Map<String, Object> props = new HashMap<>();
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
+        // JSON ובינארי נקראים שניהם - הפורמט מזוהה לכל רשומה
+        props.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, EventDeserializer.class);
+        props.put(EventSerializer.REGISTRY_PATH_CONFIG, schemaRegistryPath);
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
-        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, true);
-        props.put(ConsumerConfig.AUTO_COMMIT_INTERVAL_MS_CONFIG, 1000);
         props.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
         props.put(JsonDeserializer.VALUE_DEFAULT_TYPE, "com.example.common.events.OrderCreatedEvent");
-        log.info("Kafka consumer configured - Bootstrap servers: {}, Group ID: {}", bootstrapServers, groupId);
-        return new DefaultKafkaConsumerFactory<>(props);
+        return props;
     }
 
     /**
@@ -64,16 +140,99 @@ public class KafkaConfig {
      * @return ConcurrentKafkaListenerContainerFactory instance
      */
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, Object> kafkaListenerContainerFactory() {
+    public ConcurrentKafkaListenerContainerFactory<String, Object> kafkaListenerContainerFactory(
+            ParallelConsumerConfigurer parallelConsumerConfigurer, QuarantineService quarantineService) {
         ConcurrentKafkaListenerContainerFactory<String, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory());
         factory.setConcurrency(3);
         factory.setAutoStartup(true);
         factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        parallelConsumerConfigurer.configure(factory);
+        quarantineService.configure(factory);
         log.info("Kafka listener container factory configured with concurrency: 3");
         return factory;
     }
 
+    /**
+     * יצירת listener container factory עבור מאזיני באץ'
+     * כל poll מועבר למאזין כרשימה אחת וה-offsets נשמרים בסוף הבאץ'.
+     * במצב transactional כל poll רץ בטרנזקציית Kafka אחת: התוצאות וה-offsets
+     * נשמרים יחד או לא נשמרים כלל
+     *
+     * @param kafkaTransactionManager מנהל הטרנזקציות - קיים רק במצב transactional
+     * @return ConcurrentKafkaListenerContainerFactory instance
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Object> batchKafkaListenerContainerFactory(
+            ObjectProvider<KafkaTransactionManager<String, Object>> kafkaTransactionManager) {
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(batchConsumerFactory());
+        factory.setConcurrency(3);
+        factory.setAutoStartup(true);
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        factory.setCommonErrorHandler(new DefaultErrorHandler(new FixedBackOff(1000L, 2L)));
+        KafkaTransactionManager<String, Object> transactionManager = kafkaTransactionManager.getIfAvailable();
+        if (transactionManager != null) {
+            factory.getContainerProperties().setTransactionManager(transactionManager);
+        }
+        log.info("Kafka batch listener container factory configured with concurrency: 3, Transactional: {}", isTransactional());
+        return factory;
+    }
+
+    /**
+     * מנהל טרנזקציות Kafka עבור מצב transactional
+     *
+     * @return KafkaTransactionManager instance
+     */
+    @Bean
+    @ConditionalOnProperty(name = "inventory.processing.mode", havingValue = "transactional")
+    public KafkaTransactionManager<String, Object> kafkaTransactionManager(ProducerFactory<String, Object> producerFactory) {
+        return new KafkaTransactionManager<>(producerFactory);
+    }
+
+    /**
+     * מזהה המופע ל-transactional.id - inventory.transactions.instance-id, או שם המכונה כשלא הוגדר
+     *
+     * @return מזהה קבוע של המופע
+     */
+    private String instanceId() {
+        if (!instanceId.isBlank()) {
+            return instanceId;
+        }
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            throw new IllegalStateException("Cannot resolve the host name - set inventory.transactions.instance-id", e);
+        }
+    }
+
+    /**
+     * האם השירות רץ במצב עיבוד טרנזקציוני
+     *
+     * @return true אם inventory.processing.mode=transactional
+     */
+    private boolean isTransactional() {
+        return "transactional".equalsIgnoreCase(processingMode);
+    }
+
+    /**
+     * יצירת listener container factory עבור אירועי שינוי סטטוס הזמנה
+     *
+     * @return ConcurrentKafkaListenerContainerFactory instance
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Object> orderStatusKafkaListenerContainerFactory(QuarantineService quarantineService) {
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(orderStatusConsumerFactory());
+        factory.setConcurrency(1);
+        factory.setAutoStartup(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        quarantineService.configure(factory);
+        log.info("Kafka order status listener container factory configured with concurrency: 1");
+        return factory;
+    }
+
     /**
      * יצירת factory עבור Kafka producers
      * מכיל את כל הגדרות החיבור והסדרן
@@ -81,16 +240,25 @@ public class KafkaConfig {
      * @return ProducerFactory instance
      */
     @Bean
-    public ProducerFactory<String, Object> producerFactory() {
+    public ProducerFactory<String, Object> producerFactory(ProducerBatchingController producerBatchingController) {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, EventSerializer.class);
+        configProps.put(EventSerializer.FORMAT_CONFIG, codecFormat);
+        configProps.put(EventSerializer.REGISTRY_PATH_CONFIG, schemaRegistryPath);
         configProps.put(ProducerConfig.ACKS_CONFIG, "all");
         configProps.put(ProducerConfig.RETRIES_CONFIG, 3);
 
-        log.info("Kafka producer configured - Bootstrap servers: {}", bootstrapServers);
-        return new DefaultKafkaProducerFactory<>(configProps);
+        DefaultKafkaProducerFactory<String, Object> factory = new DefaultKafkaProducerFactory<>(configProps);
+        if (isTransactional()) {
+            // prefix קבוע לכל מופע: ייחודי בין מופעים שרצים יחד, וזהה אחרי הפעלה מחדש -
+            // ה-producer החדש גודר (fence) את הטרנזקציות הפתוחות שהמופע הקודם השאיר
+            factory.setTransactionIdPrefix(transactionIdPrefix + instanceId() + "-");
+        }
+        log.info("Kafka producer configured - Bootstrap servers: {}, Transactional: {}", bootstrapServers, isTransactional());
+        // linger.ms, batch.size ו-compression.type נקבעים על ידי בקר ה-batching לפי קצב השליחה
+        return producerBatchingController.configure("inventory-service", factory);
     }
 
     /**
@@ -100,8 +268,10 @@ public class KafkaConfig {
      * @return KafkaTemplate instance
      */
     @Bean
-    public KafkaTemplate<String, Object> kafkaTemplate() {
-        KafkaTemplate<String, Object> template = new KafkaTemplate<>(producerFactory());
+    public KafkaTemplate<String, Object> kafkaTemplate(ProducerFactory<String, Object> producerFactory) {
+        KafkaTemplate<String, Object> template = new KafkaTemplate<>(producerFactory);
+        // במצב transactional שליחות מחוץ לטרנזקציה (למשל ממאזינים אחרים) עדיין מותרות
+        template.setAllowNonTransactional(true);
         ObjectMapper objectMapper = new ObjectMapper();
         objectMapper.registerModule(new JavaTimeModule());
         log.info("KafkaTemplate configured successfully");
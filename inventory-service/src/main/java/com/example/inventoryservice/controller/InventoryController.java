@@ -0,0 +1,127 @@
+package com.example.inventoryservice.controller;
+
+import com.example.common.models.OrderItem;
+import com.example.inventoryservice.reservation.ReservationHoldManager;
+import com.example.inventoryservice.service.InventoryService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * REST Controller לשאילתות מלאי
+ * כל הקריאות מוגשות מהמלאי שבזיכרון, ללא Kafka וללא שמירת מלאי
+ */
+@RestController
+@RequestMapping("/api/v1/inventory")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "inventory", description = "API לשאילתות מלאי ובדיקת זמינות")
+public class InventoryController {
+
+    private final InventoryService inventoryService;
+    private final ReservationHoldManager reservationHoldManager;
+
+    /**
+     * שליפת מצב המלאי של מוצר
+     * @param productId מזהה המוצר
+     * @return פרטי המלאי לפי קטגוריה
+     */
+    @GetMapping("/{productId}")
+    @Operation(summary = "שליפת מלאי מוצר", description = "מחזיר את מצב המלאי של מוצר לפי קטגוריה, ללא שינוי המלאי")
+    public Mono<ResponseEntity<Map<String, Object>>> getProductInventory(@Parameter(description = "מזהה המוצר") @PathVariable String productId) {
+        return Mono.fromCallable(() -> {
+            Map<String, Object> categories = inventoryService.getProductInventory(productId);
+            if (categories.isEmpty()) {
+                log.debug("No inventory information found for product: {}", productId);
+                return ResponseEntity.notFound().<Map<String, Object>>build();
+            }
+            return ResponseEntity.ok(Map.<String, Object>of(
+                    "productId", productId,
+                    "categories", categories,
+                    "timestamp", LocalDateTime.now()
+            ));
+        })
+        .onErrorResume(error -> {
+            log.error("Error retrieving inventory for product {}: {}", productId, error.getMessage());
+            return Mono.just(ResponseEntity.status(errorStatus(error)).build());
+        });
+    }
+
+    /**
+     * בדיקת זמינות מרוכזת לרשימת פריטים (dry-run)
+     * @param items הפריטים לבדיקה
+     * @return תוצאת הזמינות לכל פריט ותוצאה כוללת
+     */
+    @PostMapping("/availability")
+    @Operation(summary = "בדיקת זמינות מרוכזת", description = "בודק זמינות לרשימת פריטים ללא שמירת מלאי")
+    public Mono<ResponseEntity<Map<String, Object>>> checkAvailability(@RequestBody List<OrderItem> items) {
+        return Mono.fromCallable(() -> ResponseEntity.ok(inventoryService.checkAvailability(items)))
+            .onErrorResume(error -> {
+                log.error("Error checking availability: {}", error.getMessage());
+                return Mono.just(ResponseEntity.status(errorStatus(error)).build());
+            });
+    }
+
+    /**
+     * מצב שמירות המלאי
+     * @return מספר השמירות הפתוחות, המלאי השמור והמלאי הפנוי
+     */
+    @GetMapping("/holds")
+    @Operation(summary = "מצב שמירות מלאי", description = "מחזיר את מספר השמירות הפתוחות, המלאי השמור והמלאי הפנוי")
+    public Mono<ResponseEntity<Map<String, Object>>> getHoldsStatus() {
+        return Mono.fromCallable(() -> ResponseEntity.ok(reservationHoldManager.getStatus()));
+    }
+
+    /**
+     * אישור סופי של שמירת מלאי להזמנה
+     * @param orderId מזהה ההזמנה
+     * @return תוצאת האישור
+     */
+    @PostMapping("/holds/{orderId}/confirm")
+    @Operation(summary = "אישור שמירת מלאי", description = "סוגר את שמירת המלאי של ההזמנה - המלאי נצרך")
+    public Mono<ResponseEntity<Map<String, Object>>> confirmHold(@Parameter(description = "מזהה ההזמנה") @PathVariable String orderId) {
+        return Mono.fromCallable(() -> holdResponse(orderId, "CONFIRMED", reservationHoldManager.confirm(orderId)));
+    }
+
+    /**
+     * שחרור שמירת מלאי להזמנה
+     * @param orderId מזהה ההזמנה
+     * @return תוצאת השחרור
+     */
+    @PostMapping("/holds/{orderId}/release")
+    @Operation(summary = "שחרור שמירת מלאי", description = "משחרר את שמירת המלאי של ההזמנה - המלאי חוזר למלאי הפנוי")
+    public Mono<ResponseEntity<Map<String, Object>>> releaseHold(@Parameter(description = "מזהה ההזמנה") @PathVariable String orderId) {
+        return Mono.fromCallable(() -> holdResponse(orderId, "RELEASED", reservationHoldManager.release(orderId)));
+    }
+
+    private ResponseEntity<Map<String, Object>> holdResponse(String orderId, String outcome, boolean found) {
+        if (!found) {
+            log.debug("No open reservation hold for order: {}", orderId);
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(Map.of(
+                "orderId", orderId,
+                "hold", outcome,
+                "timestamp", LocalDateTime.now()
+        ));
+    }
+
+    private HttpStatus errorStatus(Throwable error) {
+        return error instanceof IllegalArgumentException ? HttpStatus.BAD_REQUEST : HttpStatus.INTERNAL_SERVER_ERROR;
+    }
+}
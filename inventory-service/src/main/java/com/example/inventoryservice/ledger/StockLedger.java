@@ -0,0 +1,660 @@
+package com.example.inventoryservice.ledger;
+
+import com.example.common.concurrent.MpscRingBuffer;
+import com.example.common.enums.Category;
+import com.example.common.models.OrderItem;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * יומן מלאי מקומי מסוג append-only
+ * כל שמירה, שחרור וחידוש מלאי נרשמים כרשומה בקבצי segment מתגלגלים.
+ * הכתיבה לדיסק מתבצעת בתהליכון כותב יחיד: הקוראים רק מכניסים רשומה לתור טבעתי,
+ * והכותב מרכז רשומות ומבצע fsync אחד לכל קבוצה (group commit).
+ * מעת לעת נכתב snapshot של יתרות המלאי, ה-segment מתגלגל והקבצים הישנים נמחקים,
+ * כך שזמן השחזור תלוי במרווח ה-snapshot ולא באורך ההיסטוריה.
+ * הרישום נעשה אחרי עדכון המלאי ולא תחת הנעילה שלו, ולכן רשומות של אותו מוצר יכולות להגיע
+ * לכותב שלא לפי הסדר: כל שינוי מקבל גרסה ({@link #nextVersion()}) בתוך העדכון עצמו,
+ * והיתרה של מוצר נקבעת לפי הרשומה עם הגרסה הגבוהה ביותר - גם בכתיבה וגם בשחזור.
+ * גם שמירות המלאי הפתוחות נרשמות ביומן ונכללות ב-snapshot, כך שלאחר עלייה הן נבנות מחדש
+ */
+@Component
+@Slf4j
+public class StockLedger {
+
+    private static final String SEGMENT_PREFIX = "ledger-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+    private static final int SNAPSHOT_MAGIC = 0x534E4150;
+    private static final int RECORD_HEADER_BYTES = 8;
+    private static final long APPEND_RETRY_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final StockLedgerEntryType[] ENTRY_TYPES = StockLedgerEntryType.values();
+
+    @Value("${inventory.ledger.enabled:true}")
+    private boolean enabled;
+
+    @Value("${inventory.ledger.directory:./data/inventory-ledger}")
+    private String directory;
+
+    @Value("${inventory.ledger.segment-size-bytes:67108864}")
+    private long segmentSizeBytes;
+
+    @Value("${inventory.ledger.queue-capacity:65536}")
+    private int queueCapacity;
+
+    @Value("${inventory.ledger.append-timeout-ms:50}")
+    private long appendTimeoutMs;
+
+    @Value("${inventory.ledger.fsync-batch-size:1024}")
+    private int fsyncBatchSize;
+
+    @Value("${inventory.ledger.fsync-interval-ms:20}")
+    private long fsyncIntervalMs;
+
+    @Value("${inventory.ledger.snapshot-interval-entries:100000}")
+    private long snapshotIntervalEntries;
+
+    @Value("${inventory.ledger.snapshot-interval-ms:60000}")
+    private long snapshotIntervalMs;
+
+    private final MeterRegistry meterRegistry;
+    private final AtomicLong versions = new AtomicLong();
+    private MpscRingBuffer<StockLedgerEntry> pending;
+    private Path ledgerDirectory;
+    private Thread writerThread;
+    private volatile boolean running;
+    private Map<String, Integer> restoredBalances = Collections.emptyMap();
+    private List<StockLedgerHold> restoredHolds = Collections.emptyList();
+    private Counter droppedQueueFull;
+    private Counter droppedStopped;
+    private Counter writeFailures;
+
+    // מצב הכותב - נגיש רק מתהליכון הכותב לאחר האתחול
+    private final Map<String, Integer> balances = new HashMap<>();
+    private final Map<String, Long> balanceVersions = new HashMap<>();
+    private final Map<String, StockLedgerHold> openHolds = new HashMap<>();
+    private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(1 << 20);
+    private final ByteBuffer recordBuffer = ByteBuffer.allocate(1 << 16);
+    private final CRC32 crc = new CRC32();
+    private FileChannel segmentChannel;
+    private long segmentBytes;
+    private long nextSequence = 1;
+    private long entriesSinceSnapshot;
+    private long lastSnapshotNanos;
+
+    public StockLedger(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * שחזור המצב מהדיסק והפעלת תהליכון הכותב
+     * טוען את ה-snapshot האחרון התקין ומריץ מחדש רק את הרשומות שאחריו
+     */
+    @PostConstruct
+    public void start() {
+        droppedQueueFull = droppedCounter("queue-full");
+        droppedStopped = droppedCounter("stopped");
+        writeFailures = Counter.builder("inventory.ledger.write.failures")
+                .description("Stock ledger write failures that reset the writer")
+                .register(meterRegistry);
+
+        if (!enabled) {
+            log.info("Stock ledger disabled - stock changes will not survive restart");
+            return;
+        }
+
+        long startNanos = System.nanoTime();
+        try {
+            ledgerDirectory = Paths.get(directory);
+            Files.createDirectories(ledgerDirectory);
+            long snapshotSequence = loadLatestSnapshot();
+            replaySegments(snapshotSequence);
+            openSegment(nextSequence);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to restore stock ledger from " + directory, e);
+        }
+
+        restoredBalances = Map.copyOf(balances);
+        restoredHolds = List.copyOf(openHolds.values());
+        balanceVersions.values().forEach(version -> versions.accumulateAndGet(version, Math::max));
+        pending = new MpscRingBuffer<>(queueCapacity);
+        lastSnapshotNanos = System.nanoTime();
+        running = true;
+        writerThread = new Thread(this::writeLoop, "inventory-ledger-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+
+        log.info("Stock ledger restored - Directory: {}, Products: {}, Open holds: {}, Next sequence: {}, Took: {} ms",
+                ledgerDirectory.toAbsolutePath(), restoredBalances.size(), restoredHolds.size(), nextSequence,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+    }
+
+    /**
+     * עצירת הכותב לאחר כתיבת כל הרשומות הממתינות ו-snapshot אחרון
+     */
+    @PreDestroy
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("Stock ledger stopped - Last sequence: {}", nextSequence - 1);
+    }
+
+    /**
+     * יתרות המלאי כפי ששוחזרו מהדיסק בעת העלייה
+     *
+     * @return מפה של מזהה מוצר ליתרה
+     */
+    public Map<String, Integer> getRestoredBalances() {
+        return restoredBalances;
+    }
+
+    /**
+     * שמירות המלאי שהיו פתוחות בעת העצירה או הקריסה, כפי ששוחזרו מהדיסק
+     *
+     * @return השמירות הפתוחות
+     */
+    public List<StockLedgerHold> getRestoredHolds() {
+        return restoredHolds;
+    }
+
+    /**
+     * רישום פתיחת שמירת מלאי - רשומת HOLD לכל פריט, עם מפתח המוצר (קטגוריה:מוצר) והכמות
+     * שמירה חדשה לאותה הזמנה מחליפה ביומן את הקודמת
+     *
+     * @param orderId מזהה ההזמנה
+     * @param items   הפריטים השמורים
+     * @return מזהה השמירה ביומן, לסגירתה
+     */
+    public long appendHold(String orderId, List<OrderItem> items) {
+        long holdId = nextVersion();
+        for (OrderItem item : items) {
+            append(StockLedgerEntryType.HOLD, item.getCategory().name() + ":" + item.getProductId(),
+                    item.getQuantity(), 0, holdId, orderId);
+        }
+        return holdId;
+    }
+
+    /**
+     * רישום סגירת שמירת מלאי
+     *
+     * @param orderId מזהה ההזמנה
+     * @param holdId  מזהה השמירה שהתקבל ב-{@link #appendHold}
+     */
+    public void appendHoldClosed(String orderId, long holdId) {
+        append(StockLedgerEntryType.HOLD_CLOSED, "", 0, 0, holdId, orderId);
+    }
+
+    /**
+     * גרסה לשינוי מלאי - נקראת בתוך עדכון המלאי של המוצר (תחת הנעילה שלו),
+     * כך שסדר הגרסאות של מוצר הוא סדר השינויים שלו
+     *
+     * @return גרסה עולה
+     */
+    public long nextVersion() {
+        return versions.incrementAndGet();
+    }
+
+    /**
+     * רישום שינוי מלאי ביומן
+     * הקריאה אינה מבצעת I/O - הרשומה נכנסת לתור והכותב מטפל בה ברקע.
+     * אם התור מלא הקורא ממתין לכל היותר append-timeout-ms; לאחר מכן הרשומה נזרקת ונספרת
+     * ב-inventory.ledger.entries.dropped, והיתרה מתעדכנת ביומן בשינוי הבא של אותו מוצר
+     *
+     * @param type      סוג השינוי
+     * @param productId מזהה המוצר
+     * @param delta     השינוי בכמות
+     * @param balance   היתרה לאחר השינוי
+     * @param version   הגרסה שהתקבלה מ-{@link #nextVersion()} בתוך עדכון המלאי
+     * @param reference מזהה ההזמנה או מקור השינוי
+     */
+    public void append(StockLedgerEntryType type, String productId, int delta, int balance, long version, String reference) {
+        if (!running) {
+            if (enabled) {
+                droppedStopped.increment();
+                log.warn("Stock ledger stopped - {} of product {} ({}) not recorded", type, productId, delta);
+            }
+            return;
+        }
+        StockLedgerEntry entry = new StockLedgerEntry(0L, type, productId, delta, balance, reference,
+                System.currentTimeMillis(), version);
+        if (pending.offer(entry)) {
+            return;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(appendTimeoutMs);
+        do {
+            LockSupport.unpark(writerThread);
+            LockSupport.parkNanos(this, APPEND_RETRY_NANOS);
+            if (pending.offer(entry)) {
+                return;
+            }
+        } while (System.nanoTime() < deadline);
+        droppedQueueFull.increment();
+        log.error("Stock ledger queue full for {} ms - {} of product {} ({}) not recorded",
+                appendTimeoutMs, type, productId, delta);
+    }
+
+    /**
+     * לולאת הכותב - ריקון התור, כתיבה, fsync מרוכז ו-snapshot תקופתי
+     */
+    private void writeLoop() {
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(fsyncIntervalMs);
+        long unsynced = 0;
+        long lastSyncNanos = System.nanoTime();
+
+        while (running || !pending.isEmpty()) {
+            try {
+                int drained = pending.drain(this::write, fsyncBatchSize);
+                unsynced += drained;
+                long now = System.nanoTime();
+                if (unsynced > 0 && (drained < fsyncBatchSize || now - lastSyncNanos >= intervalNanos)) {
+                    sync();
+                    unsynced = 0;
+                    lastSyncNanos = now;
+                }
+                if (entriesSinceSnapshot >= snapshotIntervalEntries
+                        || (entriesSinceSnapshot > 0 && now - lastSnapshotNanos >= TimeUnit.MILLISECONDS.toNanos(snapshotIntervalMs))) {
+                    takeSnapshot();
+                }
+                if (drained == 0) {
+                    LockSupport.parkNanos(this, intervalNanos);
+                }
+            } catch (IOException | UncheckedIOException e) {
+                log.error("Stock ledger write failed: {}", e.getMessage(), e);
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(100));
+            } catch (RuntimeException e) {
+                log.error("Unexpected stock ledger write failure - resetting writer: {}", e.getMessage(), e);
+                writeFailures.increment();
+                resetWriter();
+                unsynced = 0;
+            }
+        }
+
+        try {
+            sync();
+            if (entriesSinceSnapshot > 0) {
+                takeSnapshot();
+            }
+            segmentChannel.close();
+        } catch (IOException e) {
+            log.error("Failed to close stock ledger cleanly: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * איפוס הכותב לאחר כשל לא צפוי
+     * תוכן הבאפר שלא נכתב נזרק וה-segment הנוכחי נסגר, כדי שרשומה חלקית לא תיכתב לפני רשומות תקינות.
+     * היתרות של הרשומות שנזרקו כבר בזיכרון, ולכן נכתב מיד snapshot שמכסה אותן
+     */
+    private void resetWriter() {
+        writeBuffer.clear();
+        try {
+            takeSnapshot();
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to snapshot stock ledger after writer reset: {}", e.getMessage(), e);
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(100));
+        }
+    }
+
+    /**
+     * קידוד רשומה לבאפר הכתיבה
+     * מבנה: אורך, CRC, ואז seq, סוג, זמן, שינוי, יתרה, גרסה, מוצר ומקור
+     *
+     * @param entry הרשומה
+     */
+    private void write(StockLedgerEntry entry) {
+        try {
+            long sequence = nextSequence++;
+            byte[] productId = entry.productId().getBytes(StandardCharsets.UTF_8);
+            byte[] reference = entry.reference() == null ? new byte[0] : entry.reference().getBytes(StandardCharsets.UTF_8);
+
+            recordBuffer.clear();
+            recordBuffer.putLong(sequence);
+            recordBuffer.put((byte) entry.type().ordinal());
+            recordBuffer.putLong(entry.timestamp());
+            recordBuffer.putInt(entry.delta());
+            recordBuffer.putInt(entry.balance());
+            recordBuffer.putLong(entry.version());
+            recordBuffer.putShort((short) productId.length);
+            recordBuffer.put(productId);
+            recordBuffer.putShort((short) reference.length);
+            recordBuffer.put(reference);
+            int bodyLength = recordBuffer.position();
+
+            crc.reset();
+            crc.update(recordBuffer.array(), 0, bodyLength);
+
+            if (writeBuffer.remaining() < RECORD_HEADER_BYTES + bodyLength) {
+                flushBuffer();
+            }
+            writeBuffer.putInt(bodyLength);
+            writeBuffer.putInt((int) crc.getValue());
+            writeBuffer.put(recordBuffer.array(), 0, bodyLength);
+            segmentBytes += RECORD_HEADER_BYTES + bodyLength;
+
+            if (entry.type().changesStock()) {
+                applyBalance(entry.productId(), entry.balance(), entry.version());
+            } else {
+                applyHold(entry.type(), entry.reference(), entry.version(), entry.timestamp(), entry.productId(), entry.delta());
+            }
+            entriesSinceSnapshot++;
+
+            if (segmentBytes >= segmentSizeBytes) {
+                sync();
+                segmentChannel.close();
+                openSegment(nextSequence);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * עדכון יתרת מוצר אם הגרסה אינה ישנה מזו שכבר נקבעה
+     * רשומות ללא גרסה (גרסה 0, מלפני הוספתה) נקבעות לפי סדר הופעתן
+     */
+    private void applyBalance(String productId, int balance, long version) {
+        Long current = balanceVersions.get(productId);
+        if (current == null || version >= current) {
+            balances.put(productId, balance);
+            balanceVersions.put(productId, version);
+        }
+    }
+
+    /**
+     * עדכון השמירות הפתוחות לפי רשומת HOLD או HOLD_CLOSED
+     * רשומת HOLD עם מזהה שמירה אחר מחליפה את השמירה של ההזמנה; סגירה חלה רק על אותה שמירה
+     */
+    private void applyHold(StockLedgerEntryType type, String orderId, long holdId, long timestamp,
+                           String productKey, int quantity) {
+        if (orderId == null) {
+            return;
+        }
+        StockLedgerHold hold = openHolds.get(orderId);
+        if (type == StockLedgerEntryType.HOLD_CLOSED) {
+            if (hold != null && hold.holdId() == holdId) {
+                openHolds.remove(orderId);
+            }
+            return;
+        }
+        int separator = productKey.indexOf(':');
+        Category category = separator > 0 ? parseCategory(productKey.substring(0, separator)) : null;
+        if (category == null) {
+            log.warn("Skipping stock hold entry with unknown product key {} for order {}", productKey, orderId);
+            return;
+        }
+        if (hold == null || hold.holdId() != holdId) {
+            hold = new StockLedgerHold(orderId, holdId, timestamp, new ArrayList<>());
+            openHolds.put(orderId, hold);
+        }
+        hold.items().add(new OrderItem(productKey.substring(separator + 1), quantity, category));
+    }
+
+    private Category parseCategory(String name) {
+        try {
+            return Category.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * כתיבת הבאפר ל-segment ו-fsync
+     */
+    private void sync() throws IOException {
+        flushBuffer();
+        segmentChannel.force(false);
+    }
+
+    private void flushBuffer() throws IOException {
+        writeBuffer.flip();
+        while (writeBuffer.hasRemaining()) {
+            segmentChannel.write(writeBuffer);
+        }
+        writeBuffer.clear();
+    }
+
+    private void openSegment(long firstSequence) throws IOException {
+        Path segment = ledgerDirectory.resolve(SEGMENT_PREFIX + String.format("%020d", firstSequence) + SEGMENT_SUFFIX);
+        segmentChannel = FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        segmentBytes = 0;
+        log.debug("Opened stock ledger segment: {}", segment.getFileName());
+    }
+
+    /**
+     * כתיבת snapshot של כל היתרות, גלגול segment ומחיקת קבצים שכוסו
+     */
+    private void takeSnapshot() throws IOException {
+        sync();
+        long snapshotSequence = nextSequence - 1;
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeLong(snapshotSequence);
+            out.writeInt(balances.size());
+            for (Map.Entry<String, Integer> balance : balances.entrySet()) {
+                out.writeUTF(balance.getKey());
+                out.writeInt(balance.getValue());
+                out.writeLong(balanceVersions.getOrDefault(balance.getKey(), 0L));
+            }
+            out.writeInt(openHolds.size());
+            for (StockLedgerHold hold : openHolds.values()) {
+                out.writeUTF(hold.orderId());
+                out.writeLong(hold.holdId());
+                out.writeLong(hold.createdAt());
+                out.writeInt(hold.items().size());
+                for (OrderItem item : hold.items()) {
+                    out.writeUTF(item.getCategory().name() + ":" + item.getProductId());
+                    out.writeInt(item.getQuantity());
+                }
+            }
+        }
+        byte[] content = bytes.toByteArray();
+        crc.reset();
+        crc.update(content, 0, content.length);
+
+        String name = SNAPSHOT_PREFIX + String.format("%020d", snapshotSequence) + SNAPSHOT_SUFFIX;
+        Path temp = ledgerDirectory.resolve(name + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(content.length + 4);
+            buffer.put(content).putInt((int) crc.getValue()).flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Path snapshot = ledgerDirectory.resolve(name);
+        Files.move(temp, snapshot, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        segmentChannel.close();
+        openSegment(nextSequence);
+        deleteCoveredFiles(snapshotSequence);
+
+        entriesSinceSnapshot = 0;
+        lastSnapshotNanos = System.nanoTime();
+        log.info("Stock ledger snapshot written - Sequence: {}, Products: {}, Open holds: {}",
+                snapshotSequence, balances.size(), openHolds.size());
+    }
+
+    private void deleteCoveredFiles(long snapshotSequence) throws IOException {
+        for (Path segment : listFiles(SEGMENT_PREFIX, SEGMENT_SUFFIX)) {
+            if (parseSequence(segment, SEGMENT_PREFIX, SEGMENT_SUFFIX) <= snapshotSequence) {
+                Files.deleteIfExists(segment);
+            }
+        }
+        for (Path snapshot : listFiles(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX)) {
+            if (parseSequence(snapshot, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX) < snapshotSequence) {
+                Files.deleteIfExists(snapshot);
+            }
+        }
+    }
+
+    /**
+     * טעינת ה-snapshot התקין האחרון
+     *
+     * @return ה-sequence של ה-snapshot, או 0 אם אין
+     */
+    private long loadLatestSnapshot() throws IOException {
+        List<Path> snapshots = listFiles(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+        for (int i = snapshots.size() - 1; i >= 0; i--) {
+            Path snapshot = snapshots.get(i);
+            byte[] content = Files.readAllBytes(snapshot);
+            if (content.length < 24) {
+                log.warn("Skipping truncated stock snapshot: {}", snapshot.getFileName());
+                continue;
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(content);
+            crc.reset();
+            crc.update(content, 0, content.length - 4);
+            if (buffer.getInt(content.length - 4) != (int) crc.getValue() || buffer.getInt() != SNAPSHOT_MAGIC) {
+                log.warn("Skipping corrupted stock snapshot: {}", snapshot.getFileName());
+                continue;
+            }
+
+            long sequence = buffer.getLong();
+            int count = buffer.getInt();
+            for (int j = 0; j < count; j++) {
+                String productId = readUtf(buffer);
+                int balance = buffer.getInt();
+                applyBalance(productId, balance, buffer.getLong());
+            }
+            int holdCount = buffer.getInt();
+            for (int j = 0; j < holdCount; j++) {
+                String orderId = readUtf(buffer);
+                long holdId = buffer.getLong();
+                long createdAt = buffer.getLong();
+                int itemCount = buffer.getInt();
+                for (int k = 0; k < itemCount; k++) {
+                    String productKey = readUtf(buffer);
+                    applyHold(StockLedgerEntryType.HOLD, orderId, holdId, createdAt, productKey, buffer.getInt());
+                }
+            }
+            nextSequence = sequence + 1;
+            log.info("Loaded stock snapshot {} - Sequence: {}, Products: {}", snapshot.getFileName(), sequence, count);
+            return sequence;
+        }
+        return 0L;
+    }
+
+    /**
+     * הרצה מחדש של רשומות היומן שאחרי ה-snapshot
+     * רשומה חתוכה או פגומה בסוף segment (קריסה באמצע כתיבה) עוצרת את קריאת אותו segment
+     *
+     * @param snapshotSequence ה-sequence של ה-snapshot
+     * @return מספר הרשומות שהורצו
+     */
+    private long replaySegments(long snapshotSequence) throws IOException {
+        long replayed = 0;
+        for (Path segment : listFiles(SEGMENT_PREFIX, SEGMENT_SUFFIX)) {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(segment));
+            while (buffer.remaining() >= RECORD_HEADER_BYTES) {
+                int bodyLength = buffer.getInt();
+                int checksum = buffer.getInt();
+                if (bodyLength <= 0 || bodyLength > buffer.remaining()) {
+                    log.warn("Torn record at end of stock ledger segment {} - ignoring tail", segment.getFileName());
+                    break;
+                }
+                crc.reset();
+                crc.update(buffer.array(), buffer.position(), bodyLength);
+                if ((int) crc.getValue() != checksum) {
+                    log.warn("Corrupted record in stock ledger segment {} - ignoring tail", segment.getFileName());
+                    break;
+                }
+
+                long sequence = buffer.getLong();
+                int typeOrdinal = buffer.get();
+                long timestamp = buffer.getLong();
+                int delta = buffer.getInt();
+                int balance = buffer.getInt();
+                long version = buffer.getLong();
+                byte[] productId = new byte[buffer.getShort() & 0xFFFF];
+                buffer.get(productId);
+                byte[] reference = new byte[buffer.getShort() & 0xFFFF];
+                buffer.get(reference);
+
+                if (sequence > snapshotSequence && typeOrdinal >= 0 && typeOrdinal < ENTRY_TYPES.length) {
+                    StockLedgerEntryType entryType = ENTRY_TYPES[typeOrdinal];
+                    String product = new String(productId, StandardCharsets.UTF_8);
+                    if (entryType.changesStock()) {
+                        applyBalance(product, balance, version);
+                    } else {
+                        applyHold(entryType, reference.length == 0 ? null : new String(reference, StandardCharsets.UTF_8),
+                                version, timestamp, product, delta);
+                    }
+                    nextSequence = Math.max(nextSequence, sequence + 1);
+                    replayed++;
+                }
+            }
+        }
+        log.info("Replayed {} stock ledger entries after snapshot sequence {}", replayed, snapshotSequence);
+        return replayed;
+    }
+
+    private String readUtf(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private Counter droppedCounter(String reason) {
+        return Counter.builder("inventory.ledger.entries.dropped")
+                .description("Stock changes not recorded in the ledger")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    private List<Path> listFiles(String prefix, String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(ledgerDirectory)) {
+            return files.filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(prefix) && name.endsWith(suffix);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private long parseSequence(Path path, String prefix, String suffix) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length()));
+    }
+}
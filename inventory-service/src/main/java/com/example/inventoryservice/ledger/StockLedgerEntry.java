@@ -0,0 +1,24 @@
+package com.example.inventoryservice.ledger;
+
+/**
+ * רשומה ביומן המלאי
+ * כל רשומה שומרת גם את השינוי וגם את היתרה לאחריו, כך ששחזור הוא פשוט קביעת היתרה
+ *
+ * @param sequence  מספר רץ ביומן (נקבע על ידי הכותב)
+ * @param type      סוג הרשומה
+ * @param productId מזהה המוצר
+ * @param delta     השינוי בכמות
+ * @param balance   יתרת המלאי לאחר השינוי
+ * @param reference מזהה ההזמנה או מקור השינוי (יכול להיות null)
+ * @param timestamp זמן השינוי במילישניות
+ * @param version   גרסת השינוי של המוצר - קובעת איזו יתרה אחרונה כשרשומות מגיעות שלא לפי הסדר
+ */
+public record StockLedgerEntry(long sequence,
+                               StockLedgerEntryType type,
+                               String productId,
+                               int delta,
+                               int balance,
+                               String reference,
+                               long timestamp,
+                               long version) {
+}
@@ -0,0 +1,38 @@
+package com.example.inventoryservice.ledger;
+
+/**
+ * סוגי רשומות ביומן המלאי
+ */
+public enum StockLedgerEntryType {
+    /**
+     * שמירת מלאי עבור הזמנה - הפחתה
+     */
+    RESERVE,
+
+    /**
+     * שחרור מלאי שנשמר - החזרה למלאי
+     */
+    RELEASE,
+
+    /**
+     * חידוש מלאי
+     */
+    RESTOCK,
+
+    /**
+     * פתיחת שמירת מלאי להזמנה - רשומה לכל פריט, ללא שינוי יתרה
+     */
+    HOLD,
+
+    /**
+     * סגירת שמירת מלאי (אישור, שחרור או פקיעה) - ללא שינוי יתרה
+     */
+    HOLD_CLOSED;
+
+    /**
+     * @return true אם הרשומה קובעת יתרת מלאי
+     */
+    public boolean changesStock() {
+        return this == RESERVE || this == RELEASE || this == RESTOCK;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.inventoryservice.ledger;
+
+import com.example.common.models.OrderItem;
+
+import java.util.List;
+
+/**
+ * שמירת מלאי פתוחה כפי שנרשמה ביומן המלאי
+ *
+ * @param orderId   מזהה ההזמנה
+ * @param holdId    מזהה השמירה ביומן - מבדיל בין שמירה לשמירה שהחליפה אותה
+ * @param createdAt זמן פתיחת השמירה במילישניות
+ * @param items     הפריטים השמורים
+ */
+public record StockLedgerHold(String orderId, long holdId, long createdAt, List<OrderItem> items) {
+}
@@ -0,0 +1,36 @@
+package com.example.inventoryservice.listener;
+
+import com.example.common.events.OrderCreatedEvent;
+import com.example.common.kafka.reprocess.ReprocessHandler;
+import com.example.inventoryservice.service.InventoryService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * עיבוד חוזר ישיר של אירועי יצירת הזמנה מ-DLQ
+ * מפעיל בדיקת מלאי כמו {@link OrderEventListener} ומפרסם את התוצאה
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderCreatedReprocessHandler implements ReprocessHandler<OrderCreatedEvent> {
+
+    private final InventoryService inventoryService;
+
+    @Override
+    public String topic() {
+        return "order-created";
+    }
+
+    @Override
+    public Class<OrderCreatedEvent> type() {
+        return OrderCreatedEvent.class;
+    }
+
+    @Override
+    public void handle(String key, OrderCreatedEvent event) {
+        inventoryService.checkInventory(event);
+        log.info("Reprocessed order created event for order: {}", event.getOrderId());
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.inventoryservice.listener;
+
+import com.example.common.events.OrderCreatedEvent;
+import com.example.common.kafka.quarantine.QuarantineService;
+import com.example.common.lifecycle.OrderLifecycle;
+import com.example.common.utils.ValidationUtils;
+import com.example.inventoryservice.service.InventoryService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * מאזין באץ' לאירועי יצירת הזמנות
+ * מקבל את כל האירועים של poll אחד ומעביר אותם לבדיקת מלאי מרוכזת
+ * פעיל כאשר inventory.processing.mode=batch או transactional -
+ * במצב transactional הבאץ' כולו רץ בטרנזקציית Kafka אחת שנפתחת על ידי ה-container.
+ * שני המצבים קשורים ל-Kafka ולכן פעילים רק כש-events.transport הוא kafka
+ */
+@Component
+@ConditionalOnExpression("('${inventory.processing.mode:single}' == 'batch' or '${inventory.processing.mode:single}' == 'transactional') and '${events.transport:kafka}' == 'kafka'")
+@RequiredArgsConstructor
+@Slf4j
+public class OrderEventBatchListener {
+
+    private final InventoryService inventoryService;
+    private final QuarantineService quarantineService;
+
+    /**
+     * מאזין לבאץ' של אירועי יצירת הזמנות
+     * אירועים פגומים או לא תקינים מועברים להסגר ומדולגים, השאר נבדקים יחד לפי סדר הגעתם
+     * ה-offsets נשמרים רק לאחר שכל התוצאות פורסמו
+     *
+     * @param records רשומות ה-poll לפי סדר הגעתן
+     */
+    @KafkaListener(topics = "order-created", groupId = "inventory-service-group",
+            containerFactory = "batchKafkaListenerContainerFactory", batch = "true")
+    public void handleOrderCreatedEvents(List<ConsumerRecord<String, OrderCreatedEvent>> records) {
+        log.info("=== KAFKA BATCH RECEIVED - ORDER CREATED === Records: {}", records.size());
+
+        List<OrderCreatedEvent> orderCreatedEvents = new ArrayList<>(records.size());
+        List<OrderLifecycle> lifecycles = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, OrderCreatedEvent> record : records) {
+            // ה-record interceptor אינו פועל על מאזיני באץ' - הבדיקה נעשית כאן
+            if (quarantineService.quarantineIfMalformed(record)) {
+                continue;
+            }
+            OrderCreatedEvent event = record.value();
+            if (ValidationUtils.isNull(event)) {
+                log.error("Skipping null order created event - Partition: {}, Offset: {}", record.partition(), record.offset());
+                continue;
+            }
+            orderCreatedEvents.add(event);
+            lifecycles.add(OrderLifecycle.fromHeaders(record.headers()));
+        }
+
+        inventoryService.checkInventoryBatch(orderCreatedEvents, lifecycles);
+        log.info("=== ORDER BATCH PROCESSING COMPLETED === Processed: {}, Skipped: {}",
+                orderCreatedEvents.size(), records.size() - orderCreatedEvents.size());
+    }
+}
@@ -1,24 +1,37 @@
 package com.example.inventoryservice.listener;
 
 import com.example.common.events.OrderCreatedEvent;
+import com.example.common.kafka.parallel.ParallelConsumer;
+import com.example.common.lifecycle.OrderLifecycle;
 import com.example.common.utils.ValidationUtils;
 import com.example.inventoryservice.service.InventoryService;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.core.convert.ConversionException;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.annotation.RetryableTopic;
 import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.messaging.converter.MessageConversionException;
 import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.Headers;
 import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.handler.invocation.MethodArgumentResolutionException;
 import org.springframework.retry.annotation.Backoff;
 import org.springframework.stereotype.Component;
 
+import java.util.Map;
+
 /**
  * מאזין לאירועי Kafka עבור שירות המלאי
  * מטפל באירועי יצירת הזמנות ומפעיל בדיקת מלאי
  * כולל מנגנון Dead Letter Queue לטיפול בכשלים
+ * פעיל במצב single כש-events.transport הוא kafka; ב-transport אחר OrderCreatedReprocessHandler נרשם ל-EventBus
  */
 @Component
+@ConditionalOnExpression("'${inventory.processing.mode:single}' == 'single' and '${events.transport:kafka}' == 'kafka'")
 @RequiredArgsConstructor
 @Slf4j
 public class OrderEventListener {
@@ -34,18 +47,25 @@ public class OrderEventListener {
      * @param key               מזהה ההודעה
      * @param topic             שם הטופיק
      * @param partition         מספר הpartition
+     * @param headers           כל ה-headers, לחותמות מחזור החיים של ההזמנה
      */
+    @ParallelConsumer
     @KafkaListener(topics = "order-created", groupId = "inventory-service-group")
     @RetryableTopic(
             attempts = "3",
             backoff = @Backoff(delay = 1000, multiplier = 2.0),
-            include = {Exception.class},
+            // אותם סוגים כמו PoisonMessageClassifier - כשל מבני עובר להסגר ולא ל-topics של retry
+            exclude = {DeserializationException.class, MessageConversionException.class, ConversionException.class,
+                    MethodArgumentResolutionException.class, JsonProcessingException.class, ClassCastException.class,
+                    IllegalArgumentException.class},
+            traversingCauses = "true",
             dltTopicSuffix = "-dlq"
     )
     public void handleOrderCreatedEvent(@Payload OrderCreatedEvent orderCreatedEvent,
                                         @Header(KafkaHeaders.RECEIVED_KEY) String key,
                                         @Header(KafkaHeaders.RECEIVED_TOPIC) String topic,
-                                        @Header(KafkaHeaders.RECEIVED_PARTITION) int partition) {
+                                        @Header(KafkaHeaders.RECEIVED_PARTITION) int partition,
+                                        @Headers Map<String, Object> headers) {
 
         log.info("=== KAFKA EVENT RECEIVED - ORDER CREATED ===");
         log.info("Topic: {}", topic);
@@ -73,17 +93,12 @@ public class OrderEventListener {
             throw new IllegalArgumentException("Customer name cannot be empty");
         }
 
-        if (ValidationUtils.isEmpty(orderCreatedEvent.getItems())) {
-            log.error("Received order created event with empty items for order: {}",
-                    orderCreatedEvent.getOrderId());
-            throw new IllegalArgumentException("Order items cannot be empty");
-        }
-
+        // הזמנה ללא פריטים אינה פגומה - שירות המלאי דוחה אותה ומפרסם תוצאה REJECTED
         log.info("=== VALIDATION PASSED - PROCESSING ORDER ===");
         log.info("Processing order created event for order: {}, customer: {}, items count: {}",
                 orderCreatedEvent.getOrderId(),
                 orderCreatedEvent.getCustomerName(),
-                orderCreatedEvent.getItems().size());
+                ValidationUtils.isNotEmpty(orderCreatedEvent.getItems()) ? orderCreatedEvent.getItems().size() : 0);
 
         if (ValidationUtils.isNotEmpty(orderCreatedEvent.getItems())) {
             orderCreatedEvent.getItems().forEach(item -> {
@@ -94,7 +109,7 @@ public class OrderEventListener {
 
         try {
             log.info("=== CALLING INVENTORY SERVICE ===");
-            inventoryService.checkInventory(orderCreatedEvent);
+            inventoryService.checkInventory(orderCreatedEvent, OrderLifecycle.fromHeaders(headers));
             log.info("=== ORDER PROCESSING COMPLETED SUCCESSFULLY ===");
             log.info("Successfully processed order created event for order: {}", orderCreatedEvent.getOrderId());
         } catch (Exception e) {
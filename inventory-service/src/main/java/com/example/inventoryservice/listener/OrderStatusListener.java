@@ -0,0 +1,50 @@
+package com.example.inventoryservice.listener;
+
+import com.example.common.enums.OrderStatus;
+import com.example.common.events.OrderStatusChangedEvent;
+import com.example.common.utils.ValidationUtils;
+import com.example.inventoryservice.reservation.ReservationHoldManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Component;
+
+/**
+ * מאזין לאירועי שינוי סטטוס הזמנה
+ * CONFIRMED מאשר את שמירת המלאי ו-CANCELLED משחרר אותה;
+ * שאר הסטטוסים אינם משפיעים על המלאי
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderStatusListener {
+
+    private final ReservationHoldManager reservationHoldManager;
+
+    /**
+     * מאזין לשינויי סטטוס הזמנה
+     *
+     * @param event אירוע שינוי הסטטוס
+     */
+    @KafkaListener(topics = "order-status-changed", groupId = "inventory-service-group",
+            containerFactory = "orderStatusKafkaListenerContainerFactory")
+    public void handleOrderStatusChanged(@Payload OrderStatusChangedEvent event) {
+        if (ValidationUtils.isNull(event) || ValidationUtils.isEmpty(event.getOrderId())
+                || ValidationUtils.isNull(event.getStatus())) {
+            log.warn("Ignoring invalid order status changed event: {}", event);
+            return;
+        }
+
+        log.debug("Order status changed - Order: {}, {} -> {}", event.getOrderId(), event.getPreviousStatus(), event.getStatus());
+        if (event.getStatus() == OrderStatus.CONFIRMED) {
+            if (!reservationHoldManager.confirm(event.getOrderId())) {
+                log.warn("No open reservation hold to confirm for order: {}", event.getOrderId());
+            }
+        } else if (event.getStatus() == OrderStatus.CANCELLED) {
+            if (!reservationHoldManager.release(event.getOrderId())) {
+                log.warn("No open reservation hold to release for order: {}", event.getOrderId());
+            }
+        }
+    }
+}
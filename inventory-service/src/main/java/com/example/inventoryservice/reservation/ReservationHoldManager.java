@@ -0,0 +1,434 @@
+package com.example.inventoryservice.reservation;
+
+import com.example.common.concurrent.HierarchicalTimingWheel;
+import com.example.common.concurrent.MpscRingBuffer;
+import com.example.common.models.OrderItem;
+import com.example.common.utils.ValidationUtils;
+import com.example.inventoryservice.ledger.StockLedger;
+import com.example.inventoryservice.ledger.StockLedgerHold;
+import com.example.inventoryservice.shard.ProductShardExecutor;
+import com.example.inventoryservice.strategy.InventoryCheckStrategy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * ניהול שמירות מלאי עם תפוגה
+ * כל הזמנה שאושרה מחזיקה את הכמויות שלה עד לאישור סופי, ביטול או פקיעה.
+ * הפקיעות מנוהלות בגלגל זמן היררכי שבבעלות תהליכון tick יחיד: הוספה וביטול
+ * נשלחים אליו כפקודות דרך תור טבעתי, כך שכל פעולה היא O(1) וללא נעילות.
+ * שחרור מלאי עובר דרך ה-shard של המוצר כדי לשמור על כותב יחיד לכל מוצר.
+ * פתיחה וסגירה של שמירה נרשמות ביומן המלאי, והשמירות הפתוחות נבנות מחדש ממנו בעלייה
+ * עם מועד הפקיעה המקורי (זמן הפתיחה + ttl-ms)
+ */
+@Component
+@Slf4j
+public class ReservationHoldManager {
+
+    private static final int COMMAND_DRAIN_LIMIT = 4096;
+    private static final long ENQUEUE_RETRY_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final Map<String, InventoryCheckStrategy> strategyMap;
+    private final ProductShardExecutor productShardExecutor;
+    private final StockLedger stockLedger;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${inventory.holds.enabled:true}")
+    private boolean enabled;
+
+    @Value("${inventory.holds.ttl-ms:900000}")
+    private long ttlMs;
+
+    @Value("${inventory.holds.tick-ms:100}")
+    private long tickMs;
+
+    @Value("${inventory.holds.wheel-size:512}")
+    private int wheelSize;
+
+    @Value("${inventory.holds.wheel-levels:4}")
+    private int wheelLevels;
+
+    @Value("${inventory.holds.command-queue-capacity:65536}")
+    private int commandQueueCapacity;
+
+    @Value("${inventory.holds.enqueue-timeout-ms:100}")
+    private long enqueueTimeoutMs;
+
+    private final Map<String, ReservationHold> holds = new ConcurrentHashMap<>();
+    private final AtomicLong heldQuantity = new AtomicLong();
+    // נגיש מתהליכון ה-tick בלבד לאחר האתחול
+    private final Map<ReservationHold, HierarchicalTimingWheel.Timeout<ReservationHold>> timeouts = new IdentityHashMap<>();
+    private MpscRingBuffer<HoldCommand> commands;
+    private HierarchicalTimingWheel<ReservationHold> timingWheel;
+    private Thread tickerThread;
+    private volatile boolean running;
+
+    private Counter confirmedCounter;
+    private Counter releasedCounter;
+    private Counter expiredCounter;
+
+    public ReservationHoldManager(List<InventoryCheckStrategy> inventoryStrategies,
+                                  ProductShardExecutor productShardExecutor,
+                                  StockLedger stockLedger,
+                                  MeterRegistry meterRegistry) {
+        this.strategyMap = inventoryStrategies.stream()
+                .collect(Collectors.toMap(InventoryCheckStrategy::getCategoryType, Function.identity()));
+        this.productShardExecutor = productShardExecutor;
+        this.stockLedger = stockLedger;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * הפעלת תהליכון ה-tick ורישום המטריקות
+     */
+    @PostConstruct
+    public void start() {
+        Gauge.builder("inventory.stock.held", heldQuantity, AtomicLong::get)
+                .description("Stock units held by unconfirmed reservations")
+                .register(meterRegistry);
+        Gauge.builder("inventory.stock.free", this, ReservationHoldManager::getFreeStock)
+                .description("Stock units available for new reservations")
+                .register(meterRegistry);
+        Gauge.builder("inventory.holds.active", holds, Map::size)
+                .description("Outstanding reservation holds")
+                .register(meterRegistry);
+        confirmedCounter = holdsCounter("confirmed");
+        releasedCounter = holdsCounter("released");
+        expiredCounter = holdsCounter("expired");
+
+        if (!enabled) {
+            log.info("Reservation holds disabled - reserved stock is consumed immediately (restored open holds: {})",
+                    stockLedger.getRestoredHolds().size());
+            return;
+        }
+
+        commands = new MpscRingBuffer<>(commandQueueCapacity);
+        timingWheel = new HierarchicalTimingWheel<>(tickMs, wheelSize, wheelLevels, System.currentTimeMillis());
+        restoreHolds();
+        running = true;
+        tickerThread = new Thread(this::tickLoop, "inventory-hold-ticker");
+        tickerThread.setDaemon(true);
+        tickerThread.start();
+        log.info("Reservation holds started - TTL: {} ms, Tick: {} ms, Wheel: {}x{}", ttlMs, tickMs, wheelSize, wheelLevels);
+    }
+
+    /**
+     * בנייה מחדש של השמירות שהיו פתוחות לפני העלייה, מיומן המלאי
+     * המלאי שלהן כבר מופחת ביתרות ששוחזרו; שמירה שמועד הפקיעה שלה עבר פוקעת ב-tick הראשון
+     */
+    private void restoreHolds() {
+        List<StockLedgerHold> restored = stockLedger.getRestoredHolds();
+        for (StockLedgerHold ledgerHold : restored) {
+            List<OrderItem> items = List.copyOf(ledgerHold.items());
+            long quantity = items.stream().mapToLong(OrderItem::getQuantity).sum();
+            ReservationHold hold = new ReservationHold(ledgerHold.orderId(), items, quantity,
+                    ledgerHold.createdAt() + ttlMs, ledgerHold.holdId());
+            holds.put(hold.orderId(), hold);
+            heldQuantity.addAndGet(quantity);
+            timeouts.put(hold, timingWheel.schedule(hold, hold.expiresAt()));
+        }
+        if (!restored.isEmpty()) {
+            log.info("Restored {} open reservation holds from the stock ledger - Held quantity: {}",
+                    restored.size(), heldQuantity.get());
+        }
+    }
+
+    /**
+     * עצירת תהליכון ה-tick
+     * שמירות פתוחות אינן משתחררות בעצירה - המלאי נשאר שמור
+     */
+    @PreDestroy
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(tickerThread);
+        try {
+            tickerThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("Reservation holds stopped - Outstanding holds: {}", holds.size());
+    }
+
+    /**
+     * האם מנגנון השמירות פעיל
+     *
+     * @return true אם פעיל
+     */
+    public boolean isEnabled() {
+        return running;
+    }
+
+    /**
+     * יצירת שמירה עבור הזמנה שאושרה
+     * אם תור הפקודות נשאר מלא במשך enqueue-timeout-ms השמירה נכשלת: המלאי מוחזר ונזרקת חריגה,
+     * כך שההזמנה נדחית במקום להחזיק מלאי ללא פקיעה
+     *
+     * @param orderId מזהה ההזמנה
+     * @param items   הפריטים שהמלאי שלהם נשמר
+     * @throws IllegalStateException אם לא ניתן היה לתזמן את הפקיעה
+     */
+    public void hold(String orderId, List<OrderItem> items) {
+        if (!running || ValidationUtils.isEmpty(orderId) || ValidationUtils.isEmpty(items)) {
+            return;
+        }
+
+        long quantity = items.stream().mapToLong(OrderItem::getQuantity).sum();
+        long expiresAt = System.currentTimeMillis() + ttlMs;
+        long ledgerId = stockLedger.appendHold(orderId, items);
+        ReservationHold hold = new ReservationHold(orderId, List.copyOf(items), quantity, expiresAt, ledgerId);
+        // התזמון נשלח לפני הפרסום במפה, כך שביטול תמיד מגיע לתהליכון ה-tick אחרי התזמון
+        if (!enqueue(new HoldCommand(hold, true))) {
+            stockLedger.appendHoldClosed(orderId, ledgerId);
+            releaseStock(orderId, items);
+            throw new IllegalStateException("Reservation hold queue full for " + enqueueTimeoutMs + " ms - order " + orderId + " not held");
+        }
+        ReservationHold previous = holds.put(orderId, hold);
+        heldQuantity.addAndGet(quantity);
+        if (ValidationUtils.isNotNull(previous)) {
+            log.warn("Replacing existing reservation hold for order: {}", orderId);
+            heldQuantity.addAndGet(-previous.quantity());
+            cancelExpiry(previous);
+            releaseStock(previous.orderId(), previous.items());
+        }
+        log.info("Reservation hold created - Order: {}, Items: {}, Quantity: {}, Expires at: {}",
+                orderId, items.size(), quantity, Instant.ofEpochMilli(expiresAt));
+    }
+
+    /**
+     * אישור סופי של שמירה - המלאי נשאר מופחת והשמירה נסגרת
+     *
+     * @param orderId מזהה ההזמנה
+     * @return true אם נמצאה שמירה פתוחה
+     */
+    public boolean confirm(String orderId) {
+        ReservationHold hold = closeHold(orderId);
+        if (ValidationUtils.isNull(hold)) {
+            return false;
+        }
+        confirmedCounter.increment();
+        log.info("Reservation hold confirmed - Order: {}, Quantity: {}", orderId, hold.quantity());
+        return true;
+    }
+
+    /**
+     * שחרור שמירה - המלאי חוזר למלאי הפנוי
+     *
+     * @param orderId מזהה ההזמנה
+     * @return true אם נמצאה שמירה פתוחה
+     */
+    public boolean release(String orderId) {
+        ReservationHold hold = closeHold(orderId);
+        if (ValidationUtils.isNull(hold)) {
+            return false;
+        }
+        releaseStock(orderId, hold.items());
+        releasedCounter.increment();
+        log.info("Reservation hold released - Order: {}, Quantity: {}", orderId, hold.quantity());
+        return true;
+    }
+
+    /**
+     * החזרת מלאי שהופחת עבור הזמנה שנדחתה, ללא יצירת שמירה
+     *
+     * @param orderId מזהה ההזמנה
+     * @param items   הפריטים שהמלאי שלהם הופחת
+     */
+    public void releaseStock(String orderId, List<OrderItem> items) {
+        for (OrderItem item : items) {
+            InventoryCheckStrategy strategy = strategyMap.get(item.getCategory().name());
+            if (ValidationUtils.isNull(strategy)) {
+                continue;
+            }
+            productShardExecutor.submit(item.getProductId(), () -> {
+                strategy.release(item.getProductId(), item.getQuantity(), orderId);
+                return null;
+            }).whenComplete((ignored, error) -> {
+                if (ValidationUtils.isNotNull(error)) {
+                    log.error("Failed to release stock for product {} of order {}: {}",
+                            item.getProductId(), orderId, error.getMessage());
+                }
+            });
+        }
+    }
+
+    /**
+     * ביטול מלא של הקצאת מלאי להזמנה (למשל לאחר ביטול טרנזקציה)
+     * אם קיימת שמירה היא נסגרת ללא ספירה כשחרור; אחרת הפריטים מוחזרים ישירות
+     *
+     * @param orderId מזהה ההזמנה
+     * @param items   הפריטים שהמלאי שלהם הופחת
+     */
+    public void rollback(String orderId, List<OrderItem> items) {
+        if (running) {
+            ReservationHold hold = closeHold(orderId);
+            if (ValidationUtils.isNotNull(hold)) {
+                releaseStock(orderId, hold.items());
+            }
+            return;
+        }
+        releaseStock(orderId, items);
+    }
+
+    /**
+     * מצב השמירות הנוכחי
+     *
+     * @return מפה עם מספר השמירות, הכמות השמורה והמלאי הפנוי
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", running);
+        status.put("activeHolds", holds.size());
+        status.put("heldStock", heldQuantity.get());
+        status.put("freeStock", getFreeStock());
+        status.put("ttlMs", ttlMs);
+        status.put("confirmed", (long) confirmedCounter.count());
+        status.put("released", (long) releasedCounter.count());
+        status.put("expired", (long) expiredCounter.count());
+        return status;
+    }
+
+    /**
+     * הסרה אטומית של שמירה פתוחה וביטול הפקיעה שלה
+     * ההסרה מהמפה היא נקודת ההכרעה בין אישור, שחרור ופקיעה מקבילים
+     */
+    private ReservationHold closeHold(String orderId) {
+        if (!running || ValidationUtils.isEmpty(orderId)) {
+            return null;
+        }
+        ReservationHold hold = holds.remove(orderId);
+        if (ValidationUtils.isNull(hold)) {
+            return null;
+        }
+        heldQuantity.addAndGet(-hold.quantity());
+        stockLedger.appendHoldClosed(orderId, hold.ledgerId());
+        cancelExpiry(hold);
+        return hold;
+    }
+
+    /**
+     * שליחת פקודת תזמון לתהליכון ה-tick, עם המתנה של enqueue-timeout-ms לכל היותר כשהתור מלא
+     *
+     * @return false אם התור נשאר מלא
+     */
+    private boolean enqueue(HoldCommand command) {
+        if (commands.offer(command)) {
+            return true;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(enqueueTimeoutMs);
+        do {
+            LockSupport.unpark(tickerThread);
+            LockSupport.parkNanos(this, ENQUEUE_RETRY_NANOS);
+            if (commands.offer(command)) {
+                return true;
+            }
+        } while (System.nanoTime() < deadline);
+        return false;
+    }
+
+    /**
+     * ביטול הפקיעה של שמירה שכבר הוסרה מהמפה - ללא המתנה
+     * אם התור מלא הביטול מוותר: הפקיעה תגיע בזמנה ולא תמצא את השמירה במפה
+     */
+    private void cancelExpiry(ReservationHold hold) {
+        if (!commands.offer(new HoldCommand(hold, false))) {
+            log.debug("Hold command queue full - expiry of order {} left to lapse", hold.orderId());
+        }
+    }
+
+    /**
+     * לולאת תהליכון ה-tick - החלת פקודות וקידום גלגל הזמן
+     */
+    private void tickLoop() {
+        long tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMs);
+
+        while (running) {
+            try {
+                commands.drain(command -> {
+                    if (command.schedule()) {
+                        timeouts.put(command.hold(), timingWheel.schedule(command.hold(), command.hold().expiresAt()));
+                    } else {
+                        timingWheel.cancel(timeouts.remove(command.hold()));
+                    }
+                }, COMMAND_DRAIN_LIMIT);
+
+                timingWheel.advance(System.currentTimeMillis(), hold -> {
+                    timeouts.remove(hold);
+                    expire(hold);
+                });
+                LockSupport.parkNanos(this, tickNanos);
+            } catch (Exception e) {
+                log.error("Reservation hold ticker failed: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * פקיעת שמירה - משחררת את המלאי רק אם השמירה עדיין פתוחה
+     */
+    private void expire(ReservationHold hold) {
+        if (!holds.remove(hold.orderId(), hold)) {
+            return;
+        }
+        heldQuantity.addAndGet(-hold.quantity());
+        stockLedger.appendHoldClosed(hold.orderId(), hold.ledgerId());
+        releaseStock(hold.orderId(), hold.items());
+        expiredCounter.increment();
+        log.info("Reservation hold expired - Order: {}, Quantity: {}", hold.orderId(), hold.quantity());
+    }
+
+    private long getFreeStock() {
+        long total = 0;
+        for (InventoryCheckStrategy strategy : strategyMap.values()) {
+            total += strategy.getFreeStock();
+        }
+        return total;
+    }
+
+    private Counter holdsCounter(String outcome) {
+        return Counter.builder("inventory.holds.completed")
+                .description("Reservation holds closed by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * שמירה פתוחה של הזמנה
+     *
+     * @param orderId   מזהה ההזמנה
+     * @param items     הפריטים השמורים
+     * @param quantity  סך הכמות השמורה
+     * @param expiresAt מועד הפקיעה במילישניות
+     * @param ledgerId  מזהה השמירה ביומן המלאי
+     */
+    private record ReservationHold(String orderId, List<OrderItem> items, long quantity, long expiresAt, long ledgerId) {
+    }
+
+    /**
+     * פקודה לתהליכון ה-tick
+     *
+     * @param hold     השמירה
+     * @param schedule true לתזמון פקיעה, false לביטולה
+     */
+    private record HoldCommand(ReservationHold hold, boolean schedule) {
+    }
+}
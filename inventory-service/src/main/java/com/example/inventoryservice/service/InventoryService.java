@@ -2,18 +2,34 @@ package com.example.inventoryservice.service;
 
 import com.example.common.events.InventoryCheckResultEvent;
 import com.example.common.events.OrderCreatedEvent;
+import com.example.common.lifecycle.OrderLifecycle;
+import com.example.common.lifecycle.OrderLifecycleMetrics;
+import com.example.common.lifecycle.OrderTimeline;
 import com.example.common.models.OrderItem;
+import com.example.common.transport.EventBus;
 import com.example.common.utils.ValidationUtils;
+import com.example.inventoryservice.reservation.ReservationHoldManager;
+import com.example.inventoryservice.shard.ProductShardExecutor;
 import com.example.inventoryservice.strategy.InventoryCheckStrategy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -28,8 +44,19 @@ public class InventoryService {
 
     private final List<InventoryCheckStrategy> inventoryStrategies;
     private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final EventBus eventBus;
+    private final ProductShardExecutor productShardExecutor;
+    private final ReservationHoldManager reservationHoldManager;
+    private final OrderLifecycleMetrics lifecycleMetrics;
+    private final OrderTimeline orderTimeline;
     private static final String INVENTORY_CHECK_RESULT_TOPIC = "inventory-check-result";
 
+    @Value("${inventory.batch.publish-timeout-ms:10000}")
+    private long batchPublishTimeoutMs;
+
+    @Value("${inventory.shards.join-timeout-ms:5000}")
+    private long shardJoinTimeoutMs;
+
     /**
      * מאגר לאחסון אסטרטגיות לפי קטגוריה
      * נוצר דינמית בעת אתחול השירות
@@ -58,6 +85,19 @@ public class InventoryService {
      * @param orderCreatedEvent אירוע יצירת הזמנה
      */
     public void checkInventory(OrderCreatedEvent orderCreatedEvent) {
+        checkInventory(orderCreatedEvent, OrderLifecycle.EMPTY);
+    }
+
+    /**
+     * בדיקת זמינות עבור הזמנה, עם חותמות מחזור החיים שהגיעו באירוע
+     * נמדדים הקטעים create-to-inventory (עד תחילת הבדיקה) ו-inventory-processing (עד פרסום התוצאה),
+     * והחותמות מועברות הלאה ב-headers של התוצאה
+     *
+     * @param orderCreatedEvent אירוע יצירת הזמנה
+     * @param lifecycle         חותמות מחזור החיים; זמן יצירה חסר נלקח מהאירוע
+     */
+    public void checkInventory(OrderCreatedEvent orderCreatedEvent, OrderLifecycle lifecycle) {
+        long receivedAt = System.currentTimeMillis();
         log.info("Inventory check started for order: {} - Customer: {}, Items: {}", 
                 orderCreatedEvent.getOrderId(), orderCreatedEvent.getCustomerName(), 
                 ValidationUtils.isNotEmpty(orderCreatedEvent.getItems()) ? orderCreatedEvent.getItems().size() : 0);
@@ -72,6 +112,9 @@ public class InventoryService {
             return;
         }
 
+        lifecycle = lifecycle.orCreatedAt(orderCreatedEvent.getRequestDateTime()).withInventoryReceivedAt(receivedAt);
+        lifecycleMetrics.record(OrderLifecycleMetrics.HOP_CREATE_TO_INVENTORY, lifecycle.getCreatedAt(), receivedAt);
+
         log.info("=== INITIALIZING INVENTORY STRATEGIES ===");
         initializeStrategies();
         log.info("Inventory strategies initialized successfully");
@@ -86,20 +129,21 @@ public class InventoryService {
                 allItemsAvailable = false;
             } else {
                 log.info("=== CHECKING INDIVIDUAL ITEMS ===");
-                for (OrderItem item : orderCreatedEvent.getItems()) {
-                    log.info("Checking item - Product ID: {}, Quantity: {}, Category: {}",
-                            item.getProductId(), item.getQuantity(), item.getCategory());
-
-                    boolean itemAvailable = isItemAvailable(item);
+                List<OrderItem> items = orderCreatedEvent.getItems();
+                boolean[] itemResults = evaluateItems(orderCreatedEvent.getOrderId(), items);
+                for (int i = 0; i < items.size(); i++) {
+                    OrderItem item = items.get(i);
+                    boolean itemAvailable = itemResults[i];
                     log.info("Item availability result - Product ID: {}, Available: {}",
-                            item.getProductId(), itemAvailable);
+                            ValidationUtils.isNotNull(item) ? item.getProductId() : null, itemAvailable);
 
                     if (!itemAvailable) {
-                        unavailableItems.add(item.getProductId());
+                        unavailableItems.add(ValidationUtils.isNotNull(item) ? item.getProductId() : null);
                         allItemsAvailable = false;
-                        log.warn("Item unavailable - Product ID: {}", item.getProductId());
+                        log.warn("Item unavailable - Product ID: {}", ValidationUtils.isNotNull(item) ? item.getProductId() : null);
                     }
                 }
+                applyReservation(orderCreatedEvent.getOrderId(), items, itemResults, allItemsAvailable);
             }
         } catch (Exception e) {
             log.error("=== ERROR DURING INVENTORY CHECK ===");
@@ -121,7 +165,87 @@ public class InventoryService {
         if (ValidationUtils.hasText(errorMessage)) {
             log.error("Error Message: {}", errorMessage);
         }
-        publishInventoryCheckResult(orderCreatedEvent, allItemsAvailable, unavailableItems, errorMessage);
+        publishInventoryCheckResult(orderCreatedEvent, allItemsAvailable, unavailableItems, errorMessage,
+                decided(orderCreatedEvent.getOrderId(), lifecycle));
+    }
+
+    /**
+     * בדיקת זמינות כל פריטי ההזמנה
+     * כאשר ה-shards פעילים ההזמנה מפוצלת לתת-בקשות לפי shard, כל אחת רצה
+     * על תהליכון ה-shard של המוצרים שלה, והתוצאות מאוחדות לאחר סיום כולן
+     *
+     * @param orderId מזהה ההזמנה
+     * @param items   פריטי ההזמנה
+     * @return תוצאת זמינות לכל פריט לפי סדר הפריטים
+     */
+    private boolean[] evaluateItems(String orderId, List<OrderItem> items) {
+        boolean[] results = new boolean[items.size()];
+        if (!productShardExecutor.isEnabled()) {
+            for (int i = 0; i < items.size(); i++) {
+                results[i] = isItemAvailable(items.get(i));
+            }
+            return results;
+        }
+
+        Map<Integer, List<Integer>> itemIndexesByShard = new HashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            OrderItem item = items.get(i);
+            int shard = productShardExecutor.shardFor(ValidationUtils.isNotNull(item) ? item.getProductId() : null);
+            itemIndexesByShard.computeIfAbsent(shard, key -> new ArrayList<>()).add(i);
+        }
+
+        AtomicBoolean abandoned = new AtomicBoolean();
+        List<CompletableFuture<Map<String, List<OrderItem>>>> futures = new ArrayList<>(itemIndexesByShard.size());
+        itemIndexesByShard.forEach((shard, indexes) -> futures.add(productShardExecutor.submitToShard(shard, () -> {
+            List<OrderItem> reserved = new ArrayList<>();
+            for (int index : indexes) {
+                if (abandoned.get()) {
+                    break;
+                }
+                OrderItem item = items.get(index);
+                results[index] = isItemAvailable(item);
+                if (results[index] && reservesStock(item)) {
+                    reserved.add(item);
+                }
+            }
+            return reserved.isEmpty() ? Map.of() : Map.of(orderId, reserved);
+        })));
+        joinShards(futures, abandoned);
+        return results;
+    }
+
+    /**
+     * המתנה לסיום כל תת-הבקשות שנשלחו ל-shards
+     * כשההמתנה נכשלת (למשל timeout) ההזמנות נדחות, ולכן תת-בקשות שטרם רצו מדלגות על הפריטים שלהן
+     * וכל המלאי שתת-הבקשות הפחיתו - לפני הכשל או אחריו - מוחזר כשהן מסתיימות
+     *
+     * @param futures   תת-הבקשות; כל אחת מחזירה את הפריטים שהמלאי שלהם הופחת, לפי מזהה הזמנה
+     * @param abandoned מסומן בכשל כדי שתת-בקשות שטרם רצו לא יפחיתו מלאי
+     */
+    private void joinShards(List<CompletableFuture<Map<String, List<OrderItem>>>> futures, AtomicBoolean abandoned) {
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                    .get(shardJoinTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abandonShards(futures, abandoned);
+            throw new IllegalStateException("Interrupted while waiting for inventory shards", e);
+        } catch (Exception e) {
+            abandonShards(futures, abandoned);
+            throw new IllegalStateException("Inventory shard processing failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * החזרת המלאי של תת-בקשות שההמתנה להן נכשלה
+     * ההחזרה רצה מחוץ לתהליכוני ה-shards, כדי ש-shard לא ימתין לתור של עצמו
+     */
+    private void abandonShards(List<CompletableFuture<Map<String, List<OrderItem>>>> futures, AtomicBoolean abandoned) {
+        abandoned.set(true);
+        futures.forEach(future -> future.thenAcceptAsync(reserved -> reserved.forEach((orderId, items) -> {
+            log.warn("Returning stock reserved by abandoned shard work - Order: {}, Items: {}", orderId, items.size());
+            reservationHoldManager.releaseStock(orderId, items);
+        })));
     }
 
     /**
@@ -167,17 +291,462 @@ public class InventoryService {
         }
     }
 
+    /**
+     * טיפול במלאי שהופחת עבור הזמנה
+     * הזמנה שאושרה מחזיקה את המלאי בשמירה עם תפוגה; בהזמנה שנדחתה
+     * המלאי שכבר הופחת עבור פריטים זמינים מוחזר מיד
+     *
+     * @param orderId     מזהה ההזמנה
+     * @param items       פריטי ההזמנה
+     * @param itemResults תוצאת הזמינות לכל פריט
+     * @param approved    האם ההזמנה אושרה
+     * @return הפריטים שהמלאי שלהם נשאר מופחת עבור ההזמנה
+     */
+    private List<OrderItem> applyReservation(String orderId, List<OrderItem> items, boolean[] itemResults, boolean approved) {
+        List<OrderItem> reservedItems = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            if (itemResults[i] && reservesStock(items.get(i))) {
+                reservedItems.add(items.get(i));
+            }
+        }
+        if (reservedItems.isEmpty() || !reservationHoldManager.isEnabled()) {
+            return reservedItems;
+        }
+
+        if (approved) {
+            reservationHoldManager.hold(orderId, reservedItems);
+            return reservedItems;
+        }
+        log.info("Returning reserved stock of rejected order: {} - Items: {}", orderId, reservedItems.size());
+        reservationHoldManager.releaseStock(orderId, reservedItems);
+        return List.of();
+    }
+
+    /**
+     * @param item פריט שנמצא זמין
+     * @return true אם האסטרטגיה של הפריט מפחיתה מלאי כשהוא זמין
+     */
+    private boolean reservesStock(OrderItem item) {
+        if (ValidationUtils.isNull(item) || ValidationUtils.isNull(item.getCategory())) {
+            return false;
+        }
+        InventoryCheckStrategy strategy = strategyMap.get(item.getCategory().name());
+        return ValidationUtils.isNotNull(strategy) && strategy.tracksStock();
+    }
+
+    /**
+     * שליפת מצב המלאי של מוצר מכל האסטרטגיות שמכירות אותו
+     * נקרא מהזיכרון בלבד, ללא Kafka וללא שינוי מלאי
+     *
+     * @param productId מזהה המוצר
+     * @return פרטי המלאי לפי קטגוריה, מפה ריקה אם המוצר לא מוכר
+     */
+    public Map<String, Object> getProductInventory(String productId) {
+        if (ValidationUtils.isEmpty(productId)) {
+            throw new IllegalArgumentException("Product ID cannot be empty");
+        }
+
+        initializeStrategies();
+        Map<String, Object> categories = new LinkedHashMap<>();
+        strategyMap.forEach((categoryType, strategy) -> {
+            Map<String, Object> productInventory = strategy.getProductInventory(productId);
+            if (!productInventory.isEmpty()) {
+                categories.put(categoryType, productInventory);
+            }
+        });
+        return categories;
+    }
+
+    /**
+     * בדיקת זמינות מרוכזת ללא שמירת מלאי (dry-run)
+     * כמויות של אותו מוצר מצטברות כך שעגלה עם שורות כפולות נבדקת כראוי.
+     * הבדיקה משתמשת באותן אסטרטגיות כמו עיבוד הזמנות, במצב שאינו מוריד מלאי
+     *
+     * @param items הפריטים לבדיקה
+     * @return תוצאה כוללת, תוצאה לכל פריט ורשימת מוצרים שאינם זמינים
+     * @throws IllegalArgumentException אם הרשימה ריקה או שפריט חסר מוצר, קטגוריה או כמות חיובית
+     */
+    public Map<String, Object> checkAvailability(List<OrderItem> items) {
+        if (ValidationUtils.isEmpty(items)) {
+            throw new IllegalArgumentException("Items list cannot be empty");
+        }
+        for (int i = 0; i < items.size(); i++) {
+            validateAvailabilityItem(i, items.get(i));
+        }
+
+        initializeStrategies();
+        Map<String, Integer> totalQuantityByProduct = new HashMap<>();
+        for (OrderItem item : items) {
+            totalQuantityByProduct.merge(item.getCategory().name() + ":" + item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+
+        Map<String, Boolean> availabilityByProduct = new HashMap<>();
+        List<Map<String, Object>> itemResults = new ArrayList<>(items.size());
+        List<String> unavailableItems = new ArrayList<>();
+        for (OrderItem item : items) {
+            String productKey = item.getCategory().name() + ":" + item.getProductId();
+            boolean available = availabilityByProduct.computeIfAbsent(productKey, key -> isItemAvailableDryRun(
+                    new OrderItem(item.getProductId(), totalQuantityByProduct.get(key), item.getCategory())));
+
+            Map<String, Object> itemResult = new LinkedHashMap<>();
+            itemResult.put("productId", item.getProductId());
+            itemResult.put("category", item.getCategory());
+            itemResult.put("quantity", item.getQuantity());
+            itemResult.put("available", available);
+            itemResults.add(itemResult);
+            if (!available) {
+                unavailableItems.add(item.getProductId());
+            }
+        }
+
+        log.debug("Availability check - Items: {}, Unavailable: {}", items.size(), unavailableItems.size());
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("available", unavailableItems.isEmpty());
+        result.put("items", itemResults);
+        result.put("unavailableItems", unavailableItems);
+        return result;
+    }
+
+    /**
+     * אימות פריט בבדיקת זמינות מרוכזת, לפני צבירת הכמויות
+     *
+     * @param index מיקום הפריט בבקשה
+     * @param item  הפריט
+     */
+    private void validateAvailabilityItem(int index, OrderItem item) {
+        if (ValidationUtils.isNull(item)) {
+            throw new IllegalArgumentException("Item " + index + " cannot be null");
+        }
+        if (ValidationUtils.isEmpty(item.getProductId())) {
+            throw new IllegalArgumentException("Product ID of item " + index + " cannot be empty");
+        }
+        if (ValidationUtils.isNull(item.getCategory())) {
+            throw new IllegalArgumentException("Category of product " + item.getProductId() + " cannot be null");
+        }
+        if (!ValidationUtils.isPositive(item.getQuantity())) {
+            throw new IllegalArgumentException("Quantity of product " + item.getProductId() + " must be positive");
+        }
+    }
+
+    /**
+     * בדיקת זמינות פריט יחיד ללא שמירת מלאי
+     *
+     * @param item הפריט לבדיקה, עם הכמות המצטברת של המוצר
+     * @return true אם הפריט זמין, false אחרת
+     */
+    private boolean isItemAvailableDryRun(OrderItem item) {
+        InventoryCheckStrategy strategy = strategyMap.get(item.getCategory().name());
+        if (ValidationUtils.isNull(strategy)) {
+            log.warn("No strategy found for category: {} for product: {}", item.getCategory(), item.getProductId());
+            return false;
+        }
+        try {
+            return strategy.checkAvailability(item);
+        } catch (Exception e) {
+            log.error("Error checking availability for product {}: {}", item.getProductId(), e.getMessage());
+            return false;
+        }
+    }
+
     /**
      * פרסום תוצאות בדיקת מלאי
-     * שולחת אירוע עם תוצאות הבדיקה לכל המעוניינים
+     * שולחת אירוע עם תוצאות הבדיקה לכל המעוניינים דרך ה-EventBus (לפי events.transport)
+     *
+     * @param orderCreatedEvent האירוע המקורי
+     * @param approved          האם ההזמנה אושרה
+     * @param unavailableItems  רשימת מוצרים שאינם זמינים
+     * @param errorMessage      הודעת שגיאה במידה וקיימת
+     * @param lifecycle         חותמות מחזור החיים, ל-headers של התוצאה
+     */
+    private void publishInventoryCheckResult(OrderCreatedEvent orderCreatedEvent, boolean approved, List<String> unavailableItems,
+                                             String errorMessage, OrderLifecycle lifecycle) {
+        InventoryCheckResultEvent resultEvent = buildResultEvent(orderCreatedEvent, approved, unavailableItems, errorMessage);
+
+        try {
+            eventBus.publish(INVENTORY_CHECK_RESULT_TOPIC, orderCreatedEvent.getOrderId(), resultEvent, lifecycle.toHeaders())
+                    .whenComplete((result, error) -> {
+                        if (error != null) {
+                            log.error("Failed to publish inventory check result for order {} via {}: {}",
+                                    orderCreatedEvent.getOrderId(), eventBus.transport(), error.getMessage());
+                        }
+                    });
+            log.info("Inventory check result published for order: {}. Approved: {}, Unavailable items: {}", orderCreatedEvent.getOrderId(), approved, unavailableItems.size());
+        } catch (Exception e) {
+            log.error("Error publishing inventory check result for order {}: {}", orderCreatedEvent.getOrderId(), e.getMessage());
+        }
+    }
+
+    /**
+     * בדיקת מלאי עבור באץ' של הזמנות שהתקבלו ב-poll אחד
+     * הפריטים מקובצים לפי מוצר כך שהמלאי של כל מוצר נבדק ומתעדכן פעם אחת,
+     * תוך שמירה על סדר הגעת ההזמנות לטובת הוגנות בהקצאה.
+     * כל התוצאות נשלחות כבאץ' אחד ל-Kafka, והמתודה חוזרת רק לאחר אישור השליחה
+     * כך שה-offsets נשמרים רק עבור תוצאות שפורסמו בפועל; כשל בשליחה מחזיר קודם את המלאי שהופחת
+     *
+     * @param orderCreatedEvents אירועי יצירת הזמנה לפי סדר הגעתם
+     * @param lifecycles         חותמות מחזור החיים של כל אירוע, באותו סדר
+     */
+    public void checkInventoryBatch(List<OrderCreatedEvent> orderCreatedEvents, List<OrderLifecycle> lifecycles) {
+        if (ValidationUtils.isEmpty(orderCreatedEvents)) {
+            log.debug("Empty order batch received - nothing to check");
+            return;
+        }
+
+        long receivedAt = System.currentTimeMillis();
+        List<OrderLifecycle> received = new ArrayList<>(orderCreatedEvents.size());
+        for (int i = 0; i < orderCreatedEvents.size(); i++) {
+            OrderLifecycle lifecycle = lifecycles.get(i).orCreatedAt(orderCreatedEvents.get(i).getRequestDateTime())
+                    .withInventoryReceivedAt(receivedAt);
+            lifecycleMetrics.record(OrderLifecycleMetrics.HOP_CREATE_TO_INVENTORY, lifecycle.getCreatedAt(), receivedAt);
+            received.add(lifecycle);
+        }
+
+        initializeStrategies();
+        Map<String, List<OrderItem>> reservedStock = new HashMap<>();
+        List<InventoryCheckResultEvent> resultEvents = evaluateBatch(orderCreatedEvents, reservedStock);
+        registerRollbackCompensation(reservedStock);
+        List<OrderLifecycle> decided = new ArrayList<>(resultEvents.size());
+        for (int i = 0; i < resultEvents.size(); i++) {
+            decided.add(decided(resultEvents.get(i).getOrderId(), received.get(i)));
+        }
+        try {
+            publishInventoryCheckResults(resultEvents, decided);
+        } catch (RuntimeException e) {
+            releaseBeforeReplay(reservedStock);
+            throw e;
+        }
+    }
+
+    /**
+     * החזרת המלאי שהופחת בבאץ' לפני שה-error handler קורא אותו מחדש
+     * ללא טרנזקציה, כשל בפרסום התוצאות גורם לקריאה חוזרת של כל הבאץ' ולהפחתה נוספת של אותו מלאי.
+     * בטרנזקציה ההחזרה נעשית בביטול הטרנזקציה (registerRollbackCompensation)
+     *
+     * @param reservedStock הפריטים שהמלאי שלהם הופחת, לפי מזהה הזמנה
+     */
+    private void releaseBeforeReplay(Map<String, List<OrderItem>> reservedStock) {
+        if (reservedStock.isEmpty() || TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        log.warn("Inventory results batch not published - Returning reserved stock of {} orders before replay", reservedStock.size());
+        reservedStock.forEach(reservationHoldManager::rollback);
+    }
+
+    /**
+     * סיום הקטע inventory-processing ורישום נקודות הזמן של שירות המלאי בציר הזמן של ההזמנה
+     *
+     * @param orderId   מזהה ההזמנה
+     * @param lifecycle חותמות מחזור החיים עם זמן הקבלה
+     * @return החותמות עם זמן ההחלטה
+     */
+    private OrderLifecycle decided(String orderId, OrderLifecycle lifecycle) {
+        long decidedAt = System.currentTimeMillis();
+        lifecycleMetrics.record(OrderLifecycleMetrics.HOP_INVENTORY_PROCESSING, lifecycle.getInventoryReceivedAt(), decidedAt);
+        orderTimeline.mark(orderId, Map.of(
+                OrderTimeline.INVENTORY_RECEIVED, lifecycle.getInventoryReceivedAt(),
+                OrderTimeline.INVENTORY_DECIDED, decidedAt));
+        return lifecycle.withInventoryDecidedAt(decidedAt);
+    }
+
+    /**
+     * רישום פיצוי מלאי לביטול טרנזקציה
+     * כאשר הבאץ' רץ בטרנזקציית Kafka, ביטול הטרנזקציה גורם לקריאה חוזרת של אותן הזמנות.
+     * כדי שהקריאה החוזרת לא תוריד מלאי פעמיים, המלאי שהופחת בבאץ' מוחזר לפני כן.
+     * כשתוצאת ה-commit אינה ידועה ייתכן שהתוצאות המאושרות כבר פורסמו, ולכן המלאי אינו מוחזר
+     * והשמירות נסגרות באישור או בפקיעה
+     *
+     * @param reservedStock הפריטים שהמלאי שלהם הופחת, לפי מזהה הזמנה
+     */
+    private void registerRollbackCompensation(Map<String, List<OrderItem>> reservedStock) {
+        if (reservedStock.isEmpty() || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_UNKNOWN) {
+                    log.error("Inventory transaction outcome unknown - Keeping reserved stock of {} orders until their holds close: {}",
+                            reservedStock.size(), reservedStock.keySet());
+                    return;
+                }
+                if (status != STATUS_ROLLED_BACK) {
+                    return;
+                }
+                log.warn("Inventory transaction rolled back - Returning reserved stock of {} orders", reservedStock.size());
+                reservedStock.forEach(reservationHoldManager::rollback);
+            }
+        });
+    }
+
+    /**
+     * חישוב תוצאות בדיקת המלאי עבור באץ' של הזמנות
+     *
+     * @param orderCreatedEvents אירועי יצירת הזמנה לפי סדר הגעתם
+     * @param reservedStock      מתמלא בפריטים שהמלאי שלהם נשאר מופחת, לפי מזהה הזמנה
+     * @return אירועי תוצאה לפי סדר ההזמנות
+     */
+    private List<InventoryCheckResultEvent> evaluateBatch(List<OrderCreatedEvent> orderCreatedEvents,
+                                                          Map<String, List<OrderItem>> reservedStock) {
+        int orderCount = orderCreatedEvents.size();
+        boolean[][] itemResults = new boolean[orderCount][];
+        String[] errorMessages = new String[orderCount];
+        Map<String, List<ItemDemand>> demandByProduct = new LinkedHashMap<>();
+
+        for (int orderIndex = 0; orderIndex < orderCount; orderIndex++) {
+            OrderCreatedEvent event = orderCreatedEvents.get(orderIndex);
+            List<OrderItem> items = event.getItems();
+            if (ValidationUtils.isEmpty(items)) {
+                itemResults[orderIndex] = new boolean[0];
+                errorMessages[orderIndex] = "Order has no items";
+                continue;
+            }
+
+            itemResults[orderIndex] = new boolean[items.size()];
+            for (int itemIndex = 0; itemIndex < items.size(); itemIndex++) {
+                OrderItem item = items.get(itemIndex);
+                if (ValidationUtils.isNull(item) || ValidationUtils.isEmpty(item.getProductId())
+                        || ValidationUtils.isNull(item.getCategory())) {
+                    log.error("Invalid item in order {}: {}", event.getOrderId(), item);
+                    continue;
+                }
+                String productKey = item.getCategory().name() + ":" + item.getProductId();
+                demandByProduct.computeIfAbsent(productKey, key -> new ArrayList<>())
+                        .add(new ItemDemand(orderIndex, itemIndex, item));
+            }
+        }
+
+        log.info("Batch inventory check - Orders: {}, Distinct products: {}", orderCount, demandByProduct.size());
+
+        if (productShardExecutor.isEnabled()) {
+            Map<Integer, List<List<ItemDemand>>> demandsByShard = new HashMap<>();
+            demandByProduct.values().forEach(demands -> demandsByShard
+                    .computeIfAbsent(productShardExecutor.shardFor(demands.get(0).item().getProductId()), key -> new ArrayList<>())
+                    .add(demands));
+
+            AtomicBoolean abandoned = new AtomicBoolean();
+            List<CompletableFuture<Map<String, List<OrderItem>>>> futures = new ArrayList<>(demandsByShard.size());
+            demandsByShard.forEach((shard, productDemands) -> futures.add(productShardExecutor.submitToShard(shard, () -> {
+                Map<String, List<OrderItem>> reserved = new HashMap<>();
+                for (List<ItemDemand> demands : productDemands) {
+                    if (abandoned.get()) {
+                        break;
+                    }
+                    allocateProduct(demands, itemResults);
+                    for (ItemDemand demand : demands) {
+                        if (itemResults[demand.orderIndex()][demand.itemIndex()] && reservesStock(demand.item())) {
+                            reserved.computeIfAbsent(orderCreatedEvents.get(demand.orderIndex()).getOrderId(),
+                                    key -> new ArrayList<>()).add(demand.item());
+                        }
+                    }
+                }
+                return reserved;
+            })));
+            joinShards(futures, abandoned);
+        } else {
+            demandByProduct.values().forEach(demands -> allocateProduct(demands, itemResults));
+        }
+
+        List<InventoryCheckResultEvent> resultEvents = new ArrayList<>(orderCount);
+        for (int orderIndex = 0; orderIndex < orderCount; orderIndex++) {
+            OrderCreatedEvent event = orderCreatedEvents.get(orderIndex);
+            List<String> unavailableItems = new ArrayList<>();
+            boolean[] results = itemResults[orderIndex];
+            for (int itemIndex = 0; itemIndex < results.length; itemIndex++) {
+                if (!results[itemIndex]) {
+                    OrderItem item = event.getItems().get(itemIndex);
+                    unavailableItems.add(ValidationUtils.isNotNull(item) ? item.getProductId() : null);
+                }
+            }
+            boolean approved = ValidationUtils.isEmpty(errorMessages[orderIndex]) && unavailableItems.isEmpty();
+            if (ValidationUtils.isNotEmpty(event.getItems())) {
+                try {
+                    List<OrderItem> reservedItems = applyReservation(event.getOrderId(), event.getItems(), results, approved);
+                    if (!reservedItems.isEmpty()) {
+                        reservedStock.put(event.getOrderId(), reservedItems);
+                    }
+                } catch (IllegalStateException e) {
+                    // השמירה נכשלה והמלאי כבר הוחזר - ההזמנה נדחית
+                    log.error("Failed to hold stock for order {}: {}", event.getOrderId(), e.getMessage());
+                    approved = false;
+                    errorMessages[orderIndex] = "Error during inventory check: " + e.getMessage();
+                }
+            }
+            resultEvents.add(buildResultEvent(event, approved, unavailableItems, errorMessages[orderIndex]));
+        }
+        return resultEvents;
+    }
+
+    /**
+     * הקצאת מלאי עבור כל הביקושים של מוצר אחד בבאץ'
+     *
+     * @param demands     הביקושים למוצר לפי סדר הגעתם
+     * @param itemResults מערך התוצאות לעדכון
+     */
+    private void allocateProduct(List<ItemDemand> demands, boolean[][] itemResults) {
+        OrderItem firstItem = demands.get(0).item();
+        InventoryCheckStrategy strategy = strategyMap.get(firstItem.getCategory().name());
+        if (ValidationUtils.isNull(strategy)) {
+            log.error("No strategy found for category: {} for product: {}",
+                    firstItem.getCategory(), firstItem.getProductId());
+            return;
+        }
+
+        List<OrderItem> items = new ArrayList<>(demands.size());
+        demands.forEach(demand -> items.add(demand.item()));
+        try {
+            List<Boolean> available = strategy.isAvailableBatch(items);
+            for (int i = 0; i < demands.size(); i++) {
+                ItemDemand demand = demands.get(i);
+                itemResults[demand.orderIndex()][demand.itemIndex()] = available.get(i);
+            }
+        } catch (Exception e) {
+            log.error("Error checking batch availability for product {}: {}", firstItem.getProductId(), e.getMessage());
+        }
+    }
+
+    /**
+     * פרסום תוצאות בדיקת מלאי כבאץ' אחד
+     * כל ההודעות נשלחות ללא המתנה, ה-producer מרוקן פעם אחת ואז ממתינים לאישור כולן.
+     * כשל בשליחה זורק חריגה כדי שה-offsets של הבאץ' לא יישמרו
+     *
+     * @param resultEvents אירועי התוצאה לפרסום
+     * @param lifecycles   חותמות מחזור החיים של כל תוצאה, ל-headers
+     */
+    private void publishInventoryCheckResults(List<InventoryCheckResultEvent> resultEvents, List<OrderLifecycle> lifecycles) {
+        List<CompletableFuture<SendResult<String, Object>>> futures = new ArrayList<>(resultEvents.size());
+        for (int i = 0; i < resultEvents.size(); i++) {
+            InventoryCheckResultEvent resultEvent = resultEvents.get(i);
+            ProducerRecord<String, Object> record = new ProducerRecord<>(INVENTORY_CHECK_RESULT_TOPIC, resultEvent.getOrderId(), resultEvent);
+            lifecycles.get(i).toHeaders().forEach((name, value) -> record.headers().add(name, value));
+            futures.add(kafkaTemplate.send(record));
+        }
+        kafkaTemplate.flush();
+
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                    .get(batchPublishTimeoutMs, TimeUnit.MILLISECONDS);
+            log.info("Inventory check results published as batch - Count: {}, Approved: {}",
+                    resultEvents.size(), resultEvents.stream().filter(InventoryCheckResultEvent::isApproved).count());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while publishing inventory check results batch", e);
+        } catch (Exception e) {
+            log.error("Error publishing inventory check results batch of {} events: {}", resultEvents.size(), e.getMessage());
+            throw new IllegalStateException("Failed to publish inventory check results batch", e);
+        }
+    }
+
+    /**
+     * יצירת אירוע תוצאת בדיקת מלאי
      *
      * @param orderCreatedEvent האירוע המקורי
      * @param approved          האם ההזמנה אושרה
      * @param unavailableItems  רשימת מוצרים שאינם זמינים
      * @param errorMessage      הודעת שגיאה במידה וקיימת
+     * @return אירוע התוצאה
      */
-    private void publishInventoryCheckResult(OrderCreatedEvent orderCreatedEvent, boolean approved, List<String> unavailableItems, String errorMessage) {
-        InventoryCheckResultEvent resultEvent = new InventoryCheckResultEvent(
+    private InventoryCheckResultEvent buildResultEvent(OrderCreatedEvent orderCreatedEvent, boolean approved, List<String> unavailableItems, String errorMessage) {
+        return new InventoryCheckResultEvent(
                 orderCreatedEvent.getOrderId(),
                 approved,
                 unavailableItems,
@@ -185,12 +754,15 @@ public class InventoryService {
                 LocalDateTime.now(),
                 orderCreatedEvent.getCustomerName()
         );
+    }
 
-        try {
-            kafkaTemplate.send(INVENTORY_CHECK_RESULT_TOPIC, orderCreatedEvent.getOrderId(), resultEvent);
-            log.info("Inventory check result published for order: {}. Approved: {}, Unavailable items: {}", orderCreatedEvent.getOrderId(), approved, unavailableItems.size());
-        } catch (Exception e) {
-            log.error("Error publishing inventory check result for order {}: {}", orderCreatedEvent.getOrderId(), e.getMessage());
-        }
+    /**
+     * ביקוש של פריט בודד בתוך באץ'
+     *
+     * @param orderIndex מיקום ההזמנה בבאץ'
+     * @param itemIndex  מיקום הפריט בהזמנה
+     * @param item       הפריט
+     */
+    private record ItemDemand(int orderIndex, int itemIndex, OrderItem item) {
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,201 @@
+package com.example.inventoryservice.shard;
+
+import com.example.common.concurrent.MpscRingBuffer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.utils.Utils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * מריץ משימות מלאי על shards חד-תהליכוניים לפי מוצר
+ * כל מוצר ממופה ל-shard קבוע, וכל shard מעבד משימות מתור טבעתי משלו
+ * בתהליכון יחיד - כך שלכל מוצר יש כותב יחיד ואין צורך בנעילות על מצב המלאי.
+ * כאשר המצב כבוי (ברירת מחדל) המשימות רצות ישירות בתהליכון הקורא
+ */
+@Component
+@Slf4j
+public class ProductShardExecutor {
+
+    private static final int DRAIN_LIMIT = 256;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    @Value("${inventory.shards.enabled:false}")
+    private boolean enabled;
+
+    @Value("${inventory.shards.count:0}")
+    private int configuredShardCount;
+
+    @Value("${inventory.shards.ring-buffer-size:4096}")
+    private int ringBufferSize;
+
+    private Shard[] shards = new Shard[0];
+
+    /**
+     * הפעלת תהליכוני ה-shards
+     */
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            log.info("Product shards disabled - inventory tasks run on listener threads");
+            return;
+        }
+
+        int shardCount = configuredShardCount > 0 ? configuredShardCount : Runtime.getRuntime().availableProcessors();
+        shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i, ringBufferSize);
+            shards[i].thread.start();
+        }
+        log.info("Product shards started - Count: {}, Ring buffer size: {}", shardCount, shards[0].ring.capacity());
+    }
+
+    /**
+     * עצירת תהליכוני ה-shards לאחר ריקון המשימות הממתינות
+     */
+    @PreDestroy
+    public void stop() {
+        for (Shard shard : shards) {
+            shard.running = false;
+            LockSupport.unpark(shard.thread);
+        }
+        for (Shard shard : shards) {
+            try {
+                shard.thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        log.info("Product shards stopped");
+    }
+
+    /**
+     * האם ה-shards פעילים
+     *
+     * @return true אם פעילים
+     */
+    public boolean isEnabled() {
+        return shards.length > 0;
+    }
+
+    /**
+     * מספר ה-shards הפעילים
+     *
+     * @return מספר ה-shards (1 כאשר כבוי)
+     */
+    public int getShardCount() {
+        return Math.max(1, shards.length);
+    }
+
+    /**
+     * חישוב ה-shard של מוצר
+     * משתמש באותה פונקציית hash של ה-partitioner של Kafka, כך שכאשר מספר ה-shards
+     * שווה למספר ה-partitions ו-order-created ממופתח לפי מוצר, כל partition נופל על shard אחד
+     *
+     * @param productId מזהה המוצר
+     * @return מספר ה-shard
+     */
+    public int shardFor(String productId) {
+        if (shards.length <= 1 || productId == null) {
+            return 0;
+        }
+        return Utils.toPositive(Utils.murmur2(productId.getBytes(StandardCharsets.UTF_8))) % shards.length;
+    }
+
+    /**
+     * הרצת משימה על ה-shard של המוצר
+     *
+     * @param productId מזהה המוצר
+     * @param task      המשימה
+     * @param <T>       סוג התוצאה
+     * @return future עם תוצאת המשימה
+     */
+    public <T> CompletableFuture<T> submit(String productId, Supplier<T> task) {
+        return submitToShard(shardFor(productId), task);
+    }
+
+    /**
+     * הרצת משימה על shard מסוים
+     * אם התור של ה-shard מלא, התהליכון הקורא ממתין עד שיתפנה מקום (backpressure)
+     *
+     * @param shardIndex מספר ה-shard
+     * @param task       המשימה
+     * @param <T>        סוג התוצאה
+     * @return future עם תוצאת המשימה
+     */
+    public <T> CompletableFuture<T> submitToShard(int shardIndex, Supplier<T> task) {
+        if (!isEnabled()) {
+            try {
+                return CompletableFuture.completedFuture(task.get());
+            } catch (Exception e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Shard shard = shards[shardIndex];
+        Runnable runnable = () -> {
+            try {
+                future.complete(task.get());
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            }
+        };
+        while (!shard.ring.offer(runnable)) {
+            LockSupport.unpark(shard.thread);
+            Thread.onSpinWait();
+        }
+        if (shard.sleeping) {
+            LockSupport.unpark(shard.thread);
+        }
+        return future;
+    }
+
+    /**
+     * shard בודד - תור טבעתי ותהליכון צרכן יחיד
+     */
+    private static final class Shard implements Runnable {
+
+        private final int index;
+        private final MpscRingBuffer<Runnable> ring;
+        private final Thread thread;
+        private volatile boolean running = true;
+        private volatile boolean sleeping;
+
+        private Shard(int index, int ringBufferSize) {
+            this.index = index;
+            this.ring = new MpscRingBuffer<>(ringBufferSize);
+            this.thread = new Thread(this, "inventory-shard-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (running || !ring.isEmpty()) {
+                int drained = ring.drain(this::runSafely, DRAIN_LIMIT);
+                if (drained == 0) {
+                    sleeping = true;
+                    if (ring.isEmpty() && running) {
+                        LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                    }
+                    sleeping = false;
+                }
+            }
+        }
+
+        private void runSafely(Runnable task) {
+            try {
+                task.run();
+            } catch (Exception e) {
+                log.error("Unexpected error in inventory shard {}: {}", index, e.getMessage(), e);
+            }
+        }
+    }
+}
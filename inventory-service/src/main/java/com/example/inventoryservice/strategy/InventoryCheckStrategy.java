@@ -2,6 +2,11 @@ package com.example.inventoryservice.strategy;
 
 import com.example.common.models.OrderItem;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Strategy interface לבדיקת זמינות מוצרים
  * מגדירה חוזה לבדיקת מוצרים לפי קטגוריות שונות
@@ -15,7 +20,68 @@ public interface InventoryCheckStrategy {
      * @return true אם הפריט זמין, false אחרת
      */
     boolean isAvailable(OrderItem item);
+
+    /**
+     * בדיקת זמינות עבור קבוצת פריטים של אותו מוצר
+     * הפריטים מגיעים לפי סדר הגעת ההזמנות ונבדקים באותו סדר
+     * אסטרטגיות עם מצב מלאי יכולות לדרוס את המתודה כדי לגשת למלאי פעם אחת בלבד
+     * @param items הפריטים לבדיקה, כולם עבור אותו מוצר
+     * @return תוצאת זמינות לכל פריט, באותו סדר
+     */
+    default List<Boolean> isAvailableBatch(List<OrderItem> items) {
+        List<Boolean> results = new ArrayList<>(items.size());
+        for (OrderItem item : items) {
+            results.add(isAvailable(item));
+        }
+        return results;
+    }
+    
+    /**
+     * בדיקת זמינות פריט ללא שמירת מלאי (dry-run)
+     * ברירת המחדל מתאימה לאסטרטגיות ללא מצב מלאי;
+     * אסטרטגיות שמורידות מלאי ב-isAvailable חייבות לדרוס את המתודה
+     * @param item הפריט לבדיקה
+     * @return true אם הפריט זמין כרגע, false אחרת
+     */
+    default boolean checkAvailability(OrderItem item) {
+        return isAvailable(item);
+    }
+
+    /**
+     * שליפת מצב המלאי של מוצר מהזיכרון
+     * @param productId מזהה המוצר
+     * @return פרטי המלאי של המוצר, או מפה ריקה אם האסטרטגיה אינה מכירה אותו
+     */
+    default Map<String, Object> getProductInventory(String productId) {
+        return Collections.emptyMap();
+    }
     
+    /**
+     * האם האסטרטגיה מורידה מלאי בבדיקת זמינות מוצלחת
+     * רק פריטים של אסטרטגיות כאלה מוחזקים בשמירה עם תפוגה
+     * @return true אם בדיקת הזמינות צורכת מלאי
+     */
+    default boolean tracksStock() {
+        return false;
+    }
+
+    /**
+     * החזרת מלאי שנשמר ולא נצרך (ביטול או פקיעת שמירה)
+     * @param productId מזהה המוצר
+     * @param quantity  הכמות להחזרה
+     * @param reference מזהה ההזמנה שהחזיקה את המלאי
+     */
+    default void release(String productId, int quantity, String reference) {
+    }
+
+    /**
+     * סך המלאי הפנוי בכל המוצרים של האסטרטגיה
+     * @return סך המלאי הפנוי
+     */
+    default long getFreeStock() {
+        return 0L;
+    }
+
     /**
      * שליפת סוג הקטגוריה שהאסטרטגיה מטפלת בה
      * @return סוג הקטגוריה
@@ -6,6 +6,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -62,6 +63,23 @@ public class PerishableInventoryStrategy implements InventoryCheckStrategy {
         return isValid;
     }
     
+    /**
+     * שליפת תאריך התוקף של מוצר מתכלה
+     * @param productId מזהה המוצר
+     * @return תאריך התוקף והאם המוצר בתוקף, או מפה ריקה אם המוצר לא מוכר
+     */
+    @Override
+    public Map<String, Object> getProductInventory(String productId) {
+        LocalDateTime expirationDate = PRODUCT_EXPIRATION_DATES.get(productId);
+        if (ValidationUtils.isNull(expirationDate)) {
+            return Collections.emptyMap();
+        }
+        return Map.of(
+                "expirationDate", expirationDate,
+                "available", expirationDate.isAfter(LocalDateTime.now())
+        );
+    }
+    
     /**
      * שליפת סוג הקטגוריה
      * @return PERISHABLE
@@ -2,21 +2,31 @@ package com.example.inventoryservice.strategy;
 
 import com.example.common.models.OrderItem;
 import com.example.common.utils.ValidationUtils;
+import com.example.inventoryservice.ledger.StockLedger;
+import com.example.inventoryservice.ledger.StockLedgerEntryType;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * אסטרטגיה לבדיקת זמינות מוצרים רגילים
  * בודקת מלאי זמין במחסן
  */
 @Component
+@RequiredArgsConstructor
 @Slf4j
 public class StandardInventoryStrategy implements InventoryCheckStrategy {
     
-    private static final Map<String, Integer> PRODUCT_STOCK = new HashMap<>();
+    private static final Map<String, Integer> PRODUCT_STOCK = new ConcurrentHashMap<>();
+
+    private final StockLedger stockLedger;
     
     static {
         PRODUCT_STOCK.put("P1001", 100);
@@ -27,6 +37,17 @@ public class StandardInventoryStrategy implements InventoryCheckStrategy {
         PRODUCT_STOCK.put("P1006", 0);
     }
     
+    /**
+     * שחזור יתרות המלאי מיומן המלאי
+     * יתרות ששוחזרו גוברות על ערכי הבסיס הסטטיים
+     */
+    @PostConstruct
+    public void restoreStock() {
+        Map<String, Integer> restored = stockLedger.getRestoredBalances();
+        PRODUCT_STOCK.putAll(restored);
+        log.info("Standard stock initialized - Products: {}, Restored from ledger: {}", PRODUCT_STOCK.size(), restored.size());
+    }
+
     /**
      * בדיקת זמינות מוצר רגיל
      * בודקת שיש מלאי מספיק במחסן
@@ -41,27 +62,167 @@ public class StandardInventoryStrategy implements InventoryCheckStrategy {
             return false;
         }
         
-        Integer currentStock = PRODUCT_STOCK.get(item.getProductId());
-        
-        if (ValidationUtils.isNull(currentStock)) {
+        long[] version = new long[1];
+        Integer remainingStock = PRODUCT_STOCK.computeIfPresent(item.getProductId(), (productId, currentStock) -> {
+            if (currentStock < item.getQuantity()) {
+                log.warn("Standard product {} not available - Stock: {}, Requested: {}",
+                        productId, currentStock, item.getQuantity());
+                return currentStock;
+            }
+            int remaining = currentStock - item.getQuantity();
+            version[0] = stockLedger.nextVersion();
+            log.info("Standard product {} available - Stock: {}, Requested: {}, Remaining: {}",
+                    productId, currentStock, item.getQuantity(), remaining);
+            return remaining;
+        });
+
+        if (ValidationUtils.isNull(remainingStock)) {
             log.warn("No stock information found for standard product: {}", item.getProductId());
             return false;
         }
-        
-        boolean isAvailable = currentStock >= item.getQuantity();
-        
-        if (isAvailable) {
-            PRODUCT_STOCK.put(item.getProductId(), currentStock - item.getQuantity());
-            log.info("Standard product {} available - Stock: {}, Requested: {}, Remaining: {}", 
-                    item.getProductId(), currentStock, item.getQuantity(), PRODUCT_STOCK.get(item.getProductId()));
-        } else {
-            log.warn("Standard product {} not available - Stock: {}, Requested: {}", 
-                    item.getProductId(), currentStock, item.getQuantity());
+        if (version[0] == 0) {
+            return false;
         }
-        
-        return isAvailable;
+        stockLedger.append(StockLedgerEntryType.RESERVE, item.getProductId(), -item.getQuantity(), remainingStock, version[0], null);
+        return true;
     }
     
+    /**
+     * בדיקת זמינות מוצר רגיל ללא הורדת מלאי
+     * קריאה בודדת מהמפה המקבילית, ללא נעילה וללא רישום ביומן
+     * @param item הפריט לבדיקה
+     * @return true אם המלאי הנוכחי מספיק לכמות המבוקשת
+     */
+    @Override
+    public boolean checkAvailability(OrderItem item) {
+        if (ValidationUtils.isNull(item) || ValidationUtils.isEmpty(item.getProductId()) ||
+            !ValidationUtils.isPositive(item.getQuantity())) {
+            return false;
+        }
+        Integer currentStock = PRODUCT_STOCK.get(item.getProductId());
+        return ValidationUtils.isNotNull(currentStock) && currentStock >= item.getQuantity();
+    }
+
+    /**
+     * שליפת המלאי הנוכחי של מוצר רגיל
+     * @param productId מזהה המוצר
+     * @return המלאי הנוכחי, או מפה ריקה אם המוצר לא מוכר
+     */
+    @Override
+    public Map<String, Object> getProductInventory(String productId) {
+        Integer currentStock = PRODUCT_STOCK.get(productId);
+        if (ValidationUtils.isNull(currentStock)) {
+            return Collections.emptyMap();
+        }
+        return Map.of(
+                "stock", currentStock,
+                "available", currentStock > 0
+        );
+    }
+
+    /**
+     * בדיקת זמינות עבור כל הביקושים למוצר אחד בבאץ'
+     * המלאי נקרא ומתעדכן פעם אחת, והכמויות מוקצות לפי סדר הגעת ההזמנות
+     * @param items הפריטים לבדיקה, כולם עבור אותו מוצר
+     * @return תוצאת זמינות לכל פריט, באותו סדר
+     */
+    @Override
+    public List<Boolean> isAvailableBatch(List<OrderItem> items) {
+        List<Boolean> results = new ArrayList<>(items.size());
+        if (ValidationUtils.isEmpty(items)) {
+            return results;
+        }
+
+        String productId = items.get(0).getProductId();
+        List<StockChange> reservations = new ArrayList<>(items.size());
+        PRODUCT_STOCK.computeIfPresent(productId, (id, currentStock) -> {
+            int remaining = currentStock;
+            for (OrderItem item : items) {
+                boolean isAvailable = ValidationUtils.isPositive(item.getQuantity()) && remaining >= item.getQuantity();
+                if (isAvailable) {
+                    remaining -= item.getQuantity();
+                    reservations.add(new StockChange(-item.getQuantity(), remaining, stockLedger.nextVersion()));
+                }
+                results.add(isAvailable);
+            }
+            log.info("Standard product {} batch allocation - Stock: {}, Demands: {}, Remaining: {}",
+                    id, currentStock, items.size(), remaining);
+            return remaining;
+        });
+
+        if (results.isEmpty()) {
+            log.warn("No stock information found for standard product: {}", productId);
+            items.forEach(item -> results.add(false));
+        }
+
+        reservations.forEach(change -> stockLedger.append(StockLedgerEntryType.RESERVE, productId,
+                change.delta(), change.balance(), change.version(), null));
+        return results;
+    }
+
+    /**
+     * חידוש מלאי עבור מוצר רגיל
+     * @param productId מזהה המוצר
+     * @param quantity  הכמות להוספה
+     * @return היתרה החדשה
+     */
+    public int restock(String productId, int quantity) {
+        if (ValidationUtils.isEmpty(productId) || !ValidationUtils.isPositive(quantity)) {
+            throw new IllegalArgumentException("Restock requires a product ID and a positive quantity");
+        }
+        long[] version = new long[1];
+        int balance = PRODUCT_STOCK.compute(productId, (id, currentStock) -> {
+            version[0] = stockLedger.nextVersion();
+            return (ValidationUtils.isNull(currentStock) ? 0 : currentStock) + quantity;
+        });
+        stockLedger.append(StockLedgerEntryType.RESTOCK, productId, quantity, balance, version[0], null);
+        log.info("Standard product {} restocked - Added: {}, Stock: {}", productId, quantity, balance);
+        return balance;
+    }
+
+    /**
+     * מוצרים רגילים מורידים מלאי בבדיקה מוצלחת
+     * @return true
+     */
+    @Override
+    public boolean tracksStock() {
+        return true;
+    }
+
+    /**
+     * החזרת מלאי שמור למוצר רגיל
+     * @param productId מזהה המוצר
+     * @param quantity  הכמות להחזרה
+     * @param reference מזהה ההזמנה שהחזיקה את המלאי
+     */
+    @Override
+    public void release(String productId, int quantity, String reference) {
+        if (ValidationUtils.isEmpty(productId) || !ValidationUtils.isPositive(quantity)) {
+            log.warn("Ignoring invalid stock release - Product: {}, Quantity: {}", productId, quantity);
+            return;
+        }
+        long[] version = new long[1];
+        int balance = PRODUCT_STOCK.compute(productId, (id, currentStock) -> {
+            version[0] = stockLedger.nextVersion();
+            return (ValidationUtils.isNull(currentStock) ? 0 : currentStock) + quantity;
+        });
+        stockLedger.append(StockLedgerEntryType.RELEASE, productId, quantity, balance, version[0], reference);
+        log.info("Standard product {} released - Order: {}, Released: {}, Stock: {}", productId, reference, quantity, balance);
+    }
+
+    /**
+     * סך המלאי הפנוי בכל המוצרים הרגילים
+     * @return סך המלאי הפנוי
+     */
+    @Override
+    public long getFreeStock() {
+        long total = 0;
+        for (Integer stock : PRODUCT_STOCK.values()) {
+            total += stock;
+        }
+        return total;
+    }
+
     /**
      * שליפת סוג הקטגוריה
      * @return STANDARD
@@ -70,4 +231,14 @@ public class StandardInventoryStrategy implements InventoryCheckStrategy {
     public String getCategoryType() {
         return "STANDARD";
     }
+
+    /**
+     * שינוי מלאי שנקבע בתוך עדכון המפה ונרשם ביומן לאחר שהעדכון הסתיים
+     *
+     * @param delta   השינוי בכמות
+     * @param balance היתרה לאחר השינוי
+     * @param version גרסת השינוי ביומן
+     */
+    private record StockChange(int delta, int balance, long version) {
+    }
 } 
\ No newline at end of file
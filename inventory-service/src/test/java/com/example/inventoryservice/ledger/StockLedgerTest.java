@@ -0,0 +1,198 @@
+package com.example.inventoryservice.ledger;
+
+import com.example.common.enums.Category;
+import com.example.common.models.OrderItem;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * בדיקות השחזור של יומן המלאי: עצירה מסודרת (snapshot), קריסה (הרצה מחדש של ה-segments),
+ * רשומה חתוכה בסוף segment, סדר גרסאות ושמירות מלאי פתוחות
+ */
+class StockLedgerTest {
+
+    @TempDir
+    Path directory;
+
+    private final List<StockLedger> ledgers = new ArrayList<>();
+
+    @AfterEach
+    void stopLedgers() {
+        ledgers.forEach(StockLedger::stop);
+    }
+
+    @Test
+    void restoresBalancesAfterCleanStop() throws IOException {
+        StockLedger ledger = start();
+        append(ledger, StockLedgerEntryType.RESERVE, "P1001", -2, 8, "ORD-1");
+        append(ledger, StockLedgerEntryType.RESERVE, "P1002", -1, 4, "ORD-1");
+        append(ledger, StockLedgerEntryType.RELEASE, "P1001", 2, 10, "ORD-1");
+        append(ledger, StockLedgerEntryType.RESERVE, "P1001", -3, 7, "ORD-2");
+        ledger.stop();
+
+        assertThat(files(ledgerDirectory(), "snapshot-")).hasSize(1);
+        assertThat(start().getRestoredBalances()).isEqualTo(Map.of("P1001", 7, "P1002", 4));
+    }
+
+    @Test
+    void replaysSegmentsAfterCrash() throws IOException {
+        StockLedger ledger = start();
+        for (int i = 1; i <= 100; i++) {
+            append(ledger, StockLedgerEntryType.RESERVE, "P" + (i % 5), -1, 100 - i, "ORD-" + i);
+        }
+
+        Path crashed = awaitCrashCopy(restored -> restored.getRestoredBalances().size() == 5
+                && Integer.valueOf(0).equals(restored.getRestoredBalances().get("P0")));
+
+        StockLedger restored = start(crashed);
+        assertThat(restored.getRestoredBalances())
+                .isEqualTo(Map.of("P1", 4, "P2", 3, "P3", 2, "P4", 1, "P0", 0));
+        assertThat(files(crashed, "snapshot-")).isEmpty();
+    }
+
+    @Test
+    void ignoresTornRecordAtEndOfSegment() throws IOException {
+        StockLedger ledger = start();
+        append(ledger, StockLedgerEntryType.RESERVE, "P1001", -2, 8, "ORD-1");
+        append(ledger, StockLedgerEntryType.RESERVE, "P1001", -1, 7, "ORD-2");
+        Path crashed = awaitCrashCopy(restored -> Integer.valueOf(7).equals(restored.getRestoredBalances().get("P1001")));
+
+        // כתיבה שנקטעה באמצע: כותרת של רשומה ארוכה ורק חלק מהגוף
+        Path segment = files(crashed, "ledger-").get(0);
+        ByteBuffer torn = ByteBuffer.allocate(16).putInt(200).putInt(12345).putLong(99L);
+        Files.write(segment, torn.array(), StandardOpenOption.APPEND);
+
+        StockLedger restored = start(crashed);
+        assertThat(restored.getRestoredBalances()).isEqualTo(Map.of("P1001", 7));
+
+        // רשומות חדשות ממשיכות אחרי השחזור
+        append(restored, StockLedgerEntryType.RESTOCK, "P1001", 5, 12, "restock");
+        restored.stop();
+        assertThat(start(crashed).getRestoredBalances()).isEqualTo(Map.of("P1001", 12));
+    }
+
+    @Test
+    void keepsBalanceWithHighestVersion() {
+        StockLedger ledger = start();
+        long first = ledger.nextVersion();
+        long second = ledger.nextVersion();
+        // שני שינויים של אותו מוצר שנכנסו לתור בסדר הפוך לסדר שבו בוצעו
+        ledger.append(StockLedgerEntryType.RESERVE, "P1001", -1, 5, second, "ORD-2");
+        ledger.append(StockLedgerEntryType.RESERVE, "P1001", -1, 6, first, "ORD-1");
+        ledger.stop();
+
+        StockLedger restored = start();
+        assertThat(restored.getRestoredBalances()).isEqualTo(Map.of("P1001", 5));
+        assertThat(restored.nextVersion()).isGreaterThan(second);
+    }
+
+    @Test
+    void restoresOpenHoldsFromSegmentsAndSnapshot() throws IOException {
+        StockLedger ledger = start();
+        ledger.appendHold("ORD-1", List.of(new OrderItem("P1001", 2, Category.STANDARD)));
+        long replaced = ledger.appendHold("ORD-2", List.of(new OrderItem("P1002", 1, Category.DIGITAL)));
+        long closed = ledger.appendHold("ORD-3", List.of(new OrderItem("P1003", 4, Category.PERISHABLE)));
+        ledger.appendHoldClosed("ORD-3", closed);
+        long current = ledger.appendHold("ORD-2", List.of(
+                new OrderItem("P1002", 3, Category.DIGITAL), new OrderItem("P1004", 1, Category.STANDARD)));
+        // סגירה של השמירה שהוחלפה אינה סוגרת את השמירה הנוכחית
+        ledger.appendHoldClosed("ORD-2", replaced);
+
+        Path crashed = awaitCrashCopy(restored -> restored.getRestoredHolds().size() == 2
+                && restored.getRestoredHolds().stream().anyMatch(hold -> hold.items().size() == 2));
+        assertOpenHolds(start(crashed).getRestoredHolds(), current);
+
+        ledger.stop();
+        assertThat(files(ledgerDirectory(), "snapshot-")).hasSize(1);
+        assertOpenHolds(start().getRestoredHolds(), current);
+    }
+
+    private void assertOpenHolds(List<StockLedgerHold> holds, long currentHoldId) {
+        assertThat(holds).extracting(StockLedgerHold::orderId).containsExactlyInAnyOrder("ORD-1", "ORD-2");
+        StockLedgerHold hold = holds.stream().filter(h -> h.orderId().equals("ORD-2")).findFirst().orElseThrow();
+        assertThat(hold.holdId()).isEqualTo(currentHoldId);
+        assertThat(hold.items()).containsExactlyInAnyOrder(
+                new OrderItem("P1002", 3, Category.DIGITAL), new OrderItem("P1004", 1, Category.STANDARD));
+    }
+
+    private StockLedger start() {
+        return start(ledgerDirectory());
+    }
+
+    private StockLedger start(Path path) {
+        StockLedger ledger = new StockLedger(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(ledger, "enabled", true);
+        ReflectionTestUtils.setField(ledger, "directory", path.toString());
+        ReflectionTestUtils.setField(ledger, "segmentSizeBytes", 64L * 1024 * 1024);
+        ReflectionTestUtils.setField(ledger, "queueCapacity", 1024);
+        ReflectionTestUtils.setField(ledger, "appendTimeoutMs", 1_000L);
+        ReflectionTestUtils.setField(ledger, "fsyncBatchSize", 16);
+        ReflectionTestUtils.setField(ledger, "fsyncIntervalMs", 1L);
+        // ללא snapshots תקופתיים - רק בעצירה
+        ReflectionTestUtils.setField(ledger, "snapshotIntervalEntries", Long.MAX_VALUE);
+        ReflectionTestUtils.setField(ledger, "snapshotIntervalMs", Long.MAX_VALUE / 1_000_000);
+        ledger.start();
+        ledgers.add(ledger);
+        return ledger;
+    }
+
+    private static void append(StockLedger ledger, StockLedgerEntryType type, String productId, int delta,
+                               int balance, String reference) {
+        ledger.append(type, productId, delta, balance, ledger.nextVersion(), reference);
+    }
+
+    /**
+     * העתקת תיקיית היומן כפי שהיא על הדיסק בזמן שהכותב רץ - מצב הדיסק אחרי קריסה -
+     * עד שהשחזור מההעתק כולל את כל מה שנכתב
+     */
+    private Path awaitCrashCopy(Predicate<StockLedger> complete) throws IOException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        for (int attempt = 0; ; attempt++) {
+            Path copy = Files.createDirectory(directory.resolve("crash-" + attempt));
+            for (Path file : files(ledgerDirectory(), "")) {
+                Files.copy(file, copy.resolve(file.getFileName()));
+            }
+            StockLedger probe = start(copy);
+            if (complete.test(probe) || System.currentTimeMillis() > deadline) {
+                // השחזור לבדו אינו כותב רשומות, ולכן העצירה אינה משנה את ההעתק מלבד segment ריק חדש
+                probe.stop();
+                return copy;
+            }
+            sleep(20);
+        }
+    }
+
+    private Path ledgerDirectory() {
+        return directory.resolve("ledger");
+    }
+
+    private static List<Path> files(Path path, String prefix) throws IOException {
+        try (Stream<Path> files = Files.list(path)) {
+            return files.filter(file -> file.getFileName().toString().startsWith(prefix)).sorted().toList();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
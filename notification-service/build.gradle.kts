@@ -1,4 +1,8 @@
 dependencies {
     implementation(project(":common"))
     implementation("org.springframework.boot:spring-boot-starter-aop")
+    // registry ל-/actuator/prometheus - מדדי מחזור החיים של ההזמנות עם histogram buckets
+    runtimeOnly("io.micrometer:micrometer-registry-prometheus")
+    // צרכן ריאקטיבי לתוצאות המלאי (notification.receiver.mode=reactive) - הגרסה מנוהלת ב-reactor-bom
+    implementation("io.projectreactor.kafka:reactor-kafka")
 } 
\ No newline at end of file
@@ -0,0 +1,43 @@
+package com.example.notificationservice.channel;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * הודעה מוכנה למשלוח בערוץ
+ * מכילה את הטקסט המרונדר ואת השדות שערוצים צריכים לניתוב (למשל נמען לפי לקוח)
+ */
+@Value
+public class Notification {
+
+    /**
+     * מזהה ההזמנה - ב-digest, ההזמנה הראשונה בו
+     */
+    String orderId;
+
+    /**
+     * שם הלקוח
+     */
+    String customerName;
+
+    /**
+     * האם ההזמנה אושרה - ב-digest, רק אם כל ההזמנות בו אושרו
+     */
+    boolean approved;
+
+    /**
+     * מספר ההזמנות בהודעה - יותר מאחת רק ב-digest
+     */
+    int orderCount;
+
+    /**
+     * הטקסט המרונדר של ההודעה
+     */
+    String message;
+
+    /**
+     * תאריך ושעה יצירת ההודעה
+     */
+    LocalDateTime createdAt;
+}
@@ -0,0 +1,32 @@
+package com.example.notificationservice.channel;
+
+import java.util.List;
+
+/**
+ * ערוץ משלוח הודעות (email, SMS, webhook...)
+ * כל bean מסוג זה מקבל מ-{@link NotificationDispatcher} תור, מגבלת מקביליות ו-retry משלו,
+ * כך שערוץ איטי או תקול אינו מעכב ערוצים אחרים ואינו מעכב את צריכת Kafka
+ */
+public interface NotificationChannel {
+
+    /**
+     * @return שם הערוץ - משמש להגדרות (notification.channels.{name}.*) ולתגית המטריקות
+     */
+    String name();
+
+    /**
+     * @return מספר ההודעות המקסימלי בבקשה אחת; 1 לספקים ללא bulk API
+     */
+    default int maxBatchSize() {
+        return 1;
+    }
+
+    /**
+     * משלוח קבוצת הודעות בבקשה אחת
+     * חריגה גורמת לשליחה חוזרת של כל הקבוצה
+     *
+     * @param batch ההודעות, לכל היותר {@link #maxBatchSize()}
+     * @throws Exception כשל במשלוח
+     */
+    void send(List<Notification> batch) throws Exception;
+}
@@ -0,0 +1,50 @@
+package com.example.notificationservice.channel;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+
+/**
+ * הגדרת ערוצי ההודעות
+ * email ו-SMS הם stubs מקומיים עד לחיבור ספק; webhook שולח בפועל כשמוגדר url, ואחרת גם הוא stub.
+ * ערוץ נוסף נוסף כ-bean מסוג {@link NotificationChannel}
+ */
+@Configuration
+@Slf4j
+public class NotificationChannelConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "notification.channels.email.enabled", havingValue = "true")
+    public NotificationChannel emailChannel(@Value("${notification.channels.email.stub-latency-ms:200}") long latencyMs,
+                                            @Value("${notification.channels.email.stub-failure-rate:0.0}") double failureRate,
+                                            @Value("${notification.channels.email.batch-size:50}") int batchSize) {
+        return new StubNotificationChannel("email", latencyMs, failureRate, batchSize);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "notification.channels.sms.enabled", havingValue = "true")
+    public NotificationChannel smsChannel(@Value("${notification.channels.sms.stub-latency-ms:100}") long latencyMs,
+                                          @Value("${notification.channels.sms.stub-failure-rate:0.0}") double failureRate) {
+        return new StubNotificationChannel("sms", latencyMs, failureRate, 1);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "notification.channels.webhook.enabled", havingValue = "true")
+    public NotificationChannel webhookChannel(WebClient.Builder webClientBuilder,
+                                              @Value("${notification.channels.webhook.url:}") String url,
+                                              @Value("${notification.channels.webhook.batch-size:100}") int batchSize,
+                                              @Value("${notification.channels.webhook.timeout-ms:5000}") long timeoutMs,
+                                              @Value("${notification.channels.webhook.stub-latency-ms:50}") long stubLatencyMs) {
+        if (url.isBlank()) {
+            log.info("No notification.channels.webhook.url configured - using a stub webhook channel");
+            return new StubNotificationChannel("webhook", stubLatencyMs, 0.0, batchSize);
+        }
+        log.info("Webhook notification channel - URL: {}, Batch size: {}", url, batchSize);
+        return new WebhookNotificationChannel(webClientBuilder.baseUrl(url).build(), batchSize, Duration.ofMillis(timeoutMs));
+    }
+}
@@ -0,0 +1,316 @@
+package com.example.notificationservice.channel;
+
+import com.example.common.concurrent.MpscRingBuffer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * מפיץ הודעות אסינכרוני לכל ה-{@link NotificationChannel}-ים
+ * לכל ערוץ bulkhead משלו: תור MPSC חסום, תהליכון שמקבץ הודעות עד maxBatchSize של הערוץ,
+ * ומאגר תהליכונים בגודל concurrency שמבצע את המשלוחים. retry עם backoff אקספוננציאלי ו-jitter מלא
+ * רץ בתוך ה-slot של הערוץ, כך שערוץ איטי ממלא רק את התור שלו.
+ * dispatch אינו חוסם לעולם ומחזיר future שמושלם כשכל הערוצים שלחו את ההודעה, או בשגיאה כשערוץ נכשל
+ * אחרי max-attempts. כשהתור של ערוץ מלא ההודעה נזרקת עבורו ונספרת; במצב המתנה למקום ההכנסה נוסית שוב ברקע.
+ * הגדרות לכל ערוץ: notification.channels.{name}.queue-capacity / concurrency / max-attempts / backoff-ms / max-backoff-ms,
+ * עם ברירות מחדל מ-notification.channels.defaults.*
+ */
+@Component
+@Slf4j
+public class NotificationDispatcher {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final Executor CAPACITY_RETRY = CompletableFuture.delayedExecutor(1, TimeUnit.MILLISECONDS);
+
+    private final ObjectProvider<NotificationChannel> channels;
+    private final MeterRegistry meterRegistry;
+    private final Environment environment;
+    private final List<ChannelLane> lanes = new ArrayList<>();
+    private List<String> channelNames = List.of();
+
+    public NotificationDispatcher(ObjectProvider<NotificationChannel> channels, MeterRegistry meterRegistry, Environment environment) {
+        this.channels = channels;
+        this.meterRegistry = meterRegistry;
+        this.environment = environment;
+    }
+
+    /**
+     * יצירת bulkhead לכל ערוץ
+     */
+    @PostConstruct
+    public void start() {
+        channels.orderedStream().forEach(channel -> {
+            ChannelLane lane = new ChannelLane(channel,
+                    setting(channel, "queue-capacity", 1024),
+                    setting(channel, "concurrency", 4),
+                    setting(channel, "max-attempts", 3),
+                    setting(channel, "backoff-ms", 200),
+                    setting(channel, "max-backoff-ms", 5000));
+            lanes.add(lane);
+            lane.start();
+        });
+        channelNames = lanes.stream().map(lane -> lane.channel.name()).toList();
+        if (lanes.isEmpty()) {
+            log.info("No notification channels configured - notifications go to the console sink only");
+        }
+    }
+
+    /**
+     * עצירת הערוצים אחרי ריקון התורים
+     */
+    @PreDestroy
+    public void stop() {
+        lanes.forEach(ChannelLane::stop);
+    }
+
+    /**
+     * העברת הודעה לכל הערוצים - ללא חסימה
+     *
+     * @param notification ההודעה
+     * @return future שמושלם כשכל הערוצים שלחו את ההודעה
+     */
+    public CompletableFuture<Void> dispatch(Notification notification) {
+        return dispatch(channel -> notification, false);
+    }
+
+    /**
+     * העברת הודעה לכל הערוצים כשהטקסט שונה לפי ערוץ (למשל תבנית לכל ערוץ) - ללא חסימה
+     * ההודעה נבנית על התהליכון הקורא, פעם אחת לכל ערוץ
+     *
+     * @param notificationForChannel בניית ההודעה לפי שם הערוץ
+     * @return future שמושלם כשכל הערוצים שלחו את ההודעה
+     */
+    public CompletableFuture<Void> dispatch(Function<String, Notification> notificationForChannel) {
+        return dispatch(notificationForChannel, false);
+    }
+
+    /**
+     * העברת הודעה לכל הערוצים - ללא חסימה
+     *
+     * @param notificationForChannel בניית ההודעה לפי שם הערוץ
+     * @param waitForCapacity        true - כשהתור של ערוץ מלא ההכנסה נוסית שוב ברקע במקום לזרוק את ההודעה
+     * @return future שמושלם כשכל הערוצים שלחו את ההודעה; בשגיאה אם ערוץ זרק אותה או נכשל אחרי max-attempts
+     */
+    public CompletableFuture<Void> dispatch(Function<String, Notification> notificationForChannel, boolean waitForCapacity) {
+        CompletableFuture<?>[] sent = new CompletableFuture<?>[lanes.size()];
+        for (int i = 0; i < sent.length; i++) {
+            ChannelLane lane = lanes.get(i);
+            sent[i] = lane.offer(notificationForChannel.apply(lane.channel.name()), waitForCapacity);
+        }
+        return CompletableFuture.allOf(sent);
+    }
+
+    /**
+     * @return true אם הוגדר לפחות ערוץ אחד
+     */
+    public boolean hasChannels() {
+        return !lanes.isEmpty();
+    }
+
+    /**
+     * @return שמות הערוצים שהוגדרו
+     */
+    public List<String> channelNames() {
+        return channelNames;
+    }
+
+    private int setting(NotificationChannel channel, String name, int defaultValue) {
+        Integer value = environment.getProperty("notification.channels." + channel.name() + "." + name, Integer.class);
+        return value != null ? value
+                : environment.getProperty("notification.channels.defaults." + name, Integer.class, defaultValue);
+    }
+
+    /**
+     * ה-bulkhead של ערוץ אחד
+     */
+    private final class ChannelLane {
+
+        private final NotificationChannel channel;
+        private final MpscRingBuffer<Delivery> queue;
+        private final int batchSize;
+        private final int maxAttempts;
+        private final long backoffMs;
+        private final long maxBackoffMs;
+        private final Semaphore permits;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final ExecutorService senders;
+        private final Thread batcher;
+        private final Counter sent;
+        private final Counter failed;
+        private final Counter dropped;
+        private final Counter retries;
+        private final Timer sendLatency;
+        private volatile boolean running = true;
+        private volatile boolean idle;
+
+        private ChannelLane(NotificationChannel channel, int queueCapacity, int concurrency, int maxAttempts,
+                            long backoffMs, long maxBackoffMs) {
+            this.channel = channel;
+            this.queue = new MpscRingBuffer<>(queueCapacity);
+            this.batchSize = Math.max(1, channel.maxBatchSize());
+            this.maxAttempts = Math.max(1, maxAttempts);
+            this.backoffMs = backoffMs;
+            this.maxBackoffMs = maxBackoffMs;
+            this.permits = new Semaphore(concurrency);
+            AtomicInteger threadIndex = new AtomicInteger();
+            this.senders = Executors.newFixedThreadPool(concurrency, runnable -> {
+                Thread thread = new Thread(runnable, "notification-" + channel.name() + "-" + threadIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.batcher = new Thread(this::batchLoop, "notification-" + channel.name() + "-batcher");
+            this.batcher.setDaemon(true);
+
+            Tags tags = Tags.of("channel", channel.name());
+            this.sent = Counter.builder("notification.channel.sent").tags(tags).register(meterRegistry);
+            this.failed = Counter.builder("notification.channel.failed").tags(tags).register(meterRegistry);
+            this.dropped = Counter.builder("notification.channel.dropped").tags(tags).register(meterRegistry);
+            this.retries = Counter.builder("notification.channel.retries").tags(tags).register(meterRegistry);
+            this.sendLatency = Timer.builder("notification.channel.send.latency").tags(tags).register(meterRegistry);
+            Gauge.builder("notification.channel.queue.depth", queue, MpscRingBuffer::size).tags(tags).register(meterRegistry);
+            Gauge.builder("notification.channel.in-flight", inFlight, AtomicInteger::get).tags(tags).register(meterRegistry);
+            log.info("Notification channel {} started - Queue capacity: {}, Concurrency: {}, Batch size: {}, Max attempts: {}",
+                    channel.name(), queue.capacity(), concurrency, batchSize, this.maxAttempts);
+        }
+
+        private void start() {
+            batcher.start();
+        }
+
+        private CompletableFuture<Void> offer(Notification notification, boolean waitForCapacity) {
+            Delivery delivery = new Delivery(notification, new CompletableFuture<>());
+            enqueue(delivery, waitForCapacity);
+            return delivery.sent();
+        }
+
+        private void enqueue(Delivery delivery, boolean waitForCapacity) {
+            if (queue.offer(delivery)) {
+                if (idle) {
+                    LockSupport.unpark(batcher);
+                }
+            } else if (waitForCapacity && running) {
+                CompletableFuture.runAsync(() -> enqueue(delivery, true), CAPACITY_RETRY);
+            } else {
+                dropped.increment();
+                log.warn("Notification channel {} queue full - notification for order {} dropped",
+                        channel.name(), delivery.notification().getOrderId());
+                delivery.sent().completeExceptionally(
+                        new RejectedExecutionException("Notification channel " + channel.name() + " queue full"));
+            }
+        }
+
+        private void batchLoop() {
+            while (running || !queue.isEmpty()) {
+                if (queue.isEmpty()) {
+                    idle = true;
+                    if (queue.isEmpty() && running) {
+                        LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    }
+                    idle = false;
+                    continue;
+                }
+                // ממתינים ל-slot לפני שמוציאים מהתור - כשהערוץ איטי ההודעות נצברות בתור החסום שלו
+                permits.acquireUninterruptibly();
+                List<Delivery> batch = new ArrayList<>(Math.min(batchSize, queue.size()));
+                if (queue.drain(batch::add, batchSize) == 0) {
+                    permits.release();
+                    continue;
+                }
+                inFlight.incrementAndGet();
+                senders.execute(() -> {
+                    try {
+                        deliver(batch);
+                    } finally {
+                        inFlight.decrementAndGet();
+                        permits.release();
+                    }
+                });
+            }
+        }
+
+        private void deliver(List<Delivery> batch) {
+            List<Notification> notifications = new ArrayList<>(batch.size());
+            for (Delivery delivery : batch) {
+                notifications.add(delivery.notification());
+            }
+            for (int attempt = 1; ; attempt++) {
+                long start = System.nanoTime();
+                try {
+                    channel.send(notifications);
+                    sendLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    sent.increment(batch.size());
+                    batch.forEach(delivery -> delivery.sent().complete(null));
+                    return;
+                } catch (Exception e) {
+                    if (attempt >= maxAttempts) {
+                        failed.increment(batch.size());
+                        log.error("Notification channel {} failed after {} attempts - {} notifications lost, first order: {}, Error: {}",
+                                channel.name(), attempt, batch.size(), notifications.get(0).getOrderId(), e.getMessage());
+                        batch.forEach(delivery -> delivery.sent().completeExceptionally(e));
+                        return;
+                    }
+                    retries.increment();
+                    // full jitter - מפזר ניסיונות חוזרים של משלוחים מקבילים
+                    long ceiling = Math.min(maxBackoffMs, backoffMs << Math.min(attempt - 1, 20));
+                    long delayMs = ThreadLocalRandom.current().nextLong(ceiling + 1);
+                    log.debug("Notification channel {} attempt {} failed, retrying in {} ms: {}",
+                            channel.name(), attempt, delayMs, e.getMessage());
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(delayMs));
+                }
+            }
+        }
+
+        private void stop() {
+            running = false;
+            LockSupport.unpark(batcher);
+            try {
+                batcher.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            senders.shutdown();
+            try {
+                if (!senders.awaitTermination(10, TimeUnit.SECONDS)) {
+                    senders.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                senders.shutdownNow();
+            }
+            if (!queue.isEmpty()) {
+                log.warn("Notification channel {} stopped with {} undelivered notifications", channel.name(), queue.size());
+            }
+        }
+    }
+
+    /**
+     * הודעה בתור של ערוץ
+     *
+     * @param notification ההודעה
+     * @param sent         מושלם אחרי שהערוץ שלח את ההודעה, או בשגיאה אחרי max-attempts
+     */
+    private record Delivery(Notification notification, CompletableFuture<Void> sent) {
+    }
+}
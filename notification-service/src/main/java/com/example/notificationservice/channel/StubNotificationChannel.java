@@ -0,0 +1,52 @@
+package com.example.notificationservice.channel;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ערוץ מקומי לבדיקות - מדמה ספק עם latency ושיעור כשלים נתונים, ללא משלוח בפועל
+ * מאפשר לבדוק את ה-bulkheads, ה-batching וה-retry בלי חשבון אצל ספק email / SMS
+ */
+@Slf4j
+public class StubNotificationChannel implements NotificationChannel {
+
+    private final String name;
+    private final long latencyMs;
+    private final double failureRate;
+    private final int maxBatchSize;
+    private final AtomicLong delivered = new AtomicLong();
+
+    public StubNotificationChannel(String name, long latencyMs, double failureRate, int maxBatchSize) {
+        this.name = name;
+        this.latencyMs = latencyMs;
+        this.failureRate = failureRate;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public int maxBatchSize() {
+        return maxBatchSize;
+    }
+
+    @Override
+    public void send(List<Notification> batch) throws Exception {
+        if (latencyMs > 0) {
+            TimeUnit.MILLISECONDS.sleep(latencyMs);
+        }
+        if (ThreadLocalRandom.current().nextDouble() < failureRate) {
+            throw new IllegalStateException("Simulated " + name + " provider failure");
+        }
+        long total = delivered.addAndGet(batch.size());
+        log.debug("Stub {} delivered {} notifications (total {}) - first order: {}", name, batch.size(), total,
+                batch.get(0).getOrderId());
+    }
+}
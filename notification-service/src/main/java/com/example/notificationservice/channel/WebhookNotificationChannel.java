@@ -0,0 +1,44 @@
+package com.example.notificationservice.channel;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * ערוץ webhook - POST של מערך JSON עם כל ההודעות בקבוצה לכתובת שהוגדרה
+ * רץ על תהליכון של ה-bulkhead, ולכן ממתין לתשובה בצורה חוסמת עד timeout
+ */
+public class WebhookNotificationChannel implements NotificationChannel {
+
+    private final WebClient webClient;
+    private final int maxBatchSize;
+    private final Duration timeout;
+
+    public WebhookNotificationChannel(WebClient webClient, int maxBatchSize, Duration timeout) {
+        this.webClient = webClient;
+        this.maxBatchSize = maxBatchSize;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public String name() {
+        return "webhook";
+    }
+
+    @Override
+    public int maxBatchSize() {
+        return maxBatchSize;
+    }
+
+    @Override
+    public void send(List<Notification> batch) {
+        webClient.post()
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(batch)
+                .retrieve()
+                .toBodilessEntity()
+                .block(timeout);
+    }
+}
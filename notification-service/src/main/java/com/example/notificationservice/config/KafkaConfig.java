@@ -1,9 +1,16 @@
 package com.example.notificationservice.config;
 
+import com.example.common.kafka.parallel.ParallelConsumerConfigurer;
+import com.example.common.kafka.quarantine.QuarantineService;
+import com.example.common.kafka.view.EventView;
+import com.example.common.kafka.view.EventViewDeserializer;
+import com.example.common.kafka.view.InventoryCheckResultView;
+import com.example.common.kafka.view.OrderCreatedView;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.annotation.EnableKafka;
@@ -11,9 +18,12 @@ import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
 import org.springframework.kafka.listener.ContainerProperties;
-import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import reactor.kafka.receiver.ReceiverOptions;
 
+import java.time.Duration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -31,6 +41,21 @@ public class KafkaConfig {
     @Value("${spring.kafka.consumer.group-id:notification-service-group}")
     private String groupId;
 
+    @Value("${spring.kafka.consumer.max-poll-records:50}")
+    private int maxPollRecords;
+
+    @Value("${kafka.topics.inventory-check-result:inventory-check-result}")
+    private String inventoryCheckResultTopic;
+
+    @Value("${notification.receiver.commit-interval-ms:1000}")
+    private long commitIntervalMs;
+
+    @Value("${notification.receiver.commit-batch-size:100}")
+    private int commitBatchSize;
+
+    @Value("${notification.receiver.max-deferred-commits:10000}")
+    private int maxDeferredCommits;
+
     /**
      * יצירת factory עבור Kafka consumers
      * מכיל את כל הגדרות החיבור והסדרן
@@ -39,18 +64,66 @@ public class KafkaConfig {
      */
     @Bean
     public ConsumerFactory<String, Object> consumerFactory() {
+        Map<String, Object> props = consumerProps(InventoryCheckResultView.class);
+        // תוצאות מלאי עשויות להגיע מ-producer טרנזקציוני - לא לקרוא הודעות של טרנזקציות שבוטלו
+        props.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
+        log.info("Kafka consumer configured - Bootstrap servers: {}, Group ID: {}", bootstrapServers, groupId);
+        return new DefaultKafkaConsumerFactory<>(props);
+    }
+
+    /**
+     * הגדרות ה-receiver הריאקטיבי של תוצאות המלאי
+     * commit ידני: offset נכלל ב-commit רק אחרי acknowledge, כלומר אחרי שההודעה נמסרה.
+     * תוצאות שממתינות ל-digest מאושרות מאוחר יותר מהרשומות שאחריהן - deferred commits מבצע commit רק עד הפער הראשון
+     *
+     * @return ReceiverOptions instance
+     */
+    @Bean
+    @ConditionalOnExpression("'${events.transport:kafka}' == 'kafka' and '${notification.receiver.mode:listener}' == 'reactive'")
+    public ReceiverOptions<String, Object> inventoryResultReceiverOptions() {
+        Map<String, Object> props = consumerProps(InventoryCheckResultView.class);
+        props.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        props.remove(ConsumerConfig.AUTO_COMMIT_INTERVAL_MS_CONFIG);
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+        log.info("Reactive Kafka receiver configured - Topic: {}, Commit interval: {} ms, Commit batch: {}, Max deferred commits: {}",
+                inventoryCheckResultTopic, commitIntervalMs, commitBatchSize, maxDeferredCommits);
+        return ReceiverOptions.<String, Object>create(props)
+                .subscription(List.of(inventoryCheckResultTopic))
+                .commitInterval(Duration.ofMillis(commitIntervalMs))
+                .commitBatchSize(commitBatchSize)
+                .maxDeferredCommits(maxDeferredCommits);
+    }
+
+    /**
+     * יצירת factory עבור consumers של אירועי יצירת הזמנה (ה-view המקומי של ההזמנות)
+     *
+     * @return ConsumerFactory instance
+     */
+    @Bean
+    public ConsumerFactory<String, Object> orderCreatedConsumerFactory() {
+        return new DefaultKafkaConsumerFactory<>(consumerProps(OrderCreatedView.class));
+    }
+
+    /**
+     * הגדרות בסיס משותפות לכל ה-consumers
+     *
+     * @param viewType סוג ה-view שאליו מפוענחות הרשומות
+     * @return מפת הגדרות
+     */
+    private Map<String, Object> consumerProps(Class<? extends EventView> viewType) {
         Map<String, Object> props = new HashMap<>();
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
+        // view עצל מעל בתי הרשומה (JSON או בינארי) - השדות מפוענחים רק כשה-listener ניגש אליהם
+        props.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, EventViewDeserializer.class);
+        props.put(EventViewDeserializer.VIEW_TYPE_CONFIG, viewType.getName());
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
         props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, true);
         props.put(ConsumerConfig.AUTO_COMMIT_INTERVAL_MS_CONFIG, 1000);
-        props.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
-        props.put(JsonDeserializer.VALUE_DEFAULT_TYPE, "com.example.common.events.InventoryCheckResultEvent");
-        log.info("Kafka consumer configured - Bootstrap servers: {}, Group ID: {}", bootstrapServers, groupId);
-        return new DefaultKafkaConsumerFactory<>(props);
+        return props;
     }
 
     /**
@@ -60,14 +133,33 @@ public class KafkaConfig {
      * @return ConcurrentKafkaListenerContainerFactory instance
      */
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, Object> kafkaListenerContainerFactory() {
+    public ConcurrentKafkaListenerContainerFactory<String, Object> kafkaListenerContainerFactory(
+            ParallelConsumerConfigurer parallelConsumerConfigurer, QuarantineService quarantineService) {
         ConcurrentKafkaListenerContainerFactory<String, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory());
         factory.setConcurrency(2);
         factory.setAutoStartup(true);
         factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
-        factory.setCommonErrorHandler(null);
+        parallelConsumerConfigurer.configure(factory);
+        quarantineService.configure(factory);
         log.info("Kafka listener container factory configured with concurrency: 2");
         return factory;
     }
-} 
\ No newline at end of file
+
+    /**
+     * יצירת listener container factory עבור אירועי יצירת הזמנה
+     *
+     * @return ConcurrentKafkaListenerContainerFactory instance
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Object> orderCreatedKafkaListenerContainerFactory(QuarantineService quarantineService) {
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(orderCreatedConsumerFactory());
+        factory.setConcurrency(1);
+        factory.setAutoStartup(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        quarantineService.configure(factory);
+        log.info("Kafka order created listener container factory configured with concurrency: 1");
+        return factory;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,87 @@
+package com.example.notificationservice.controller;
+
+import com.example.common.utils.ValidationUtils;
+import com.example.notificationservice.history.HistoryQueryResult;
+import com.example.notificationservice.history.NotificationHistory;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * REST Controller להיסטוריית ההודעות
+ * השאילתות נקראות מה-segments שעל הדיסק, על scheduler של I/O ולא על תהליכוני ה-event loop
+ */
+@RestController
+@RequestMapping("/api/v1/notifications")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "notifications", description = "API להיסטוריית ההודעות שנשלחו")
+public class NotificationHistoryController {
+
+    private final NotificationHistory notificationHistory;
+
+    /**
+     * שליפת הודעות לפי הזמנה, או לפי לקוח וטווח זמנים
+     * @param orderId  מזהה ההזמנה
+     * @param customer שם הלקוח
+     * @param from     תחילת טווח הזמנים (לקוח בלבד)
+     * @param to       סוף טווח הזמנים (לקוח בלבד)
+     * @param limit    מספר ההודעות המרבי
+     * @return ההודעות מהחדשה לישנה ומספר ה-segments שנבדקו
+     */
+    @GetMapping
+    @Operation(summary = "היסטוריית הודעות", description = "מחזיר את ההודעות שנשלחו להזמנה, או ללקוח בטווח זמנים, מהחדשה לישנה")
+    public Mono<ResponseEntity<Map<String, Object>>> getNotifications(
+            @Parameter(description = "מזהה ההזמנה") @RequestParam(required = false) String orderId,
+            @Parameter(description = "שם הלקוח") @RequestParam(required = false) String customer,
+            @Parameter(description = "תחילת טווח הזמנים (ISO-8601)") @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "סוף טווח הזמנים (ISO-8601)") @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(description = "מספר ההודעות המרבי") @RequestParam(defaultValue = "100") int limit) {
+        return Mono.fromCallable(() -> {
+            if (!notificationHistory.isEnabled()) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).<Map<String, Object>>build();
+            }
+            if (!ValidationUtils.hasText(orderId) && !ValidationUtils.hasText(customer)) {
+                throw new IllegalArgumentException("orderId or customer is required");
+            }
+            if (from != null && to != null && from.isAfter(to)) {
+                throw new IllegalArgumentException("from must not be after to");
+            }
+            HistoryQueryResult result = ValidationUtils.hasText(orderId)
+                    ? notificationHistory.findByOrderId(orderId, limit)
+                    : notificationHistory.findByCustomer(customer, from, to, limit);
+            return ResponseEntity.ok(Map.<String, Object>of(
+                    "notifications", result.getNotifications(),
+                    "count", result.getNotifications().size(),
+                    "segmentsScanned", result.getSegmentsScanned(),
+                    "segmentsTotal", result.getSegmentsTotal(),
+                    "timestamp", LocalDateTime.now()
+            ));
+        })
+        .subscribeOn(Schedulers.boundedElastic())
+        .onErrorResume(error -> {
+            log.error("Error querying notification history (order: {}, customer: {}): {}", orderId, customer, error.getMessage());
+            return Mono.just(ResponseEntity.status(errorStatus(error)).build());
+        });
+    }
+
+    private HttpStatus errorStatus(Throwable error) {
+        return error instanceof IllegalArgumentException ? HttpStatus.BAD_REQUEST : HttpStatus.INTERNAL_SERVER_ERROR;
+    }
+}
@@ -0,0 +1,215 @@
+package com.example.notificationservice.dedup;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * סינון הודעות כפולות - הודעה אחת לכל הזמנה והחלטה בתוך חלון הזמן
+ * retry topics ו-commit אחרי batch יכולים להעביר את אותה תוצאת בדיקת מלאי כמה פעמים, גם למופע אחר אחרי rebalance
+ * או אחרי הפעלה מחדש. {@link RotatingBloomFilter} מקומי נבדק ראשון ואינו עולה round trip: מפתח שהמסנן בוודאות
+ * לא ראה נתפס מיד - במסנן וב-Redis, ברקע - ונמסר. רק "אולי נראה" משלם את ה-round trip: SET NX ב-Redis,
+ * המשותף לכל המופעים, מאשר אם זו כפילות או false positive של המסנן. מפתח נתפס ל-claim-ttl בלבד,
+ * ורק אחרי מסירה מוצלחת ({@link #delivered}) הוא נשמר לכל החלון. מסירה שנכשלה משחררת את המפתח ({@link #release}),
+ * וניסיון חוזר - שהמסנן כבר "אולי ראה" - מגיע ל-Redis ואינו מסונן ככפילות.
+ * מסירה חוזרת למופע אחר שהמסנן שלו לא ראה את המפתח נמסרת; כשאין Redis, מפתח שהמסנן "אולי ראה" מסונן
+ */
+@Component
+@Slf4j
+public class NotificationDeduplicator {
+
+    private final ReactiveRedisTemplate<String, Object> redisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final AtomicLong checks = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+
+    @Value("${notification.dedup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${notification.dedup.window-ms:600000}")
+    private long windowMs;
+
+    @Value("${notification.dedup.buckets:4}")
+    private int buckets;
+
+    @Value("${notification.dedup.expected-per-bucket:100000}")
+    private int expectedPerBucket;
+
+    @Value("${notification.dedup.false-positive-rate:0.001}")
+    private double falsePositiveRate;
+
+    @Value("${notification.dedup.claim-ttl-ms:30000}")
+    private long claimTtlMs;
+
+    @Value("${notification.digest.enabled:false}")
+    private boolean digestEnabled;
+
+    @Value("${notification.digest.window-ms:60000}")
+    private long digestWindowMs;
+
+    @Value("${notification.dedup.redis-prefix:notification-dedup:}")
+    private String redisPrefix;
+
+    private RotatingBloomFilter bloomFilter;
+    private Duration ttl;
+    private Duration claimTtl;
+    private Counter firstDeliveries;
+    private Counter duplicateDeliveries;
+    private Counter falsePositives;
+    private Counter redisErrors;
+
+    public NotificationDeduplicator(ReactiveRedisTemplate<String, Object> redisTemplate, MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * יצירת ה-Bloom filter והמדדים
+     */
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            log.info("Notification deduplication disabled - every delivery produces a notification");
+            return;
+        }
+        if (buckets < 2) {
+            throw new IllegalArgumentException("notification.dedup.buckets must be at least 2, got " + buckets);
+        }
+        ttl = Duration.ofMillis(windowMs);
+        claimTtl = Duration.ofMillis(Math.min(claimTtlMs(), windowMs));
+        // מפתח נשאר במסנן לפחות buckets-1 דורות; הם חייבים לכסות את ה-claim ואת כל החלון שאחריו,
+        // אחרת מסירה חוזרת מאוחרת עוקפת את Redis במסלול המהיר
+        long filterWindowMs = (windowMs + claimTtl.toMillis()) * buckets / (buckets - 1);
+        bloomFilter = new RotatingBloomFilter(filterWindowMs, buckets, expectedPerBucket, falsePositiveRate);
+        firstDeliveries = Counter.builder("notification.dedup.deliveries").tag("result", "first").register(meterRegistry);
+        duplicateDeliveries = Counter.builder("notification.dedup.deliveries").tag("result", "duplicate").register(meterRegistry);
+        falsePositives = Counter.builder("notification.dedup.bloom.false-positives").register(meterRegistry);
+        redisErrors = Counter.builder("notification.dedup.redis.errors").register(meterRegistry);
+        Gauge.builder("notification.dedup.duplicate.ratio", this, NotificationDeduplicator::duplicateRatio)
+                .register(meterRegistry);
+        log.info("Notification deduplication started - Window: {} ms, Claim TTL: {} ms, Buckets: {}, Bloom bits: {}, Hash functions: {}, Memory: {} KB",
+                windowMs, claimTtl.toMillis(), buckets, bloomFilter.bits(), bloomFilter.hashFunctions(), bloomFilter.memoryBytes() / 1024);
+    }
+
+    /**
+     * האם זו המסירה הראשונה של ההחלטה עבור ההזמנה בתוך החלון
+     * true תופס את המפתח; הקורא חייב לדווח על התוצאה ב-{@link #delivered} או ב-{@link #release}
+     *
+     * @param orderId  מזהה ההזמנה
+     * @param approved ההחלטה
+     * @return true אם יש להציג הודעה, false אם זו כפילות
+     */
+    public Mono<Boolean> firstDelivery(String orderId, boolean approved) {
+        if (!enabled) {
+            return Mono.just(true);
+        }
+        String key = key(orderId, approved);
+        checks.incrementAndGet();
+        long now = System.currentTimeMillis();
+        if (bloomFilter.put(key, now)) {
+            claim(key, now);
+            firstDeliveries.increment();
+            return Mono.just(true);
+        }
+        return redisTemplate.opsForValue()
+                .setIfAbsent(redisPrefix + key, now, claimTtl)
+                .map(Boolean.TRUE::equals)
+                .onErrorResume(error -> {
+                    redisErrors.increment();
+                    log.warn("Deduplication check for {} failed, dropping the key the local filter may have seen: {}",
+                            key, error.getMessage());
+                    return Mono.just(false);
+                })
+                .doOnNext(first -> {
+                    if (first) {
+                        falsePositives.increment();
+                        firstDeliveries.increment();
+                    } else {
+                        duplicates.incrementAndGet();
+                        duplicateDeliveries.increment();
+                    }
+                });
+    }
+
+    /**
+     * תפיסת מפתח שהמסנן לא ראה - ברקע, כדי שבדיקת "אולי נראה" מאוחרת תמצא אותו ב-Redis
+     */
+    private void claim(String key, long now) {
+        redisTemplate.opsForValue()
+                .set(redisPrefix + key, now, claimTtl)
+                .subscribe(
+                        null,
+                        error -> {
+                            redisErrors.increment();
+                            log.debug("Failed to claim notification {} in Redis: {}", key, error.getMessage());
+                        });
+    }
+
+    /**
+     * ההודעה נמסרה - המפתח נשמר לכל החלון
+     *
+     * @param orderId  מזהה ההזמנה
+     * @param approved ההחלטה
+     */
+    public void delivered(String orderId, boolean approved) {
+        if (!enabled) {
+            return;
+        }
+        String key = key(orderId, approved);
+        redisTemplate.opsForValue()
+                .set(redisPrefix + key, System.currentTimeMillis(), ttl)
+                .subscribe(
+                        null,
+                        error -> {
+                            redisErrors.increment();
+                            log.debug("Failed to record notification {} in Redis: {}", key, error.getMessage());
+                        });
+    }
+
+    /**
+     * המסירה נכשלה - שחרור המפתח כדי שניסיון חוזר יימסר
+     *
+     * @param orderId  מזהה ההזמנה
+     * @param approved ההחלטה
+     */
+    public void release(String orderId, boolean approved) {
+        if (!enabled) {
+            return;
+        }
+        String key = key(orderId, approved);
+        redisTemplate.delete(redisPrefix + key)
+                .subscribe(
+                        null,
+                        error -> {
+                            redisErrors.increment();
+                            log.warn("Failed to release notification {} in Redis - a retry within {} ms is skipped: {}",
+                                    key, claimTtl.toMillis(), error.getMessage());
+                        });
+    }
+
+    /**
+     * תוצאה שנכנסה ל-digest מדווחת ב-{@link #delivered} רק אחרי שה-digest נשלח, עד window-ms של ה-digest מאוחר יותר.
+     * ה-claim מחזיק לפחות את חלון ה-digest ועוד claim-ttl לשליחה, כדי שמסירה חוזרת בינתיים לא תיתפס מחדש
+     */
+    private long claimTtlMs() {
+        return digestEnabled ? digestWindowMs + claimTtlMs : claimTtlMs;
+    }
+
+    private static String key(String orderId, boolean approved) {
+        return orderId + (approved ? ":APPROVED" : ":REJECTED");
+    }
+
+    private double duplicateRatio() {
+        long total = checks.get();
+        return total == 0 ? 0.0 : (double) duplicates.get() / total;
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.notificationservice.dedup;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter מתגלגל לפי זמן
+ * החלון מחולק ל-generations דורות, כל אחד מכסה bucketMs. הכנסה נכתבת לדור של ה-bucket הנוכחי ובדיקה
+ * עוברת על כל הדורות שעדיין בחלון. דור שה-bucket שלו יצא מהחלון מתאפס כשה-slot שלו נדרש מחדש,
+ * כך שהזיכרון קבוע (generations * bits) ואין צורך במחיקה של מפתחות בודדים.
+ * התוצאה חיובית-שגויה בהסתברות falsePositiveRate לכל היותר כל עוד דור אינו מקבל יותר מ-expectedInsertions;
+ * אין תוצאות שליליות-שגויות בתוך החלון
+ */
+class RotatingBloomFilter {
+
+    private static final double LN2 = Math.log(2);
+
+    private final AtomicLongArray[] generations;
+    private final AtomicLongArray generationBuckets;
+    private final long bucketMs;
+    private final long bits;
+    private final int hashFunctions;
+
+    /**
+     * @param windowMs           אורך החלון
+     * @param generations        מספר הדורות בחלון
+     * @param expectedInsertions הכנסות צפויות לכל דור
+     * @param falsePositiveRate  הסתברות חיובי-שגוי מבוקשת
+     */
+    RotatingBloomFilter(long windowMs, int generations, int expectedInsertions, double falsePositiveRate) {
+        if (generations < 1 || expectedInsertions < 1 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Invalid Bloom filter settings - Generations: " + generations
+                    + ", Expected insertions: " + expectedInsertions + ", False positive rate: " + falsePositiveRate);
+        }
+        long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (LN2 * LN2));
+        int words = (int) Math.min(Integer.MAX_VALUE, (optimalBits + 63) / 64);
+        this.bits = (long) words * 64;
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bits / expectedInsertions * LN2));
+        this.bucketMs = Math.max(1, windowMs / generations);
+        this.generations = new AtomicLongArray[generations];
+        this.generationBuckets = new AtomicLongArray(generations);
+        for (int i = 0; i < generations; i++) {
+            this.generations[i] = new AtomicLongArray(words);
+            this.generationBuckets.set(i, Long.MIN_VALUE);
+        }
+    }
+
+    /**
+     * בדיקה והכנסה של מפתח
+     *
+     * @param key המפתח
+     * @param now הזמן הנוכחי במילישניות
+     * @return true אם המפתח חדש בוודאות, false אם ייתכן שכבר נראה בחלון
+     */
+    boolean put(String key, long now) {
+        long bucket = now / bucketMs;
+        long hash = hash(key);
+        long step = mix(hash ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int slot = 0; slot < generations.length; slot++) {
+            long generationBucket = generationBuckets.get(slot);
+            if (generationBucket != bucket && generationBucket > bucket - generations.length
+                    && contains(generations[slot], hash, step)) {
+                return false;
+            }
+        }
+        // הדור הנוכחי - המפתח חדש אם לפחות ביט אחד הודלק כאן
+        AtomicLongArray current = current(bucket);
+        boolean changed = false;
+        for (int i = 0; i < hashFunctions; i++) {
+            long index = index(hash, step, i);
+            int word = (int) (index >>> 6);
+            long mask = 1L << index;
+            long value = current.get(word);
+            while ((value & mask) == 0) {
+                long witness = current.compareAndExchange(word, value, value | mask);
+                if (witness == value) {
+                    changed = true;
+                    break;
+                }
+                value = witness;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * בדיקה ללא הכנסה
+     *
+     * @param key המפתח
+     * @param now הזמן הנוכחי במילישניות
+     * @return true אם ייתכן שהמפתח נראה בחלון, false אם לא נראה בוודאות
+     */
+    boolean mightContain(String key, long now) {
+        long bucket = now / bucketMs;
+        long hash = hash(key);
+        long step = mix(hash ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int slot = 0; slot < generations.length; slot++) {
+            long generationBucket = generationBuckets.get(slot);
+            if (generationBucket <= bucket && generationBucket > bucket - generations.length
+                    && contains(generations[slot], hash, step)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    long bits() {
+        return bits;
+    }
+
+    int hashFunctions() {
+        return hashFunctions;
+    }
+
+    long memoryBytes() {
+        return bits / 8 * generations.length;
+    }
+
+    private AtomicLongArray current(long bucket) {
+        int slot = (int) Math.floorMod(bucket, (long) generations.length);
+        if (generationBuckets.get(slot) != bucket) {
+            rotate(slot, bucket);
+        }
+        return generations[slot];
+    }
+
+    private synchronized void rotate(int slot, long bucket) {
+        if (generationBuckets.get(slot) == bucket) {
+            return;
+        }
+        AtomicLongArray generation = generations[slot];
+        for (int word = 0; word < generation.length(); word++) {
+            generation.set(word, 0);
+        }
+        generationBuckets.set(slot, bucket);
+    }
+
+    private boolean contains(AtomicLongArray generation, long hash, long step) {
+        for (int i = 0; i < hashFunctions; i++) {
+            long index = index(hash, step, i);
+            if ((generation.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * double hashing - k אינדקסים משני ערכי hash
+     */
+    private long index(long hash, long step, int i) {
+        return ((hash + i * step) & Long.MAX_VALUE) % bits;
+    }
+
+    /**
+     * FNV-1a של 64 ביט על התווים, ואחריו ערבוב splitmix64
+     */
+    private static long hash(String key) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001B3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+}
@@ -0,0 +1,337 @@
+package com.example.notificationservice.digest;
+
+import com.example.common.concurrent.HierarchicalTimingWheel;
+import com.example.common.concurrent.MpscRingBuffer;
+import com.example.common.kafka.view.InventoryCheckResultView;
+import com.example.common.utils.ValidationUtils;
+import com.example.notificationservice.channel.Notification;
+import com.example.notificationservice.channel.NotificationDispatcher;
+import com.example.notificationservice.history.NotificationHistory;
+import com.example.notificationservice.history.NotificationRecord;
+import com.example.notificationservice.sink.NotificationSink;
+import com.example.notificationservice.template.NotificationTemplate;
+import com.example.notificationservice.template.NotificationTemplates;
+import com.example.notificationservice.template.TemplateField;
+import com.example.notificationservice.template.TemplateModel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * איחוד הודעות לכל לקוח ל-digest אחד
+ * תוצאות בדיקת מלאי של אותו לקוח נצברות עד window-ms מהתוצאה הראשונה או עד max-orders,
+ * ואז יוצאת הודעה אחת שמפרטת את ההזמנות שאושרו ושנדחו.
+ * כל המצב שייך לתהליכון digest יחיד: תוצאות מגיעות אליו דרך תור MPSC, וחלונות הלקוחות מנוהלים
+ * בגלגל זמן היררכי - פעולה O(1) לכל לקוח, ללא משימה מתוזמנת לכל לקוח.
+ * customers מגביל את המצב ללקוחות מסוימים (ריק = כל הלקוחות); כשהתור מלא התוצאה נשלחת כהודעה רגילה.
+ * כל תוצאה מקבלת future שמושלם כשה-digest שלה נכתב ונמסר לערוצים; digest אינו נזרק כשתור ה-sink או ערוץ מלא.
+ * digests פתוחים נשמרים בזיכרון בלבד: בעצירה מסודרת הם נשלחים, אבל בקריסה אובדות התוצאות שנצברו
+ * בחלון הפתוח (עד window-ms או max-orders לכל לקוח) - אלא אם הצרכן מאשר offset רק כשה-future מושלם
+ */
+@Component
+@Slf4j
+public class NotificationDigester {
+
+    private static final int DRAIN_BATCH = 1024;
+
+    private final NotificationSink notificationSink;
+    private final NotificationDispatcher notificationDispatcher;
+    private final NotificationTemplates notificationTemplates;
+    private final NotificationHistory notificationHistory;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${notification.digest.enabled:false}")
+    private boolean enabled;
+
+    @Value("${notification.digest.window-ms:60000}")
+    private long windowMs;
+
+    @Value("${notification.digest.max-orders:100}")
+    private int maxOrders;
+
+    @Value("${notification.digest.customers:}")
+    private Set<String> customers;
+
+    @Value("${notification.digest.tick-ms:100}")
+    private long tickMs;
+
+    @Value("${notification.digest.wheel-size:512}")
+    private int wheelSize;
+
+    @Value("${notification.digest.wheel-levels:3}")
+    private int wheelLevels;
+
+    @Value("${notification.digest.queue-capacity:65536}")
+    private int queueCapacity;
+
+    private final Map<String, CustomerDigest> digests = new HashMap<>();
+    private final AtomicInteger activeCustomers = new AtomicInteger();
+    private MpscRingBuffer<DigestLine> lines;
+    private HierarchicalTimingWheel<CustomerDigest> timingWheel;
+    private Thread digestThread;
+    private volatile boolean running;
+    private volatile boolean idle;
+    private Counter bufferedOrders;
+    private Counter windowDigests;
+    private Counter sizeDigests;
+    private Counter shutdownDigests;
+
+    public NotificationDigester(NotificationSink notificationSink, NotificationDispatcher notificationDispatcher,
+                                NotificationTemplates notificationTemplates, NotificationHistory notificationHistory,
+                                MeterRegistry meterRegistry) {
+        this.notificationSink = notificationSink;
+        this.notificationDispatcher = notificationDispatcher;
+        this.notificationTemplates = notificationTemplates;
+        this.notificationHistory = notificationHistory;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * הפעלת תהליכון ה-digest
+     */
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        customers.removeIf(String::isBlank);
+        lines = new MpscRingBuffer<>(queueCapacity);
+        timingWheel = new HierarchicalTimingWheel<>(tickMs, wheelSize, wheelLevels, System.currentTimeMillis());
+        bufferedOrders = Counter.builder("notification.digest.orders").register(meterRegistry);
+        windowDigests = digestCounter("window");
+        sizeDigests = digestCounter("size");
+        shutdownDigests = digestCounter("shutdown");
+        Gauge.builder("notification.digest.active-customers", activeCustomers, AtomicInteger::get).register(meterRegistry);
+        Gauge.builder("notification.digest.queue.size", lines, MpscRingBuffer::size).register(meterRegistry);
+
+        running = true;
+        digestThread = new Thread(this::digestLoop, "notification-digest");
+        digestThread.setDaemon(true);
+        digestThread.start();
+        log.info("Notification digest started - Window: {} ms, Max orders: {}, Customers: {}",
+                windowMs, maxOrders, customers.isEmpty() ? "all" : customers);
+    }
+
+    /**
+     * עצירת התהליכון ושליחת כל ה-digests הפתוחים
+     */
+    @PreDestroy
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(digestThread);
+        try {
+            digestThread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * צירוף תוצאה ל-digest של הלקוח
+     *
+     * @param inventoryCheckResult תוצאות בדיקת המלאי
+     * @return future שמושלם כשה-digest נכתב ונמסר לערוצים; null אם הלקוח אינו במצב digest או שהתור מלא -
+     * יש לשלוח הודעה רגילה
+     */
+    public CompletableFuture<Void> add(InventoryCheckResultView inventoryCheckResult) {
+        if (!running) {
+            return null;
+        }
+        String customerName = inventoryCheckResult.getCustomerName();
+        if (!ValidationUtils.hasText(customerName) || (!customers.isEmpty() && !customers.contains(customerName))) {
+            return null;
+        }
+        String reason = null;
+        if (!inventoryCheckResult.isApproved()) {
+            reason = ValidationUtils.isNotEmpty(inventoryCheckResult.getUnavailableItems())
+                    ? String.join(", ", inventoryCheckResult.getUnavailableItems())
+                    : inventoryCheckResult.getErrorMessage();
+        }
+        DigestLine line = new DigestLine(customerName, inventoryCheckResult.getOrderId(), inventoryCheckResult.isApproved(),
+                reason, new CompletableFuture<>());
+        if (!lines.offer(line)) {
+            return null;
+        }
+        if (idle) {
+            LockSupport.unpark(digestThread);
+        }
+        bufferedOrders.increment();
+        return line.emitted();
+    }
+
+    /**
+     * לולאת תהליכון ה-digest - צירוף תוצאות וקידום גלגל הזמן
+     * התור מרוקן עד הסוף בכל סבב; התהליכון ממתין עד ה-tick הבא רק כשהתור ריק, ו-{@link #add} מעיר אותו
+     */
+    private void digestLoop() {
+        long tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMs);
+        while (running) {
+            try {
+                while (lines.drain(this::append, DRAIN_BATCH) > 0) {
+                    timingWheel.advance(System.currentTimeMillis(), digest -> emit(digest, windowDigests));
+                }
+                timingWheel.advance(System.currentTimeMillis(), digest -> emit(digest, windowDigests));
+                idle = true;
+                if (lines.isEmpty() && running) {
+                    LockSupport.parkNanos(this, tickNanos);
+                }
+                idle = false;
+            } catch (Exception e) {
+                log.error("Notification digest failed: {}", e.getMessage(), e);
+            }
+        }
+        try {
+            lines.drain(this::append, Integer.MAX_VALUE);
+            for (CustomerDigest digest : new ArrayList<>(digests.values())) {
+                timingWheel.cancel(digest.timeout);
+                emit(digest, shutdownDigests);
+            }
+        } catch (Exception e) {
+            log.error("Failed to flush notification digests on shutdown: {}", e.getMessage(), e);
+        }
+    }
+
+    private void append(DigestLine line) {
+        CustomerDigest digest = digests.get(line.customerName());
+        if (digest == null) {
+            long now = System.currentTimeMillis();
+            digest = new CustomerDigest(line.customerName(), LocalDateTime.now());
+            digest.timeout = timingWheel.schedule(digest, now + windowMs);
+            digests.put(line.customerName(), digest);
+            activeCustomers.incrementAndGet();
+        }
+        digest.lines.add(line);
+        if (digest.lines.size() >= maxOrders) {
+            timingWheel.cancel(digest.timeout);
+            emit(digest, sizeDigests);
+        }
+    }
+
+    /**
+     * רינדור ה-digest מתבנית digest, העברתו לקונסול ולערוצי ההודעות ורישומו בהיסטוריה עם כל ההזמנות שבו
+     */
+    private void emit(CustomerDigest digest, Counter reason) {
+        digests.remove(digest.customerName);
+        activeCustomers.decrementAndGet();
+        List<String> approved = new ArrayList<>();
+        List<DigestLine> rejected = new ArrayList<>();
+        for (DigestLine line : digest.lines) {
+            if (line.approved()) {
+                approved.add(line.orderId());
+            } else {
+                rejected.add(line);
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        TemplateModel model = NotificationTemplates.model()
+                .set(TemplateField.CUSTOMER, digest.customerName)
+                .set(TemplateField.ORDER_COUNT, digest.lines.size())
+                .set(TemplateField.APPROVED_COUNT, approved.size())
+                .set(TemplateField.REJECTED_COUNT, rejected.size())
+                .set(TemplateField.APPROVED_ORDERS, approved)
+                .set(TemplateField.REJECTED_ORDERS, rejectedModels(rejected))
+                .set(TemplateField.PERIOD_START, digest.openedAt)
+                .set(TemplateField.PERIOD_END, now);
+        NotificationTemplate template = notificationTemplates.resolve(NotificationTemplates.DIGEST, NotificationTemplates.DEFAULT_CHANNEL);
+        StringBuilder text = notificationSink.buffer();
+        template.render(model, text);
+        // digest מאחד הזמנות רבות - ממתין למקום בתור במקום להיזרק
+        CompletableFuture<Void> delivered = notificationSink.submit(text, true);
+        String message = text.toString();
+        List<String> orderIds = new ArrayList<>(digest.lines.size());
+        List<CompletableFuture<Void>> emitted = new ArrayList<>(digest.lines.size());
+        for (DigestLine line : digest.lines) {
+            orderIds.add(line.orderId());
+            emitted.add(line.emitted());
+        }
+        notificationHistory.record(new NotificationRecord(now, digest.customerName, orderIds, rejected.isEmpty(), true,
+                notificationDispatcher.channelNames(), message));
+        if (notificationDispatcher.hasChannels()) {
+            String firstOrderId = digest.lines.get(0).orderId();
+            CompletableFuture<Void> dispatched = notificationDispatcher.dispatch(channel -> {
+                NotificationTemplate channelTemplate = notificationTemplates.resolve(NotificationTemplates.DIGEST, channel);
+                return new Notification(firstOrderId, digest.customerName, rejected.isEmpty(), digest.lines.size(),
+                        channelTemplate == template ? message : channelTemplate.render(model), now);
+            }, true);
+            delivered = CompletableFuture.allOf(delivered, dispatched);
+        }
+        delivered.whenComplete((ignored, error) -> {
+            for (CompletableFuture<Void> line : emitted) {
+                if (error == null) {
+                    line.complete(null);
+                } else {
+                    line.completeExceptionally(error);
+                }
+            }
+        });
+        reason.increment();
+        log.info("Notification digest emitted - Customer: {}, Orders: {}, Approved: {}, Rejected: {}",
+                digest.customerName, digest.lines.size(), approved.size(), rejected.size());
+    }
+
+    private static List<TemplateModel> rejectedModels(List<DigestLine> rejected) {
+        List<TemplateModel> models = new ArrayList<>(rejected.size());
+        for (DigestLine line : rejected) {
+            models.add(new TemplateModel()
+                    .set(TemplateField.ORDER_ID, line.orderId())
+                    .set(TemplateField.REASON, line.reason()));
+        }
+        return models;
+    }
+
+    private Counter digestCounter(String reason) {
+        return Counter.builder("notification.digest.emitted")
+                .description("Digests emitted by trigger")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    /**
+     * digest פתוח של לקוח - שייך לתהליכון ה-digest בלבד
+     */
+    private static final class CustomerDigest {
+
+        private final String customerName;
+        private final LocalDateTime openedAt;
+        private final List<DigestLine> lines = new ArrayList<>();
+        private HierarchicalTimingWheel.Timeout<CustomerDigest> timeout;
+
+        private CustomerDigest(String customerName, LocalDateTime openedAt) {
+            this.customerName = customerName;
+            this.openedAt = openedAt;
+        }
+    }
+
+    /**
+     * תוצאה אחת בתוך digest
+     *
+     * @param customerName שם הלקוח
+     * @param orderId      מזהה ההזמנה
+     * @param approved     האם אושרה
+     * @param reason       סיבת הדחייה, null אם אושרה
+     * @param emitted      מושלם כשה-digest שכולל את התוצאה נכתב ונמסר לערוצים
+     */
+    private record DigestLine(String customerName, String orderId, boolean approved, String reason,
+                              CompletableFuture<Void> emitted) {
+    }
+}
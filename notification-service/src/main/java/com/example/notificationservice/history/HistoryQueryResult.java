@@ -0,0 +1,27 @@
+package com.example.notificationservice.history;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * תוצאת שאילתה על היסטוריית ההודעות
+ */
+@Value
+public class HistoryQueryResult {
+
+    /**
+     * ההודעות שנמצאו, מהחדשה לישנה
+     */
+    List<NotificationRecord> notifications;
+
+    /**
+     * מספר ה-segments שהאינדקס שלהם נבדק - segments מחוץ לטווח הזמנים אינם נבדקים כלל
+     */
+    int segmentsScanned;
+
+    /**
+     * מספר ה-segments הקיימים
+     */
+    int segmentsTotal;
+}
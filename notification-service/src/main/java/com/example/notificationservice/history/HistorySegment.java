@@ -0,0 +1,292 @@
+package com.example.notificationservice.history;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * segment של היסטוריית ההודעות - קובץ append-only ואינדקס
+ * שם הקובץ הוא זמן תחילת ה-segment, כך שהסדר בין segments הוא סדר הזמן.
+ * מבנה רשומה: length(4) crc32(4) ואחריהם payload:
+ * sentAt(8) flags(1) customerName, מספר הזמנות(2) ומזהי ההזמנות, מספר ערוצים(1) ושמותיהם, message -
+ * כל מחרוזת כ-UTF-8 עם אורך (4, או -1 עבור null).
+ * רק תהליכון הכתיבה מוסיף רשומות; קריאה היא קריאה במיקום (positional) ובטוחה מכל תהליכון
+ */
+final class HistorySegment {
+
+    static final String SUFFIX = ".seg";
+    static final String INDEX_SUFFIX = ".idx";
+    private static final int HEADER = 8;
+    private static final byte APPROVED = 1;
+    private static final byte DIGEST = 2;
+
+    private final Path file;
+    private final Path indexFile;
+    private final long baseTimestamp;
+    private final FileChannel channel;
+    private final SegmentIndex index;
+    private volatile long size;
+    private boolean active;
+
+    private HistorySegment(Path file, long baseTimestamp, FileChannel channel, SegmentIndex index, long size, boolean active) {
+        this.file = file;
+        this.indexFile = file.resolveSibling(baseTimestamp + INDEX_SUFFIX);
+        this.baseTimestamp = baseTimestamp;
+        this.channel = channel;
+        this.index = index;
+        this.size = size;
+        this.active = active;
+    }
+
+    /**
+     * יצירת segment פעיל חדש
+     */
+    static HistorySegment create(Path directory, long baseTimestamp) throws IOException {
+        Path file = directory.resolve(baseTimestamp + SUFFIX);
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new HistorySegment(file, baseTimestamp, channel, new SegmentIndex(), 0, true);
+    }
+
+    /**
+     * פתיחת segment קיים כסגור לקריאה
+     * אם אין לו אינדקס (השירות נעצר לפני הסגירה) האינדקס נבנה מחדש מהרשומות התקינות
+     */
+    static HistorySegment open(Path file) throws IOException {
+        String name = file.getFileName().toString();
+        long baseTimestamp = Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        Path indexFile = file.resolveSibling(baseTimestamp + INDEX_SUFFIX);
+        SegmentIndex index;
+        if (Files.exists(indexFile)) {
+            index = SegmentIndex.read(indexFile);
+        } else {
+            index = new SegmentIndex();
+            long position = 0;
+            NotificationRecord record;
+            while (position < channel.size() && (record = read(channel, position)) != null) {
+                index.add(record, toMillis(record.getSentAt()), (int) position);
+                position += HEADER + payloadLength(channel, position);
+            }
+            index.seal(indexFile);
+        }
+        return new HistorySegment(file, baseTimestamp, channel, index, channel.size(), false);
+    }
+
+    /**
+     * הוספת רשומה מקודדת - מתהליכון הכתיבה בלבד
+     *
+     * @param encoded רשומה שקודדה ב-{@link #encode}
+     * @param record  הרשומה, לאינדקס
+     * @param timestamp זמן השליחה במילישניות
+     */
+    void append(ByteBuffer encoded, NotificationRecord record, long timestamp) throws IOException {
+        int offset = (int) size;
+        int length = encoded.remaining();
+        while (encoded.hasRemaining()) {
+            channel.write(encoded, size + (length - encoded.remaining()));
+        }
+        size += length;
+        // הרשומה נכנסת לאינדקס רק אחרי שנכתבה, כך ששאילתה לעולם לא מגיעה ל-offset שלא נכתב
+        index.add(record, timestamp, offset);
+    }
+
+    /**
+     * סגירת ה-segment הפעיל וכתיבת האינדקס שלו
+     */
+    void seal(boolean fsync) throws IOException {
+        if (!active) {
+            return;
+        }
+        if (fsync) {
+            channel.force(true);
+        }
+        index.seal(indexFile);
+        active = false;
+    }
+
+    /**
+     * קריאת הרשומות לפי offsets
+     *
+     * @param offsets ה-offsets מהאינדקס
+     * @return הרשומות התקינות, בסדר ה-offsets
+     */
+    List<NotificationRecord> read(int[] offsets) throws IOException {
+        List<NotificationRecord> records = new ArrayList<>(offsets.length);
+        for (int offset : offsets) {
+            NotificationRecord record = read(channel, offset);
+            if (record != null) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+    void delete() throws IOException {
+        channel.close();
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(indexFile);
+    }
+
+    void close() throws IOException {
+        channel.close();
+    }
+
+    SegmentIndex index() {
+        return index;
+    }
+
+    long baseTimestamp() {
+        return baseTimestamp;
+    }
+
+    long size() {
+        return size;
+    }
+
+    Path file() {
+        return file;
+    }
+
+    /**
+     * קידוד רשומה ל-buffer; ה-buffer גדל לפי הצורך ומוחזר לשימוש חוזר
+     */
+    static ByteBuffer encode(NotificationRecord record, long timestamp, ByteBuffer buffer) {
+        byte[] customerName = utf8(record.getCustomerName());
+        byte[] message = utf8(record.getMessage());
+        List<byte[]> orderIds = new ArrayList<>(record.getOrderIds().size());
+        int required = HEADER + 8 + 1 + length(customerName) + 2 + 1 + length(message);
+        for (String orderId : record.getOrderIds()) {
+            byte[] bytes = utf8(orderId);
+            orderIds.add(bytes);
+            required += length(bytes);
+        }
+        List<byte[]> channels = new ArrayList<>(record.getChannels().size());
+        for (String channelName : record.getChannels()) {
+            byte[] bytes = utf8(channelName);
+            channels.add(bytes);
+            required += length(bytes);
+        }
+        if (buffer.capacity() < required) {
+            buffer = ByteBuffer.allocate(Math.max(required, buffer.capacity() * 2));
+        }
+        buffer.clear();
+        buffer.position(HEADER);
+        buffer.putLong(timestamp);
+        buffer.put((byte) ((record.isApproved() ? APPROVED : 0) | (record.isDigest() ? DIGEST : 0)));
+        putString(buffer, customerName);
+        buffer.putShort((short) orderIds.size());
+        for (byte[] orderId : orderIds) {
+            putString(buffer, orderId);
+        }
+        buffer.put((byte) channels.size());
+        for (byte[] channelName : channels) {
+            putString(buffer, channelName);
+        }
+        putString(buffer, message);
+
+        int payloadLength = buffer.position() - HEADER;
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), HEADER, payloadLength);
+        buffer.putInt(0, payloadLength);
+        buffer.putInt(4, (int) crc.getValue());
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * @return הרשומה, או null אם היא חלקית או פגומה
+     */
+    private static NotificationRecord read(FileChannel channel, long position) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER);
+        if (readFully(channel, header, position) < HEADER) {
+            return null;
+        }
+        int payloadLength = header.getInt(0);
+        if (payloadLength <= 0 || position + HEADER + payloadLength > channel.size()) {
+            return null;
+        }
+        ByteBuffer payload = ByteBuffer.allocate(payloadLength);
+        readFully(channel, payload, position + HEADER);
+        CRC32 crc = new CRC32();
+        crc.update(payload.array(), 0, payloadLength);
+        if ((int) crc.getValue() != header.getInt(4)) {
+            return null;
+        }
+
+        payload.flip();
+        LocalDateTime sentAt = LocalDateTime.ofInstant(Instant.ofEpochMilli(payload.getLong()), ZoneId.systemDefault());
+        byte flags = payload.get();
+        String customerName = getString(payload);
+        int orderCount = payload.getShort() & 0xFFFF;
+        List<String> orderIds = new ArrayList<>(orderCount);
+        for (int i = 0; i < orderCount; i++) {
+            orderIds.add(getString(payload));
+        }
+        int channelCount = payload.get() & 0xFF;
+        List<String> channels = new ArrayList<>(channelCount);
+        for (int i = 0; i < channelCount; i++) {
+            channels.add(getString(payload));
+        }
+        return new NotificationRecord(sentAt, customerName, orderIds, (flags & APPROVED) != 0, (flags & DIGEST) != 0,
+                channels, getString(payload));
+    }
+
+    private static int payloadLength(FileChannel channel, long position) throws IOException {
+        ByteBuffer length = ByteBuffer.allocate(4);
+        readFully(channel, length, position);
+        return length.getInt(0);
+    }
+
+    private static int readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int total = 0;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static byte[] utf8(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    private static int length(byte[] value) {
+        return 4 + (value != null ? value.length : 0);
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] value) {
+        if (value == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        buffer.putInt(value.length);
+        buffer.put(value);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+}
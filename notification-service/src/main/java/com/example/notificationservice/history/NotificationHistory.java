@@ -0,0 +1,353 @@
+package com.example.notificationservice.history;
+
+import com.example.common.concurrent.MpscRingBuffer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+import java.util.stream.Stream;
+
+/**
+ * היסטוריה מתמשכת של ההודעות שנשלחו, לשאילתה לפי הזמנה או לפי לקוח וטווח זמנים
+ * ההודעות נכתבות ל-segments מחולקים לפי זמן: קבצי append-only עם אינדקס קומפקטי לפי מזהה הזמנה ולפי לקוח.
+ * ה-segment הפעיל מתגלגל לפי גודל או גיל, ו-segments ישנים נמחקים לפי retention של זמן ושל נפח כולל.
+ * שאילתה בודקת רק את ה-segments שטווח הזמנים שלהם חופף לשאילתה, ובכל segment קוראת רק את ה-offsets מהאינדקס.
+ * ה-consumer רק מכניס את הרשומה לתור MPSC; קידוד וכתיבה נעשים בתהליכון כותב יחיד. כשהתור מלא הרשומה נזרקת ונספרת
+ */
+@Component
+@Slf4j
+public class NotificationHistory {
+
+    private static final int DRAIN_LIMIT = 1024;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long RETENTION_CHECK_INTERVAL_MS = TimeUnit.MINUTES.toMillis(1);
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${notification.history.enabled:true}")
+    private boolean enabled;
+
+    @Value("${notification.history.path:./data/notification-history}")
+    private String directoryPath;
+
+    @Value("${notification.history.segment-max-bytes:67108864}")
+    private long segmentMaxBytes;
+
+    @Value("${notification.history.segment-max-age-ms:3600000}")
+    private long segmentMaxAgeMs;
+
+    @Value("${notification.history.retention-ms:604800000}")
+    private long retentionMs;
+
+    @Value("${notification.history.retention-bytes:1073741824}")
+    private long retentionBytes;
+
+    @Value("${notification.history.queue-capacity:8192}")
+    private int queueCapacity;
+
+    @Value("${notification.history.max-results:1000}")
+    private int maxResults;
+
+    @Value("${notification.history.fsync:false}")
+    private boolean fsync;
+
+    /**
+     * ה-segments מהישן לחדש; האחרון הוא ה-segment הפעיל
+     */
+    private final List<HistorySegment> segments = new CopyOnWriteArrayList<>();
+    private MpscRingBuffer<NotificationRecord> queue;
+    private ByteBuffer encodeBuffer;
+    private HistorySegment active;
+    private Path directory;
+    private Thread writer;
+    private volatile boolean running;
+    private volatile boolean idle;
+    private long nextRetentionCheck;
+    private Counter recorded;
+    private Counter dropped;
+    private Counter writeErrors;
+
+    public NotificationHistory(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * טעינת ה-segments הקיימים, פתיחת segment פעיל חדש והפעלת התהליכון הכותב
+     */
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        directory = Paths.get(directoryPath).toAbsolutePath();
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(file -> file.getFileName().toString().endsWith(HistorySegment.SUFFIX))
+                    .sorted(Comparator.comparing(file -> file.getFileName().toString().length())
+                            .thenComparing(file -> file.getFileName().toString()))
+                    .toList()) {
+                try {
+                    segments.add(HistorySegment.open(file));
+                } catch (IOException | RuntimeException e) {
+                    log.warn("Skipping unreadable notification history segment {}: {}", file, e.getMessage());
+                }
+            }
+        }
+        active = HistorySegment.create(directory, nextBaseTimestamp(System.currentTimeMillis()));
+        segments.add(active);
+        queue = new MpscRingBuffer<>(queueCapacity);
+        encodeBuffer = ByteBuffer.allocate(4096);
+
+        recorded = Counter.builder("notification.history.recorded").register(meterRegistry);
+        dropped = Counter.builder("notification.history.dropped").register(meterRegistry);
+        writeErrors = Counter.builder("notification.history.write.errors").register(meterRegistry);
+        Gauge.builder("notification.history.segments", segments, List::size).register(meterRegistry);
+        Gauge.builder("notification.history.bytes", this, NotificationHistory::totalBytes).register(meterRegistry);
+        Gauge.builder("notification.history.queue.size", queue, MpscRingBuffer::size).register(meterRegistry);
+
+        running = true;
+        writer = new Thread(this::writeLoop, "notification-history-writer");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("Notification history started - Path: {}, Segments: {}, Segment max: {} bytes / {} ms, Retention: {} ms / {} bytes",
+                directory, segments.size(), segmentMaxBytes, segmentMaxAgeMs, retentionMs, retentionBytes);
+    }
+
+    /**
+     * עצירת התהליכון הכותב אחרי ריקון התור וסגירת ה-segment הפעיל
+     */
+    @PreDestroy
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (HistorySegment segment : segments) {
+            try {
+                segment.close();
+            } catch (IOException e) {
+                log.warn("Failed to close notification history segment {}: {}", segment.file(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * רישום הודעה שנשלחה - ללא חסימה וללא I/O
+     *
+     * @param record רשומת ההודעה
+     * @return false אם ההיסטוריה כבויה או שהתור מלא והרשומה נזרקה
+     */
+    public boolean record(NotificationRecord record) {
+        if (!running) {
+            return false;
+        }
+        if (!queue.offer(record)) {
+            dropped.increment();
+            return false;
+        }
+        if (idle) {
+            LockSupport.unpark(writer);
+        }
+        return true;
+    }
+
+    /**
+     * ההודעות של הזמנה, מהחדשה לישנה
+     *
+     * @param orderId מזהה ההזמנה
+     * @param limit   מספר ההודעות המרבי (מוגבל ל-max-results)
+     * @return ההודעות ומספר ה-segments שנבדקו
+     */
+    public HistoryQueryResult findByOrderId(String orderId, int limit) {
+        return query(Long.MIN_VALUE, Long.MAX_VALUE, limit, SegmentIndex::findOrder, orderId,
+                (record, key) -> record.getOrderIds().contains(key));
+    }
+
+    /**
+     * ההודעות של לקוח בטווח זמנים, מהחדשה לישנה
+     *
+     * @param customerName שם הלקוח
+     * @param from         תחילת הטווח, null ללא גבול
+     * @param to           סוף הטווח, null ללא גבול
+     * @param limit        מספר ההודעות המרבי (מוגבל ל-max-results)
+     * @return ההודעות ומספר ה-segments שנבדקו
+     */
+    public HistoryQueryResult findByCustomer(String customerName, LocalDateTime from, LocalDateTime to, int limit) {
+        long fromMillis = from != null ? HistorySegment.toMillis(from) : Long.MIN_VALUE;
+        long toMillis = to != null ? HistorySegment.toMillis(to) : Long.MAX_VALUE;
+        return query(fromMillis, toMillis, limit, SegmentIndex::findCustomer, customerName,
+                (record, key) -> key.equals(record.getCustomerName()));
+    }
+
+    public boolean isEnabled() {
+        return running;
+    }
+
+    /**
+     * מעבר על ה-segments מהחדש לישן: דילוג על segments מחוץ לטווח, חיפוש באינדקס, קריאת ה-offsets
+     * וסינון לפי המפתח המלא (התנגשויות hash) ולפי הזמן המדויק
+     */
+    private HistoryQueryResult query(long from, long to, int limit, BiFunction<SegmentIndex, String, int[]> lookup,
+                                     String key, BiPredicate<NotificationRecord, String> matches) {
+        if (!running) {
+            return new HistoryQueryResult(List.of(), 0, 0);
+        }
+        int max = limit > 0 ? Math.min(limit, maxResults) : maxResults;
+        HistorySegment[] snapshot = segments.toArray(new HistorySegment[0]);
+        List<NotificationRecord> results = new ArrayList<>();
+        int scanned = 0;
+        for (int i = snapshot.length - 1; i >= 0 && results.size() < max; i--) {
+            HistorySegment segment = snapshot[i];
+            if (!segment.index().overlaps(from, to)) {
+                continue;
+            }
+            scanned++;
+            int[] offsets = lookup.apply(segment.index(), key);
+            if (offsets.length == 0) {
+                continue;
+            }
+            try {
+                List<NotificationRecord> records = segment.read(offsets);
+                for (int j = records.size() - 1; j >= 0 && results.size() < max; j--) {
+                    NotificationRecord record = records.get(j);
+                    long sentAt = HistorySegment.toMillis(record.getSentAt());
+                    if (sentAt >= from && sentAt <= to && matches.test(record, key)) {
+                        results.add(record);
+                    }
+                }
+            } catch (IOException e) {
+                // ה-segment נמחק על ידי ה-retention בזמן השאילתה
+                log.debug("Notification history segment {} unavailable: {}", segment.file(), e.getMessage());
+            }
+        }
+        return new HistoryQueryResult(results, scanned, snapshot.length);
+    }
+
+    private void writeLoop() {
+        while (running || !queue.isEmpty()) {
+            try {
+                int drained = queue.drain(this::append, DRAIN_LIMIT);
+                long now = System.currentTimeMillis();
+                // גלגול לפי גיל נבדק גם כשאין הודעות, כדי שה-segment ייסגר ויקבל אינדקס בזמן
+                if (active.size() > 0 && now - active.baseTimestamp() >= segmentMaxAgeMs) {
+                    roll(now);
+                }
+                if (now >= nextRetentionCheck) {
+                    enforceRetention(now);
+                    nextRetentionCheck = now + RETENTION_CHECK_INTERVAL_MS;
+                }
+                if (drained == 0) {
+                    idle = true;
+                    if (queue.isEmpty() && running) {
+                        LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    }
+                    idle = false;
+                }
+            } catch (Exception e) {
+                log.error("Notification history write failed: {}", e.getMessage());
+                LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(1));
+            }
+        }
+        try {
+            active.seal(fsync);
+        } catch (IOException e) {
+            log.warn("Failed to seal notification history segment {}: {}", active.file(), e.getMessage());
+        }
+    }
+
+    private void append(NotificationRecord record) {
+        try {
+            long timestamp = HistorySegment.toMillis(record.getSentAt());
+            encodeBuffer = HistorySegment.encode(record, timestamp, encodeBuffer);
+            if (active.size() > 0 && active.size() + encodeBuffer.remaining() > segmentMaxBytes) {
+                roll(System.currentTimeMillis());
+            }
+            active.append(encodeBuffer, record, timestamp);
+            recorded.increment();
+        } catch (IOException | RuntimeException e) {
+            writeErrors.increment();
+            log.warn("Failed to record notification history for customer {}: {}", record.getCustomerName(), e.getMessage());
+        }
+    }
+
+    /**
+     * סגירת ה-segment הפעיל (אינדקס ממוין נכתב לדיסק) ופתיחת segment חדש
+     */
+    private void roll(long now) throws IOException {
+        active.seal(fsync);
+        HistorySegment next = HistorySegment.create(directory, nextBaseTimestamp(now));
+        segments.add(next);
+        log.debug("Notification history segment rolled - Sealed: {} ({} records, {} bytes)",
+                active.file().getFileName(), active.index().records(), active.size());
+        active = next;
+    }
+
+    /**
+     * מחיקת segments סגורים מהישן לחדש: כל עוד הרשומה החדשה בהם ישנה מ-retention-ms,
+     * או שהנפח הכולל גדול מ-retention-bytes
+     */
+    private void enforceRetention(long now) {
+        long bytes = totalBytes();
+        for (HistorySegment segment : segments) {
+            if (segment == active) {
+                break;
+            }
+            boolean expired = segment.index().records() == 0 || segment.index().maxTimestamp() < now - retentionMs;
+            if (!expired && bytes <= retentionBytes) {
+                break;
+            }
+            segments.remove(segment);
+            bytes -= segment.size();
+            try {
+                segment.delete();
+                log.info("Notification history segment deleted - {} ({} bytes, expired: {})",
+                        segment.file().getFileName(), segment.size(), expired);
+            } catch (IOException e) {
+                log.warn("Failed to delete notification history segment {}: {}", segment.file(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * זמן תחילה ייחודי - שם הקובץ הוא זמן התחילה, ו-segment חדש תמיד אחרי כל הקיימים
+     */
+    private long nextBaseTimestamp(long now) {
+        if (segments.isEmpty()) {
+            return now;
+        }
+        return Math.max(now, segments.get(segments.size() - 1).baseTimestamp() + 1);
+    }
+
+    private long totalBytes() {
+        long bytes = 0;
+        for (HistorySegment segment : segments) {
+            bytes += segment.size();
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.notificationservice.history;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * רשומת היסטוריה של הודעה שנשלחה
+ */
+@Value
+public class NotificationRecord {
+
+    /**
+     * תאריך ושעה שליחת ההודעה
+     */
+    LocalDateTime sentAt;
+
+    /**
+     * שם הלקוח
+     */
+    String customerName;
+
+    /**
+     * מזהי ההזמנות בהודעה - יותר מאחד ב-digest
+     */
+    List<String> orderIds;
+
+    /**
+     * האם ההזמנה אושרה - ב-digest, רק אם כל ההזמנות אושרו
+     */
+    boolean approved;
+
+    /**
+     * האם זו הודעת digest
+     */
+    boolean digest;
+
+    /**
+     * הערוצים שההודעה הועברה אליהם, מלבד הקונסול
+     */
+    List<String> channels;
+
+    /**
+     * הטקסט שהוצג בקונסול
+     */
+    String message;
+}
@@ -0,0 +1,206 @@
+package com.example.notificationservice.history;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * אינדקס קומפקטי של segment - לפי מזהה הזמנה ולפי לקוח
+ * כל רשומה באינדקס היא long אחד: hash של 32 ביט של המפתח בחלק העליון וה-offset ברשומות בחלק התחתון.
+ * ב-segment הפעיל הטבלאות לא ממוינות ונסרקות ליניארית; בסגירת ה-segment הן ממוינות (מיון פרימיטיבי)
+ * ונכתבות לקובץ idx, והחיפוש הוא חיפוש בינארי. התנגשות hash רק מוסיפה רשומה שנקראת ומסוננת לפי המפתח המלא.
+ * בנוסף נשמר טווח הזמנים של הרשומות, לבחירת ה-segments הרלוונטיים לשאילתה לפי זמן
+ */
+final class SegmentIndex {
+
+    private static final int MAGIC = 0x4E484958;
+    private static final int VERSION = 1;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private long[] orders;
+    private int orderCount;
+    private long[] customers;
+    private int customerCount;
+    private int records;
+    private long minTimestamp = Long.MAX_VALUE;
+    private long maxTimestamp = Long.MIN_VALUE;
+    private boolean sealed;
+
+    SegmentIndex() {
+        this.orders = new long[INITIAL_CAPACITY];
+        this.customers = new long[INITIAL_CAPACITY];
+    }
+
+    private SegmentIndex(long[] orders, long[] customers, int records, long minTimestamp, long maxTimestamp) {
+        this.orders = orders;
+        this.orderCount = orders.length;
+        this.customers = customers;
+        this.customerCount = customers.length;
+        this.records = records;
+        this.minTimestamp = minTimestamp;
+        this.maxTimestamp = maxTimestamp;
+        this.sealed = true;
+    }
+
+    /**
+     * הוספת רשומה לאינדקס של ה-segment הפעיל
+     */
+    synchronized void add(NotificationRecord record, long timestamp, int offset) {
+        for (String orderId : record.getOrderIds()) {
+            if (orderCount == orders.length) {
+                orders = Arrays.copyOf(orders, orders.length * 2);
+            }
+            orders[orderCount++] = entry(orderId, offset);
+        }
+        if (record.getCustomerName() != null) {
+            if (customerCount == customers.length) {
+                customers = Arrays.copyOf(customers, customers.length * 2);
+            }
+            customers[customerCount++] = entry(record.getCustomerName(), offset);
+        }
+        records++;
+        minTimestamp = Math.min(minTimestamp, timestamp);
+        maxTimestamp = Math.max(maxTimestamp, timestamp);
+    }
+
+    /**
+     * @return ה-offsets של הרשומות שייתכן שמכילות את ההזמנה, בסדר עולה
+     */
+    synchronized int[] findOrder(String orderId) {
+        return find(orders, orderCount, orderId);
+    }
+
+    /**
+     * @return ה-offsets של הרשומות שייתכן שהן של הלקוח, בסדר עולה
+     */
+    synchronized int[] findCustomer(String customerName) {
+        return find(customers, customerCount, customerName);
+    }
+
+    synchronized boolean overlaps(long from, long to) {
+        return records > 0 && maxTimestamp >= from && minTimestamp <= to;
+    }
+
+    synchronized int records() {
+        return records;
+    }
+
+    synchronized long maxTimestamp() {
+        return maxTimestamp;
+    }
+
+    /**
+     * מיון הטבלאות וכתיבתן לקובץ - אחרי הסגירה האינדקס אינו משתנה
+     */
+    synchronized void seal(Path file) throws IOException {
+        orders = Arrays.copyOf(orders, orderCount);
+        customers = Arrays.copyOf(customers, customerCount);
+        Arrays.sort(orders);
+        Arrays.sort(customers);
+        sealed = true;
+
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(records);
+            out.writeLong(minTimestamp);
+            out.writeLong(maxTimestamp);
+            writeTable(out, orders);
+            writeTable(out, customers);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * טעינת אינדקס של segment סגור
+     */
+    static SegmentIndex read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Unsupported history index " + file);
+            }
+            int records = in.readInt();
+            long minTimestamp = in.readLong();
+            long maxTimestamp = in.readLong();
+            return new SegmentIndex(readTable(in), readTable(in), records, minTimestamp, maxTimestamp);
+        }
+    }
+
+    private int[] find(long[] table, int count, String key) {
+        int hash = hash(key);
+        int[] offsets = new int[4];
+        int found = 0;
+        if (sealed) {
+            // lower bound של (hash, 0) ואז כל הרשומות עם אותו hash
+            int low = 0;
+            int high = count;
+            long target = (long) hash << 32;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (table[middle] < target) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            for (int i = low; i < count && (int) (table[i] >> 32) == hash; i++) {
+                offsets = append(offsets, found++, (int) table[i]);
+            }
+        } else {
+            for (int i = 0; i < count; i++) {
+                if ((int) (table[i] >> 32) == hash) {
+                    offsets = append(offsets, found++, (int) table[i]);
+                }
+            }
+        }
+        return Arrays.copyOf(offsets, found);
+    }
+
+    private static int[] append(int[] offsets, int index, int offset) {
+        if (index == offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        offsets[index] = offset;
+        return offsets;
+    }
+
+    private static long entry(String key, int offset) {
+        return ((long) hash(key) << 32) | (offset & 0xFFFFFFFFL);
+    }
+
+    /**
+     * FNV-1a על התווים עם ערבוב סופי - מספיק לפיזור, התנגשויות מסוננות בקריאה
+     */
+    private static int hash(String key) {
+        int hash = 0x811C9DC5;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x01000193;
+        }
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        return hash ^ (hash >>> 13);
+    }
+
+    private static void writeTable(DataOutputStream out, long[] table) throws IOException {
+        out.writeInt(table.length);
+        for (long entry : table) {
+            out.writeLong(entry);
+        }
+    }
+
+    private static long[] readTable(DataInputStream in) throws IOException {
+        long[] table = new long[in.readInt()];
+        for (int i = 0; i < table.length; i++) {
+            table[i] = in.readLong();
+        }
+        return table;
+    }
+}
@@ -1,24 +1,38 @@
 package com.example.notificationservice.listener;
 
-import com.example.common.events.InventoryCheckResultEvent;
+import com.example.common.kafka.parallel.ParallelConsumer;
+import com.example.common.kafka.view.InventoryCheckResultView;
+import com.example.common.lifecycle.OrderLifecycle;
 import com.example.common.utils.ValidationUtils;
 import com.example.notificationservice.service.NotificationService;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.core.convert.ConversionException;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.annotation.RetryableTopic;
 import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.messaging.converter.MessageConversionException;
 import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.Headers;
 import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.handler.invocation.MethodArgumentResolutionException;
 import org.springframework.retry.annotation.Backoff;
 import org.springframework.stereotype.Component;
 
+import java.util.Map;
+
 /**
  * מאזין לאירועי Kafka עבור שירות ההודעות
  * מטפל בתוצאות בדיקת מלאי ומציג הודעות בקונסול
  * כולל מנגנון Dead Letter Queue לטיפול בכשלים
+ * פעיל כש-events.transport הוא kafka; ב-transport אחר InventoryResultReprocessHandler נרשם ל-EventBus.
+ * כש-notification.receiver.mode הוא reactive התוצאות נצרכות ב-{@link ReactiveInventoryResultReceiver} במקומו
  */
 @Component
+@ConditionalOnExpression("'${events.transport:kafka}' == 'kafka' and '${notification.receiver.mode:listener}' != 'reactive'")
 @RequiredArgsConstructor
 @Slf4j
 public class InventoryResultListener {
@@ -27,25 +41,32 @@ public class InventoryResultListener {
 
     /**
      * מאזין לתוצאות בדיקת מלאי
-     * מקבל אירוע ומפעיל הצגת הודעה בקונסול
+     * מקבל view עצל של האירוע ומפעיל הצגת הודעה בקונסול - רק השדות שנקראים מפוענחים
      * כולל מנגנון retry עם DLQ
      *
      * @param inventoryCheckResult תוצאות בדיקת המלאי
      * @param key                  מזהה ההודעה
      * @param topic                שם הטופיק
      * @param partition            מספר הpartition
+     * @param headers              כל ה-headers, לחותמות מחזור החיים של ההזמנה
      */
+    @ParallelConsumer
     @KafkaListener(topics = "inventory-check-result", groupId = "notification-service-group")
     @RetryableTopic(
             attempts = "3",
             backoff = @Backoff(delay = 1000, multiplier = 2.0),
-            include = {Exception.class},
+            // אותם סוגים כמו PoisonMessageClassifier - כשל מבני עובר להסגר ולא ל-topics של retry
+            exclude = {DeserializationException.class, MessageConversionException.class, ConversionException.class,
+                    MethodArgumentResolutionException.class, JsonProcessingException.class, ClassCastException.class,
+                    IllegalArgumentException.class},
+            traversingCauses = "true",
             dltTopicSuffix = "-dlq"
     )
-    public void handleInventoryCheckResult(@Payload InventoryCheckResultEvent inventoryCheckResult,
+    public void handleInventoryCheckResult(@Payload InventoryCheckResultView inventoryCheckResult,
                                            @Header(KafkaHeaders.RECEIVED_KEY) String key,
                                            @Header(KafkaHeaders.RECEIVED_TOPIC) String topic,
-                                           @Header(KafkaHeaders.RECEIVED_PARTITION) int partition) {
+                                           @Header(KafkaHeaders.RECEIVED_PARTITION) int partition,
+                                           @Headers Map<String, Object> headers) {
 
         log.info("Kafka event received for order {} - Customer: {}, Approved: {}, Topic: {}", 
                 inventoryCheckResult.getOrderId(), inventoryCheckResult.getCustomerName(), 
@@ -75,7 +96,8 @@ public class InventoryResultListener {
         }
 
         try {
-            notificationService.processInventoryCheckResult(inventoryCheckResult);
+            // ממתינים לסיום ההודעה כדי שכשל יגיע ל-retry topics וה-offset יישמר רק אחרי הטיפול
+            notificationService.notifyInventoryCheckResult(inventoryCheckResult, OrderLifecycle.fromHeaders(headers)).block();
             log.info("Successfully processed inventory check result for order: {}", inventoryCheckResult.getOrderId());
         } catch (Exception e) {
             log.error("Failed to process inventory check result for order {}: {}", 
@@ -0,0 +1,37 @@
+package com.example.notificationservice.listener;
+
+import com.example.common.events.InventoryCheckResultEvent;
+import com.example.common.kafka.reprocess.ReprocessHandler;
+import com.example.common.kafka.view.InventoryCheckResultView;
+import com.example.notificationservice.service.NotificationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * עיבוד חוזר ישיר של תוצאות בדיקת מלאי מ-DLQ
+ * מפעיל את אותו טיפול כמו {@link InventoryResultListener}
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class InventoryResultReprocessHandler implements ReprocessHandler<InventoryCheckResultEvent> {
+
+    private final NotificationService notificationService;
+
+    @Override
+    public String topic() {
+        return "inventory-check-result";
+    }
+
+    @Override
+    public Class<InventoryCheckResultEvent> type() {
+        return InventoryCheckResultEvent.class;
+    }
+
+    @Override
+    public void handle(String key, InventoryCheckResultEvent event) {
+        notificationService.processInventoryCheckResult(InventoryCheckResultView.of(event));
+        log.info("Reprocessed inventory result notification for order: {}", event.getOrderId());
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.notificationservice.listener;
+
+import com.example.common.kafka.view.OrderCreatedView;
+import com.example.common.utils.ValidationUtils;
+import com.example.notificationservice.orderview.OrderSummary;
+import com.example.notificationservice.orderview.OrderSummaryView;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Component;
+
+/**
+ * מאזין לאירועי יצירת הזמנה ומעדכן את ה-view המקומי של תקצירי ההזמנות
+ * אין retry: עדכון ה-view מקומי, והחמצה חוזרת לאחזור מ-Redis.
+ * פעיל כש-events.transport הוא kafka; ב-transport אחר OrderSummaryHandler נרשם ל-EventBus
+ */
+@Component
+@ConditionalOnExpression("'${events.transport:kafka}' == 'kafka' and ${notification.order-view.enabled:true}")
+@RequiredArgsConstructor
+@Slf4j
+public class OrderCreatedListener {
+
+    private final OrderSummaryView orderSummaryView;
+
+    /**
+     * מאזין לאירועי יצירת הזמנה
+     * מקבל view עצל - רק שדות התקציר מפוענחים
+     *
+     * @param orderCreated אירוע יצירת ההזמנה
+     */
+    @KafkaListener(topics = "order-created", groupId = "notification-service-group",
+            containerFactory = "orderCreatedKafkaListenerContainerFactory")
+    public void handleOrderCreated(@Payload(required = false) OrderCreatedView orderCreated) {
+        if (ValidationUtils.isNull(orderCreated)) {
+            return;
+        }
+        orderSummaryView.put(OrderSummary.of(orderCreated));
+        log.debug("Order summary stored for order: {}", orderCreated.getOrderId());
+    }
+}
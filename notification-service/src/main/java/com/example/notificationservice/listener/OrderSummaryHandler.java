@@ -0,0 +1,36 @@
+package com.example.notificationservice.listener;
+
+import com.example.common.events.OrderCreatedEvent;
+import com.example.common.transport.EventHandler;
+import com.example.notificationservice.orderview.OrderSummary;
+import com.example.notificationservice.orderview.OrderSummaryView;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * עדכון ה-view המקומי של תקצירי ההזמנות מאירועי יצירת הזמנה
+ * נרשם ל-EventBus כש-events.transport אינו kafka
+ */
+@Component
+@ConditionalOnProperty(name = "notification.order-view.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class OrderSummaryHandler implements EventHandler<OrderCreatedEvent> {
+
+    private final OrderSummaryView orderSummaryView;
+
+    @Override
+    public String topic() {
+        return "order-created";
+    }
+
+    @Override
+    public Class<OrderCreatedEvent> type() {
+        return OrderCreatedEvent.class;
+    }
+
+    @Override
+    public void handle(String key, OrderCreatedEvent event) {
+        orderSummaryView.put(OrderSummary.of(event));
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.notificationservice.listener;
+
+import com.example.common.kafka.quarantine.QuarantineService;
+import com.example.common.kafka.view.InventoryCheckResultView;
+import com.example.common.lifecycle.OrderLifecycle;
+import com.example.notificationservice.service.NotificationService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.kafka.receiver.KafkaReceiver;
+import reactor.kafka.receiver.ReceiverOptions;
+import reactor.kafka.receiver.ReceiverRecord;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * צרכן ריאקטיבי לתוצאות בדיקת מלאי (reactor-kafka), חלופה ל-{@link InventoryResultListener}
+ * receive → dedup/digest → העשרה מה-view או מ-Redis → רינדור → העברה ל-sink ולערוצים, כ-pipeline אחד עם backpressure:
+ * ה-partitions מחולקים ל-concurrency קבוצות, כל קבוצה מעובדת ברצף (סדר לפי partition נשמר) והקבוצות במקביל.
+ * offset מאושר רק כשה-sink כתב את ההודעה וכל הערוצים שלחו אותה (או אחרי פרסום ל-DLQ), כך ש-commit לעולם אינו מקדים את המסירה.
+ * כשתור ה-sink או של ערוץ מלא ההודעה ממתינה למקום ואינה נזרקת, והקבוצה אינה ממשיכה לרשומה הבאה עד שהתקבלה.
+ * תוצאה שצורפה ל-digest משחררת את הקבוצה מיד, אבל ה-offset שלה מאושר רק כשה-digest נשלח; ה-receiver מבצע commit
+ * רק עד ה-offset הראשון שלא אושר (max-deferred-commits), ומשהה את ה-consumer כשיותר רשומות ממתינות לאישור.
+ * groupBy מבקש מה-receiver לכל היותר prefetch רשומות שלא טופלו, וה-receiver עוצר את ה-consumer כשאין ביקוש -
+ * הזיכרון של רשומות בטיפול חסום ב-prefetch ועוד poll אחד, בכל עומס ובכל האטה של Redis.
+ * רשומות פגומות עוברות להסגר ומאושרות; כשל אחרי max-attempts מתפרסם ל-<topic>-dlq
+ */
+@Component
+@ConditionalOnExpression("'${events.transport:kafka}' == 'kafka' and '${notification.receiver.mode:listener}' == 'reactive'")
+@Slf4j
+public class ReactiveInventoryResultReceiver {
+
+    private static final String DLQ_SUFFIX = "-dlq";
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(30);
+
+    private final ReceiverOptions<String, Object> receiverOptions;
+    private final NotificationService notificationService;
+    private final QuarantineService quarantineService;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${notification.receiver.concurrency:16}")
+    private int concurrency;
+
+    @Value("${notification.receiver.prefetch:256}")
+    private int prefetch;
+
+    @Value("${notification.receiver.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${notification.receiver.backoff-ms:1000}")
+    private long backoffMs;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private Disposable subscription;
+    private Counter notified;
+    private Counter quarantined;
+    private Counter deadLettered;
+    private Counter retries;
+
+    public ReactiveInventoryResultReceiver(ReceiverOptions<String, Object> receiverOptions, NotificationService notificationService,
+                                           QuarantineService quarantineService, KafkaTemplate<String, Object> kafkaTemplate,
+                                           MeterRegistry meterRegistry) {
+        this.receiverOptions = receiverOptions;
+        this.notificationService = notificationService;
+        this.quarantineService = quarantineService;
+        this.kafkaTemplate = kafkaTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * הפעלת ה-pipeline
+     */
+    @PostConstruct
+    public void start() {
+        notified = recordCounter("notified");
+        quarantined = recordCounter("quarantined");
+        deadLettered = recordCounter("dead-lettered");
+        retries = Counter.builder("notification.receiver.retries").register(meterRegistry);
+        Gauge.builder("notification.receiver.in-flight", inFlight, AtomicInteger::get).register(meterRegistry);
+
+        subscription = KafkaReceiver.create(receiverOptions)
+                .receive()
+                .groupBy(record -> record.partition() % concurrency, prefetch)
+                .flatMap(partitions -> partitions.concatMap(this::handle), concurrency)
+                // כשל של ה-receiver עצמו (למשל ניתוק מה-broker) - חיבור מחדש; offsets שלא אושרו ייקראו שוב
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(MAX_BACKOFF)
+                        .doBeforeRetry(signal -> log.error("Reactive inventory result receiver failed, reconnecting: {}",
+                                signal.failure().getMessage())))
+                .subscribe();
+        log.info("Reactive inventory result receiver started - Concurrency: {}, Prefetch: {}, Max attempts: {}",
+                concurrency, prefetch, maxAttempts);
+    }
+
+    /**
+     * עצירת ה-pipeline - ה-receiver מבצע commit ל-offsets שאושרו וסוגר את ה-consumer
+     */
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    /**
+     * טיפול ברשומה אחת - מסתיים כשהתוצאה התקבלה והקבוצה יכולה להמשיך לרשומה הבאה
+     * ה-offset מאושר כשההודעה נמסרה, מיד או כשה-digest שלה נשלח
+     */
+    private Mono<Void> handle(ReceiverRecord<String, Object> record) {
+        if (quarantineService.quarantineIfMalformed(record)) {
+            quarantined.increment();
+            record.receiverOffset().acknowledge();
+            return Mono.empty();
+        }
+        if (!(record.value() instanceof InventoryCheckResultView inventoryCheckResult)) {
+            log.warn("Skipping record without inventory check result - Partition: {}, Offset: {}",
+                    record.partition(), record.offset());
+            quarantined.increment();
+            record.receiverOffset().acknowledge();
+            return Mono.empty();
+        }
+
+        inFlight.incrementAndGet();
+        OrderLifecycle lifecycle = OrderLifecycle.fromHeaders(record.headers());
+        return Mono.defer(() -> notificationService.notifyInventoryCheckResult(inventoryCheckResult, lifecycle))
+                .retryWhen(Retry.backoff(Math.max(0, maxAttempts - 1), Duration.ofMillis(backoffMs))
+                        .maxBackoff(MAX_BACKOFF)
+                        .filter(error -> !(error instanceof IllegalArgumentException))
+                        .doBeforeRetry(signal -> retries.increment())
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()))
+                .onErrorResume(error -> Mono.just(CompletableFuture.<Void>failedFuture(error)))
+                .doOnNext(delivered -> delivered.whenComplete((ignored, error) -> complete(record, error)))
+                .then();
+    }
+
+    /**
+     * אישור ה-offset אחרי שההודעה נמסרה, או אחרי פרסום הרשומה ל-DLQ כשהמסירה נכשלה
+     */
+    private void complete(ReceiverRecord<String, Object> record, Throwable error) {
+        Mono<Void> outcome;
+        if (error == null) {
+            outcome = Mono.fromRunnable(notified::increment);
+        } else {
+            outcome = deadLetter(record, error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+        }
+        outcome.doFinally(signal -> inFlight.decrementAndGet())
+                .subscribe(null,
+                        failure -> log.error("Inventory result for key {} left unacknowledged: {}", record.key(), failure.getMessage()),
+                        () -> record.receiverOffset().acknowledge());
+    }
+
+    /**
+     * פרסום הרשומה המקורית (אותם בתים ו-headers) ל-DLQ
+     * כשל בפרסום נוסה שוב ללא הגבלה - ה-partition ממתין במקום לאשר offset של רשומה שלא נשמרה
+     */
+    private Mono<Void> deadLetter(ReceiverRecord<String, Object> record, Throwable error) {
+        String topic = record.topic() + DLQ_SUFFIX;
+        log.error("Inventory result for key {} failed after {} attempts, publishing to {}: {}",
+                record.key(), maxAttempts, topic, error.getMessage());
+        ProducerRecord<String, Object> deadLetter = new ProducerRecord<>(topic, null, record.key(), record.value(), record.headers());
+        return Mono.fromFuture(() -> kafkaTemplate.send(deadLetter))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofMillis(backoffMs)).maxBackoff(MAX_BACKOFF)
+                        .doBeforeRetry(signal -> log.warn("Failed to publish to {}, retrying: {}", topic, signal.failure().getMessage())))
+                .doOnSuccess(result -> deadLettered.increment())
+                .then();
+    }
+
+    private Counter recordCounter(String result) {
+        return Counter.builder("notification.receiver.records")
+                .description("Inventory results handled by the reactive receiver, by outcome")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.notificationservice.orderview;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * מאגר תקצירי הזמנות מחוץ ל-heap
+ * buffer ישיר אחד המחולק ל-slots בגודל קבוע, עם hash פתוח (linear probing בחלון של PROBE_WINDOW slots).
+ * אין אובייקטים ב-heap לכל רשומה ואין אינדקס נפרד, כך שהזיכרון קבוע (slots * SLOT_SIZE) ואינו מעמיס על ה-GC.
+ * זהו cache: כשהחלון מלא נדרסת הרשומה שפגה ראשונה, ורשומה שאינה נכנסת ל-slot אינה נשמרת -
+ * החמצה חוזרת ל-Redis.
+ * מבנה slot: expiresAt(8) createdSeconds(8) createdNanos(4) itemsCount(4) keyHash(4) ואחריהם
+ * orderId, customerName, requestId כ-UTF-8 עם אורך (2, או -1 עבור null)
+ */
+class OffHeapOrderSummaryStore {
+
+    static final int SLOT_SIZE = 256;
+    private static final int PROBE_WINDOW = 8;
+    private static final int EXPIRES_AT = 0;
+    private static final int CREATED_SECONDS = 8;
+    private static final int CREATED_NANOS = 16;
+    private static final int ITEMS_COUNT = 20;
+    private static final int KEY_HASH = 24;
+    private static final int STRINGS = 28;
+    private static final int NO_DATE = -1;
+
+    private final ByteBuffer buffer;
+    private final int mask;
+    private int size;
+
+    /**
+     * @param maxEntries מספר ה-slots המבוקש; מעוגל כלפי מעלה לחזקה של 2
+     */
+    OffHeapOrderSummaryStore(int maxEntries) {
+        int slots = Integer.highestOneBit(Math.max(PROBE_WINDOW, maxEntries - 1)) << 1;
+        if ((long) slots * SLOT_SIZE > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Off-heap order view too large: " + maxEntries + " entries");
+        }
+        this.buffer = ByteBuffer.allocateDirect(slots * SLOT_SIZE);
+        this.mask = slots - 1;
+    }
+
+    /**
+     * שמירת תקציר
+     *
+     * @return false אם התקציר גדול מ-slot ולא נשמר
+     */
+    synchronized boolean put(OrderSummary summary, long expiresAt, long now) {
+        byte[] orderId = utf8(summary.getOrderId());
+        byte[] customerName = utf8(summary.getCustomerName());
+        byte[] requestId = utf8(summary.getRequestId());
+        if (STRINGS + length(orderId) + length(customerName) + length(requestId) > SLOT_SIZE) {
+            return false;
+        }
+        int hash = hash(orderId);
+        int target = -1;
+        long oldestExpiry = Long.MAX_VALUE;
+        for (int probe = 0; probe < PROBE_WINDOW; probe++) {
+            int slot = (hash + probe) & mask;
+            int base = slot * SLOT_SIZE;
+            long slotExpiry = buffer.getLong(base + EXPIRES_AT);
+            if (slotExpiry != 0 && slotExpiry > now && buffer.getInt(base + KEY_HASH) == hash && keyEquals(base, orderId)) {
+                target = slot;
+                break;
+            }
+            if (slotExpiry < oldestExpiry) {
+                oldestExpiry = slotExpiry;
+                target = slot;
+            }
+        }
+        int base = target * SLOT_SIZE;
+        if (buffer.getLong(base + EXPIRES_AT) == 0) {
+            size++;
+        }
+        LocalDateTime createdAt = summary.getCreatedAt();
+        buffer.putLong(base + EXPIRES_AT, expiresAt);
+        buffer.putLong(base + CREATED_SECONDS, createdAt != null ? createdAt.toEpochSecond(ZoneOffset.UTC) : 0);
+        buffer.putInt(base + CREATED_NANOS, createdAt != null ? createdAt.getNano() : NO_DATE);
+        buffer.putInt(base + ITEMS_COUNT, summary.getItemsCount());
+        buffer.putInt(base + KEY_HASH, hash);
+        int position = base + STRINGS;
+        position = writeString(position, orderId);
+        position = writeString(position, customerName);
+        writeString(position, requestId);
+        return true;
+    }
+
+    /**
+     * @return התקציר, או null אם אינו קיים או שפג תוקפו
+     */
+    synchronized OrderSummary get(String orderId, long now) {
+        byte[] key = utf8(orderId);
+        int hash = hash(key);
+        for (int probe = 0; probe < PROBE_WINDOW; probe++) {
+            int base = ((hash + probe) & mask) * SLOT_SIZE;
+            long expiresAt = buffer.getLong(base + EXPIRES_AT);
+            if (expiresAt == 0 || buffer.getInt(base + KEY_HASH) != hash || !keyEquals(base, key)) {
+                continue;
+            }
+            if (expiresAt <= now) {
+                clear(base);
+                return null;
+            }
+            int nanos = buffer.getInt(base + CREATED_NANOS);
+            LocalDateTime createdAt = nanos == NO_DATE ? null
+                    : LocalDateTime.ofEpochSecond(buffer.getLong(base + CREATED_SECONDS), nanos, ZoneOffset.UTC);
+            int position = base + STRINGS;
+            position += 2 + Math.max(0, buffer.getShort(position));
+            String customerName = readString(position);
+            position += 2 + Math.max(0, buffer.getShort(position));
+            String requestId = readString(position);
+            return new OrderSummary(orderId, customerName, buffer.getInt(base + ITEMS_COUNT), requestId, createdAt);
+        }
+        return null;
+    }
+
+    /**
+     * פינוי slots שפג תוקפם
+     *
+     * @return מספר הרשומות שפונו
+     */
+    synchronized int evictExpired(long now) {
+        int evicted = 0;
+        for (int base = 0; base < buffer.capacity(); base += SLOT_SIZE) {
+            long expiresAt = buffer.getLong(base + EXPIRES_AT);
+            if (expiresAt != 0 && expiresAt <= now) {
+                clear(base);
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+
+    private void clear(int base) {
+        buffer.putLong(base + EXPIRES_AT, 0);
+        size--;
+    }
+
+    private boolean keyEquals(int base, byte[] key) {
+        int position = base + STRINGS;
+        if (buffer.getShort(position) != key.length) {
+            return false;
+        }
+        byte[] stored = new byte[key.length];
+        buffer.get(position + 2, stored);
+        return Arrays.equals(stored, key);
+    }
+
+    private int writeString(int position, byte[] value) {
+        if (value == null) {
+            buffer.putShort(position, (short) -1);
+            return position + 2;
+        }
+        buffer.putShort(position, (short) value.length);
+        buffer.put(position + 2, value);
+        return position + 2 + value.length;
+    }
+
+    private String readString(int position) {
+        short length = buffer.getShort(position);
+        if (length < 0) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        buffer.get(position + 2, value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] utf8(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    private static int length(byte[] value) {
+        return 2 + (value != null ? value.length : 0);
+    }
+
+    private static int hash(byte[] key) {
+        int hash = Arrays.hashCode(key);
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.notificationservice.orderview;
+
+import com.example.common.events.OrderCreatedEvent;
+import com.example.common.kafka.view.OrderCreatedView;
+import com.example.common.models.Order;
+import com.example.common.utils.ValidationUtils;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * תקציר הזמנה - השדות שההודעה מציגה בלבד
+ * נבנה מאירוע order-created או מההזמנה המלאה ב-Redis
+ */
+@Value
+public class OrderSummary {
+
+    /**
+     * מזהה ההזמנה
+     */
+    String orderId;
+
+    /**
+     * שם הלקוח
+     */
+    String customerName;
+
+    /**
+     * מספר הפריטים בהזמנה
+     */
+    int itemsCount;
+
+    /**
+     * מזהה הבקשה המקורית
+     */
+    String requestId;
+
+    /**
+     * תאריך ושעה יצירת ההזמנה
+     */
+    LocalDateTime createdAt;
+
+    public static OrderSummary of(Order order) {
+        return new OrderSummary(order.getOrderId(), order.getCustomerName(),
+                ValidationUtils.isNotEmpty(order.getItems()) ? order.getItems().size() : 0,
+                order.getRequestId(), order.getCreatedAt());
+    }
+
+    public static OrderSummary of(OrderCreatedEvent event) {
+        return new OrderSummary(event.getOrderId(), event.getCustomerName(),
+                ValidationUtils.isNotEmpty(event.getItems()) ? event.getItems().size() : 0,
+                event.getRequestId(), event.getRequestDateTime());
+    }
+
+    /**
+     * מפענח מה-view רק את השדות של התקציר; זמן האירוע אינו נקרא
+     */
+    public static OrderSummary of(OrderCreatedView view) {
+        return new OrderSummary(view.getOrderId(), view.getCustomerName(),
+                ValidationUtils.isNotEmpty(view.getItems()) ? view.getItems().size() : 0,
+                view.getRequestId(), view.getRequestDateTime());
+    }
+}
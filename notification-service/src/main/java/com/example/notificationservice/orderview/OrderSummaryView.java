@@ -0,0 +1,187 @@
+package com.example.notificationservice.orderview;
+
+import com.example.common.utils.ValidationUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * View מקומי של תקצירי הזמנות, נבנה מאירועי order-created
+ * מאפשר להציג הודעה על תוצאת בדיקת מלאי ללא קריאה ל-Redis.
+ * הרשומות נשמרות ב-heap לפי סדר ההכנסה עד max-entries ולמשך ttl-ms; כשה-heap מלא הרשומה הוותיקה
+ * עוברת למאגר off-heap (אם הופעל) או נזרקת. החמצה אינה שגיאה - ההודעה חוזרת לאחזור מ-Redis
+ */
+@Component
+@Slf4j
+public class OrderSummaryView {
+
+    private final MeterRegistry meterRegistry;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+
+    @Value("${notification.order-view.enabled:true}")
+    private boolean enabled;
+
+    @Value("${notification.order-view.max-entries:50000}")
+    private int maxEntries;
+
+    @Value("${notification.order-view.ttl-ms:600000}")
+    private long ttlMs;
+
+    @Value("${notification.order-view.sweep-interval-ms:10000}")
+    private long sweepIntervalMs;
+
+    @Value("${notification.order-view.off-heap.enabled:false}")
+    private boolean offHeapEnabled;
+
+    @Value("${notification.order-view.off-heap.max-entries:262144}")
+    private int offHeapMaxEntries;
+
+    private OffHeapOrderSummaryStore offHeap;
+    private ScheduledExecutorService scheduler;
+    private Counter hits;
+    private Counter misses;
+    private Counter evictions;
+
+    public OrderSummaryView(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * יצירת המאגרים ותהליכון הפינוי
+     */
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            log.info("Local order view disabled - notifications read orders from Redis");
+            return;
+        }
+        if (offHeapEnabled) {
+            offHeap = new OffHeapOrderSummaryStore(offHeapMaxEntries);
+            Gauge.builder("notification.order-view.size", offHeap, OffHeapOrderSummaryStore::size)
+                    .tag("tier", "off-heap")
+                    .register(meterRegistry);
+        }
+        Gauge.builder("notification.order-view.size", this, OrderSummaryView::heapSize)
+                .tag("tier", "heap")
+                .register(meterRegistry);
+        hits = Counter.builder("notification.order-view.lookups").tag("result", "hit").register(meterRegistry);
+        misses = Counter.builder("notification.order-view.lookups").tag("result", "miss").register(meterRegistry);
+        evictions = Counter.builder("notification.order-view.evictions").register(meterRegistry);
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "order-view-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::evictExpired, sweepIntervalMs, sweepIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("Local order view started - Max entries: {}, TTL: {} ms, Off-heap slots: {}", maxEntries, ttlMs,
+                offHeap != null ? offHeap.capacity() : "disabled");
+    }
+
+    /**
+     * עצירת תהליכון הפינוי
+     */
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * הוספת תקציר הזמנה ל-view
+     *
+     * @param summary תקציר ההזמנה
+     */
+    public void put(OrderSummary summary) {
+        if (!enabled || ValidationUtils.isNull(summary) || ValidationUtils.isEmpty(summary.getOrderId())) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Entry spilled = null;
+        synchronized (entries) {
+            // הסרה והכנסה מחדש - סדר ההכנסה נשאר סדר התפוגה
+            entries.remove(summary.getOrderId());
+            entries.put(summary.getOrderId(), new Entry(summary, now + ttlMs));
+            if (entries.size() > maxEntries) {
+                Iterator<Entry> eldest = entries.values().iterator();
+                spilled = eldest.next();
+                eldest.remove();
+            }
+        }
+        if (spilled != null && spilled.expiresAt() > now) {
+            if (offHeap == null || !offHeap.put(spilled.summary(), spilled.expiresAt(), now)) {
+                evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * חיפוש תקציר הזמנה
+     *
+     * @param orderId מזהה ההזמנה
+     * @return התקציר, או null אם אינו ב-view
+     */
+    public OrderSummary get(String orderId) {
+        if (!enabled || ValidationUtils.isEmpty(orderId)) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        OrderSummary summary = null;
+        synchronized (entries) {
+            Entry entry = entries.get(orderId);
+            if (entry != null && entry.expiresAt() > now) {
+                summary = entry.summary();
+            }
+        }
+        if (summary == null && offHeap != null) {
+            summary = offHeap.get(orderId, now);
+        }
+        (summary != null ? hits : misses).increment();
+        return summary;
+    }
+
+    private int heapSize() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private void evictExpired() {
+        try {
+            long now = System.currentTimeMillis();
+            int evicted = 0;
+            synchronized (entries) {
+                Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+                while (iterator.hasNext() && iterator.next().getValue().expiresAt() <= now) {
+                    iterator.remove();
+                    evicted++;
+                }
+            }
+            if (offHeap != null) {
+                evicted += offHeap.evictExpired(now);
+            }
+            if (evicted > 0) {
+                evictions.increment(evicted);
+                log.debug("Evicted {} expired order summaries", evicted);
+            }
+        } catch (Exception e) {
+            log.warn("Order view sweep failed: {}", e.getMessage());
+        }
+    }
+
+    private record Entry(OrderSummary summary, long expiresAt) {
+    }
+}
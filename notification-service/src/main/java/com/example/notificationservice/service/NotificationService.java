@@ -1,8 +1,24 @@
 package com.example.notificationservice.service;
 
-import com.example.common.events.InventoryCheckResultEvent;
+import com.example.common.kafka.view.InventoryCheckResultView;
+import com.example.common.lifecycle.OrderLifecycle;
+import com.example.common.lifecycle.OrderLifecycleMetrics;
+import com.example.common.lifecycle.OrderTimeline;
 import com.example.common.models.Order;
 import com.example.common.utils.ValidationUtils;
+import com.example.notificationservice.channel.Notification;
+import com.example.notificationservice.channel.NotificationDispatcher;
+import com.example.notificationservice.dedup.NotificationDeduplicator;
+import com.example.notificationservice.digest.NotificationDigester;
+import com.example.notificationservice.history.NotificationHistory;
+import com.example.notificationservice.history.NotificationRecord;
+import com.example.notificationservice.orderview.OrderSummary;
+import com.example.notificationservice.orderview.OrderSummaryView;
+import com.example.notificationservice.sink.NotificationSink;
+import com.example.notificationservice.template.NotificationTemplate;
+import com.example.notificationservice.template.NotificationTemplates;
+import com.example.notificationservice.template.TemplateField;
+import com.example.notificationservice.template.TemplateModel;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -11,11 +27,14 @@ import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * שירות ההודעות
- * מטפל בהודעות לגבי תוצאות בדיקת מלאי ומציג אותן בקונסול
+ * מטפל בהודעות לגבי תוצאות בדיקת מלאי ומעביר אותן ל-{@link NotificationSink} ולערוצי ההודעות
+ * הטקסט מרונדר מתבניות מקומפלות ({@link NotificationTemplates}) לפי locale וערוץ
  */
 @Service
 @RequiredArgsConstructor
@@ -24,42 +43,167 @@ public class NotificationService {
 
     private final ReactiveRedisTemplate<String, Object> redisTemplate;
     private final ObjectMapper objectMapper;
+    private final OrderSummaryView orderSummaryView;
+    private final NotificationSink notificationSink;
+    private final NotificationDispatcher notificationDispatcher;
+    private final NotificationDeduplicator notificationDeduplicator;
+    private final NotificationDigester notificationDigester;
+    private final NotificationTemplates notificationTemplates;
+    private final NotificationHistory notificationHistory;
+    private final OrderLifecycleMetrics lifecycleMetrics;
+    private final OrderTimeline orderTimeline;
 
     private static final String ORDER_KEY_PREFIX = "order:";
+    private static final CompletableFuture<Void> DELIVERED = CompletableFuture.completedFuture(null);
 
     /**
      * עיבוד תוצאות בדיקת מלאי
-     * מאחזר פרטי הזמנה מ-Redis ומציג הודעה מתאימה
+     * מסירה חוזרת של אותה החלטה עבור אותה הזמנה בתוך חלון ה-dedup אינה מפיקה הודעה נוספת.
+     * לקוח במצב digest מקבל הודעה מאוחדת אחת לכל חלון במקום הודעה לכל הזמנה.
+     * פרטי ההזמנה נלקחים מה-view המקומי (נבנה מ-order-created); רק בהחמצה הם מאוחזרים מ-Redis.
+     * העיבוד ממשיך ברקע - הקורא אינו ממתין לו
      *
      * @param inventoryCheckResult תוצאות בדיקת המלאי
      */
-    public void processInventoryCheckResult(InventoryCheckResultEvent inventoryCheckResult) {
-        log.info("Processing inventory result for order {} - Customer: {}, Approved: {}", 
-                inventoryCheckResult.getOrderId(), inventoryCheckResult.getCustomerName(), 
-                inventoryCheckResult.isApproved());
+    public void processInventoryCheckResult(InventoryCheckResultView inventoryCheckResult) {
+        processInventoryCheckResult(inventoryCheckResult, OrderLifecycle.EMPTY);
+    }
 
+    /**
+     * עיבוד תוצאות בדיקת מלאי עם חותמות מחזור החיים שהגיעו ב-headers
+     * הודעה שנשלחה מיד נמדדת בקטעים result-to-notified ו-create-to-notified ונרשמת בציר הזמן
+     *
+     * @param inventoryCheckResult תוצאות בדיקת המלאי
+     * @param lifecycle            חותמות מחזור החיים; זמן החלטה חסר נלקח מהאירוע
+     */
+    public void processInventoryCheckResult(InventoryCheckResultView inventoryCheckResult, OrderLifecycle lifecycle) {
+        if (!isValid(inventoryCheckResult)) {
+            return;
+        }
+        deliver(inventoryCheckResult, lifecycle, false)
+                .flatMap(Mono::fromFuture)
+                .subscribe(
+                        null,
+                        error -> log.error("Notification failed for order {}: {}", inventoryCheckResult.getOrderId(), error.getMessage()));
+    }
+
+    /**
+     * עיבוד תוצאות בדיקת מלאי כ-Mono - לצרכן ריאקטיבי שמאשר offset רק כשההודעה נכתבה
+     * ה-Mono מסתיים כשהתוצאה התקבלה: ההודעה נכתבה ל-sink ונמסרה לערוצי ההודעות, צורפה ל-digest או סוננה ככפילות.
+     * ה-future שבו מושלם כשההודעה נכתבה ונמסרה - עבור digest רק כשה-digest נשלח, עד window-ms מאוחר יותר.
+     * כשתור ה-sink או של ערוץ מלא ההודעה ממתינה למקום במקום להיזרק, כך שה-Mono אינו מסתיים עד שהתור מתפנה
+     *
+     * @param inventoryCheckResult תוצאות בדיקת המלאי
+     * @param lifecycle            חותמות מחזור החיים שהגיעו ב-headers
+     * @return Mono עם future המסירה; IllegalArgumentException אם התוצאה אינה תקינה
+     */
+    public Mono<CompletableFuture<Void>> notifyInventoryCheckResult(InventoryCheckResultView inventoryCheckResult,
+                                                                  OrderLifecycle lifecycle) {
+        if (!isValid(inventoryCheckResult)) {
+            return Mono.error(new IllegalArgumentException("Invalid inventory check result"));
+        }
+        return deliver(inventoryCheckResult, lifecycle, true);
+    }
+
+    private boolean isValid(InventoryCheckResultView inventoryCheckResult) {
         if (ValidationUtils.isNull(inventoryCheckResult)) {
             log.error("Inventory check result cannot be null");
-            return;
+            return false;
         }
 
+        log.info("Processing inventory result for order {} - Customer: {}, Approved: {}", 
+                inventoryCheckResult.getOrderId(), inventoryCheckResult.getCustomerName(), 
+                inventoryCheckResult.isApproved());
+
         if (ValidationUtils.isEmpty(inventoryCheckResult.getOrderId())) {
             log.error("Order ID cannot be empty in inventory check result");
-            return;
+            return false;
         }
+        return true;
+    }
 
-        retrieveOrderFromRedis(inventoryCheckResult.getOrderId())
-                .subscribe(
-                        order -> {
-                            log.info("Order retrieved successfully: {}", order.getOrderId());
-                            displayNotification(order, inventoryCheckResult);
-                        },
-                        error -> {
-                            log.error("Order retrieval failed for {}: {}", 
-                                    inventoryCheckResult.getOrderId(), error.getMessage());
-                            displayNotificationWithoutOrder(inventoryCheckResult);
-                        }
-                );
+    /**
+     * dedup, ואז צירוף ל-digest או שליחה מיידית
+     *
+     * @param inventoryCheckResult תוצאות בדיקת המלאי
+     * @param lifecycle            חותמות מחזור החיים
+     * @param waitForCapacity      true - המתנה למקום בתורי ה-sink והערוצים במקום זריקת ההודעה
+     * @return Mono שמסתיים כשהתוצאה התקבלה, עם future שמושלם כשההודעה נכתבה ונמסרה
+     */
+    private Mono<CompletableFuture<Void>> deliver(InventoryCheckResultView inventoryCheckResult, OrderLifecycle lifecycle,
+                                                  boolean waitForCapacity) {
+        String orderId = inventoryCheckResult.getOrderId();
+        boolean approved = inventoryCheckResult.isApproved();
+        return notificationDeduplicator.firstDelivery(orderId, approved)
+                .flatMap(first -> {
+                    if (!first) {
+                        log.info("Duplicate inventory result for order {} - Approved: {}, notification skipped",
+                                orderId, approved);
+                        return Mono.just(DELIVERED);
+                    }
+                    CompletableFuture<Void> digested = notificationDigester.add(inventoryCheckResult);
+                    Mono<CompletableFuture<Void>> delivery;
+                    if (digested != null) {
+                        // הודעה שצורפה ל-digest מתעכבת במכוון עד סוף החלון - אינה נמדדת כקטע מחזור חיים
+                        delivery = Mono.just(digested);
+                    } else {
+                        delivery = deliverNotification(inventoryCheckResult, waitForCapacity)
+                                .doOnSuccess(ignored -> recordNotified(inventoryCheckResult, lifecycle))
+                                .thenReturn(DELIVERED);
+                    }
+                    // המפתח נשמר רק אחרי מסירה מוצלחת; כשל משחרר אותו לניסיון החוזר
+                    return delivery
+                            .doOnError(error -> notificationDeduplicator.release(orderId, approved))
+                            .doOnNext(delivered -> delivered.whenComplete((ignored, error) -> {
+                                if (error == null) {
+                                    notificationDeduplicator.delivered(orderId, approved);
+                                } else {
+                                    notificationDeduplicator.release(orderId, approved);
+                                }
+                            }));
+                });
+    }
+
+    /**
+     * רישום קטעי מחזור החיים שמסתיימים בשליחת ההודעה ונקודת notified בציר הזמן של ההזמנה
+     *
+     * @param inventoryCheckResult תוצאות בדיקת המלאי
+     * @param lifecycle            חותמות מחזור החיים
+     */
+    private void recordNotified(InventoryCheckResultView inventoryCheckResult, OrderLifecycle lifecycle) {
+        long notifiedAt = System.currentTimeMillis();
+        if (lifecycle.getInventoryDecidedAt() <= 0) {
+            // ה-view מפענח את זמן האירוע רק כשאין header
+            lifecycle = lifecycle.orInventoryDecidedAt(inventoryCheckResult.getEventDateTime());
+        }
+        lifecycleMetrics.record(OrderLifecycleMetrics.HOP_RESULT_TO_NOTIFIED, lifecycle.getInventoryDecidedAt(), notifiedAt);
+        lifecycleMetrics.record(OrderLifecycleMetrics.HOP_CREATE_TO_NOTIFIED, lifecycle.getCreatedAt(), notifiedAt);
+        orderTimeline.mark(inventoryCheckResult.getOrderId(), Map.of(OrderTimeline.NOTIFIED, notifiedAt));
+    }
+
+    /**
+     * הצגת ההודעה - מה-view המקומי או אחרי אחזור ההזמנה מ-Redis
+     *
+     * @param inventoryCheckResult תוצאות בדיקת המלאי
+     * @param waitForCapacity      true - המתנה למקום בתורי ה-sink והערוצים במקום זריקת ההודעה
+     * @return Mono שמסתיים אחרי שההודעה נכתבה ל-sink ונמסרה לערוצי ההודעות
+     */
+    private Mono<Void> deliverNotification(InventoryCheckResultView inventoryCheckResult, boolean waitForCapacity) {
+        OrderSummary summary = orderSummaryView.get(inventoryCheckResult.getOrderId());
+        if (ValidationUtils.isNotNull(summary)) {
+            return Mono.fromFuture(displayNotification(summary, inventoryCheckResult, waitForCapacity));
+        }
+
+        return retrieveOrderFromRedis(inventoryCheckResult.getOrderId())
+                .doOnNext(order -> log.info("Order retrieved successfully: {}", order.getOrderId()))
+                .onErrorResume(error -> {
+                    log.error("Order retrieval failed for {}: {}", 
+                            inventoryCheckResult.getOrderId(), error.getMessage());
+                    return Mono.empty();
+                })
+                .map(order -> displayNotification(OrderSummary.of(order), inventoryCheckResult, waitForCapacity))
+                .switchIfEmpty(Mono.fromSupplier(() -> displayNotificationWithoutOrder(inventoryCheckResult, waitForCapacity)))
+                .flatMap(Mono::fromFuture);
     }
 
     /**
@@ -116,49 +260,29 @@ public class NotificationService {
 
     /**
      * הצגת הודעה עם פרטי ההזמנה
-     * מציגה הודעה מפורטת על תוצאות בדיקת המלאי
+     * מרנדרת הודעה מפורטת על תוצאות בדיקת המלאי ומעבירה אותה לכתיבה אסינכרונית
      *
-     * @param order                פרטי ההזמנה
+     * @param order                תקציר ההזמנה
      * @param inventoryCheckResult תוצאות בדיקת המלאי
+     * @param waitForCapacity      true - המתנה למקום בתורי ה-sink והערוצים
+     * @return future שמושלם אחרי שההודעה נכתבה ונמסרה
      */
-    private void displayNotification(Order order, InventoryCheckResultEvent inventoryCheckResult) {
-        String status = inventoryCheckResult.isApproved() ? "APPROVED" : "REJECTED";
+    private CompletableFuture<Void> displayNotification(OrderSummary order, InventoryCheckResultView inventoryCheckResult,
+                                                        boolean waitForCapacity) {
         String customerName = ValidationUtils.hasText(inventoryCheckResult.getCustomerName()) ?
                 inventoryCheckResult.getCustomerName() : (ValidationUtils.isNotNull(order) ? order.getCustomerName() : "Unknown");
 
-        System.out.println("=".repeat(60));
-        System.out.println("ORDER NOTIFICATION");
-        System.out.println("=".repeat(60));
-        System.out.println("Order ID: " + inventoryCheckResult.getOrderId());
-        System.out.println("Customer: " + customerName);
-        System.out.println("Status: " + status);
-        System.out.println("Timestamp: " + LocalDateTime.now());
-
+        TemplateModel model = model(inventoryCheckResult, customerName);
         if (ValidationUtils.isNotNull(order)) {
-            System.out.println("Items Count: " + (ValidationUtils.isNotEmpty(order.getItems()) ? order.getItems().size() : 0));
-            System.out.println("Request ID: " + order.getRequestId());
-            System.out.println("Created At: " + order.getCreatedAt());
+            model.set(TemplateField.ORDER, true)
+                    .set(TemplateField.ITEMS_COUNT, order.getItemsCount())
+                    .set(TemplateField.REQUEST_ID, order.getRequestId())
+                    .set(TemplateField.CREATED_AT, order.getCreatedAt());
         }
-
-        if (!inventoryCheckResult.isApproved()) {
-            System.out.println("REJECTION DETAILS:");
-
-            if (ValidationUtils.hasText(inventoryCheckResult.getErrorMessage())) {
-                System.out.println("Error: " + inventoryCheckResult.getErrorMessage());
-            }
-
-            if (ValidationUtils.isNotEmpty(inventoryCheckResult.getUnavailableItems())) {
-                System.out.println("Unavailable Items:");
-                inventoryCheckResult.getUnavailableItems().forEach(item ->
-                        System.out.println("  - " + item));
-            }
-        } else {
-            System.out.println("All items are available and the order has been approved!");
-        }
-
-        System.out.println("=".repeat(60) + "\n");
+        CompletableFuture<Void> delivered = publish(model, inventoryCheckResult, customerName, waitForCapacity);
         log.info("Notification displayed for order: {} - Status: {}",
-                inventoryCheckResult.getOrderId(), status);
+                inventoryCheckResult.getOrderId(), model.get(TemplateField.STATUS));
+        return delivered;
     }
 
     /**
@@ -166,36 +290,73 @@ public class NotificationService {
      * מציגה הודעה כשלא ניתן לאחזר את פרטי ההזמנה מ-Redis
      *
      * @param inventoryCheckResult תוצאות בדיקת המלאי
+     * @param waitForCapacity      true - המתנה למקום בתורי ה-sink והערוצים
+     * @return future שמושלם אחרי שההודעה נכתבה ונמסרה
      */
-    private void displayNotificationWithoutOrder(InventoryCheckResultEvent inventoryCheckResult) {
-        String status = inventoryCheckResult.isApproved() ? "APPROVED" : "REJECTED";
-
-        System.out.println("=".repeat(60));
-        System.out.println("ORDER NOTIFICATION (Limited Info)");
-        System.out.println("=".repeat(60));
-        System.out.println("Order ID: " + inventoryCheckResult.getOrderId());
-        System.out.println("Customer: " + (ValidationUtils.hasText(inventoryCheckResult.getCustomerName()) ?
-                inventoryCheckResult.getCustomerName() : "Unknown"));
-        System.out.println("Status: " + status);
-        System.out.println("Timestamp: " + LocalDateTime.now());
-        System.out.println("Note: Could not retrieve full order details from Redis");
-
-        if (!inventoryCheckResult.isApproved()) {
-            System.out.println("REJECTION DETAILS:");
-
-            if (ValidationUtils.hasText(inventoryCheckResult.getErrorMessage())) {
-                System.out.println("Error: " + inventoryCheckResult.getErrorMessage());
-            }
+    private CompletableFuture<Void> displayNotificationWithoutOrder(InventoryCheckResultView inventoryCheckResult,
+                                                                    boolean waitForCapacity) {
+        String customerName = ValidationUtils.hasText(inventoryCheckResult.getCustomerName()) ?
+                inventoryCheckResult.getCustomerName() : "Unknown";
 
-            if (ValidationUtils.isNotEmpty(inventoryCheckResult.getUnavailableItems())) {
-                System.out.println("Unavailable Items:");
-                inventoryCheckResult.getUnavailableItems().forEach(item -> System.out.println("  - " + item));
-            }
-        } else {
-            System.out.println("All items are available and the order has been approved!");
+        TemplateModel model = model(inventoryCheckResult, customerName);
+        CompletableFuture<Void> delivered = publish(model, inventoryCheckResult, customerName, waitForCapacity);
+        log.warn("Notification displayed for order: {} without full order details - Status: {}",
+                inventoryCheckResult.getOrderId(), model.get(TemplateField.STATUS));
+        return delivered;
+    }
+
+    /**
+     * מילוי שדות התבנית מתוצאות בדיקת המלאי
+     *
+     * @param inventoryCheckResult תוצאות בדיקת המלאי
+     * @param customerName         שם הלקוח
+     * @return המודל של התהליכון
+     */
+    private TemplateModel model(InventoryCheckResultView inventoryCheckResult, String customerName) {
+        boolean approved = inventoryCheckResult.isApproved();
+        List<String> unavailableItems = inventoryCheckResult.getUnavailableItems();
+        return NotificationTemplates.model()
+                .set(TemplateField.ORDER_ID, inventoryCheckResult.getOrderId())
+                .set(TemplateField.CUSTOMER, customerName)
+                .set(TemplateField.STATUS, approved ? "APPROVED" : "REJECTED")
+                .set(TemplateField.TIMESTAMP, LocalDateTime.now())
+                .set(TemplateField.APPROVED, approved)
+                .set(TemplateField.REJECTED, !approved)
+                .set(TemplateField.ERROR, inventoryCheckResult.getErrorMessage())
+                .set(TemplateField.UNAVAILABLE_ITEMS, unavailableItems)
+                .set(TemplateField.UNAVAILABLE_COUNT, ValidationUtils.isNotEmpty(unavailableItems) ? unavailableItems.size() : 0);
+    }
+
+    /**
+     * רינדור ההודעה והעברתה לקונסול ולכל ערוצי ההודעות - ללא חסימה
+     * כל ערוץ מקבל את התבנית שלו; ערוץ ללא תבנית משלו מקבל את הטקסט שכבר רונדר לקונסול.
+     * ההודעה נרשמת בהיסטוריית ההודעות עם טקסט הקונסול
+     *
+     * @param model                שדות ההודעה
+     * @param inventoryCheckResult תוצאות בדיקת המלאי
+     * @param customerName         שם הלקוח
+     * @param waitForCapacity      true - כשתור מלא ההודעה ממתינה למקום במקום להיזרק
+     * @return future שמושלם כשההודעה נכתבה ל-sink וכל הערוצים שלחו אותה
+     */
+    private CompletableFuture<Void> publish(TemplateModel model, InventoryCheckResultView inventoryCheckResult,
+                                            String customerName, boolean waitForCapacity) {
+        NotificationTemplate template = notificationTemplates.resolve(NotificationTemplates.ORDER, NotificationTemplates.DEFAULT_CHANNEL);
+        StringBuilder text = notificationSink.buffer();
+        template.render(model, text);
+        CompletableFuture<Void> written = notificationSink.submit(text, waitForCapacity);
+        String message = text.toString();
+        LocalDateTime createdAt = (LocalDateTime) model.get(TemplateField.TIMESTAMP);
+        notificationHistory.record(new NotificationRecord(createdAt, customerName, List.of(inventoryCheckResult.getOrderId()),
+                inventoryCheckResult.isApproved(), false, notificationDispatcher.channelNames(), message));
+        if (!notificationDispatcher.hasChannels()) {
+            return written;
         }
 
-        System.out.println("=".repeat(60) + "\n");
-        log.warn("Notification displayed for order: {} without full order details - Status: {}", inventoryCheckResult.getOrderId(), status);
+        CompletableFuture<Void> dispatched = notificationDispatcher.dispatch(channel -> {
+            NotificationTemplate channelTemplate = notificationTemplates.resolve(NotificationTemplates.ORDER, channel);
+            return new Notification(inventoryCheckResult.getOrderId(), customerName, inventoryCheckResult.isApproved(), 1,
+                    channelTemplate == template ? message : channelTemplate.render(model), createdAt);
+        }, waitForCapacity);
+        return CompletableFuture.allOf(written, dispatched);
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,333 @@
+package com.example.notificationservice.sink;
+
+import com.example.common.concurrent.MpscRingBuffer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * יעד הפלט של ההודעות - כתיבה אסינכרונית ומקובצת
+ * ה-consumer מרנדר כל הודעה פעם אחת ל-StringBuilder לכל תהליכון, מקודד אותה לבתים דרך encoder ו-buffer
+ * של התהליכון ומכניס לתור MPSC חסום, ללא נעילה וללא I/O. תהליכון כותב יחיד מרוקן את התור ל-buffer ישיר וכותב אותו ב-write אחד,
+ * כך שכל הודעה יוצאת כבלוק שלם ואינה משתלבת בהודעות אחרות.
+ * יעד file: קובץ מתגלגל לפי גודל דרך FileChannel, עם force אחד לכל קבוצת הודעות (group commit).
+ * יעד stdout: FileChannel מעל ה-descriptor של stdout.
+ * כל הודעה מקבלת future שהכותב משלים אחרי ה-write (וה-force) של הקבוצה שלה, או משלים בשגיאה כשהכתיבה נכשלה.
+ * כשהתור מלא ההודעה נזרקת ונספרת - ה-consumer לעולם אינו ממתין; במצב המתנה למקום
+ * ההכנסה לתור נוסית שוב ברקע וה-future מושלם רק אחרי הכתיבה
+ */
+@Component
+@Slf4j
+public class NotificationSink {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final Executor CAPACITY_RETRY = CompletableFuture.delayedExecutor(1, TimeUnit.MILLISECONDS);
+    private static final ThreadLocal<StringBuilder> BUFFERS = ThreadLocal.withInitial(() -> new StringBuilder(1024));
+    private static final ThreadLocal<CharsetEncoder> ENCODERS = ThreadLocal.withInitial(() -> StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE));
+    private static final ThreadLocal<ByteBuffer[]> ENCODE_BUFFERS = ThreadLocal.withInitial(() -> new ByteBuffer[]{ByteBuffer.allocate(4096)});
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${notification.sink.type:stdout}")
+    private String type;
+
+    @Value("${notification.sink.queue-capacity:8192}")
+    private int queueCapacity;
+
+    @Value("${notification.sink.batch-size:256}")
+    private int batchSize;
+
+    @Value("${notification.sink.write-buffer-bytes:262144}")
+    private int writeBufferBytes;
+
+    @Value("${notification.sink.file.path:./logs/notifications.log}")
+    private String filePath;
+
+    @Value("${notification.sink.file.max-size-bytes:104857600}")
+    private long maxFileSize;
+
+    @Value("${notification.sink.file.max-files:5}")
+    private int maxFiles;
+
+    @Value("${notification.sink.file.fsync:true}")
+    private boolean fsync;
+
+    private MpscRingBuffer<PendingWrite> queue;
+    private final List<CompletableFuture<Void>> batch = new ArrayList<>();
+    private ByteBuffer writeBuffer;
+    private FileChannel channel;
+    private Path path;
+    private Thread writer;
+    private volatile boolean running;
+    private volatile boolean idle;
+    private Counter written;
+    private Counter dropped;
+    private Counter batches;
+
+    public NotificationSink(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * פתיחת היעד והפעלת התהליכון הכותב
+     */
+    @PostConstruct
+    public void start() throws IOException {
+        queue = new MpscRingBuffer<>(queueCapacity);
+        writeBuffer = ByteBuffer.allocateDirect(writeBufferBytes);
+        if (isFile()) {
+            path = Paths.get(filePath).toAbsolutePath();
+            Files.createDirectories(path.getParent());
+            channel = openFile();
+        } else {
+            channel = new FileOutputStream(FileDescriptor.out).getChannel();
+        }
+
+        written = Counter.builder("notification.sink.written").tag("sink", type).register(meterRegistry);
+        dropped = Counter.builder("notification.sink.dropped").tag("sink", type).register(meterRegistry);
+        batches = Counter.builder("notification.sink.batches").tag("sink", type).register(meterRegistry);
+        Gauge.builder("notification.sink.queue.size", queue, MpscRingBuffer::size).tag("sink", type).register(meterRegistry);
+
+        running = true;
+        writer = new Thread(this::drainLoop, "notification-sink-writer");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("Notification sink started - Type: {}, Queue capacity: {}, Batch size: {}{}", type, queue.capacity(), batchSize,
+                isFile() ? ", File: " + path + ", Max size: " + maxFileSize + " bytes, Fsync: " + fsync : "");
+    }
+
+    /**
+     * עצירת התהליכון הכותב אחרי ריקון ההודעות שבתור
+     */
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (writer != null) {
+            LockSupport.unpark(writer);
+            try {
+                writer.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (channel != null && isFile()) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Failed to close notification file {}: {}", path, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * ה-buffer של התהליכון הנוכחי, ריק, לרינדור הודעה אחת
+     *
+     * @return StringBuilder לשימוש חוזר
+     */
+    public StringBuilder buffer() {
+        StringBuilder buffer = BUFFERS.get();
+        buffer.setLength(0);
+        return buffer;
+    }
+
+    /**
+     * העברת הודעה מרונדרת לכתיבה - ללא חסימה; כשהתור מלא ההודעה נזרקת
+     *
+     * @param notification ההודעה המרונדרת
+     * @return future שמושלם אחרי שההודעה נכתבה; RejectedExecutionException אם התור מלא וההודעה נזרקה
+     */
+    public CompletableFuture<Void> submit(CharSequence notification) {
+        return submit(notification, false);
+    }
+
+    /**
+     * העברת הודעה מרונדרת לכתיבה - ללא חסימה
+     * ההודעה מקודדת מיד, כך שה-buffer של התהליכון פנוי לשימוש חוזר כשהמתודה חוזרת
+     *
+     * @param notification    ההודעה המרונדרת
+     * @param waitForCapacity true - כשהתור מלא ההכנסה נוסית שוב ברקע במקום לזרוק את ההודעה
+     * @return future שמושלם אחרי שההודעה נכתבה (וב-file עם fsync - אחרי ה-force), או בשגיאה אם נזרקה או שהכתיבה נכשלה
+     */
+    public CompletableFuture<Void> submit(CharSequence notification, boolean waitForCapacity) {
+        PendingWrite write = new PendingWrite(encode(notification), new CompletableFuture<>());
+        enqueue(write, waitForCapacity);
+        return write.written();
+    }
+
+    private void enqueue(PendingWrite write, boolean waitForCapacity) {
+        if (queue.offer(write)) {
+            if (idle) {
+                LockSupport.unpark(writer);
+            }
+        } else if (waitForCapacity && running) {
+            CompletableFuture.runAsync(() -> enqueue(write, true), CAPACITY_RETRY);
+        } else {
+            dropped.increment();
+            write.written().completeExceptionally(new RejectedExecutionException("Notification sink queue full"));
+        }
+    }
+
+    /**
+     * קידוד UTF-8 דרך encoder ו-buffer של התהליכון - ללא מחרוזת ביניים
+     */
+    private static byte[] encode(CharSequence notification) {
+        CharsetEncoder encoder = ENCODERS.get();
+        ByteBuffer[] holder = ENCODE_BUFFERS.get();
+        int required = (int) Math.ceil(notification.length() * (double) encoder.maxBytesPerChar());
+        if (holder[0].capacity() < required) {
+            holder[0] = ByteBuffer.allocate(required);
+        }
+        ByteBuffer encoded = holder[0];
+        encoded.clear();
+        encoder.reset();
+        encoder.encode(CharBuffer.wrap(notification), encoded, true);
+        encoder.flush(encoded);
+        return Arrays.copyOf(encoded.array(), encoded.position());
+    }
+
+    private void drainLoop() {
+        while (running || !queue.isEmpty()) {
+            try {
+                int drained = queue.drain(this::append, batchSize);
+                if (drained > 0) {
+                    flush();
+                    if (isFile() && fsync) {
+                        // group commit - force אחד לכל קבוצת הודעות
+                        channel.force(false);
+                    }
+                    complete(null);
+                    written.increment(drained);
+                    batches.increment();
+                } else {
+                    idle = true;
+                    if (queue.isEmpty() && running) {
+                        LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    }
+                    idle = false;
+                }
+            } catch (Exception e) {
+                log.error("Notification sink write failed: {}", e.getMessage());
+                writeBuffer.clear();
+                complete(e);
+                LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(1));
+            }
+        }
+    }
+
+    private void append(PendingWrite write) {
+        batch.add(write.written());
+        byte[] notification = write.bytes();
+        try {
+            if (notification.length > writeBuffer.remaining()) {
+                flush();
+            }
+            if (notification.length > writeBuffer.capacity()) {
+                write(ByteBuffer.wrap(notification));
+            } else {
+                writeBuffer.put(notification);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * השלמת ה-futures של הקבוצה שנכתבה, או השלמתם בשגיאה כשהכתיבה נכשלה
+     */
+    private void complete(Exception error) {
+        for (CompletableFuture<Void> future : batch) {
+            if (error == null) {
+                future.complete(null);
+            } else {
+                future.completeExceptionally(error);
+            }
+        }
+        batch.clear();
+    }
+
+    private void flush() throws IOException {
+        writeBuffer.flip();
+        if (writeBuffer.hasRemaining()) {
+            write(writeBuffer);
+        }
+        writeBuffer.clear();
+    }
+
+    private void write(ByteBuffer bytes) throws IOException {
+        if (isFile() && channel.size() + bytes.remaining() > maxFileSize) {
+            rotate();
+        }
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+    }
+
+    /**
+     * גלגול הקובץ: notifications.log -> notifications.log.1 -> ... עד max-files
+     */
+    private void rotate() throws IOException {
+        channel.force(true);
+        channel.close();
+        Files.deleteIfExists(rotated(maxFiles));
+        for (int index = maxFiles - 1; index >= 1; index--) {
+            Path source = rotated(index);
+            if (Files.exists(source)) {
+                Files.move(source, rotated(index + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.move(path, rotated(1), StandardCopyOption.REPLACE_EXISTING);
+        channel = openFile();
+        log.info("Notification file rotated - {}", path);
+    }
+
+    private Path rotated(int index) {
+        return path.resolveSibling(path.getFileName() + "." + index);
+    }
+
+    private FileChannel openFile() throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private boolean isFile() {
+        return "file".equalsIgnoreCase(type);
+    }
+
+    /**
+     * הודעה מקודדת שממתינה לכתיבה
+     *
+     * @param bytes   ההודעה בקידוד UTF-8
+     * @param written מושלם אחרי שהקבוצה של ההודעה נכתבה
+     */
+    private record PendingWrite(byte[] bytes, CompletableFuture<Void> written) {
+    }
+}
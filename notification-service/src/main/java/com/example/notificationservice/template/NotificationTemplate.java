@@ -0,0 +1,284 @@
+package com.example.notificationservice.template;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * תבנית הודעה מקומפלת
+ * הטקסט מפורק פעם אחת לרשימת segments: טקסט קבוע, שדה, ו-section. רינדור עובר על הרשימה
+ * וכותב ל-StringBuilder קיים - ללא regex, ללא reflection וללא חיפוש שדות לפי שם.
+ * תחביר (תת-קבוצה של mustache):
+ * {{field}} - ערך השדה; {{.}} - הפריט הנוכחי בתוך section של רשימה;
+ * {{#field}}...{{/field}} - פעם אחת אם הערך אמיתי (true, מספר שונה מאפס, טקסט לא ריק),
+ * או פעם לכל פריט אם הוא רשימה; {{^field}}...{{/field}} - רק אם הערך אינו אמיתי.
+ * תגית section שעומדת לבדה בשורה מסירה את כל השורה, כך שתבנית רב-שורתית אינה משאירה שורות ריקות
+ */
+public final class NotificationTemplate {
+
+    private static final ThreadLocal<StringBuilder> BUFFERS = ThreadLocal.withInitial(() -> new StringBuilder(512));
+
+    private final String name;
+    private final Segment[] segments;
+
+    private NotificationTemplate(String name, Segment[] segments) {
+        this.name = name;
+        this.segments = segments;
+    }
+
+    /**
+     * @return שם התבנית (locale/type.channel)
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * רינדור לתוך buffer קיים
+     *
+     * @param model ערכי השדות
+     * @param out   היעד
+     */
+    public void render(TemplateModel model, StringBuilder out) {
+        renderAll(segments, model, null, out);
+    }
+
+    /**
+     * רינדור למחרוזת דרך buffer של התהליכון
+     *
+     * @param model ערכי השדות
+     * @return הטקסט המרונדר
+     */
+    public String render(TemplateModel model) {
+        StringBuilder out = BUFFERS.get();
+        out.setLength(0);
+        render(model, out);
+        return out.toString();
+    }
+
+    /**
+     * קומפילציה של תבנית
+     *
+     * @param name   שם התבנית, להודעות שגיאה
+     * @param source טקסט התבנית
+     * @return התבנית המקומפלת
+     * @throws IllegalArgumentException אם התבנית אינה תקינה
+     */
+    public static NotificationTemplate compile(String name, String source) {
+        Deque<Frame> frames = new ArrayDeque<>();
+        Frame current = new Frame(null, false);
+        int position = 0;
+        while (position < source.length()) {
+            int open = source.indexOf("{{", position);
+            if (open < 0) {
+                current.segments.add(new Literal(source.substring(position)));
+                break;
+            }
+            int close = source.indexOf("}}", open + 2);
+            if (close < 0) {
+                throw error(name, source, open, "unclosed tag");
+            }
+            String tag = source.substring(open + 2, close).trim();
+            if (tag.isEmpty()) {
+                throw error(name, source, open, "empty tag");
+            }
+            char kind = tag.charAt(0);
+            boolean sectionTag = kind == '#' || kind == '^' || kind == '/';
+            int literalEnd = open;
+            int next = close + 2;
+            if (sectionTag) {
+                int lineStart = source.lastIndexOf('\n', open - 1) + 1;
+                int lineEnd = source.indexOf('\n', next);
+                if (lineEnd < 0) {
+                    lineEnd = source.length();
+                }
+                if (lineStart >= position && isBlank(source, lineStart, open) && isBlank(source, next, lineEnd)) {
+                    literalEnd = lineStart;
+                    next = Math.min(lineEnd + 1, source.length());
+                }
+            }
+            if (literalEnd > position) {
+                current.segments.add(new Literal(source.substring(position, literalEnd)));
+            }
+
+            if (kind == '#' || kind == '^') {
+                frames.push(current);
+                current = new Frame(field(name, source, open, tag.substring(1).trim()), kind == '^');
+            } else if (kind == '/') {
+                TemplateField closing = field(name, source, open, tag.substring(1).trim());
+                if (current.field != closing) {
+                    throw error(name, source, open, "unexpected {{/" + tag.substring(1).trim() + "}}");
+                }
+                Section section = new Section(current.field, current.inverted, mergeLiterals(current.segments));
+                current = frames.pop();
+                current.segments.add(section);
+            } else if (tag.equals(".")) {
+                current.segments.add(new Value(null));
+            } else {
+                current.segments.add(new Value(field(name, source, open, tag)));
+            }
+            position = next;
+        }
+        if (!frames.isEmpty()) {
+            throw new IllegalArgumentException("Template " + name + ": section {{#" + current.field.getKey() + "}} is not closed");
+        }
+        return new NotificationTemplate(name, mergeLiterals(current.segments));
+    }
+
+    private static void renderAll(Segment[] segments, TemplateModel model, Object item, StringBuilder out) {
+        for (Segment segment : segments) {
+            segment.render(model, item, out);
+        }
+    }
+
+    private static boolean truthy(Object value) {
+        if (value == null) {
+            return false;
+        }
+        if (value instanceof Boolean bool) {
+            return bool;
+        }
+        if (value instanceof Number number) {
+            return number.longValue() != 0;
+        }
+        if (value instanceof CharSequence text) {
+            return !text.isEmpty();
+        }
+        if (value instanceof Collection<?> collection) {
+            return !collection.isEmpty();
+        }
+        return true;
+    }
+
+    private static Segment[] mergeLiterals(List<Segment> segments) {
+        List<Segment> merged = new ArrayList<>(segments.size());
+        for (Segment segment : segments) {
+            if (segment instanceof Literal literal && !merged.isEmpty() && merged.get(merged.size() - 1) instanceof Literal previous) {
+                merged.set(merged.size() - 1, new Literal(previous.text + literal.text));
+            } else {
+                merged.add(segment);
+            }
+        }
+        return merged.toArray(Segment[]::new);
+    }
+
+    private static TemplateField field(String name, String source, int position, String key) {
+        TemplateField field = TemplateField.byKey(key);
+        if (field == null) {
+            throw error(name, source, position, "unknown field '" + key + "'");
+        }
+        return field;
+    }
+
+    private static boolean isBlank(String source, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (!Character.isWhitespace(source.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static IllegalArgumentException error(String name, String source, int position, String message) {
+        int line = 1;
+        for (int i = 0; i < position; i++) {
+            if (source.charAt(i) == '\n') {
+                line++;
+            }
+        }
+        return new IllegalArgumentException("Template " + name + " line " + line + ": " + message);
+    }
+
+    /**
+     * section פתוח בזמן הקומפילציה
+     */
+    private static final class Frame {
+
+        private final TemplateField field;
+        private final boolean inverted;
+        private final List<Segment> segments = new ArrayList<>();
+
+        private Frame(TemplateField field, boolean inverted) {
+            this.field = field;
+            this.inverted = inverted;
+        }
+    }
+
+    private abstract static class Segment {
+
+        abstract void render(TemplateModel model, Object item, StringBuilder out);
+    }
+
+    private static final class Literal extends Segment {
+
+        private final String text;
+
+        private Literal(String text) {
+            this.text = text;
+        }
+
+        @Override
+        void render(TemplateModel model, Object item, StringBuilder out) {
+            out.append(text);
+        }
+    }
+
+    private static final class Value extends Segment {
+
+        /**
+         * null עבור {{.}}
+         */
+        private final TemplateField field;
+
+        private Value(TemplateField field) {
+            this.field = field;
+        }
+
+        @Override
+        void render(TemplateModel model, Object item, StringBuilder out) {
+            Object value = field == null ? item : model.get(field);
+            if (value instanceof CharSequence text) {
+                out.append(text);
+            } else if (value != null) {
+                out.append(value);
+            }
+        }
+    }
+
+    private static final class Section extends Segment {
+
+        private final TemplateField field;
+        private final boolean inverted;
+        private final Segment[] body;
+
+        private Section(TemplateField field, boolean inverted, Segment[] body) {
+            this.field = field;
+            this.inverted = inverted;
+            this.body = body;
+        }
+
+        @Override
+        void render(TemplateModel model, Object item, StringBuilder out) {
+            Object value = model.get(field);
+            if (inverted) {
+                if (!truthy(value)) {
+                    renderAll(body, model, item, out);
+                }
+                return;
+            }
+            if (value instanceof List<?> list) {
+                for (Object element : list) {
+                    if (element instanceof TemplateModel nested) {
+                        renderAll(body, nested, null, out);
+                    } else {
+                        renderAll(body, model, element, out);
+                    }
+                }
+            } else if (truthy(value)) {
+                renderAll(body, model, item, out);
+            }
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.notificationservice.template;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * מאגר תבניות ההודעות המקומפלות
+ * תבנית לכל locale, סוג הודעה וערוץ: templates/notifications/{locale}/{type}.txt לערוץ ברירת המחדל (הקונסול),
+ * ו-{type}.{channel}.txt לערוץ מסוים. חיפוש תבנית: הערוץ ב-locale המוגדר, ברירת המחדל שלו,
+ * ואז אותו סדר ב-locale הבסיסי (en).
+ * התבניות מהמשאבים נטענות ומקומפלות פעם אחת באתחול. אם הוגדר path, קבצים בתיקייה דורסים אותן,
+ * והתיקייה נבדקת כל reload-interval-ms: כל שינוי מקמפל מחדש את כל התבניות ומחליף אותן בבת אחת.
+ * תבנית שאינה מתקמפלת נרשמת בלוג והתבניות הקודמות נשארות בשימוש
+ */
+@Component
+@Slf4j
+public class NotificationTemplates {
+
+    public static final String ORDER = "order";
+    public static final String DIGEST = "digest";
+    public static final String DEFAULT_CHANNEL = "default";
+
+    private static final String BASE_LOCALE = "en";
+    private static final String CLASSPATH_PATTERN = "classpath*:templates/notifications/*/*.txt";
+    private static final String EXTENSION = ".txt";
+    private static final List<String> REQUIRED_TYPES = List.of(ORDER, DIGEST);
+    private static final ThreadLocal<TemplateModel> MODELS = ThreadLocal.withInitial(TemplateModel::new);
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${notification.templates.locale:en}")
+    private String locale;
+
+    @Value("${notification.templates.path:}")
+    private String overridePath;
+
+    @Value("${notification.templates.reload-interval-ms:5000}")
+    private long reloadIntervalMs;
+
+    /**
+     * locale -> type -> channel -> תבנית; מוחלף כולו בכל טעינה
+     */
+    private volatile Map<String, Map<String, Map<String, NotificationTemplate>>> templates = Map.of();
+    private ScheduledExecutorService reloader;
+    private long lastModified;
+    private Counter reloads;
+    private Counter reloadFailures;
+
+    public NotificationTemplates(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * טעינת התבניות והפעלת בדיקת השינויים
+     */
+    @PostConstruct
+    public void start() throws IOException {
+        reloads = Counter.builder("notification.templates.reloads").tag("result", "success").register(meterRegistry);
+        reloadFailures = Counter.builder("notification.templates.reloads").tag("result", "failure").register(meterRegistry);
+        Path directory = overrideDirectory();
+        lastModified = lastModified(directory);
+        templates = load(directory);
+        log.info("Notification templates loaded - Locale: {}, Templates: {}, Override path: {}",
+                locale, count(templates), directory != null ? directory : "none");
+
+        if (directory != null && reloadIntervalMs > 0) {
+            reloader = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "notification-template-reloader");
+                thread.setDaemon(true);
+                return thread;
+            });
+            reloader.scheduleWithFixedDelay(() -> reloadIfChanged(directory), reloadIntervalMs, reloadIntervalMs,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * עצירת בדיקת השינויים
+     */
+    @PreDestroy
+    public void stop() {
+        if (reloader != null) {
+            reloader.shutdownNow();
+        }
+    }
+
+    /**
+     * התבנית לסוג ההודעה ולערוץ ב-locale המוגדר
+     *
+     * @param type    סוג ההודעה ({@link #ORDER} / {@link #DIGEST})
+     * @param channel שם הערוץ, או {@link #DEFAULT_CHANNEL}
+     * @return התבנית
+     */
+    public NotificationTemplate resolve(String type, String channel) {
+        Map<String, Map<String, Map<String, NotificationTemplate>>> current = templates;
+        NotificationTemplate template = find(current.get(locale), type, channel);
+        if (template == null) {
+            template = find(current.get(BASE_LOCALE), type, channel);
+        }
+        return template;
+    }
+
+    /**
+     * המודל של התהליכון הנוכחי, ריק, לרינדור הודעה אחת
+     *
+     * @return מודל לשימוש חוזר
+     */
+    public static TemplateModel model() {
+        return MODELS.get().clear();
+    }
+
+    private static NotificationTemplate find(Map<String, Map<String, NotificationTemplate>> localeTemplates,
+                                             String type, String channel) {
+        if (localeTemplates == null) {
+            return null;
+        }
+        Map<String, NotificationTemplate> channels = localeTemplates.get(type);
+        if (channels == null) {
+            return null;
+        }
+        NotificationTemplate template = channels.get(channel);
+        return template != null ? template : channels.get(DEFAULT_CHANNEL);
+    }
+
+    private void reloadIfChanged(Path directory) {
+        try {
+            long modified = lastModified(directory);
+            if (modified == lastModified) {
+                return;
+            }
+            lastModified = modified;
+            templates = load(directory);
+            reloads.increment();
+            log.info("Notification templates reloaded - Templates: {}", count(templates));
+        } catch (Exception e) {
+            reloadFailures.increment();
+            log.error("Notification template reload failed, keeping previous templates: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * טעינה וקומפילציה של כל התבניות - מהמשאבים ואז מהתיקייה
+     */
+    private Map<String, Map<String, Map<String, NotificationTemplate>>> load(Path directory) throws IOException {
+        Map<String, Map<String, Map<String, NotificationTemplate>>> loaded = new HashMap<>();
+        for (Resource resource : new PathMatchingResourcePatternResolver().getResources(CLASSPATH_PATTERN)) {
+            String path = resource.getURL().getPath();
+            String parent = path.substring(0, path.lastIndexOf('/'));
+            try (InputStream input = resource.getInputStream()) {
+                add(loaded, parent.substring(parent.lastIndexOf('/') + 1), resource.getFilename(),
+                        new String(input.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        if (directory != null) {
+            try (Stream<Path> files = Files.find(directory, 2, (file, attributes) -> attributes.isRegularFile()
+                    && file.getFileName().toString().endsWith(EXTENSION) && file.getParent().getParent().equals(directory))) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    add(loaded, file.getParent().getFileName().toString(), file.getFileName().toString(),
+                            Files.readString(file, StandardCharsets.UTF_8));
+                }
+            }
+        }
+        for (String type : REQUIRED_TYPES) {
+            if (find(loaded.get(BASE_LOCALE), type, DEFAULT_CHANNEL) == null) {
+                throw new IllegalStateException("Missing notification template " + BASE_LOCALE + "/" + type + EXTENSION);
+            }
+        }
+        return loaded;
+    }
+
+    private static void add(Map<String, Map<String, Map<String, NotificationTemplate>>> loaded, String templateLocale,
+                            String fileName, String source) {
+        String baseName = fileName.substring(0, fileName.length() - EXTENSION.length());
+        int dot = baseName.indexOf('.');
+        String type = dot < 0 ? baseName : baseName.substring(0, dot);
+        String channel = dot < 0 ? DEFAULT_CHANNEL : baseName.substring(dot + 1);
+        NotificationTemplate template = NotificationTemplate.compile(templateLocale + "/" + fileName, source);
+        loaded.computeIfAbsent(templateLocale, key -> new HashMap<>())
+                .computeIfAbsent(type, key -> new HashMap<>())
+                .put(channel, template);
+    }
+
+    private Path overrideDirectory() {
+        if (overridePath == null || overridePath.isBlank()) {
+            return null;
+        }
+        Path directory = Paths.get(overridePath).toAbsolutePath();
+        if (!Files.isDirectory(directory)) {
+            log.warn("Notification template path {} is not a directory - using built-in templates", directory);
+            return null;
+        }
+        return directory;
+    }
+
+    /**
+     * חותמת השינוי של התיקייה - הזמן המאוחר ביותר ומספר הקבצים, כך שגם מחיקה מזוהה
+     */
+    private static long lastModified(Path directory) throws IOException {
+        if (directory == null) {
+            return 0;
+        }
+        long latest = 0;
+        long files = 0;
+        try (Stream<Path> paths = Files.walk(directory, 2)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                latest = Math.max(latest, Files.getLastModifiedTime(path).toMillis());
+                files++;
+            }
+        }
+        return latest * 31 + files;
+    }
+
+    private static int count(Map<String, Map<String, Map<String, NotificationTemplate>>> loaded) {
+        int count = 0;
+        for (Map<String, Map<String, NotificationTemplate>> types : loaded.values()) {
+            for (Map<String, NotificationTemplate> channels : types.values()) {
+                count += channels.size();
+            }
+        }
+        return count;
+    }
+}
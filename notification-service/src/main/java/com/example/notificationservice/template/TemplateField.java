@@ -0,0 +1,63 @@
+package com.example.notificationservice.template;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * השדות שתבנית הודעה יכולה להציג
+ * שם השדה בתבנית ({{orderId}}) מתורגם לשדה בזמן הקומפילציה, כך שברינדור הערך נשלף לפי אינדקס.
+ * שדה לא מוכר הוא שגיאת קומפילציה של התבנית
+ */
+public enum TemplateField {
+
+    ORDER_ID("orderId"),
+    CUSTOMER("customer"),
+    STATUS("status"),
+    TIMESTAMP("timestamp"),
+    APPROVED("approved"),
+    REJECTED("rejected"),
+    ORDER("order"),
+    ITEMS_COUNT("itemsCount"),
+    REQUEST_ID("requestId"),
+    CREATED_AT("createdAt"),
+    ERROR("error"),
+    UNAVAILABLE_ITEMS("unavailableItems"),
+    UNAVAILABLE_COUNT("unavailableCount"),
+    ORDER_COUNT("orderCount"),
+    APPROVED_COUNT("approvedCount"),
+    REJECTED_COUNT("rejectedCount"),
+    APPROVED_ORDERS("approvedOrders"),
+    REJECTED_ORDERS("rejectedOrders"),
+    REASON("reason"),
+    PERIOD_START("periodStart"),
+    PERIOD_END("periodEnd");
+
+    private static final Map<String, TemplateField> BY_KEY = new HashMap<>();
+
+    static {
+        for (TemplateField field : values()) {
+            BY_KEY.put(field.key, field);
+        }
+    }
+
+    private final String key;
+
+    TemplateField(String key) {
+        this.key = key;
+    }
+
+    /**
+     * @return שם השדה בתבנית
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @param key שם השדה בתבנית
+     * @return השדה, או null אם אינו מוכר
+     */
+    static TemplateField byKey(String key) {
+        return BY_KEY.get(key);
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.notificationservice.template;
+
+import java.util.Arrays;
+
+/**
+ * ערכי השדות לרינדור הודעה אחת
+ * מערך לפי {@link TemplateField} - ללא reflection וללא מפה. ערך יכול להיות טקסט, מספר, boolean,
+ * או רשימה (של ערכים או של TemplateModel) עבור section שחוזר על עצמו.
+ * המודל של התהליכון נלקח מ-{@link NotificationTemplates#model()} ומשמש שוב בכל הודעה
+ */
+public final class TemplateModel {
+
+    private final Object[] values = new Object[TemplateField.values().length];
+
+    /**
+     * הצבת ערך לשדה
+     *
+     * @param field השדה
+     * @param value הערך
+     * @return המודל, לשרשור
+     */
+    public TemplateModel set(TemplateField field, Object value) {
+        values[field.ordinal()] = value;
+        return this;
+    }
+
+    /**
+     * @param field השדה
+     * @return הערך, או null אם לא הוצב
+     */
+    public Object get(TemplateField field) {
+        return values[field.ordinal()];
+    }
+
+    /**
+     * ניקוי כל הערכים לשימוש חוזר
+     *
+     * @return המודל
+     */
+    public TemplateModel clear() {
+        Arrays.fill(values, null);
+        return this;
+    }
+}
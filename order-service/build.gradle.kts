@@ -12,4 +12,7 @@ dependencies {
     
     // YAML support for OpenAPI generation
     implementation("com.fasterxml.jackson.dataformat:jackson-dataformat-yaml")
+
+    // registry ל-/actuator/prometheus - מדדי ה-pipeline של ההזמנות עם histogram buckets
+    runtimeOnly("io.micrometer:micrometer-registry-prometheus")
 } 
\ No newline at end of file
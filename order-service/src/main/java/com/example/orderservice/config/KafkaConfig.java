@@ -1,6 +1,11 @@
 package com.example.orderservice.config;
 
 import com.example.common.events.InventoryCheckResultEvent;
+import com.example.common.kafka.codec.EventDeserializer;
+import com.example.common.kafka.codec.EventSerializer;
+import com.example.common.kafka.parallel.ParallelConsumerConfigurer;
+import com.example.common.kafka.producer.ProducerBatchingController;
+import com.example.common.kafka.quarantine.QuarantineService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import lombok.extern.slf4j.Slf4j;
@@ -13,8 +18,8 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.*;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
-import org.springframework.kafka.support.serializer.JsonSerializer;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -29,26 +34,35 @@ public class KafkaConfig {
     @Value("${spring.kafka.bootstrap-servers:localhost:9092}")
     private String bootstrapServers;
 
+    @Value("${kafka.codec.format:json}")
+    private String codecFormat;
+
+    @Value("${kafka.codec.registry-path:}")
+    private String schemaRegistryPath;
+
     /**
-     * Producer config (ללא שינוי)
+     * Producer config
+     * linger.ms, batch.size ו-compression.type נקבעים על ידי בקר ה-batching לפי קצב השליחה
      */
     @Bean
-    public ProducerFactory<String, Object> producerFactory() {
+    public ProducerFactory<String, Object> producerFactory(ProducerBatchingController producerBatchingController) {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, EventSerializer.class);
+        configProps.put(EventSerializer.FORMAT_CONFIG, codecFormat);
+        configProps.put(EventSerializer.REGISTRY_PATH_CONFIG, schemaRegistryPath);
         configProps.put(ProducerConfig.ACKS_CONFIG, "all");
         configProps.put(ProducerConfig.RETRIES_CONFIG, 2);
         configProps.put(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG, 5000);
         configProps.put(ProducerConfig.REQUEST_TIMEOUT_MS_CONFIG, 2000);
         log.info("Kafka producer configured - Bootstrap servers: {}", bootstrapServers);
-        return new DefaultKafkaProducerFactory<>(configProps);
+        return producerBatchingController.configure("order-service", new DefaultKafkaProducerFactory<>(configProps));
     }
 
     @Bean
-    public KafkaTemplate<String, Object> kafkaTemplate() {
-        KafkaTemplate<String, Object> template = new KafkaTemplate<>(producerFactory());
+    public KafkaTemplate<String, Object> kafkaTemplate(ProducerFactory<String, Object> producerFactory) {
+        KafkaTemplate<String, Object> template = new KafkaTemplate<>(producerFactory);
         ObjectMapper objectMapper = new ObjectMapper();
         objectMapper.registerModule(new JavaTimeModule());
         template.setDefaultTopic("order-created");
@@ -65,27 +79,34 @@ public class KafkaConfig {
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ConsumerConfig.GROUP_ID_CONFIG, "order-service-group");
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
         props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, true);
         props.put(ConsumerConfig.AUTO_COMMIT_INTERVAL_MS_CONFIG, 1000);
+        // תוצאות מלאי עשויות להגיע מ-producer טרנזקציוני - לא לקרוא הודעות של טרנזקציות שבוטלו
+        props.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
         props.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
         props.put(JsonDeserializer.VALUE_DEFAULT_TYPE, "com.example.common.events.InventoryCheckResultEvent");
+        props.put(EventSerializer.REGISTRY_PATH_CONFIG, schemaRegistryPath);
         log.info("Kafka consumer configured - Bootstrap servers: {}", bootstrapServers);
         return new DefaultKafkaConsumerFactory<>(
                 props,
                 new StringDeserializer(),
-                new JsonDeserializer<>(InventoryCheckResultEvent.class, false)
+                // JSON ובינארי נקראים שניהם - הפורמט מזוהה לכל רשומה
+                new ErrorHandlingDeserializer<>(new EventDeserializer<>(new JsonDeserializer<>(InventoryCheckResultEvent.class, false)))
         );
     }
 
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, InventoryCheckResultEvent> kafkaListenerContainerFactory() {
+    public ConcurrentKafkaListenerContainerFactory<String, InventoryCheckResultEvent> kafkaListenerContainerFactory(
+            ParallelConsumerConfigurer parallelConsumerConfigurer, QuarantineService quarantineService) {
         ConcurrentKafkaListenerContainerFactory<String, InventoryCheckResultEvent> factory =
                 new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory());
         factory.setConcurrency(3);
         factory.setAutoStartup(true);
+        parallelConsumerConfigurer.configure(factory);
+        quarantineService.configure(factory);
         log.info("Kafka listener container factory configured successfully");
         return factory;
     }
@@ -116,6 +116,31 @@ public class OrderController {
             });
     }
     
+    /**
+     * שליפת ציר הזמן של הזמנה לאורך כל השירותים
+     * @param orderId מזהה ההזמנה
+     * @return נקודות הזמן ומשך כל קטע
+     */
+    @GetMapping("/{orderId}/timeline")
+    @Operation(summary = "ציר זמן של הזמנה", description = "מחזיר את נקודות הזמן של ההזמנה בכל השירותים ואת משך כל קטע, לחקירת הזמנות איטיות")
+    public Mono<ResponseEntity<Map<String, Object>>> getOrderTimeline(@Parameter(description = "מזהה ההזמנה") @PathVariable String orderId) {
+        if (!orderService.isTimelineEnabled()) {
+            return Mono.just(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "Order timeline is disabled (orders.lifecycle.timeline.enabled=false)")));
+        }
+
+        return orderService.getOrderTimeline(orderId)
+            .map(timeline -> {
+                log.info("Order timeline retrieved successfully: {}", orderId);
+                return ResponseEntity.ok(timeline);
+            })
+            .defaultIfEmpty(ResponseEntity.notFound().build())
+            .onErrorResume(error -> {
+                log.error("Error retrieving order timeline {}: {}", orderId, error.getMessage());
+                return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+            });
+    }
+
     /**
      * בדיקת מצב המטמון המקומי ומצב Redis
      * @return מידע על מצב המטמון
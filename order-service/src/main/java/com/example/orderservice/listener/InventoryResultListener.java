@@ -2,24 +2,38 @@ package com.example.orderservice.listener;
 
 import com.example.common.events.InventoryCheckResultEvent;
 import com.example.common.enums.OrderStatus;
+import com.example.common.kafka.parallel.ParallelConsumer;
+import com.example.common.lifecycle.OrderLifecycle;
+import com.example.common.models.Order;
 import com.example.common.utils.ValidationUtils;
 import com.example.orderservice.service.OrderService;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.convert.ConversionException;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.annotation.RetryableTopic;
 import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.messaging.converter.MessageConversionException;
 import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.Headers;
 import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.handler.invocation.MethodArgumentResolutionException;
 import org.springframework.retry.annotation.Backoff;
 import org.springframework.stereotype.Component;
 
+import java.util.Map;
+
 /**
  * מאזין לאירועי תוצאות בדיקת מלאי בשירות ההזמנות
  * מעדכן את סטטוס ההזמנה ב-Redis בהתאם לתוצאות הבדיקה
  * כולל מנגנון Dead Letter Queue לטיפול בכשלים
+ * פעיל כש-events.transport הוא kafka; ב-transport אחר InventoryResultReprocessHandler נרשם ל-EventBus
  */
 @Component
+@ConditionalOnProperty(name = "events.transport", havingValue = "kafka", matchIfMissing = true)
 @RequiredArgsConstructor
 @Slf4j
 public class InventoryResultListener {
@@ -35,18 +49,25 @@ public class InventoryResultListener {
      * @param key                  מזהה ההודעה
      * @param topic                שם הטופיק
      * @param partition            מספר הpartition
+     * @param headers              כל ה-headers, לחותמות מחזור החיים של ההזמנה
      */
+    @ParallelConsumer
     @KafkaListener(topics = "inventory-check-result", groupId = "order-service-group")
     @RetryableTopic(
             attempts = "3",
             backoff = @Backoff(delay = 1000, multiplier = 2.0),
-            include = {Exception.class},
+            // אותם סוגים כמו PoisonMessageClassifier - כשל מבני עובר להסגר ולא ל-topics של retry
+            exclude = {DeserializationException.class, MessageConversionException.class, ConversionException.class,
+                    MethodArgumentResolutionException.class, JsonProcessingException.class, ClassCastException.class,
+                    IllegalArgumentException.class},
+            traversingCauses = "true",
             dltTopicSuffix = "-dlq"
     )
     public void handleInventoryCheckResult(@Payload InventoryCheckResultEvent inventoryCheckResult,
                                            @Header(KafkaHeaders.RECEIVED_KEY) String key,
                                            @Header(KafkaHeaders.RECEIVED_TOPIC) String topic,
-                                           @Header(KafkaHeaders.RECEIVED_PARTITION) int partition) {
+                                           @Header(KafkaHeaders.RECEIVED_PARTITION) int partition,
+                                           @Headers Map<String, Object> headers) {
 
         log.info("=== KAFKA EVENT RECEIVED - INVENTORY CHECK RESULT ===");
         log.info("Topic: {}", topic);
@@ -106,25 +127,19 @@ public class InventoryResultListener {
                     inventoryCheckResult.getOrderId(), newStatus);
             
             // עדכון הסטטוס ב-Redis ובמטמון המקומי
-            orderService.updateOrderStatus(inventoryCheckResult.getOrderId(), newStatus)
-                    .subscribe(
-                            updatedOrder -> {
-                                log.info("=== ORDER STATUS UPDATED SUCCESSFULLY ===");
-                                log.info("Order ID: {}", updatedOrder.getOrderId());
-                                log.info("New Status: {}", updatedOrder.getStatus());
-                                log.info("Last Updated: {}", updatedOrder.getLastUpdated());
-                                log.info("Successfully updated order status for order: {}", 
-                                        inventoryCheckResult.getOrderId());
-                            },
-                            error -> {
-                                log.error("=== ORDER STATUS UPDATE FAILED ===");
-                                log.error("Order ID: {}", inventoryCheckResult.getOrderId());
-                                log.error("Error Type: {}", error.getClass().getSimpleName());
-                                log.error("Error Message: {}", error.getMessage());
-                                log.error("Stack Trace:", error);
-                                throw new RuntimeException("Failed to update order status", error);
-                            }
-                    );
+            OrderLifecycle lifecycle = OrderLifecycle.fromHeaders(headers)
+                    .orInventoryDecidedAt(inventoryCheckResult.getEventDateTime());
+            // ממתינים לסיום העדכון כדי שכשל יגיע ל-retry topics וה-offset יישמר רק אחרי העדכון
+            Order updatedOrder = orderService.applyInventoryResult(inventoryCheckResult.getOrderId(), newStatus, lifecycle)
+                    .block();
+            if (ValidationUtils.isNull(updatedOrder)) {
+                log.warn("Order {} not updated - no order returned", inventoryCheckResult.getOrderId());
+            } else {
+                log.info("=== ORDER STATUS UPDATED SUCCESSFULLY ===");
+                log.info("Order ID: {}", updatedOrder.getOrderId());
+                log.info("New Status: {}", updatedOrder.getStatus());
+                log.info("Last Updated: {}", updatedOrder.getLastUpdated());
+            }
             
             log.info("=== INVENTORY RESULT PROCESSING COMPLETED SUCCESSFULLY ===");
             log.info("Successfully processed inventory result for order: {}", 
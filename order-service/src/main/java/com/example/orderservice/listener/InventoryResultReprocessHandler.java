@@ -0,0 +1,45 @@
+package com.example.orderservice.listener;
+
+import com.example.common.enums.OrderStatus;
+import com.example.common.events.InventoryCheckResultEvent;
+import com.example.common.kafka.reprocess.ReprocessHandler;
+import com.example.common.lifecycle.OrderLifecycle;
+import com.example.orderservice.service.OrderService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * עיבוד חוזר ישיר של תוצאות בדיקת מלאי מ-DLQ
+ * מעדכן את סטטוס ההזמנה כמו {@link InventoryResultListener}, וממתין לסיום העדכון
+ * כדי שכשל ייספר בעבודת העיבוד החוזר
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class InventoryResultReprocessHandler implements ReprocessHandler<InventoryCheckResultEvent> {
+
+    private static final Duration UPDATE_TIMEOUT = Duration.ofSeconds(10);
+
+    private final OrderService orderService;
+
+    @Override
+    public String topic() {
+        return "inventory-check-result";
+    }
+
+    @Override
+    public Class<InventoryCheckResultEvent> type() {
+        return InventoryCheckResultEvent.class;
+    }
+
+    @Override
+    public void handle(String key, InventoryCheckResultEvent event) {
+        OrderStatus newStatus = event.isApproved() ? OrderStatus.APPROVED : OrderStatus.REJECTED;
+        OrderLifecycle lifecycle = OrderLifecycle.EMPTY.orInventoryDecidedAt(event.getEventDateTime());
+        orderService.applyInventoryResult(event.getOrderId(), newStatus, lifecycle).block(UPDATE_TIMEOUT);
+        log.info("Reprocessed inventory result for order: {}, status: {}", event.getOrderId(), newStatus);
+    }
+}
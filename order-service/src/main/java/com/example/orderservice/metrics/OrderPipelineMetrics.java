@@ -0,0 +1,88 @@
+package com.example.orderservice.metrics;
+
+import com.example.common.metrics.LatencyTimers;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * מדדי זמן לכל שלב ב-pipeline של ההזמנות: validate → save → publish
+ * timer אחד לכל צירוף של פעולה, שלב ותוצאה (order.pipeline.stage), דרך {@link LatencyTimers}
+ * (ברירת מחדל p50/p99/p999 ו-histogram buckets) - מדידה בנתיב החם היא Timer.Sample בלבד.
+ * כתיבות במצב fallback (מטמון מקומי בלבד) נספרות לפי סיבה ב-order.fallback.writes
+ */
+@Component
+public class OrderPipelineMetrics {
+
+    public static final String OPERATION_CREATE = "create";
+    public static final String OPERATION_UPDATE_STATUS = "update-status";
+
+    public static final String STAGE_VALIDATE = "validate";
+    public static final String STAGE_SAVE = "save";
+    public static final String STAGE_PUBLISH = "publish";
+    public static final String STAGE_DLQ = "dlq";
+    public static final String STAGE_TOTAL = "total";
+
+    public static final String OUTCOME_SUCCESS = "success";
+    public static final String OUTCOME_INVALID = "invalid";
+    public static final String OUTCOME_ERROR = "error";
+    public static final String OUTCOME_REDIS = "redis";
+    public static final String OUTCOME_LOCAL_CACHE = "local-cache";
+    public static final String OUTCOME_DLQ = "dlq";
+
+    public static final String FALLBACK_REDIS_UNAVAILABLE = "redis-unavailable";
+    public static final String FALLBACK_REDIS_ERROR = "redis-error";
+
+    private final MeterRegistry meterRegistry;
+    private final LatencyTimers timers;
+    private final Map<String, Counter> fallbackWrites = new ConcurrentHashMap<>();
+
+    public OrderPipelineMetrics(MeterRegistry meterRegistry,
+                                @Value("${orders.metrics.percentiles:0.5,0.99,0.999}") double[] percentiles,
+                                @Value("${orders.metrics.histogram:true}") boolean histogram,
+                                @Value("${orders.metrics.max-expected-ms:10000}") long maxExpectedMs) {
+        this.meterRegistry = meterRegistry;
+        this.timers = new LatencyTimers(meterRegistry, "order.pipeline.stage",
+                "Latency of each order pipeline stage by outcome", percentiles, histogram, Duration.ofMillis(maxExpectedMs));
+    }
+
+    /**
+     * תחילת מדידה של שלב
+     *
+     * @return ה-sample, לסיום ב-{@link #record}
+     */
+    public Timer.Sample start() {
+        return Timer.start(meterRegistry);
+    }
+
+    /**
+     * סיום מדידה ורישומה לפי פעולה, שלב ותוצאה
+     *
+     * @param sample    ה-sample מ-{@link #start}
+     * @param operation הפעולה (create / update-status)
+     * @param stage     השלב
+     * @param outcome   התוצאה
+     */
+    public void record(Timer.Sample sample, String operation, String stage, String outcome) {
+        sample.stop(timers.timer(operation + '|' + stage + '|' + outcome,
+                "operation", operation, "stage", stage, "outcome", outcome));
+    }
+
+    /**
+     * ספירת הזמנה שנשמרה במטמון המקומי בלבד
+     *
+     * @param reason redis-unavailable (מצב fallback פעיל) או redis-error (השמירה ב-Redis נכשלה)
+     */
+    public void fallbackWrite(String reason) {
+        fallbackWrites.computeIfAbsent(reason, key -> Counter.builder("order.fallback.writes")
+                .description("Orders written to the local cache only")
+                .tag("reason", key)
+                .register(meterRegistry)).increment();
+    }
+}
@@ -3,15 +3,22 @@ package com.example.orderservice.service;
 import com.example.common.enums.OrderStatus;
 import com.example.common.events.OrderCreatedEvent;
 import com.example.common.events.InventoryCheckResultEvent;
+import com.example.common.events.OrderStatusChangedEvent;
+import com.example.common.lifecycle.OrderLifecycle;
+import com.example.common.lifecycle.OrderLifecycleMetrics;
+import com.example.common.lifecycle.OrderTimeline;
 import com.example.common.models.Order;
 import com.example.common.models.OrderRequest;
+import com.example.common.transport.EventBus;
 import com.example.common.utils.ValidationUtils;
+import com.example.orderservice.metrics.OrderPipelineMetrics;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.kafka.support.SendResult;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
@@ -19,7 +26,10 @@ import java.util.HashMap;
 import reactor.core.publisher.Mono;
 
 import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
@@ -39,9 +49,14 @@ public class OrderService {
     
     private final ReactiveRedisTemplate<String, Object> redisTemplate;
     private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final EventBus eventBus;
     private final ObjectMapper objectMapper;
+    private final OrderPipelineMetrics pipelineMetrics;
+    private final OrderLifecycleMetrics lifecycleMetrics;
+    private final OrderTimeline orderTimeline;
     private static final String ORDER_CREATED_TOPIC = "order-created";
     private static final String ORDER_CREATED_DLQ_TOPIC = "order-created-dlq";
+    private static final String ORDER_STATUS_CHANGED_TOPIC = "order-status-changed";
     private static final String ORDER_KEY_PREFIX = "order:";
 
     private final ConcurrentHashMap<String, Order> localCache = new ConcurrentHashMap<>();
@@ -50,10 +65,19 @@ public class OrderService {
     private final AtomicBoolean fallbackMode = new AtomicBoolean(false);
     private static final Duration CACHE_TTL = Duration.ofMinutes(30);
     private static final int MAX_CACHE_SIZE = 1000;
+
+    /**
+     * אסטרטגיית מפתח ה-partition של order-created
+     * order-id (ברירת מחדל) או product - מפתח לפי המוצר הראשון בהזמנה,
+     * כך שהזמנות לאותו מוצר מגיעות לאותו partition ול-shard המתאים בשירות המלאי
+     */
+    @Value("${orders.kafka.partition-key:order-id}")
+    private String partitionKeyStrategy;
     
     /**
      * יצירת הזמנה חדשה
      * מבצעת validation, שומרת ב-Redis (עם fallback למטמון מקומי) ומפרסמת אירוע ל-Kafka
+     * כל שלב נמדד ב-{@link OrderPipelineMetrics} לפי תוצאה, וכך גם ה-pipeline כולו
      * @param orderRequest פרטי ההזמנה
      * @return ההזמנה החדשה
      */
@@ -62,13 +86,30 @@ public class OrderService {
                 orderRequest.getCustomerName(), orderRequest.getRequestId(), 
                 ValidationUtils.isNotEmpty(orderRequest.getItems()) ? orderRequest.getItems().size() : 0);
         
-        return Mono.fromCallable(() -> {
-            Order validatedOrder = validateAndCreateOrder(orderRequest);
-            log.info("Order validation completed successfully - Order ID: {}", validatedOrder.getOrderId());
-            return validatedOrder;
+        return Mono.defer(() -> {
+            Timer.Sample total = pipelineMetrics.start();
+            return Mono.fromCallable(() -> {
+                Timer.Sample validation = pipelineMetrics.start();
+                try {
+                    Order validatedOrder = validateAndCreateOrder(orderRequest);
+                    pipelineMetrics.record(validation, OrderPipelineMetrics.OPERATION_CREATE,
+                            OrderPipelineMetrics.STAGE_VALIDATE, OrderPipelineMetrics.OUTCOME_SUCCESS);
+                    log.info("Order validation completed successfully - Order ID: {}", validatedOrder.getOrderId());
+                    return validatedOrder;
+                } catch (IllegalArgumentException e) {
+                    pipelineMetrics.record(validation, OrderPipelineMetrics.OPERATION_CREATE,
+                            OrderPipelineMetrics.STAGE_VALIDATE, OrderPipelineMetrics.OUTCOME_INVALID);
+                    throw e;
+                }
+            })
+            .flatMap(order -> saveOrder(order, OrderPipelineMetrics.OPERATION_CREATE))
+            .flatMap(this::publishOrderCreatedEvent)
+            .doOnSuccess(order -> pipelineMetrics.record(total, OrderPipelineMetrics.OPERATION_CREATE,
+                    OrderPipelineMetrics.STAGE_TOTAL, OrderPipelineMetrics.OUTCOME_SUCCESS))
+            .doOnError(error -> pipelineMetrics.record(total, OrderPipelineMetrics.OPERATION_CREATE,
+                    OrderPipelineMetrics.STAGE_TOTAL, error instanceof IllegalArgumentException
+                            ? OrderPipelineMetrics.OUTCOME_INVALID : OrderPipelineMetrics.OUTCOME_ERROR));
         })
-        .flatMap(this::saveOrder)
-        .flatMap(this::publishOrderCreatedEvent)
         .doOnSuccess(order -> {
             log.info("Order creation completed successfully: {} - Customer: {}, Status: {}", 
                     order.getOrderId(), order.getCustomerName(), order.getStatus());
@@ -198,13 +239,93 @@ public class OrderService {
 
         return getOrder(orderId)
             .flatMap(order -> {
+                OrderStatus previousStatus = order.getStatus();
                 order.setStatus(status);
                 order.setLastUpdated(LocalDateTime.now());
-                return saveOrder(order);
+                return saveOrder(order, OrderPipelineMetrics.OPERATION_UPDATE_STATUS)
+                    .doOnSuccess(saved -> publishOrderStatusChangedEvent(saved, previousStatus));
             })
             .doOnSuccess(order -> log.info("Order status updated successfully: {} -> {}", orderId, status))
             .doOnError(error -> log.error("Error updating order status {}: {}", orderId, error.getMessage()));
     }
+
+    /**
+     * עדכון סטטוס הזמנה לפי תוצאת בדיקת מלאי
+     * אחרי שהסטטוס נשמר נרשמים קטעי מחזור החיים שמסתיימים בהחלתו ונקודת status-applied בציר הזמן
+     * @param orderId מזהה ההזמנה
+     * @param status הסטטוס החדש
+     * @param lifecycle חותמות מחזור החיים שהגיעו עם התוצאה
+     * @return ההזמנה המעודכנת
+     */
+    public Mono<Order> applyInventoryResult(String orderId, OrderStatus status, OrderLifecycle lifecycle) {
+        return updateOrderStatus(orderId, status)
+            .doOnSuccess(order -> {
+                if (ValidationUtils.isNull(order)) {
+                    return;
+                }
+                long appliedAt = System.currentTimeMillis();
+                lifecycleMetrics.record(OrderLifecycleMetrics.HOP_RESULT_TO_STATUS_APPLIED, lifecycle.getInventoryDecidedAt(), appliedAt);
+                lifecycleMetrics.record(OrderLifecycleMetrics.HOP_CREATE_TO_STATUS_APPLIED, lifecycle.getCreatedAt(), appliedAt);
+                orderTimeline.mark(orderId, Map.of(OrderTimeline.STATUS_APPLIED, appliedAt));
+            });
+    }
+
+    /**
+     * שליפת ציר הזמן של הזמנה - לחקירת הזמנות איטיות
+     * נקודות הזמן מכל השירותים לפי סדר התרחשותן, ומשך כל קטע במילישניות;
+     * קטע שאחת מנקודותיו חסרה (למשל הודעה שעדיין לא נשלחה) אינו מוחזר
+     * @param orderId מזהה ההזמנה
+     * @return ציר הזמן, או ריק אם אין להזמנה ציר זמן
+     */
+    public Mono<Map<String, Object>> getOrderTimeline(String orderId) {
+        if (ValidationUtils.isEmpty(orderId)) {
+            return Mono.error(new IllegalArgumentException("Order ID cannot be null or empty"));
+        }
+
+        return orderTimeline.get(orderId)
+            .map(marks -> {
+                Map<String, LocalDateTime> events = new LinkedHashMap<>();
+                marks.entrySet().stream()
+                    .sorted(Map.Entry.comparingByValue())
+                    .forEach(mark -> events.put(mark.getKey(),
+                            LocalDateTime.ofInstant(Instant.ofEpochMilli(mark.getValue()), ZoneId.systemDefault())));
+
+                Map<String, Long> hops = new LinkedHashMap<>();
+                putHop(hops, "publish", marks, OrderTimeline.CREATED, OrderTimeline.PUBLISHED);
+                putHop(hops, OrderLifecycleMetrics.HOP_CREATE_TO_INVENTORY, marks, OrderTimeline.CREATED, OrderTimeline.INVENTORY_RECEIVED);
+                putHop(hops, OrderLifecycleMetrics.HOP_INVENTORY_PROCESSING, marks, OrderTimeline.INVENTORY_RECEIVED, OrderTimeline.INVENTORY_DECIDED);
+                putHop(hops, OrderLifecycleMetrics.HOP_RESULT_TO_STATUS_APPLIED, marks, OrderTimeline.INVENTORY_DECIDED, OrderTimeline.STATUS_APPLIED);
+                putHop(hops, OrderLifecycleMetrics.HOP_RESULT_TO_NOTIFIED, marks, OrderTimeline.INVENTORY_DECIDED, OrderTimeline.NOTIFIED);
+
+                Map<String, Object> result = new LinkedHashMap<>();
+                result.put("orderId", orderId);
+                result.put("events", events);
+                result.put("hopsMs", hops);
+                hops.entrySet().stream()
+                    .max(Map.Entry.comparingByValue())
+                    .ifPresent(slowest -> result.put("slowestHop", slowest.getKey()));
+                Long createdAt = marks.get(OrderTimeline.CREATED);
+                if (ValidationUtils.isNotNull(createdAt)) {
+                    result.put("totalMs", marks.values().stream().mapToLong(Long::longValue).max().getAsLong() - createdAt);
+                }
+                return result;
+            });
+    }
+
+    /**
+     * @return האם ציר הזמן של ההזמנות נרשם
+     */
+    public boolean isTimelineEnabled() {
+        return orderTimeline.isEnabled();
+    }
+
+    private static void putHop(Map<String, Long> hops, String hop, Map<String, Long> marks, String from, String to) {
+        Long start = marks.get(from);
+        Long end = marks.get(to);
+        if (ValidationUtils.isNotNull(start) && ValidationUtils.isNotNull(end)) {
+            hops.put(hop, end - start);
+        }
+    }
     
     /**
      * אימות ויצירת הזמנה
@@ -246,16 +367,20 @@ public class OrderService {
     
     /**
      * שמירת הזמנה ב-Redis עם fallback למטמון מקומי
-     * מבצעת שמירה עם TTL
+     * מבצעת שמירה עם TTL; משך השמירה נמדד לפי היעד בפועל - Redis או המטמון המקומי בלבד
      * @param order ההזמנה לשמירה
+     * @param operation הפעולה, לתיוג המדידה
      * @return Mono של ההזמנה
      */
-    private Mono<Order> saveOrder(Order order) {
+    private Mono<Order> saveOrder(Order order, String operation) {
         String key = ORDER_KEY_PREFIX + order.getOrderId();
+        Timer.Sample sample = pipelineMetrics.start();
         saveToLocalCache(order);
         
         if (!redisAvailable.get()) {
             log.info("Redis unavailable - Order saved to local cache only: {}", order.getOrderId());
+            pipelineMetrics.fallbackWrite(OrderPipelineMetrics.FALLBACK_REDIS_UNAVAILABLE);
+            pipelineMetrics.record(sample, operation, OrderPipelineMetrics.STAGE_SAVE, OrderPipelineMetrics.OUTCOME_LOCAL_CACHE);
             return Mono.just(order);
         }
         
@@ -265,6 +390,7 @@ public class OrderService {
             .map(success -> {
                 if (success) {
                     log.info("Order saved successfully to Redis: {}", order.getOrderId());
+                    pipelineMetrics.record(sample, operation, OrderPipelineMetrics.STAGE_SAVE, OrderPipelineMetrics.OUTCOME_REDIS);
                     return order;
                 } else {
                     throw new RuntimeException("Failed to save order to Redis");
@@ -274,6 +400,8 @@ public class OrderService {
                 log.error("Error saving order to Redis: {}", error.getMessage());
                 handleRedisError(error);
                 log.info("Order saved to local cache as fallback: {}", order.getOrderId());
+                pipelineMetrics.fallbackWrite(OrderPipelineMetrics.FALLBACK_REDIS_ERROR);
+                pipelineMetrics.record(sample, operation, OrderPipelineMetrics.STAGE_SAVE, OrderPipelineMetrics.OUTCOME_LOCAL_CACHE);
                 return Mono.just(order);
             });
     }
@@ -392,8 +520,11 @@ public class OrderService {
     }
     
     /**
-     * פרסום אירוע יצירת הזמנה ל-Kafka
+     * פרסום אירוע יצירת הזמנה דרך ה-EventBus (Kafka / Redis Streams / in-memory לפי events.transport)
      * מפרסמת אירוע עם מנגנון DLQ
+     * שלב ה-publish נמדד עד אישור ה-transport (success) או עד הכשל שמעביר ל-DLQ (dlq);
+     * הפרסום ל-DLQ עצמו נמדד בנפרד כשלב dlq
+     * זמני היצירה והפרסום עוברים ב-headers של מחזור החיים ונרשמים בציר הזמן של ההזמנה
      * @param order ההזמנה
      * @return Mono של ההזמנה
      */
@@ -407,15 +538,24 @@ public class OrderService {
             LocalDateTime.now()
         );
         
+        long createdAt = OrderLifecycle.toMillis(order.getCreatedAt());
         return Mono.fromFuture(() -> {
-            CompletableFuture<SendResult<String, Object>> future = kafkaTemplate.send(ORDER_CREATED_TOPIC, order.getOrderId(), event);
+            Timer.Sample sample = pipelineMetrics.start();
+            long publishedAt = System.currentTimeMillis();
+            Map<String, byte[]> headers = new OrderLifecycle(createdAt, publishedAt, 0, 0).toHeaders();
+            CompletableFuture<Void> future = eventBus.publish(ORDER_CREATED_TOPIC, resolvePartitionKey(order), event, headers);
             
             return future.handle((result, throwable) -> {
                 if (throwable != null) {
-                    log.error("Failed to publish order created event to Kafka: {}", throwable.getMessage());
+                    pipelineMetrics.record(sample, OrderPipelineMetrics.OPERATION_CREATE,
+                            OrderPipelineMetrics.STAGE_PUBLISH, OrderPipelineMetrics.OUTCOME_DLQ);
+                    log.error("Failed to publish order created event via {}: {}", eventBus.transport(), throwable.getMessage());
+                    Timer.Sample dlqSample = pipelineMetrics.start();
                     try {
-                        CompletableFuture<SendResult<String, Object>> dlqFuture = kafkaTemplate.send(ORDER_CREATED_DLQ_TOPIC, order.getOrderId(), event);
+                        CompletableFuture<Void> dlqFuture = eventBus.publish(ORDER_CREATED_DLQ_TOPIC, order.getOrderId(), event, headers);
                         dlqFuture.whenComplete((dlqResult, dlqError) -> {
+                            pipelineMetrics.record(dlqSample, OrderPipelineMetrics.OPERATION_CREATE, OrderPipelineMetrics.STAGE_DLQ,
+                                    dlqError != null ? OrderPipelineMetrics.OUTCOME_ERROR : OrderPipelineMetrics.OUTCOME_SUCCESS);
                             if (dlqError != null) {
                                 log.error("Failed to send to DLQ: {}", dlqError.getMessage());
                             } else {
@@ -423,16 +563,61 @@ public class OrderService {
                             }
                         });
                     } catch (Exception dlqException) {
+                        pipelineMetrics.record(dlqSample, OrderPipelineMetrics.OPERATION_CREATE,
+                                OrderPipelineMetrics.STAGE_DLQ, OrderPipelineMetrics.OUTCOME_ERROR);
                         log.error("Error sending to DLQ: {}", dlqException.getMessage());
                     }
                     
                     log.warn("Order created but event failed to publish, continuing with graceful");
+                    orderTimeline.mark(order.getOrderId(), Map.of(OrderTimeline.CREATED, createdAt));
                     return order;
                 } else {
+                    pipelineMetrics.record(sample, OrderPipelineMetrics.OPERATION_CREATE,
+                            OrderPipelineMetrics.STAGE_PUBLISH, OrderPipelineMetrics.OUTCOME_SUCCESS);
                     log.info("Order created event published successfully: {}", order.getOrderId());
+                    orderTimeline.mark(order.getOrderId(), Map.of(OrderTimeline.CREATED, createdAt, OrderTimeline.PUBLISHED, publishedAt));
                     return order;
                 }
             });
         });
     }
-} 
\ No newline at end of file
+
+    /**
+     * פרסום אירוע שינוי סטטוס הזמנה ל-Kafka
+     * שירות המלאי מאשר או משחרר את שמירת המלאי לפי הסטטוס החדש.
+     * כשל בפרסום נרשם בלוג בלבד - שמירה שלא אושרה תפקע ותשוחרר
+     * @param order          ההזמנה המעודכנת
+     * @param previousStatus הסטטוס הקודם
+     */
+    private void publishOrderStatusChangedEvent(Order order, OrderStatus previousStatus) {
+        OrderStatusChangedEvent event = new OrderStatusChangedEvent(
+            order.getOrderId(),
+            previousStatus,
+            order.getStatus(),
+            LocalDateTime.now()
+        );
+
+        kafkaTemplate.send(ORDER_STATUS_CHANGED_TOPIC, order.getOrderId(), event)
+            .whenComplete((result, throwable) -> {
+                if (throwable != null) {
+                    log.error("Failed to publish order status changed event for order {}: {}", order.getOrderId(), throwable.getMessage());
+                } else {
+                    log.debug("Order status changed event published: {} {} -> {}", order.getOrderId(), previousStatus, order.getStatus());
+                }
+            });
+    }
+
+    /**
+     * קביעת מפתח ה-partition עבור אירוע יצירת הזמנה
+     * @param order ההזמנה
+     * @return מפתח ה-partition
+     */
+    private String resolvePartitionKey(Order order) {
+        if ("product".equalsIgnoreCase(partitionKeyStrategy) && ValidationUtils.isNotEmpty(order.getItems())
+                && ValidationUtils.isNotNull(order.getItems().get(0))
+                && ValidationUtils.hasText(order.getItems().get(0).getProductId())) {
+            return order.getItems().get(0).getProductId();
+        }
+        return order.getOrderId();
+    }
+}
@@ -3,4 +3,5 @@ rootProject.name = "home-assign"
 include("common")
 include("order-service")
 include("inventory-service")
-include("notification-service")
\ No newline at end of file
+include("notification-service")
+include("all-in-one")